@@ -0,0 +1,114 @@
+package com.xus.UploadJar2Nexus;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpPut;
+import org.apache.http.entity.ContentType;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.util.EntityUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * 发送请求体的开销
+ * writeTo：FileBodyEntity写入一个丢弃数据的输出流，只测读取文件和摘要计算；
+ * put：通过HttpClient发送到进程内的替身服务器，包括回环网络和HTTP处理。
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BodySendBenchmark {
+
+    @Param({"65536", "8388608"})
+    public int fileSize;
+
+    // none：不计算摘要（transferTo）；sha1：只计算上传日志需要的SHA-1；all：计算全部校验文件的摘要
+    @Param({"none", "sha1", "all"})
+    public String digests;
+
+    private File file;
+    private StubNexusServer server;
+    private CloseableHttpClient httpClient;
+
+    @Setup
+    public void setUp() throws IOException {
+        file = File.createTempFile("body-bench", ".jar");
+        try (RandomAccessFile out = new RandomAccessFile(file, "rw")) {
+            out.setLength(fileSize);
+        }
+        server = new StubNexusServer(0, 8);
+        httpClient = HttpClients.custom().setMaxConnPerRoute(8).build();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        httpClient.close();
+        server.close();
+        if (!file.delete()) {
+            file.deleteOnExit();
+        }
+    }
+
+    private FileBodyEntity newEntity() {
+        FileBodyEntity entity = new FileBodyEntity(file, ContentType.create("application/java-archive"));
+        if ("sha1".equals(digests)) {
+            entity.setDigestAlgorithms("SHA-1");
+        } else if ("all".equals(digests)) {
+            entity.setDigestAlgorithms(Digests.CHECKSUM_EXTENSIONS.keySet().toArray(new String[0]));
+        }
+        return entity;
+    }
+
+    @Benchmark
+    public long writeTo() throws IOException {
+        CountingOutputStream out = new CountingOutputStream();
+        newEntity().writeTo(out);
+        return out.count;
+    }
+
+    @Benchmark
+    public int put() throws IOException {
+        HttpPut request = new HttpPut(server.getRepositoryUrl() + "bench/body.jar");
+        request.setEntity(newEntity());
+        try (CloseableHttpResponse response = httpClient.execute(request)) {
+            EntityUtils.consume(response.getEntity());
+            return response.getStatusLine().getStatusCode();
+        }
+    }
+
+    /**
+     * 只计数、不保存数据的输出流
+     */
+    private static final class CountingOutputStream extends OutputStream {
+        long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+}
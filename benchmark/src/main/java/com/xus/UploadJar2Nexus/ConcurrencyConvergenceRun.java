@@ -0,0 +1,119 @@
+package com.xus.UploadJar2Nexus;
+
+import java.nio.file.Files;
+
+/**
+ * 并发收敛测试：替身服务器同时处理的请求超过阈值时返回503，检查自适应并发限制器能否把并发稳定在阈值附近
+ * 以自适应并发（并发上限的最大值远大于阈值）完整运行一次上传，每10毫秒采样一次服务器上正在处理的请求数，
+ * 去掉开始的爬升阶段后计算平均值。AIMD在阈值处减半、之后逐步回升，平均并发应在阈值的一半到阈值之间
+ * （理想的锯齿约为阈值的3/4），被拒绝的请求只占很小的比例；不满足时以状态码1退出。
+ * 默认不更新maven-metadata.xml，上传结束后的元数据阶段不计入上传阶段的平均并发。
+ *
+ * 系统属性：
+ *   bench.threshold 替身服务器的并发阈值，默认16
+ *   bench.latencyMs 每个请求的延迟，默认20
+ *   bench.groups 仓库规模（groupId数，每组10个构件、每个构件5个版本），默认20
+ *   bench.warmupMs 不计入平均值的爬升阶段，默认2000
+ * 命令行参数原样作为上传程序的可选参数（例如--engine=async）。
+ */
+public class ConcurrencyConvergenceRun {
+    // 被拒绝的请求占全部请求的比例上限；阈值很小时锯齿周期短，被拒绝的比例较高（阈值6时约5%）
+    private static final double MAX_REJECTED_RATIO = 0.08;
+
+    public static void main(String[] args) throws Exception {
+        int threshold = Integer.getInteger("bench.threshold", 16);
+        long warmupMillis = Long.getLong("bench.warmupMs", 2000);
+        SyntheticRepository repository = new SyntheticRepository(Files.createTempDirectory("convergence-bench"),
+                Integer.getInteger("bench.groups", 20), 10, 5, 16 * 1024, 1024 * 1024);
+        repository.generate();
+        System.out.printf("Repository: %d files, %.1f MB%n", repository.getFiles(), repository.getBytes() / 1048576.0);
+
+        boolean converged;
+        try (StubNexusServer server = new StubNexusServer(0, 256)) {
+            server.withLatency(Long.getLong("bench.latencyMs", 20)).withConcurrencyThreshold(threshold);
+            UploadJar2NexusRunner runner = new UploadJar2NexusRunner(repository.getRoot().toString(),
+                    server.getRepositoryUrl(), "admin", "admin123", false);
+            runner.applyOption("--journal=off");
+            runner.applyOption("--dead-letter=off");
+            runner.applyOption("--adaptive=true");
+            runner.applyOption("--metadata=false");
+            for (String arg : args) {
+                runner.applyOption(arg);
+            }
+            Sampler sampler = new Sampler(server, warmupMillis);
+            sampler.start();
+            long start = System.nanoTime();
+            runner.start();
+            double seconds = (System.nanoTime() - start) / 1e9;
+            sampler.finish();
+
+            double average = sampler.average();
+            double rejectedRatio = (double) server.getRejectedRequests() / Math.max(1, server.getReceivedRequests());
+            System.out.printf("threshold %d: %d files in %.2f s - %.1f files/s, server concurrency average %.1f, "
+                    + "peak %d, requests %d, rejected %d (%.2f%%)%n",
+                    threshold, server.getReceivedFiles(), seconds, server.getReceivedFiles() / seconds, average,
+                    sampler.peak(), server.getReceivedRequests(), server.getRejectedRequests(), rejectedRatio * 100);
+            converged = average >= threshold * 0.5 && average <= threshold && rejectedRatio <= MAX_REJECTED_RATIO
+                    && server.getReceivedFiles() == repository.getFiles();
+        } finally {
+            repository.delete();
+        }
+        System.out.println(converged ? "CONVERGED" : "NOT CONVERGED");
+        if (!converged) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * 定期读取服务器上正在处理的请求数
+     */
+    private static final class Sampler extends Thread {
+        private final StubNexusServer server;
+        private final long warmupMillis;
+        private volatile boolean running = true;
+        private long samples;
+        private long total;
+        private int peak;
+
+        Sampler(StubNexusServer server, long warmupMillis) {
+            super("concurrency-sampler");
+            setDaemon(true);
+            this.server = server;
+            this.warmupMillis = warmupMillis;
+        }
+
+        @Override
+        public void run() {
+            long start = System.currentTimeMillis();
+            while (running) {
+                int active = server.getActiveRequests();
+                synchronized (this) {
+                    peak = Math.max(peak, active);
+                    if (System.currentTimeMillis() - start >= warmupMillis) {
+                        samples++;
+                        total += active;
+                    }
+                }
+                try {
+                    Thread.sleep(10);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }
+
+        void finish() throws InterruptedException {
+            running = false;
+            interrupt();
+            join();
+        }
+
+        synchronized double average() {
+            return samples == 0 ? 0 : (double) total / samples;
+        }
+
+        synchronized int peak() {
+            return peak;
+        }
+    }
+}
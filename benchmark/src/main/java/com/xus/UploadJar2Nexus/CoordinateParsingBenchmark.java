@@ -0,0 +1,58 @@
+package com.xus.UploadJar2Nexus;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * 从仓库相对路径解析构件坐标的开销，每次调用处理一个文件
+ * 路径中包含带分类器的文件和时间戳快照，覆盖解析的各个分支
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CoordinateParsingBenchmark {
+    private static final int PATHS = 1024;
+    private static final String[] SUFFIXES = {".jar", ".pom", "-tests.jar", ".module"};
+
+    private String[] paths;
+    private String[] fileNames;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        paths = new String[PATHS];
+        fileNames = new String[PATHS];
+        for (int i = 0; i < PATHS; i++) {
+            String version = "1." + (i % 7) + ".0" + (i % 11 == 0 ? "-SNAPSHOT" : "");
+            String fileVersion = i % 11 == 0 ? "1." + (i % 7) + ".0-20240101.120000-" + (i % 3 + 1) : version;
+            String artifactId = "artifact" + (i % 31);
+            fileNames[i] = artifactId + "-" + fileVersion + SUFFIXES[i % SUFFIXES.length];
+            paths[i] = "org/example" + (i % 5) + "/module" + (i % 13) + "/" + artifactId + "/" + version + "/"
+                    + fileNames[i];
+        }
+    }
+
+    @Benchmark
+    public void parseCoordinates(Blackhole blackhole) {
+        blackhole.consume(MavenCoordinates.parse(paths[next++ & (PATHS - 1)]));
+    }
+
+    @Benchmark
+    public void artifactType(Blackhole blackhole) {
+        blackhole.consume(RepositoryScanner.artifactType(fileNames[next++ & (PATHS - 1)]));
+    }
+}
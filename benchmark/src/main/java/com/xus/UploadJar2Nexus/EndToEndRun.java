@@ -0,0 +1,204 @@
+package com.xus.UploadJar2Nexus;
+
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 端到端测试：生成合成仓库，启动进程内替身服务器，完整运行一次UploadJar2NexusRunner
+ * 输出文件数/秒、MB/秒、上传程序线程的内存分配速率和GC次数，不需要网络和真实的Nexus。
+ *
+ * 命令行参数原样作为上传程序的可选参数（例如--engine=async），默认不使用上传日志。
+ * 仓库和替身服务器通过系统属性调整：
+ *   bench.groups / bench.artifacts / bench.versions 仓库规模，默认200/10/5
+ *   bench.medianKB / bench.maxMB JAR大小中位数和上限，默认64KB/64MB
+ *   bench.latencyMs / bench.errorRate / bench.bandwidthMB 替身服务器的延迟、503比例和每连接带宽（MB/s）
+ *   bench.componentsApi 替身服务器是否提供组件上传接口，默认true（配合--upload-mode=component）
+ *   bench.runs 运行次数，默认3，第一次作为预热不计入结果
+ *   bench.mirror 为true时另启动一个替身服务器提供仓库内容，以镜像模式从该服务器上传，默认false
+ *   bench.assetIndex 替身服务器是否记录收到的文件并响应.sha1和搜索接口，默认false；
+ *                    配合--precheck=true时第一次运行上传全部文件，之后的运行全部由预检跳过
+ *   bench.searchApi 打开资产索引时是否提供搜索接口，默认true；为false时预检逐个读取.sha1
+ */
+public class EndToEndRun {
+
+    public static void main(String[] args) throws Exception {
+        int runs = Integer.getInteger("bench.runs", 3);
+        SyntheticRepository repository = new SyntheticRepository(Files.createTempDirectory("e2e-bench"),
+                Integer.getInteger("bench.groups", 200),
+                Integer.getInteger("bench.artifacts", 10),
+                Integer.getInteger("bench.versions", 5),
+                Long.getLong("bench.medianKB", 64) * 1024,
+                Long.getLong("bench.maxMB", 64) * 1024 * 1024);
+        System.out.println("Generating synthetic repository in " + repository.getRoot());
+        repository.generate();
+        System.out.printf("Repository: %d files, %.1f MB%n", repository.getFiles(), repository.getBytes() / 1048576.0);
+
+        boolean mirror = Boolean.getBoolean("bench.mirror");
+        try (StubNexusServer server = new StubNexusServer(0, 256);
+                StubNexusServer source = mirror ? new StubNexusServer(0, 256).withContent(repository.getRoot()) : null) {
+            server.withLatency(Long.getLong("bench.latencyMs", 0))
+                    .withErrorRate(Double.parseDouble(System.getProperty("bench.errorRate", "0")))
+                    .withBandwidth((long) (Double.parseDouble(System.getProperty("bench.bandwidthMB", "0")) * 1048576))
+                    .withComponentsApi(Boolean.parseBoolean(System.getProperty("bench.componentsApi", "true")))
+                    .withAssetIndex(Boolean.getBoolean("bench.assetIndex"))
+                    .withSearchApi(Boolean.parseBoolean(System.getProperty("bench.searchApi", "true")));
+            for (int run = 0; run < runs; run++) {
+                server.resetCounters();
+                Result result = runOnce(source != null ? source.getRepositoryUrl() : repository.getRoot().toString(),
+                        server, args);
+                System.out.printf("%s run %d: %d files in %.2f s - %.1f files/s, %.1f MB/s, "
+                        + "allocated %.1f MB (%.1f MB/s), GC %d (%d ms), checksum files %d, metadata files %d, rejected %d, "
+                        + "requests %d, components %d, search requests %d, checksum GETs %d%n",
+                        run == 0 && runs > 1 ? "warm-up" : "measured", run, server.getReceivedFiles(),
+                        result.seconds, server.getReceivedFiles() / result.seconds,
+                        server.getReceivedBytes() / 1048576.0 / result.seconds,
+                        result.allocatedBytes / 1048576.0, result.allocatedBytes / 1048576.0 / result.seconds,
+                        result.gcCount, result.gcMillis, server.getReceivedChecksums(), server.getReceivedMetadata(),
+                        server.getRejectedRequests(), server.getReceivedRequests(), server.getReceivedComponents(),
+                        server.getSearchRequests(), server.getChecksumRequests());
+                // 资产索引保留上一次运行上传的文件，预检之后不需要再上传
+                long expected = result.precheck && Boolean.getBoolean("bench.assetIndex") && run > 0
+                        ? 0 : repository.getFiles();
+                if (server.getReceivedFiles() != expected) {
+                    System.out.println("WARNING: expected " + expected + " files");
+                }
+            }
+        } finally {
+            repository.delete();
+        }
+    }
+
+    private static Result runOnce(String repositoryPath, StubNexusServer server, String[] args)
+            throws InterruptedException {
+        UploadJar2NexusRunner runner = new UploadJar2NexusRunner(repositoryPath,
+                server.getRepositoryUrl(), "admin", "admin123", false);
+        runner.applyOption("--journal=off");
+        for (String arg : args) {
+            runner.applyOption(arg);
+        }
+        AllocationSampler sampler = new AllocationSampler();
+        long gcCount = gcCount();
+        long gcMillis = gcMillis();
+        sampler.start();
+        long start = System.nanoTime();
+        runner.start();
+        Result result = new Result();
+        result.precheck = runner.getOptions().remotePrecheck;
+        result.seconds = (System.nanoTime() - start) / 1e9;
+        sampler.finish();
+        result.allocatedBytes = sampler.total();
+        result.gcCount = gcCount() - gcCount;
+        result.gcMillis = gcMillis() - gcMillis;
+        return result;
+    }
+
+    private static long gcCount() {
+        long total = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            total += Math.max(0, gc.getCollectionCount());
+        }
+        return total;
+    }
+
+    private static long gcMillis() {
+        long total = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            total += Math.max(0, gc.getCollectionTime());
+        }
+        return total;
+    }
+
+    private static final class Result {
+        double seconds;
+        boolean precheck;
+        long allocatedBytes;
+        long gcCount;
+        long gcMillis;
+    }
+
+    /**
+     * 定期读取各线程的累计分配字节数，排除替身服务器和采样线程本身
+     * 线程在两次采样之间结束时会漏掉最后一段分配，上传程序的线程贯穿整个运行过程，影响很小
+     */
+    private static final class AllocationSampler extends Thread {
+        private final com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        private final Map<Long, Long> baseline = new HashMap<>();
+        private final Map<Long, Long> latest = new HashMap<>();
+        private volatile boolean running = true;
+        private boolean firstSample = true;
+
+        AllocationSampler() {
+            super("allocation-sampler");
+            setDaemon(true);
+            threads.setThreadAllocatedMemoryEnabled(true);
+        }
+
+        @Override
+        public void run() {
+            while (running) {
+                sample();
+                try {
+                    Thread.sleep(100);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }
+
+        @Override
+        public synchronized void start() {
+            // 在调用线程中先采样一次作为基线，避免把启动前的分配计入
+            sample();
+            super.start();
+        }
+
+        void finish() throws InterruptedException {
+            running = false;
+            interrupt();
+            join();
+            sample();
+        }
+
+        private synchronized void sample() {
+            List<Long> ids = new ArrayList<>();
+            for (Thread thread : Thread.getAllStackTraces().keySet()) {
+                String name = thread.getName();
+                if (thread == this || name.startsWith("stub-nexus") || name.startsWith("HTTP-Dispatcher")) {
+                    continue;
+                }
+                ids.add(thread.getId());
+            }
+            long[] idArray = new long[ids.size()];
+            for (int i = 0; i < idArray.length; i++) {
+                idArray[i] = ids.get(i);
+            }
+            long[] allocated = threads.getThreadAllocatedBytes(idArray);
+            for (int i = 0; i < idArray.length; i++) {
+                if (allocated[i] < 0) {
+                    continue;
+                }
+                if (!baseline.containsKey(idArray[i])) {
+                    // 开始前已有的线程从当前值开始计算，运行中新建的线程从0开始
+                    baseline.put(idArray[i], firstSample ? allocated[i] : 0L);
+                }
+                latest.put(idArray[i], allocated[i]);
+            }
+            firstSample = false;
+        }
+
+        synchronized long total() {
+            long total = 0;
+            for (Map.Entry<Long, Long> entry : latest.entrySet()) {
+                total += entry.getValue() - baseline.get(entry.getKey());
+            }
+            return total;
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.xus.UploadJar2Nexus;
+
+import java.nio.file.Files;
+
+/**
+ * 阻塞引擎与异步引擎的对比：同一个合成仓库、同样的固定并发上限，替身服务器为每个请求注入延迟
+ * 依次以--engine=blocking和--engine=async完整运行上传，输出文件数/秒和上传程序使用的线程数峰值
+ * （每20毫秒采样一次存活线程，不含替身服务器和采样线程）。每个引擎先运行一次预热，第二次计入结果。
+ * 延迟越高，维持同样的在途请求数时阻塞引擎需要的线程越多，异步引擎的线程数不变。
+ * 默认不更新maven-metadata.xml，只比较文件和校验文件的上传。
+ *
+ * 系统属性：
+ *   bench.groups 仓库规模（groupId数，每组10个构件、每个构件5个版本），默认20
+ *   bench.latencyMs 每个请求的延迟，默认50
+ *   bench.concurrency 两个引擎共用的固定并发上限（关闭自适应），默认64
+ * 命令行参数原样作为上传程序的可选参数。
+ */
+public class EngineComparisonRun {
+    private static final String[] ENGINES = {"blocking", "async"};
+
+    public static void main(String[] args) throws Exception {
+        int concurrency = Integer.getInteger("bench.concurrency", 64);
+        SyntheticRepository repository = new SyntheticRepository(Files.createTempDirectory("engine-bench"),
+                Integer.getInteger("bench.groups", 20), 10, 5, 16 * 1024, 1024 * 1024);
+        repository.generate();
+        System.out.printf("Repository: %d files, %.1f MB%n", repository.getFiles(), repository.getBytes() / 1048576.0);
+
+        try (StubNexusServer server = new StubNexusServer(0, 512)) {
+            server.withLatency(Long.getLong("bench.latencyMs", 50));
+            for (String engine : ENGINES) {
+                for (int run = 0; run < 2; run++) {
+                    server.resetCounters();
+                    UploadJar2NexusRunner runner = new UploadJar2NexusRunner(repository.getRoot().toString(),
+                            server.getRepositoryUrl(), "admin", "admin123", false);
+                    runner.applyOption("--journal=off");
+                    runner.applyOption("--dead-letter=off");
+                    runner.applyOption("--engine=" + engine);
+                    runner.applyOption("--adaptive=false");
+                    runner.applyOption("--max-concurrency=" + concurrency);
+                    runner.applyOption("--metadata=false");
+                    for (String arg : args) {
+                        runner.applyOption(arg);
+                    }
+                    ThreadSampler sampler = new ThreadSampler();
+                    sampler.start();
+                    long start = System.nanoTime();
+                    runner.start();
+                    double seconds = (System.nanoTime() - start) / 1e9;
+                    sampler.finish();
+                    if (run == 0) {
+                        continue;
+                    }
+                    System.out.printf("%-8s: %d files in %.2f s - %.1f files/s, %d requests, peak threads %d%n",
+                            engine, server.getReceivedFiles(), seconds, server.getReceivedFiles() / seconds,
+                            server.getReceivedRequests(), sampler.peak());
+                }
+            }
+        } finally {
+            repository.delete();
+        }
+    }
+
+    /**
+     * 定期统计上传程序的存活线程数，记录峰值
+     */
+    private static final class ThreadSampler extends Thread {
+        private volatile boolean running = true;
+        private volatile int peak;
+
+        ThreadSampler() {
+            super("thread-sampler");
+            setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            while (running) {
+                int count = 0;
+                for (Thread thread : Thread.getAllStackTraces().keySet()) {
+                    String name = thread.getName();
+                    if (thread != this && !name.startsWith("stub-nexus") && !name.startsWith("HTTP-Dispatcher")) {
+                        count++;
+                    }
+                }
+                peak = Math.max(peak, count);
+                try {
+                    Thread.sleep(20);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }
+
+        void finish() throws InterruptedException {
+            running = false;
+            interrupt();
+            join();
+        }
+
+        int peak() {
+            return peak;
+        }
+    }
+}
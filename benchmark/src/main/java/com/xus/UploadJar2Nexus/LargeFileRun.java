@@ -0,0 +1,130 @@
+package com.xus.UploadJar2Nexus;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpPut;
+import org.apache.http.entity.ContentType;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.util.EntityUtils;
+
+/**
+ * 大文件测试：把一个数GB的稀疏文件PUT到进程内的替身服务器，比较两种发送路径的堆内存占用
+ *   none：不计算摘要，FileChannel.transferTo直接写入连接
+ *   sha1：只计算上传日志需要的SHA-1，通过固定大小的缓冲区边读边算边发送
+ *   all：计算全部校验文件的摘要（默认配置：启用上传日志且上传校验文件时走这条路径）
+ * 每种路径输出耗时、MB/秒、发送线程分配的字节数、GC次数和采样得到的堆使用峰值。
+ * 建议配合较小的-Xmx运行（例如-Xmx64m），文件大于堆和2GB数组上限时仍能发送说明内存与文件大小无关。
+ *
+ * 系统属性：
+ *   bench.sizeMB 文件大小，默认3072
+ *   bench.paths 要测试的路径，逗号分隔，默认none,sha1,all
+ */
+public class LargeFileRun {
+
+    public static void main(String[] args) throws Exception {
+        long size = Long.getLong("bench.sizeMB", 3072) * 1024 * 1024;
+        String[] paths = System.getProperty("bench.paths", "none,sha1,all").split(",");
+        File file = File.createTempFile("large-file-bench", ".jar");
+        try (RandomAccessFile out = new RandomAccessFile(file, "rw")) {
+            // 稀疏文件，不占用磁盘空间，读取时内容为0
+            out.setLength(size);
+        }
+        System.out.printf("File: %.1f MB, max heap %.1f MB%n", size / 1048576.0,
+                Runtime.getRuntime().maxMemory() / 1048576.0);
+
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        threads.setThreadAllocatedMemoryEnabled(true);
+        long threadId = Thread.currentThread().getId();
+        try (StubNexusServer server = new StubNexusServer(0, 4);
+                CloseableHttpClient httpClient = HttpClients.createDefault()) {
+            for (String path : paths) {
+                FileBodyEntity entity = new FileBodyEntity(file, ContentType.create("application/java-archive"));
+                if ("sha1".equals(path)) {
+                    entity.setDigestAlgorithms("SHA-1");
+                } else if ("all".equals(path)) {
+                    entity.setDigestAlgorithms(Digests.CHECKSUM_EXTENSIONS.keySet().toArray(new String[0]));
+                }
+                System.gc();
+                HeapSampler sampler = new HeapSampler();
+                sampler.start();
+                long gcCount = gcCount();
+                long allocated = threads.getThreadAllocatedBytes(threadId);
+                long start = System.nanoTime();
+
+                HttpPut request = new HttpPut(server.getRepositoryUrl() + "bench/large/1.0/large-1.0.jar");
+                request.setEntity(entity);
+                int status;
+                try (CloseableHttpResponse response = httpClient.execute(request)) {
+                    status = response.getStatusLine().getStatusCode();
+                    EntityUtils.consume(response.getEntity());
+                }
+
+                double seconds = (System.nanoTime() - start) / 1e9;
+                allocated = threads.getThreadAllocatedBytes(threadId) - allocated;
+                sampler.finish();
+                System.out.printf("%-4s: HTTP %d in %.2f s - %.1f MB/s, sender allocated %.1f KB, GC %d, "
+                        + "peak heap used %.1f MB%n", path, status, seconds, size / 1048576.0 / seconds,
+                        allocated / 1024.0, gcCount() - gcCount, sampler.peak() / 1048576.0);
+            }
+        } finally {
+            if (!file.delete()) {
+                file.deleteOnExit();
+            }
+        }
+    }
+
+    private static long gcCount() {
+        long total = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            total += Math.max(0, gc.getCollectionCount());
+        }
+        return total;
+    }
+
+    /**
+     * 定期读取堆的使用量，记录峰值
+     * 使用量包括尚未回收的垃圾，反映的是运行期间堆实际需要的大小
+     */
+    private static final class HeapSampler extends Thread {
+        private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        private volatile boolean running = true;
+        private volatile long peak;
+
+        HeapSampler() {
+            super("heap-sampler");
+            setDaemon(true);
+            peak = memory.getHeapMemoryUsage().getUsed();
+        }
+
+        @Override
+        public void run() {
+            while (running) {
+                peak = Math.max(peak, memory.getHeapMemoryUsage().getUsed());
+                try {
+                    Thread.sleep(5);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }
+
+        void finish() throws InterruptedException {
+            running = false;
+            interrupt();
+            join();
+            peak = Math.max(peak, memory.getHeapMemoryUsage().getUsed());
+        }
+
+        long peak() {
+            return peak;
+        }
+    }
+}
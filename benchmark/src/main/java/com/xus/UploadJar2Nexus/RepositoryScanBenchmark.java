@@ -0,0 +1,68 @@
+package com.xus.UploadJar2Nexus;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * 扫描一个合成仓库的耗时，构件交给只计数的sink，不涉及上传
+ * 仓库在每轮测试前生成一次，第一次迭代后目录项基本都在页缓存中，测的是遍历本身的开销
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RepositoryScanBenchmark {
+
+    @Param({"200"})
+    public int groups;
+
+    @Param({"1", "4"})
+    public int parallelism;
+
+    private SyntheticRepository repository;
+
+    @Setup
+    public void setUp() throws IOException {
+        repository = new SyntheticRepository(Files.createTempDirectory("scan-bench"), groups, 10, 5, 512, 4096)
+                .generate();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        repository.delete();
+    }
+
+    @Benchmark
+    public long scan() throws InterruptedException, ExecutionException {
+        LongAdder found = new LongAdder();
+        RepositoryScanner scanner = new RepositoryScanner(repository.getRoot(), artifact -> found.increment(),
+                parallelism);
+        try {
+            scanner.start().get();
+        } finally {
+            scanner.shutdown();
+        }
+        if (found.sum() != repository.getFiles()) {
+            throw new IllegalStateException("Expected " + repository.getFiles() + " artifacts, found " + found.sum());
+        }
+        return found.sum();
+    }
+}
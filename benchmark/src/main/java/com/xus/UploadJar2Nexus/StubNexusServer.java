@@ -0,0 +1,784 @@
+package com.xus.UploadJar2Nexus;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * 进程内的Nexus替身，只监听回环地址，用于没有网络的环境中做端到端测试
+ * 接受任意路径的PUT请求并丢弃内容，只统计文件数和字节数（校验文件和maven-metadata.xml单独计数）；GET/HEAD默认返回404。
+ * 同时实现Nexus 3的组件上传接口（POST /service/rest/v1/components?repository=名称）：流式解析multipart请求体，
+ * 校验坐标字段和每个文件的扩展名后返回204，其中的文件计入文件数和字节数；可以关闭该接口（返回404）以测试回退。
+ * 可以注入固定延迟、按比例返回503（带Retry-After）以及每个连接的带宽限制；
+ * 设置并发阈值后，同时处理的请求超过阈值时立即返回503（不带Retry-After），模拟前置代理的连接数限制。
+ * 打开资产索引后记录每个PUT的路径和SHA-1，像Nexus一样响应GET 文件.sha1和搜索接口
+ * （GET /service/rest/v1/search/assets，按maven.groupId和maven.artifactId查询，每页50项，以continuationToken翻页），
+ * 用于比较上传前预检的请求数；可以单独关闭搜索接口（返回404）以测试逐个读取校验文件的回退。
+ * 指定内容目录后作为镜像模式的源仓库：GET返回目录中的文件和Maven Central格式的HTML目录列表，
+ * 并提供组件列表接口（GET /service/rest/v1/components，每页10个组件），关闭组件接口时只能读取目录列表。
+ */
+public class StubNexusServer implements Closeable {
+    static {
+        // 响应头和响应体分开写出，不关闭Nagle时小文件的GET会等待客户端的延迟确认（约40ms）
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+    }
+
+    private static final String REPOSITORY_PREFIX = "/repository/benchmark/";
+    // 搜索接口每页的资产数，与Nexus相同
+    private static final int SEARCH_PAGE_SIZE = 50;
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final LongAdder receivedFiles = new LongAdder();
+    private final LongAdder receivedBytes = new LongAdder();
+    private final LongAdder receivedChecksums = new LongAdder();
+    private final LongAdder receivedMetadata = new LongAdder();
+    private final LongAdder rejectedRequests = new LongAdder();
+    private final LongAdder receivedComponents = new LongAdder();
+    private final LongAdder receivedRequests = new LongAdder();
+    private final LongAdder servedFiles = new LongAdder();
+    private final LongAdder searchRequests = new LongAdder();
+    private final LongAdder checksumRequests = new LongAdder();
+    // 构件目录（groupId/artifactId/） -> (仓库内路径 -> SHA-1)，只在打开资产索引时记录；
+    // 不随计数器清零，下一次运行可以据此预检
+    private final ConcurrentMap<String, ConcurrentSkipListMap<String, String>> assets = new ConcurrentHashMap<>();
+    private volatile boolean assetIndex;
+    private volatile boolean searchApi = true;
+    // 是否提供组件上传和组件列表接口
+    private volatile boolean componentsApi = true;
+    // 每个请求在读完请求体后额外等待的时间（毫秒）
+    private volatile long latencyMillis;
+    // 返回503的请求比例，0到1之间
+    private volatile double errorRate;
+    // 同时处理的请求数超过该值时返回503，0表示不限
+    private volatile int concurrencyThreshold;
+    private final AtomicInteger activeRequests = new AtomicInteger();
+    // 每个连接的接收速率上限（字节/秒），0表示不限
+    private volatile long bandwidthBytesPerSecond;
+    // GET返回的仓库内容，为null时GET一律返回404
+    private volatile Path content;
+    // 组件列表，每个元素是一个组件的JSON，第一页时生成，之后的分页复用
+    private volatile List<String> components;
+
+    /**
+     * @param port 监听端口，0表示随机选择
+     * @param threads 处理请求的线程数，应不少于被测程序的并发数
+     */
+    public StubNexusServer(int port, int threads) throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 1024);
+        executor = Executors.newFixedThreadPool(threads, r -> {
+            Thread thread = new Thread(r, "stub-nexus");
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.setExecutor(executor);
+        server.createContext("/", this::handle);
+        server.start();
+    }
+
+    public StubNexusServer withLatency(long latencyMillis) {
+        this.latencyMillis = latencyMillis;
+        return this;
+    }
+
+    public StubNexusServer withErrorRate(double errorRate) {
+        this.errorRate = errorRate;
+        return this;
+    }
+
+    /**
+     * 同时处理的请求数（包括本请求）超过threshold时返回503，0表示不限
+     */
+    public StubNexusServer withConcurrencyThreshold(int threshold) {
+        this.concurrencyThreshold = threshold;
+        return this;
+    }
+
+    public StubNexusServer withBandwidth(long bytesPerSecond) {
+        this.bandwidthBytesPerSecond = bytesPerSecond;
+        return this;
+    }
+
+    public StubNexusServer withComponentsApi(boolean componentsApi) {
+        this.componentsApi = componentsApi;
+        return this;
+    }
+
+    /**
+     * 记录收到的文件的SHA-1，并据此响应GET .sha1和搜索接口
+     */
+    public StubNexusServer withAssetIndex(boolean assetIndex) {
+        this.assetIndex = assetIndex;
+        return this;
+    }
+
+    /**
+     * 是否提供搜索接口，只在打开资产索引时有效
+     */
+    public StubNexusServer withSearchApi(boolean searchApi) {
+        this.searchApi = searchApi;
+        return this;
+    }
+
+    /**
+     * 以指定目录作为仓库内容响应GET请求
+     */
+    public StubNexusServer withContent(Path content) {
+        this.content = content;
+        this.components = null;
+        return this;
+    }
+
+    /**
+     * 仓库地址，可直接作为nexusUrl使用
+     */
+    public String getRepositoryUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/repository/benchmark/";
+    }
+
+    public long getReceivedFiles() {
+        return receivedFiles.sum();
+    }
+
+    public long getReceivedBytes() {
+        return receivedBytes.sum();
+    }
+
+    public long getReceivedChecksums() {
+        return receivedChecksums.sum();
+    }
+
+    public long getReceivedMetadata() {
+        return receivedMetadata.sum();
+    }
+
+    public long getRejectedRequests() {
+        return rejectedRequests.sum();
+    }
+
+    /**
+     * 通过组件上传接口成功接收的组件数
+     */
+    public long getReceivedComponents() {
+        return receivedComponents.sum();
+    }
+
+    /**
+     * 收到的全部请求数，包括GET、被拒绝和返回404的请求
+     */
+    public long getReceivedRequests() {
+        return receivedRequests.sum();
+    }
+
+    /**
+     * 通过GET返回的文件数，不含目录列表和组件列表
+     */
+    public long getServedFiles() {
+        return servedFiles.sum();
+    }
+
+    /**
+     * 搜索接口的请求数，每一页计一次
+     */
+    public long getSearchRequests() {
+        return searchRequests.sum();
+    }
+
+    /**
+     * 读取.sha1校验文件的GET请求数（逐个文件的存在性检查）
+     */
+    public long getChecksumRequests() {
+        return checksumRequests.sum();
+    }
+
+    /**
+     * 当前正在处理的请求数
+     */
+    public int getActiveRequests() {
+        return activeRequests.get();
+    }
+
+    public void resetCounters() {
+        receivedFiles.reset();
+        receivedBytes.reset();
+        receivedChecksums.reset();
+        receivedMetadata.reset();
+        rejectedRequests.reset();
+        receivedComponents.reset();
+        receivedRequests.reset();
+        servedFiles.reset();
+        searchRequests.reset();
+        checksumRequests.reset();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        receivedRequests.increment();
+        activeRequests.incrementAndGet();
+        try {
+            if ("POST".equals(exchange.getRequestMethod())
+                    && "/service/rest/v1/components".equals(exchange.getRequestURI().getPath())) {
+                handleComponent(exchange);
+                return;
+            }
+            if ("GET".equals(exchange.getRequestMethod()) && assetIndex && handleIndexed(exchange)) {
+                return;
+            }
+            if ("GET".equals(exchange.getRequestMethod()) && content != null) {
+                drain(exchange.getRequestBody());
+                handleGet(exchange);
+                return;
+            }
+            if (!"PUT".equals(exchange.getRequestMethod())) {
+                drain(exchange.getRequestBody());
+                exchange.sendResponseHeaders(404, -1);
+                return;
+            }
+            MessageDigest sha1 = assetIndex ? Digests.newDigest("SHA-1") : null;
+            long bytes = drain(sha1 != null ? new DigestInputStream(exchange.getRequestBody(), sha1)
+                    : exchange.getRequestBody());
+            if (injectFailure(exchange)) {
+                return;
+            }
+            String path = exchange.getRequestURI().getPath();
+            if (sha1 != null && path.startsWith(REPOSITORY_PREFIX)) {
+                String relative = path.substring(REPOSITORY_PREFIX.length());
+                assets.computeIfAbsent(artifactDirectory(relative), key -> new ConcurrentSkipListMap<>())
+                        .put(relative, Digests.toHex(sha1.digest()));
+            }
+            if (path.endsWith(".sha1") || path.endsWith(".md5") || path.endsWith(".sha256") || path.endsWith(".sha512")) {
+                receivedChecksums.increment();
+            } else if (path.endsWith("/maven-metadata.xml")) {
+                receivedMetadata.increment();
+            } else {
+                receivedFiles.increment();
+                receivedBytes.add(bytes);
+            }
+            exchange.sendResponseHeaders(201, -1);
+        } finally {
+            activeRequests.decrementAndGet();
+            exchange.close();
+        }
+    }
+
+    /**
+     * 超过并发阈值时立即返回503；否则按配置等待固定延迟，并按比例返回503，返回true表示已经发送了错误响应
+     */
+    private boolean injectFailure(HttpExchange exchange) throws IOException {
+        int threshold = concurrencyThreshold;
+        if (threshold > 0 && activeRequests.get() > threshold) {
+            rejectedRequests.increment();
+            exchange.sendResponseHeaders(503, -1);
+            return true;
+        }
+        if (latencyMillis > 0) {
+            sleep(latencyMillis);
+        }
+        if (errorRate > 0 && ThreadLocalRandom.current().nextDouble() < errorRate) {
+            rejectedRequests.increment();
+            exchange.getResponseHeaders().set("Retry-After", "1");
+            exchange.sendResponseHeaders(503, -1);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 读取仓库内容：组件列表、目录列表或文件
+     */
+    private void handleGet(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getPath();
+        if ("/service/rest/v1/components".equals(path)) {
+            if (!componentsApi) {
+                exchange.sendResponseHeaders(404, -1);
+                return;
+            }
+            String query = exchange.getRequestURI().getQuery();
+            int tokenStart = query == null ? -1 : query.indexOf("continuationToken=");
+            int page = tokenStart < 0 ? 0 : Integer.parseInt(query.substring(tokenStart + "continuationToken=".length()));
+            sendText(exchange, "application/json", listComponents(page));
+            return;
+        }
+        if (!path.startsWith(REPOSITORY_PREFIX) || path.contains("..")) {
+            exchange.sendResponseHeaders(404, -1);
+            return;
+        }
+        Path file = content.resolve(path.substring(REPOSITORY_PREFIX.length()));
+        if (Files.isDirectory(file)) {
+            sendText(exchange, "text/html", listDirectory(file));
+        } else if (Files.isRegularFile(file)) {
+            if (injectFailure(exchange)) {
+                return;
+            }
+            exchange.sendResponseHeaders(200, Files.size(file));
+            try (OutputStream out = exchange.getResponseBody()) {
+                Files.copy(file, out);
+            }
+            servedFiles.increment();
+        } else {
+            exchange.sendResponseHeaders(404, -1);
+        }
+    }
+
+    /**
+     * 按资产索引响应搜索接口和.sha1校验文件，其他GET返回false交给后面的处理
+     */
+    private boolean handleIndexed(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getPath();
+        if ("/service/rest/v1/search/assets".equals(path)) {
+            drain(exchange.getRequestBody());
+            searchRequests.increment();
+            if (!searchApi) {
+                exchange.sendResponseHeaders(404, -1);
+                return true;
+            }
+            if (injectFailure(exchange)) {
+                return true;
+            }
+            Map<String, String> query = queryParameters(exchange.getRequestURI().getRawQuery());
+            String token = query.get("continuationToken");
+            sendText(exchange, "application/json", searchAssets(query.get("maven.groupId"),
+                    query.get("maven.artifactId"), token == null ? 0 : Integer.parseInt(token)));
+            return true;
+        }
+        if (path.startsWith(REPOSITORY_PREFIX) && path.endsWith(".sha1")) {
+            drain(exchange.getRequestBody());
+            checksumRequests.increment();
+            if (injectFailure(exchange)) {
+                return true;
+            }
+            String relative = path.substring(REPOSITORY_PREFIX.length(), path.length() - ".sha1".length());
+            Map<String, String> artifact = assets.get(artifactDirectory(relative));
+            String sha1 = artifact != null ? artifact.get(relative) : null;
+            if (sha1 == null) {
+                exchange.sendResponseHeaders(404, -1);
+            } else {
+                sendText(exchange, "text/plain", sha1);
+            }
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 搜索结果的一页：groupId/artifactId目录下的全部资产（包括校验文件和maven-metadata.xml），按路径排序，分页令牌为页码
+     */
+    private String searchAssets(String groupId, String artifactId, int page) {
+        Map<String, String> artifact = groupId == null || artifactId == null ? null
+                : assets.get(groupId.replace('.', '/') + "/" + artifactId + "/");
+        List<Map.Entry<String, String>> items = artifact == null ? new ArrayList<>()
+                : new ArrayList<>(artifact.entrySet());
+        StringBuilder json = new StringBuilder("{\"items\":[");
+        for (int i = page * SEARCH_PAGE_SIZE; i < Math.min(items.size(), (page + 1) * SEARCH_PAGE_SIZE); i++) {
+            json.append(i > page * SEARCH_PAGE_SIZE ? "," : "")
+                    .append("{\"path\":\"/").append(items.get(i).getKey()).append("\",\"repository\":\"benchmark\",")
+                    .append("\"checksum\":{\"sha1\":\"").append(items.get(i).getValue()).append("\"}}");
+        }
+        json.append("],\"continuationToken\":");
+        json.append((page + 1) * SEARCH_PAGE_SIZE < items.size() ? "\"" + (page + 1) + "\"" : "null").append('}');
+        return json.toString();
+    }
+
+    /**
+     * 仓库内路径所属的构件目录：maven-metadata.xml在构件目录中，其他文件在版本目录中
+     */
+    private static String artifactDirectory(String path) {
+        int slash = path.lastIndexOf('/');
+        if (!path.startsWith("maven-metadata.xml", slash + 1)) {
+            slash = path.lastIndexOf('/', slash - 1);
+        }
+        return path.substring(0, slash + 1);
+    }
+
+    private static Map<String, String> queryParameters(String rawQuery) throws IOException {
+        Map<String, String> parameters = new HashMap<>();
+        if (rawQuery == null) {
+            return parameters;
+        }
+        for (String pair : rawQuery.split("&")) {
+            int equals = pair.indexOf('=');
+            if (equals > 0) {
+                parameters.put(URLDecoder.decode(pair.substring(0, equals), "UTF-8"),
+                        URLDecoder.decode(pair.substring(equals + 1), "UTF-8"));
+            }
+        }
+        return parameters;
+    }
+
+    /**
+     * 组件列表的一页：每个包含文件的目录作为一个组件，分页令牌为页码
+     */
+    private String listComponents(int page) throws IOException {
+        List<String> all = page == 0 || components == null ? loadComponents() : components;
+        int pageSize = 10;
+        StringBuilder json = new StringBuilder("{\"items\":[");
+        for (int i = page * pageSize; i < Math.min(all.size(), (page + 1) * pageSize); i++) {
+            json.append(i > page * pageSize ? "," : "").append(all.get(i));
+        }
+        json.append("],\"continuationToken\":");
+        json.append((page + 1) * pageSize < all.size() ? "\"" + (page + 1) + "\"" : "null").append('}');
+        return json.toString();
+    }
+
+    /**
+     * 遍历内容目录生成组件列表，每个文件计算一次SHA-1
+     */
+    private synchronized List<String> loadComponents() throws IOException {
+        Map<String, List<Path>> directories = new TreeMap<>();
+        try (Stream<Path> files = Files.walk(content)) {
+            for (Path file : files.filter(Files::isRegularFile).collect(Collectors.toList())) {
+                String relative = content.relativize(file).toString().replace('\\', '/');
+                int slash = relative.lastIndexOf('/');
+                directories.computeIfAbsent(slash < 0 ? "" : relative.substring(0, slash), key -> new ArrayList<>())
+                        .add(file);
+            }
+        }
+        List<String> all = new ArrayList<>(directories.size());
+        for (List<Path> assets : directories.values()) {
+            StringBuilder json = new StringBuilder("{\"assets\":[");
+            for (int j = 0; j < assets.size(); j++) {
+                Path file = assets.get(j);
+                json.append(j > 0 ? "," : "")
+                        .append("{\"path\":\"").append(content.relativize(file).toString().replace('\\', '/'))
+                        .append("\",\"fileSize\":").append(Files.size(file))
+                        .append(",\"lastModified\":\"").append(Files.getLastModifiedTime(file).toInstant())
+                        .append("\",\"checksum\":{\"sha1\":\"").append(Digests.digest(file.toFile(), "SHA-1"))
+                        .append("\"}}");
+            }
+            all.add(json.append("]}").toString());
+        }
+        components = all;
+        return all;
+    }
+
+    /**
+     * Maven Central格式的目录列表：链接之后是修改时间和大小，子目录以/结尾
+     */
+    private static String listDirectory(Path dir) throws IOException {
+        DateTimeFormatter format = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm").withZone(ZoneOffset.UTC);
+        StringBuilder html = new StringBuilder("<html><body><pre><a href=\"../\">../</a>\n");
+        List<Path> children;
+        try (Stream<Path> list = Files.list(dir)) {
+            children = list.sorted().collect(Collectors.toList());
+        }
+        for (Path child : children) {
+            String name = child.getFileName().toString() + (Files.isDirectory(child) ? "/" : "");
+            html.append("<a href=\"").append(name).append("\" title=\"").append(name).append("\">").append(name)
+                    .append("</a>");
+            if (Files.isDirectory(child)) {
+                html.append("    -\n");
+            } else {
+                html.append("    ").append(format.format(Files.getLastModifiedTime(child).toInstant()))
+                        .append("    ").append(Files.size(child)).append('\n');
+            }
+        }
+        return html.append("</pre></body></html>").toString();
+    }
+
+    private static void sendText(HttpExchange exchange, String contentType, String text) throws IOException {
+        byte[] body = text.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", contentType + "; charset=UTF-8");
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    /**
+     * 组件上传接口：逐个部分解析multipart请求体，文件内容只计数不保存
+     * 缺少坐标字段、文件缺少扩展名或同一扩展名和分类器重复时返回400，与Nexus的校验一致
+     */
+    private void handleComponent(HttpExchange exchange) throws IOException {
+        if (!componentsApi) {
+            drain(exchange.getRequestBody());
+            exchange.sendResponseHeaders(404, -1);
+            return;
+        }
+        String contentType = exchange.getRequestHeaders().getFirst("Content-Type");
+        int boundaryStart = contentType == null ? -1 : contentType.indexOf("boundary=");
+        if (boundaryStart < 0) {
+            drain(exchange.getRequestBody());
+            exchange.sendResponseHeaders(400, -1);
+            return;
+        }
+        String boundary = contentType.substring(boundaryStart + "boundary=".length()).replace("\"", "");
+        Map<String, String> fields = new HashMap<>();
+        Map<String, Long> assets = new HashMap<>();
+        InputStream body = new ThrottledInputStream(exchange.getRequestBody());
+        boolean valid = readParts(new PartInput(body), boundary, fields, assets);
+        drain(body);
+        if (injectFailure(exchange)) {
+            return;
+        }
+        Set<String> assetKeys = new HashSet<>();
+        for (String asset : assets.keySet()) {
+            String extension = fields.get(asset + ".extension");
+            valid &= extension != null && assetKeys.add(extension + ":" + fields.get(asset + ".classifier"));
+        }
+        valid &= fields.containsKey("maven2.groupId") && fields.containsKey("maven2.artifactId")
+                && fields.containsKey("maven2.version") && !assets.isEmpty();
+        if (!valid) {
+            exchange.sendResponseHeaders(400, -1);
+            return;
+        }
+        receivedComponents.increment();
+        for (long bytes : assets.values()) {
+            receivedFiles.increment();
+            receivedBytes.add(bytes);
+        }
+        exchange.sendResponseHeaders(204, -1);
+    }
+
+    /**
+     * 读取multipart请求体的各个部分：文本字段保存到fields，文件部分只记录字段名和长度
+     *
+     * @return 请求体格式正确时返回true
+     */
+    private static boolean readParts(PartInput in, String boundary, Map<String, String> fields,
+            Map<String, Long> assets) throws IOException {
+        byte[] first = ("--" + boundary).getBytes(StandardCharsets.US_ASCII);
+        byte[] delimiter = ("\r\n--" + boundary).getBytes(StandardCharsets.US_ASCII);
+        if (readUntil(in, first, null) < 0) {
+            return false;
+        }
+        while (true) {
+            int a = in.read();
+            int b = in.read();
+            if (a == '-' && b == '-') {
+                return true;
+            }
+            if (a != '\r' || b != '\n') {
+                return false;
+            }
+            String name = null;
+            boolean file = false;
+            String line;
+            while (!(line = readLine(in)).isEmpty()) {
+                if (line.regionMatches(true, 0, "Content-Disposition:", 0, 20)) {
+                    int nameStart = line.indexOf("name=\"");
+                    if (nameStart >= 0) {
+                        name = line.substring(nameStart + 6, line.indexOf('"', nameStart + 6));
+                    }
+                    file = line.contains("filename=");
+                }
+            }
+            if (name == null) {
+                return false;
+            }
+            ByteArrayOutputStream value = file ? null : new ByteArrayOutputStream();
+            long length = readUntil(in, delimiter, value);
+            if (length < 0) {
+                return false;
+            }
+            if (file) {
+                assets.put(name, length);
+            } else {
+                fields.put(name, new String(value.toByteArray(), StandardCharsets.UTF_8));
+            }
+        }
+    }
+
+    /**
+     * 读到分隔符为止（KMP匹配），分隔符之前的内容写入capture（可以为null）
+     *
+     * @return 分隔符之前的字节数，流结束仍未找到时返回-1
+     */
+    private static long readUntil(PartInput in, byte[] delimiter, OutputStream capture) throws IOException {
+        int[] failure = new int[delimiter.length];
+        for (int i = 1, k = 0; i < delimiter.length; i++) {
+            while (k > 0 && delimiter[i] != delimiter[k]) {
+                k = failure[k - 1];
+            }
+            if (delimiter[i] == delimiter[k]) {
+                k++;
+            }
+            failure[i] = k;
+        }
+        long total = 0;
+        int matched = 0;
+        int read;
+        while ((read = in.read()) >= 0) {
+            total++;
+            while (matched > 0 && read != (delimiter[matched] & 0xff)) {
+                if (capture != null) {
+                    // 不再匹配的前缀属于内容
+                    capture.write(delimiter, 0, matched - failure[matched - 1]);
+                }
+                matched = failure[matched - 1];
+            }
+            if (read == (delimiter[matched] & 0xff)) {
+                matched++;
+                if (matched == delimiter.length) {
+                    return total - delimiter.length;
+                }
+            } else if (capture != null) {
+                capture.write(read);
+            }
+        }
+        return -1;
+    }
+
+    private static String readLine(PartInput in) throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        int read;
+        while ((read = in.read()) >= 0 && read != '\n') {
+            if (read != '\r') {
+                line.write(read);
+            }
+        }
+        return new String(line.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 读完并丢弃请求体，有带宽限制时按已读字节数控制读取速度
+     */
+    private long drain(InputStream in) throws IOException {
+        InputStream throttled = in instanceof ThrottledInputStream ? in : new ThrottledInputStream(in);
+        byte[] buffer = new byte[64 * 1024];
+        long total = 0;
+        int read;
+        while ((read = throttled.read(buffer)) >= 0) {
+            total += read;
+        }
+        return total;
+    }
+
+    /**
+     * 逐字节读取multipart请求体用的缓冲，不加锁（BufferedInputStream.read()逐字节加锁，大文件解析明显变慢）
+     */
+    private static final class PartInput {
+        private final InputStream in;
+        private final byte[] buffer = new byte[64 * 1024];
+        private int position;
+        private int limit;
+
+        PartInput(InputStream in) {
+            this.in = in;
+        }
+
+        int read() throws IOException {
+            if (position == limit) {
+                limit = in.read(buffer);
+                position = 0;
+                if (limit <= 0) {
+                    limit = 0;
+                    return -1;
+                }
+            }
+            return buffer[position++] & 0xff;
+        }
+    }
+
+    /**
+     * 按带宽限制控制读取速度的输入流
+     */
+    private final class ThrottledInputStream extends FilterInputStream {
+        private final long start = System.nanoTime();
+        private long total;
+
+        ThrottledInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] one = new byte[1];
+            return read(one, 0, 1) < 0 ? -1 : one[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int read = super.read(b, off, len);
+            if (read > 0) {
+                total += read;
+                long limit = bandwidthBytesPerSecond;
+                if (limit > 0) {
+                    long expectedNanos = total * 1000000000L / limit;
+                    long aheadNanos = expectedNanos - (System.nanoTime() - start);
+                    if (aheadNanos > 1000000) {
+                        sleep(aheadNanos / 1000000);
+                    }
+                }
+            }
+            return read;
+        }
+    }
+
+    private static void sleep(long millis) throws IOException {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("interrupted", e);
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    /**
+     * 单独启动替身服务器，供手动运行上传程序时使用
+     * 参数：端口 [延迟毫秒] [503比例] [每连接带宽MB/s] [是否提供组件接口] [GET返回的内容目录] [是否记录资产并提供搜索接口]
+     */
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 18081;
+        StubNexusServer server = new StubNexusServer(port, 256);
+        if (args.length > 1) {
+            server.withLatency(Long.parseLong(args[1]));
+        }
+        if (args.length > 2) {
+            server.withErrorRate(Double.parseDouble(args[2]));
+        }
+        if (args.length > 3) {
+            server.withBandwidth((long) (Double.parseDouble(args[3]) * 1024 * 1024));
+        }
+        if (args.length > 4) {
+            server.withComponentsApi(Boolean.parseBoolean(args[4]));
+        }
+        if (args.length > 5 && !args[5].isEmpty()) {
+            server.withContent(Paths.get(args[5]));
+        }
+        if (args.length > 6) {
+            server.withAssetIndex(Boolean.parseBoolean(args[6]));
+        }
+        System.out.println("Stub Nexus listening on " + server.getRepositoryUrl());
+    }
+}
@@ -0,0 +1,131 @@
+package com.xus.UploadJar2Nexus;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Random;
+
+/**
+ * 合成的Maven本地仓库，目录结构为groupId/artifactId/version/，每个版本包含一个POM和一个JAR，
+ * 另有一定比例的版本带-sources.jar（扫描时应被过滤）。
+ * JAR大小服从对数正态分布，少数文件远大于中位数，接近真实仓库的偏态分布。
+ * 使用固定的随机种子，同样的参数总是生成同样的仓库。
+ */
+public class SyntheticRepository {
+    private final Path root;
+    private final int groups;
+    private final int artifactsPerGroup;
+    private final int versionsPerArtifact;
+    private final long medianJarBytes;
+    private final long maxJarBytes;
+    private long files;
+    private long bytes;
+
+    /**
+     * @param root 仓库根目录
+     * @param groups groupId数量，每个groupId为三层目录
+     * @param artifactsPerGroup 每个groupId下的artifactId数量
+     * @param versionsPerArtifact 每个artifactId下的版本数量
+     * @param medianJarBytes JAR大小的中位数
+     * @param maxJarBytes 单个JAR的最大大小
+     */
+    public SyntheticRepository(Path root, int groups, int artifactsPerGroup, int versionsPerArtifact,
+            long medianJarBytes, long maxJarBytes) {
+        this.root = root;
+        this.groups = groups;
+        this.artifactsPerGroup = artifactsPerGroup;
+        this.versionsPerArtifact = versionsPerArtifact;
+        this.medianJarBytes = medianJarBytes;
+        this.maxJarBytes = maxJarBytes;
+    }
+
+    public SyntheticRepository generate() throws IOException {
+        Random random = new Random(42);
+        byte[] chunk = new byte[64 * 1024];
+        random.nextBytes(chunk);
+        files = 0;
+        bytes = 0;
+        for (int g = 0; g < groups; g++) {
+            String groupPath = "com/example" + (g % 10) + "/group" + g;
+            for (int a = 0; a < artifactsPerGroup; a++) {
+                String artifactId = "artifact" + a;
+                for (int v = 0; v < versionsPerArtifact; v++) {
+                    String version = "1." + v + ".0";
+                    Path dir = root.resolve(groupPath).resolve(artifactId).resolve(version);
+                    Files.createDirectories(dir);
+                    String base = artifactId + "-" + version;
+                    byte[] pom = ("<project><modelVersion>4.0.0</modelVersion><groupId>"
+                            + groupPath.replace('/', '.') + "</groupId><artifactId>" + artifactId
+                            + "</artifactId><version>" + version + "</version></project>\n")
+                            .getBytes(StandardCharsets.UTF_8);
+                    Files.write(dir.resolve(base + ".pom"), pom);
+                    long jarSize = Math.min(maxJarBytes,
+                            (long) (medianJarBytes * Math.exp(random.nextGaussian() * 1.2)));
+                    writeFile(dir.resolve(base + ".jar"), Math.max(1, jarSize), chunk);
+                    if (v % 4 == 0) {
+                        writeFile(dir.resolve(base + "-sources.jar"), 1024, chunk);
+                    }
+                    files += 2;
+                    bytes += pom.length + Math.max(1, jarSize);
+                }
+            }
+        }
+        return this;
+    }
+
+    private static void writeFile(Path file, long size, byte[] chunk) throws IOException {
+        try (OutputStream out = Files.newOutputStream(file)) {
+            long remaining = size;
+            while (remaining > 0) {
+                int count = (int) Math.min(chunk.length, remaining);
+                out.write(chunk, 0, count);
+                remaining -= count;
+            }
+        }
+    }
+
+    public Path getRoot() {
+        return root;
+    }
+
+    /**
+     * 会被上传的文件数（POM和JAR，不含-sources.jar）
+     */
+    public long getFiles() {
+        return files;
+    }
+
+    /**
+     * 会被上传的字节数
+     */
+    public long getBytes() {
+        return bytes;
+    }
+
+    /**
+     * 删除整个仓库目录
+     */
+    public void delete() throws IOException {
+        if (!Files.exists(root)) {
+            return;
+        }
+        Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                Files.delete(file);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(Path dir, IOException e) throws IOException {
+                Files.delete(dir);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+}
@@ -0,0 +1,256 @@
+package com.xus.UploadJar2Nexus;
+
+import java.util.Date;
+
+import org.apache.http.client.utils.DateUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 自适应并发限制器（AIMD：加性增、乘性减）
+ * 上传引擎在发起上传前调用acquire，结束后调用release，每次请求的结果通过onSuccess/onError/onOverload反馈：
+ * <ul>
+ * <li>请求成功且延迟正常时逐步提高并发上限；尚未出现过拥塞时每次成功加1（慢启动），之后每个窗口约加1</li>
+ * <li>延迟明显高于基线、出现5xx或网络错误时按比例降低上限，同一个冷却期内只降低一次</li>
+ * <li>服务器返回429/503时大幅降低上限，并按Retry-After暂停发起新的请求</li>
+ * <li>收到响应的5xx、429/503只有请求是在上次降低之后发出时才再次降低（每个窗口一次），
+ * 上次降低前已发出的请求返回的错误反映的是旧的上限</li>
+ * </ul>
+ * 延迟按请求体大小归一化（每MB的耗时另计），避免大文件被误判为服务器拥塞。
+ * 关闭自适应时上限固定为最大值，行为等同于普通信号量。
+ * 设置了熔断器时，请求结果同时反馈给熔断器，熔断器打开期间acquire阻塞（与是否自适应无关）。
+ */
+public class AdaptiveConcurrencyLimiter {
+    private static final Logger logger = LoggerFactory.getLogger(AdaptiveConcurrencyLimiter.class);
+    // 平滑延迟超过基线的倍数时认为出现拥塞
+    private static final double LATENCY_TOLERANCE = 2.0;
+    // 出现错误、延迟过高和服务器过载时的乘性减因子
+    private static final double ERROR_BACKOFF = 0.7;
+    private static final double LATENCY_BACKOFF = 0.9;
+    private static final double OVERLOAD_BACKOFF = 0.5;
+    // 两次降低上限之间的最短间隔（毫秒）
+    private static final long MIN_DECREASE_INTERVAL_MS = 1000;
+    private static final double BYTES_PER_MB = 1024.0 * 1024.0;
+
+    private final boolean adaptive;
+    private final int minLimit;
+    private final int maxLimit;
+    private double limit;
+    private int inFlight;
+    private boolean slowStart = true;
+    private long pausedUntil;
+    private long lastDecrease;
+    // 归一化延迟的基线（观察到的最小值，会缓慢上浮）和指数平滑值，单位毫秒
+    private double baselineLatency = -1;
+    private double smoothedLatency = -1;
+    // 可以为null
+    private final CircuitBreaker breaker;
+
+    /**
+     * @param adaptive 是否根据请求结果动态调整上限
+     * @param initialLimit 初始并发上限
+     * @param maxLimit 并发上限的最大值
+     */
+    public AdaptiveConcurrencyLimiter(boolean adaptive, int initialLimit, int maxLimit) {
+        this(adaptive, initialLimit, maxLimit, null);
+    }
+
+    /**
+     * @param breaker 目标仓库的熔断器，为null时不熔断
+     */
+    public AdaptiveConcurrencyLimiter(boolean adaptive, int initialLimit, int maxLimit, CircuitBreaker breaker) {
+        this.adaptive = adaptive;
+        this.breaker = breaker;
+        this.minLimit = 1;
+        this.maxLimit = Math.max(1, maxLimit);
+        this.limit = adaptive ? Math.max(minLimit, Math.min(initialLimit, this.maxLimit)) : this.maxLimit;
+    }
+
+    /**
+     * 获取一个并发名额，熔断器打开、已达上限或处于Retry-After暂停期时阻塞
+     */
+    public void acquire() throws InterruptedException {
+        if (breaker != null) {
+            breaker.awaitPermission();
+        }
+        synchronized (this) {
+            while (true) {
+                long now = System.currentTimeMillis();
+                if (now < pausedUntil) {
+                    wait(pausedUntil - now);
+                } else if (inFlight < (int) limit) {
+                    inFlight++;
+                    return;
+                } else {
+                    wait();
+                }
+            }
+        }
+    }
+
+    public synchronized void release() {
+        inFlight--;
+        notifyAll();
+    }
+
+    /**
+     * 根据HTTP响应反馈请求结果：2xx为成功，429/503为过载，其他5xx为错误，其余4xx不参与调整
+     * 对熔断器而言，429和5xx为失败，其余响应说明服务器可以正常处理请求
+     *
+     * @param statusCode 响应状态码
+     * @param retryAfter Retry-After响应头，可以为null
+     * @param latencyMillis 请求耗时（毫秒）
+     * @param bytes 请求体大小
+     */
+    public void onResponse(int statusCode, String retryAfter, long latencyMillis, long bytes) {
+        if (breaker != null) {
+            if (statusCode == 429 || statusCode >= 500) {
+                breaker.onFailure();
+            } else {
+                breaker.onSuccess();
+            }
+        }
+        long sentAt = System.currentTimeMillis() - latencyMillis;
+        if (statusCode >= 200 && statusCode < 300) {
+            onSuccess(latencyMillis, bytes);
+        } else if (statusCode == 429 || statusCode == 503) {
+            onOverload(parseRetryAfter(retryAfter), sentAt);
+        } else if (statusCode >= 500) {
+            onServerError(sentAt);
+        }
+    }
+
+    /**
+     * 解析Retry-After响应头（秒数或HTTP日期），返回需要等待的毫秒数，无法解析时返回0
+     */
+    public static long parseRetryAfter(String retryAfter) {
+        if (retryAfter == null || retryAfter.trim().isEmpty()) {
+            return 0;
+        }
+        String value = retryAfter.trim();
+        try {
+            return Math.max(0, Long.parseLong(value) * 1000);
+        } catch (NumberFormatException e) {
+            Date date = DateUtils.parseDate(value);
+            return date == null ? 0 : Math.max(0, date.getTime() - System.currentTimeMillis());
+        }
+    }
+
+    /**
+     * 请求成功
+     *
+     * @param latencyMillis 请求耗时（毫秒）
+     * @param bytes 请求体大小
+     */
+    public synchronized void onSuccess(long latencyMillis, long bytes) {
+        if (!adaptive) {
+            return;
+        }
+        double normalized = latencyMillis / (1 + bytes / BYTES_PER_MB);
+        smoothedLatency = smoothedLatency < 0 ? normalized : smoothedLatency * 0.8 + normalized * 0.2;
+        if (baselineLatency < 0 || normalized < baselineLatency) {
+            baselineLatency = normalized;
+        } else {
+            // 基线缓慢向当前延迟靠拢，网络环境整体变化后不会一直判定为拥塞
+            baselineLatency += (smoothedLatency - baselineLatency) * 0.001;
+        }
+        if (baselineLatency > 0 && smoothedLatency > Math.max(baselineLatency * LATENCY_TOLERANCE, baselineLatency + 10)) {
+            decrease(LATENCY_BACKOFF, "延迟升高", cooldownStart());
+        } else if (inFlight >= (int) limit - 1 && limit < maxLimit) {
+            // 只有上限确实被用满时才继续增加
+            limit = Math.min(maxLimit, limit + (slowStart ? 1.0 : 1.0 / limit));
+        }
+        notifyAll();
+    }
+
+    /**
+     * 请求因网络错误或超时失败，没有收到响应
+     */
+    public void onError() {
+        if (breaker != null) {
+            breaker.onFailure();
+        }
+        synchronized (this) {
+            if (adaptive) {
+                decrease(ERROR_BACKOFF, "请求失败", cooldownStart());
+            }
+        }
+    }
+
+    /**
+     * 服务器返回5xx
+     *
+     * @param sentAt 请求发出的时间
+     */
+    private synchronized void onServerError(long sentAt) {
+        if (adaptive) {
+            decrease(ERROR_BACKOFF, "请求失败", sentAt);
+        }
+    }
+
+    /**
+     * 服务器明确表示过载（429/503）
+     *
+     * @param retryAfterMillis Retry-After指定的等待时间，未指定时为0
+     */
+    public synchronized void onOverload(long retryAfterMillis) {
+        onOverload(retryAfterMillis, cooldownStart());
+    }
+
+    /**
+     * @param sentAt 请求发出的时间，上次降低上限之前发出的请求不再降低
+     */
+    private synchronized void onOverload(long retryAfterMillis, long sentAt) {
+        if (!adaptive) {
+            return;
+        }
+        if (retryAfterMillis > 0) {
+            pausedUntil = Math.max(pausedUntil, System.currentTimeMillis() + retryAfterMillis);
+        }
+        decrease(OVERLOAD_BACKOFF, "服务器过载", sentAt);
+    }
+
+    /**
+     * 不知道请求发出时间的信号（延迟升高、网络错误）按冷却期处理，视为冷却期开始时发出
+     */
+    private long cooldownStart() {
+        return System.currentTimeMillis() - Math.max(MIN_DECREASE_INTERVAL_MS, (long) smoothedLatency);
+    }
+
+    /**
+     * @param sentAt 触发降低的请求发出的时间，早于上次降低时忽略
+     */
+    private void decrease(double factor, String reason, long sentAt) {
+        slowStart = false;
+        if (sentAt < lastDecrease) {
+            return;
+        }
+        lastDecrease = System.currentTimeMillis();
+        double previous = limit;
+        limit = Math.max(minLimit, limit * factor);
+        logger.debug("Concurrency limit {} -> {} ({})", (int) previous, (int) limit, reason);
+    }
+
+    public synchronized int getLimit() {
+        return (int) limit;
+    }
+
+    public synchronized int getInFlight() {
+        return inFlight;
+    }
+
+    public int getMaxLimit() {
+        return maxLimit;
+    }
+
+    public boolean isAdaptive() {
+        return adaptive;
+    }
+
+    /**
+     * 目标仓库的熔断器，没有时返回null
+     */
+    public CircuitBreaker getCircuitBreaker() {
+        return breaker;
+    }
+}
@@ -0,0 +1,112 @@
+package com.xus.UploadJar2Nexus;
+
+import java.io.File;
+import java.nio.file.Path;
+
+/**
+ * 扫描阶段发现的待上传构件文件
+ * 文件大小和修改时间来自目录遍历时返回的文件属性，上传阶段无需再次stat
+ * 镜像模式下构件位于远程仓库中，没有本地路径，大小、修改时间和SHA-1来自远程仓库的列表（未知时分别为-1、0和null）
+ */
+public class ArtifactFile {
+    // 本地文件路径，远程构件为null
+    private final Path path;
+    // 构件所在的远程仓库，本地构件为null
+    private final RemoteRepository source;
+    // 远程仓库列表中给出的SHA-1，未知时为null
+    private final String sha1;
+    // 相对于仓库根目录的路径，统一使用'/'分隔
+    private final String relativePath;
+    private final long size;
+    private final long lastModified;
+    // 文件类型，即扩展名，例如"jar"、"pom"、"war"
+    private final String type;
+    // 从相对路径解析出的坐标，路径不符合Maven仓库目录结构时为null
+    private final MavenCoordinates coordinates;
+
+    public ArtifactFile(Path path, String relativePath, long size, long lastModified, String type) {
+        this(path, null, null, relativePath, size, lastModified, type);
+    }
+
+    /**
+     * 远程仓库中的构件
+     *
+     * @param size 文件大小，未知时为-1
+     * @param lastModified 修改时间（毫秒），未知时为0
+     * @param sha1 远程仓库给出的SHA-1，未知时为null
+     */
+    public ArtifactFile(RemoteRepository source, String relativePath, long size, long lastModified, String sha1,
+            String type) {
+        this(null, source, sha1, relativePath, size, lastModified, type);
+    }
+
+    private ArtifactFile(Path path, RemoteRepository source, String sha1, String relativePath, long size,
+            long lastModified, String type) {
+        this.path = path;
+        this.source = source;
+        this.sha1 = sha1;
+        this.relativePath = relativePath;
+        this.size = size;
+        this.lastModified = lastModified;
+        this.type = type;
+        this.coordinates = MavenCoordinates.parse(relativePath);
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    /**
+     * 本地文件，远程构件返回null
+     */
+    public File toFile() {
+        return path == null ? null : path.toFile();
+    }
+
+    public String getFileName() {
+        return relativePath.substring(relativePath.lastIndexOf('/') + 1);
+    }
+
+    public boolean isRemote() {
+        return source != null;
+    }
+
+    public RemoteRepository getSource() {
+        return source;
+    }
+
+    /**
+     * 远程仓库给出的SHA-1，本地构件或未知时返回null
+     */
+    public String getSha1() {
+        return sha1;
+    }
+
+    public String getRelativePath() {
+        return relativePath;
+    }
+
+    /**
+     * 文件大小，远程仓库没有给出大小时为-1
+     */
+    public long getSize() {
+        return size;
+    }
+
+    public long getLastModified() {
+        return lastModified;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public MavenCoordinates getCoordinates() {
+        return coordinates;
+    }
+
+    @Override
+    public String toString() {
+        return relativePath;
+    }
+}
@@ -0,0 +1,496 @@
+package com.xus.UploadJar2Nexus;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * 按坐标、大小和修改时间选择要上传的构件，并在扫描时跳过不可能包含这些构件的目录
+ * 坐标规则的格式为groupId[:artifactId[:version]]，省略的部分相当于*：
+ * <ul>
+ * <li>groupId按'.'分段匹配，与仓库中的目录一一对应：*和?只在一段之内匹配，**匹配任意多段（包括零段），
+ * 例如com.ourcorp.**为com.ourcorp及其下所有groupId</li>
+ * <li>artifactId和version为一级目录，*匹配任意字符</li>
+ * <li>以~开头的部分为正则表达式，匹配整个字段（groupId的正则匹配包含'.'的完整groupId）</li>
+ * </ul>
+ * 构件至少匹配一条包含规则（没有包含规则时全部包含），且不匹配任何排除规则，才会上传。
+ * <p>
+ * 编译时把包含规则开头的固定段放入前缀树，其余部分编译为逐段匹配的状态机。扫描到一个目录时，
+ * 沿前缀树下行并用挂在途经节点上的状态机匹配剩余的目录段，没有任何规则还可能匹配其下的构件时，
+ * 不再读取该目录；排除规则只在其下所有可能的构件都被排除时跳过目录。
+ * 前缀树的分叉点即扫描的起始目录，例如只包含com.ourcorp.**时直接从com/ourcorp开始扫描，不读取仓库根目录。
+ * 大小和修改时间在未知时（镜像模式下列表没有给出）不参与过滤。
+ */
+public class ArtifactFilter {
+    // Maven仓库中构件所在的目录至少有groupId、artifactId和version三级
+    private static final int MIN_ARTIFACT_DEPTH = 3;
+
+    private final List<Rule> excludes;
+    // 包含规则的前缀树，没有包含规则时为null
+    private final TrieNode includeTree;
+    private final long minSize;
+    private final long maxSize;
+    private final long modifiedAfter;
+    private final long modifiedBefore;
+
+    private final LongAdder prunedDirectories = new LongAdder();
+    private final LongAdder excludedByCoordinates = new LongAdder();
+    private final LongAdder excludedBySize = new LongAdder();
+    private final LongAdder excludedByTime = new LongAdder();
+
+    /**
+     * 编译过滤规则
+     *
+     * @param includes 包含规则，为空时包含全部构件
+     * @param excludes 排除规则
+     * @param minSize 最小文件大小（字节），0表示不限
+     * @param maxSize 最大文件大小（字节），0表示不限
+     * @param modifiedAfter 只包含在此时间（毫秒）之后修改的文件，0表示不限
+     * @param modifiedBefore 只包含在此时间（毫秒）之前修改的文件，0表示不限
+     * @throws IllegalArgumentException 规则格式错误
+     */
+    public ArtifactFilter(List<String> includes, List<String> excludes, long minSize, long maxSize,
+            long modifiedAfter, long modifiedBefore) {
+        this.excludes = new ArrayList<>(excludes.size());
+        for (String exclude : excludes) {
+            this.excludes.add(Rule.parse(exclude));
+        }
+        if (includes.isEmpty()) {
+            this.includeTree = null;
+        } else {
+            this.includeTree = new TrieNode();
+            for (String include : includes) {
+                includeTree.insert(Rule.parse(include));
+            }
+        }
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+        this.modifiedAfter = modifiedAfter;
+        this.modifiedBefore = modifiedBefore;
+    }
+
+    /**
+     * 是否有坐标规则，没有时不需要按目录剪枝
+     */
+    public boolean hasCoordinateRules() {
+        return includeTree != null || !excludes.isEmpty();
+    }
+
+    /**
+     * 扫描的起始目录（相对于仓库根目录，以'/'分隔，根目录为空字符串）
+     * 包含规则开头的固定段之上的目录中不可能有匹配的构件，不需要读取；互为上下级时只返回上级
+     */
+    public List<String> getStartDirectories() {
+        if (includeTree == null) {
+            return Collections.singletonList("");
+        }
+        List<String> directories = new ArrayList<>();
+        includeTree.collectStarts("", directories);
+        return directories;
+    }
+
+    /**
+     * 判断目录下是否可能有需要上传的构件，不可能时计入跳过的目录数
+     *
+     * @param relativeDirectory 相对于仓库根目录、以'/'分隔的目录，可以以'/'结尾
+     */
+    public boolean allowsDirectory(String relativeDirectory) {
+        String[] segments = split(relativeDirectory);
+        boolean allowed = (includeTree == null || includeTree.mayMatch(segments)) && !excludesAll(segments);
+        if (!allowed) {
+            prunedDirectories.increment();
+        }
+        return allowed;
+    }
+
+    /**
+     * 判断构件是否需要上传；没有Maven坐标的文件（npm包）只按大小和修改时间过滤
+     */
+    public boolean matches(ArtifactFile artifact) {
+        MavenCoordinates coordinates = artifact.getCoordinates();
+        if (coordinates != null && !matchesCoordinates(coordinates)) {
+            excludedByCoordinates.increment();
+            return false;
+        }
+        long size = artifact.getSize();
+        if (size >= 0 && ((minSize > 0 && size < minSize) || (maxSize > 0 && size > maxSize))) {
+            excludedBySize.increment();
+            return false;
+        }
+        long modified = artifact.getLastModified();
+        if (modified > 0 && ((modifiedAfter > 0 && modified <= modifiedAfter)
+                || (modifiedBefore > 0 && modified >= modifiedBefore))) {
+            excludedByTime.increment();
+            return false;
+        }
+        return true;
+    }
+
+    private boolean matchesCoordinates(MavenCoordinates coordinates) {
+        String[] groupSegments = coordinates.getGroupId().split("\\.");
+        if (includeTree != null && !includeTree.anyMatches(coordinates, groupSegments)) {
+            return false;
+        }
+        for (Rule exclude : excludes) {
+            if (exclude.matches(coordinates, groupSegments)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean excludesAll(String[] segments) {
+        for (Rule exclude : excludes) {
+            if (exclude.coversSubtree(segments)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String[] split(String relativeDirectory) {
+        String path = relativeDirectory.endsWith("/")
+                ? relativeDirectory.substring(0, relativeDirectory.length() - 1) : relativeDirectory;
+        return path.isEmpty() ? new String[0] : path.split("/");
+    }
+
+    /**
+     * 因不可能包含需要上传的构件而没有读取的目录数（其下的目录同样没有读取，不另外计数）
+     */
+    public long getPrunedDirectories() {
+        return prunedDirectories.sum();
+    }
+
+    public long getExcludedByCoordinates() {
+        return excludedByCoordinates.sum();
+    }
+
+    public long getExcludedBySize() {
+        return excludedBySize.sum();
+    }
+
+    public long getExcludedByTime() {
+        return excludedByTime.sum();
+    }
+
+    /**
+     * 规则中的一段：匹配一级目录，或者（**）任意多级目录
+     */
+    private static final class Element {
+        final String literal;
+        final Pattern pattern;
+        // **，或groupId的正则表达式（剪枝时按可以匹配任意多段处理）
+        final boolean anySegments;
+        // 匹配任意一段（*）
+        final boolean anySegment;
+
+        private Element(String literal, Pattern pattern, boolean anySegments, boolean anySegment) {
+            this.literal = literal;
+            this.pattern = pattern;
+            this.anySegments = anySegments;
+            this.anySegment = anySegment;
+        }
+
+        static Element glob(String glob) {
+            if ("**".equals(glob)) {
+                return new Element(null, null, true, false);
+            }
+            if ("*".equals(glob)) {
+                return new Element(null, null, false, true);
+            }
+            if (glob.indexOf('*') < 0 && glob.indexOf('?') < 0) {
+                return new Element(glob, null, false, false);
+            }
+            StringBuilder regex = new StringBuilder();
+            StringBuilder literalPart = new StringBuilder();
+            for (char c : glob.toCharArray()) {
+                if (c == '*' || c == '?') {
+                    if (literalPart.length() > 0) {
+                        regex.append(Pattern.quote(literalPart.toString()));
+                        literalPart.setLength(0);
+                    }
+                    regex.append(c == '*' ? ".*" : ".");
+                } else {
+                    literalPart.append(c);
+                }
+            }
+            if (literalPart.length() > 0) {
+                regex.append(Pattern.quote(literalPart.toString()));
+            }
+            return new Element(null, Pattern.compile(regex.toString()), false, false);
+        }
+
+        static Element regex(String regex) {
+            return new Element(null, compile(regex), false, false);
+        }
+
+        static Element anySegments() {
+            return new Element(null, null, true, false);
+        }
+
+        boolean isLiteral() {
+            return literal != null;
+        }
+
+        boolean matches(String segment) {
+            if (anySegment) {
+                return true;
+            }
+            return literal != null ? literal.equals(segment) : pattern.matcher(segment).matches();
+        }
+    }
+
+    /**
+     * 一条坐标规则，编译为按目录逐段匹配的元素序列：groupId的各段、artifactId、version
+     */
+    private static final class Rule {
+        final String text;
+        final Element[] elements;
+        // groupId为正则表达式时不能按段匹配，匹配构件时直接匹配整个groupId
+        final Pattern groupRegex;
+        // 元素序列中groupId部分的长度
+        final int groupLength;
+
+        private Rule(String text, Element[] elements, Pattern groupRegex, int groupLength) {
+            this.text = text;
+            this.elements = elements;
+            this.groupRegex = groupRegex;
+            this.groupLength = groupLength;
+        }
+
+        static Rule parse(String text) {
+            String[] parts = text.trim().split(":", -1);
+            if (parts.length > 3 || parts[0].isEmpty()) {
+                throw new IllegalArgumentException("Invalid filter rule (groupId[:artifactId[:version]]): " + text);
+            }
+            List<Element> elements = new ArrayList<>();
+            Pattern groupRegex = null;
+            if (parts[0].startsWith("~")) {
+                groupRegex = compile(parts[0].substring(1));
+                elements.add(Element.anySegments());
+            } else {
+                for (String segment : parts[0].split("\\.", -1)) {
+                    if (segment.isEmpty()) {
+                        throw new IllegalArgumentException("Empty groupId segment in filter rule: " + text);
+                    }
+                    elements.add(Element.glob(segment));
+                }
+            }
+            int groupLength = elements.size();
+            for (int i = 1; i < 3; i++) {
+                String part = i < parts.length && !parts[i].isEmpty() ? parts[i] : "*";
+                elements.add(part.startsWith("~") ? Element.regex(part.substring(1))
+                        : "**".equals(part) ? Element.glob("*") : Element.glob(part));
+            }
+            return new Rule(text, elements.toArray(new Element[0]), groupRegex, groupLength);
+        }
+
+        /**
+         * 构件的坐标是否匹配
+         */
+        boolean matches(MavenCoordinates coordinates, String[] groupSegments) {
+            if (groupRegex != null) {
+                if (!groupRegex.matcher(coordinates.getGroupId()).matches()) {
+                    return false;
+                }
+            } else if (!run(0, groupLength, groupSegments, 0)[groupLength]) {
+                return false;
+            }
+            return elements[groupLength].matches(coordinates.getArtifactId())
+                    && elements[groupLength + 1].matches(coordinates.getVersion());
+        }
+
+        /**
+         * 从状态from开始逐段匹配segments[offset..]，返回之后可能处于的状态，
+         * states[i]表示已匹配完前i个元素；全部为false表示不可能匹配
+         *
+         * @param end 只使用前end个元素
+         */
+        boolean[] run(int from, int end, String[] segments, int offset) {
+            boolean[] states = new boolean[end + 1];
+            states[from] = true;
+            closure(states, end);
+            for (int i = offset; i < segments.length; i++) {
+                boolean[] next = new boolean[end + 1];
+                boolean any = false;
+                for (int s = 0; s < end; s++) {
+                    if (!states[s]) {
+                        continue;
+                    }
+                    if (elements[s].anySegments) {
+                        next[s] = true;
+                        any = true;
+                    } else if (elements[s].matches(segments[i])) {
+                        next[s + 1] = true;
+                        any = true;
+                    }
+                }
+                if (!any) {
+                    return next;
+                }
+                closure(next, end);
+                states = next;
+            }
+            return states;
+        }
+
+        /**
+         * **可以不匹配任何段
+         */
+        private void closure(boolean[] states, int end) {
+            for (int s = 0; s < end; s++) {
+                if (states[s] && elements[s].anySegments) {
+                    states[s + 1] = true;
+                }
+            }
+        }
+
+        /**
+         * 从状态from开始，剩余的目录段segments[offset..]之下是否还可能有匹配的构件
+         */
+        boolean mayMatch(int from, String[] segments, int offset) {
+            for (boolean state : run(from, elements.length, segments, offset)) {
+                if (state) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * 目录之下所有可能的构件是否都匹配（用于排除规则跳过整个目录）
+         * 匹配完目录之后，剩余元素全部为*或**的状态可以接受一定长度的后续目录；
+         * 这些长度合起来需要覆盖构件所在目录所有可能的深度
+         */
+        boolean coversSubtree(String[] segments) {
+            if (groupRegex != null) {
+                return false;
+            }
+            boolean[] states = run(0, elements.length, segments, 0);
+            int minTail = Math.max(0, MIN_ARTIFACT_DEPTH - segments.length);
+            // 带**的状态可以接受不少于openFrom段，其余状态恰好接受exact中的段数
+            int openFrom = Integer.MAX_VALUE;
+            boolean[] exact = new boolean[elements.length + 1];
+            for (int s = 0; s < states.length; s++) {
+                if (!states[s]) {
+                    continue;
+                }
+                int singles = 0;
+                boolean open = false;
+                boolean wildcardTail = true;
+                for (int e = s; e < elements.length; e++) {
+                    if (elements[e].anySegments) {
+                        open = true;
+                    } else if (elements[e].anySegment) {
+                        singles++;
+                    } else {
+                        wildcardTail = false;
+                        break;
+                    }
+                }
+                if (!wildcardTail) {
+                    continue;
+                }
+                if (open) {
+                    openFrom = Math.min(openFrom, singles);
+                } else {
+                    exact[singles] = true;
+                }
+            }
+            if (openFrom == Integer.MAX_VALUE) {
+                return false;
+            }
+            for (int length = minTail; length < openFrom; length++) {
+                if (!exact[length]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public String toString() {
+            return text;
+        }
+    }
+
+    /**
+     * 包含规则的前缀树：每条规则开头的固定段为一条路径，规则挂在固定段结束的节点上，剩余部分由状态机匹配
+     */
+    private static final class TrieNode {
+        final Map<String, TrieNode> children = new HashMap<>();
+        // 挂在该节点的规则，从第depth个元素开始用状态机匹配
+        final List<Rule> rules = new ArrayList<>();
+
+        void insert(Rule rule) {
+            TrieNode node = this;
+            int i = 0;
+            while (i < rule.elements.length && rule.elements[i].isLiteral()) {
+                node = node.children.computeIfAbsent(rule.elements[i].literal, key -> new TrieNode());
+                i++;
+            }
+            node.rules.add(rule);
+        }
+
+        /**
+         * 沿前缀树匹配目录段，途经节点上的规则从该深度继续匹配剩余的目录段
+         */
+        boolean mayMatch(String[] segments) {
+            TrieNode node = this;
+            for (int depth = 0; ; depth++) {
+                for (Rule rule : node.rules) {
+                    if (rule.mayMatch(depth, segments, depth)) {
+                        return true;
+                    }
+                }
+                if (depth == segments.length) {
+                    // 目录本身是某条规则固定前缀的一部分
+                    return true;
+                }
+                node = node.children.get(segments[depth]);
+                if (node == null) {
+                    return false;
+                }
+            }
+        }
+
+        boolean anyMatches(MavenCoordinates coordinates, String[] groupSegments) {
+            if (!rules.isEmpty()) {
+                for (Rule rule : rules) {
+                    if (rule.matches(coordinates, groupSegments)) {
+                        return true;
+                    }
+                }
+            }
+            for (TrieNode child : children.values()) {
+                if (child.anyMatches(coordinates, groupSegments)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        void collectStarts(String path, List<String> directories) {
+            if (!rules.isEmpty() || children.isEmpty()) {
+                directories.add(path);
+                return;
+            }
+            for (Map.Entry<String, TrieNode> child : children.entrySet()) {
+                child.getValue().collectStarts(path + child.getKey() + "/", directories);
+            }
+        }
+    }
+
+    private static Pattern compile(String regex) {
+        try {
+            return Pattern.compile(regex);
+        } catch (PatternSyntaxException e) {
+            throw new IllegalArgumentException("Invalid regular expression in filter rule: " + regex, e);
+        }
+    }
+}
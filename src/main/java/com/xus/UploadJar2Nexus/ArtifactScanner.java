@@ -0,0 +1,174 @@
+package com.xus.UploadJar2Nexus;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 扫描阶段的公共部分：ForkJoinPool、扫描统计、过滤器和POM优先的交付顺序
+ * 发现的构件交给{@link ArtifactSink}，由其写入有界上传队列，队列满时扫描线程阻塞形成背压，
+ * 上传阶段同时从队列中取任务，扫描和上传互不等待对方完成。
+ * 子类提供目录的来源：{@link RepositoryScanner}遍历本地目录（可以按目录重新扫描，供监视模式使用），
+ * {@link RemoteRepositoryScanner}列出远程仓库。
+ */
+public abstract class ArtifactScanner {
+    // 除jar以外需要上传的扩展名
+    private static final String[] OTHER_TYPES = {"pom", "war", "ear", "aar", "rar", "module"};
+
+    /**
+     * 接收扫描结果的回调，实现可以阻塞以限制扫描速度
+     */
+    public interface ArtifactSink {
+        void accept(ArtifactFile artifact) throws InterruptedException;
+
+        /**
+         * 接收一个目录（GAV）中的全部构件，POM在前；默认逐个交给accept，需要按目录整组处理的实现可以覆盖
+         */
+        default void acceptDirectory(List<ArtifactFile> artifacts) throws InterruptedException {
+            for (ArtifactFile artifact : artifacts) {
+                accept(artifact);
+            }
+        }
+    }
+
+    private final ArtifactSink sink;
+    private final ForkJoinPool pool;
+    // 每个目录的读取耗时，可以为null
+    final LatencyHistogram directoryLatency;
+    // 扫描统计，与上传统计分开输出
+    final LongAdder scannedDirectories = new LongAdder();
+    final LongAdder scannedFiles = new LongAdder();
+    final LongAdder matchedArtifacts = new LongAdder();
+    // 按坐标跳过目录的过滤器，可以为null
+    ArtifactFilter filter;
+    private volatile long scanStartTime;
+    private volatile long scanEndTime;
+    volatile boolean cancelled;
+
+    /**
+     * @param directoryLatency 记录每个目录读取耗时的直方图，可以为null
+     */
+    ArtifactScanner(ArtifactSink sink, int parallelism, LatencyHistogram directoryLatency) {
+        this.sink = sink;
+        this.pool = new ForkJoinPool(Math.max(1, parallelism));
+        this.directoryLatency = directoryLatency;
+    }
+
+    /**
+     * 设置目录过滤器，需要在{@link #start()}之前调用
+     */
+    public void setFilter(ArtifactFilter filter) {
+        this.filter = filter;
+    }
+
+    /**
+     * 目录（相对于仓库根目录）之下是否可能有需要上传的构件，否则不读取该目录
+     */
+    boolean allowsDirectory(String relativeDirectory) {
+        return filter == null || filter.allowsDirectory(relativeDirectory);
+    }
+
+    /**
+     * 异步启动扫描，返回的任务完成即表示整个仓库已遍历完毕
+     */
+    public ForkJoinTask<Void> start() {
+        scanStartTime = System.currentTimeMillis();
+        scanEndTime = 0;
+        return pool.submit(newRootTask());
+    }
+
+    /**
+     * 扫描整个仓库的根任务
+     */
+    abstract RecursiveAction newRootTask();
+
+    /**
+     * 停止扫描，尚未开始的目录任务将被跳过
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    public long getScannedDirectories() {
+        return scannedDirectories.sum();
+    }
+
+    public long getScannedFiles() {
+        return scannedFiles.sum();
+    }
+
+    public long getMatchedArtifacts() {
+        return matchedArtifacts.sum();
+    }
+
+    /**
+     * 扫描已用时间（毫秒），扫描结束后固定为总用时
+     */
+    public long getElapsedMillis() {
+        if (scanStartTime == 0) {
+            return 0;
+        }
+        long end = scanEndTime > 0 ? scanEndTime : System.currentTimeMillis();
+        return end - scanStartTime;
+    }
+
+    public void markFinished() {
+        scanEndTime = System.currentTimeMillis();
+    }
+
+    /**
+     * 扫描速率描述，例如：目录: 120 (40.0/s), 文件: 900 (300.0/s), 构件: 600
+     */
+    public String describeProgress() {
+        double seconds = Math.max(getElapsedMillis(), 1) / 1000.0;
+        long dirs = getScannedDirectories();
+        long files = getScannedFiles();
+        String progress = String.format("目录: %d (%.1f/s), 文件: %d (%.1f/s), 构件: %d",
+                dirs, dirs / seconds, files, files / seconds, getMatchedArtifacts());
+        return filter != null ? progress + ", 跳过目录: " + filter.getPrunedDirectories() : progress;
+    }
+
+    /**
+     * 判断文件是否为需要上传的构件，返回其类型（扩展名），否则返回null
+     * 支持jar、war、ear、aar、rar、pom和Gradle的.module文件，带分类器的文件（例如-tests.jar）同样上传；
+     * 会自动过滤掉sources.jar文件
+     */
+    static String artifactType(String fileName) {
+        if (fileName.endsWith(".jar")) {
+            return fileName.endsWith("-sources.jar") ? null : "jar";
+        }
+        for (String type : OTHER_TYPES) {
+            // 比较扩展名时不截取子串，扫描每个文件都会调用
+            int dot = fileName.length() - type.length() - 1;
+            if (dot > 0 && fileName.charAt(dot) == '.' && fileName.endsWith(type)) {
+                return type;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 把一个目录（GAV）中的构件按POM优先的顺序交给sink，上传阶段据此可以保证先上传POM
+     */
+    void deliver(List<ArtifactFile> artifacts) throws InterruptedException {
+        if (artifacts.isEmpty() || cancelled) {
+            return;
+        }
+        List<ArtifactFile> ordered = new ArrayList<>(artifacts.size());
+        for (int pass = 0; pass < 2; pass++) {
+            for (ArtifactFile artifact : artifacts) {
+                if ("pom".equals(artifact.getType()) == (pass == 0)) {
+                    ordered.add(artifact);
+                }
+            }
+        }
+        sink.acceptDirectory(ordered);
+    }
+}
@@ -0,0 +1,268 @@
+package com.xus.UploadJar2Nexus;
+
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.Header;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.methods.HttpPut;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.entity.ContentType;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.nio.client.methods.HttpAsyncMethods;
+import org.apache.http.nio.entity.NByteArrayEntity;
+import org.apache.http.nio.protocol.BasicAsyncResponseConsumer;
+import org.apache.http.nio.protocol.HttpAsyncRequestProducer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 异步上传引擎
+ * 基于HttpAsyncClient的非阻塞I/O，少量I/O线程即可同时维持数百个在途上传请求；
+ * 在途请求数由并发限制器控制，达到当前上限时upload阻塞调用方。
+ * 重试按{@link RetryBackoff}计算等待时间，通过定时任务延迟重新提交，等待期间不占用任何线程，也不占用并发名额；
+ * 到期后重新获取并发名额，熔断器打开期间在重试线程中等待。
+ * 校验文件在构件成功后由重试线程逐个获取并发名额再提交（I/O线程不能等待名额），失败时同样延迟重试。
+ */
+public class AsyncUploadEngine implements UploadEngine {
+    private static final Logger logger = LoggerFactory.getLogger(AsyncUploadEngine.class);
+
+    private final CloseableHttpAsyncClient client;
+    private final AdaptiveConcurrencyLimiter limiter;
+    // 目标的重试队列，重试和校验文件在其线程中获取名额并提交；请求结束即归还名额，等待名额的任务不会等待自己后面的任务
+    private final ScheduledExecutorService retryScheduler;
+    private final boolean uploadChecksums;
+    private final UploadListener listener;
+
+    /**
+     * 一个PUT请求（构件文件或它的一个校验文件）及其重试状态
+     */
+    private static final class Put {
+        final String url;
+        // 构件文件的内容，校验文件为null
+        final FileBodyEntity artifact;
+        // 校验文件的内容，构件文件为null
+        final byte[] checksum;
+        final long startTime = System.currentTimeMillis();
+        final CompletableFuture<Void> result = new CompletableFuture<>();
+        // 第几次发送，从1开始；同一时刻只有一个请求在发送，不需要同步
+        volatile int attempt = 1;
+
+        Put(String url, FileBodyEntity artifact, byte[] checksum) {
+            this.url = url;
+            this.artifact = artifact;
+            this.checksum = checksum;
+        }
+
+        HttpAsyncRequestProducer newProducer() {
+            if (artifact != null) {
+                return new FileRequestProducer(url, artifact);
+            }
+            HttpPut request = new HttpPut(url);
+            request.setEntity(new NByteArrayEntity(checksum, ContentType.TEXT_PLAIN));
+            return HttpAsyncMethods.create(request);
+        }
+
+        long getContentLength() {
+            return artifact != null ? artifact.getContentLength() : checksum.length;
+        }
+    }
+
+    /**
+     * @param client 已启动的异步客户端（见{@link NexusHttpClients#createAsyncClient}），连接池大小应不小于并发上限的最大值，
+     *               由引擎关闭
+     * @param retryScheduler 目标的重试队列，与组件上传、npm发布共用，由调用方关闭
+     */
+    public AsyncUploadEngine(CloseableHttpAsyncClient client, AdaptiveConcurrencyLimiter limiter,
+            ScheduledExecutorService retryScheduler, boolean uploadChecksums, UploadListener listener) {
+        this.client = client;
+        this.limiter = limiter;
+        this.retryScheduler = retryScheduler;
+        this.uploadChecksums = uploadChecksums;
+        this.listener = listener;
+        logger.info("异步上传引擎已启动 - 最大在途请求数: {}", limiter.getMaxLimit());
+    }
+
+    @Override
+    public String getName() {
+        return "async";
+    }
+
+    @Override
+    public CompletableFuture<Void> upload(String fileUrl, FileBodyEntity entity) throws InterruptedException {
+        Put put = new Put(fileUrl, entity, null);
+        send(put);
+        return put.result;
+    }
+
+    /**
+     * 获取并发名额后提交一次请求，请求结束时归还名额
+     */
+    private void send(final Put put) throws InterruptedException {
+        limiter.acquire();
+        final long attemptStart = System.currentTimeMillis();
+        try {
+            execute(put, attemptStart);
+        } catch (RuntimeException e) {
+            // 客户端已关闭或拒绝提交时不会回调，名额需要在这里归还
+            limiter.release();
+            failed(put, new IOException("无法提交上传请求: " + e.getMessage(), e));
+        }
+    }
+
+    private void execute(final Put put, final long attemptStart) {
+        client.execute(put.newProducer(), new BasicAsyncResponseConsumer(), new FutureCallback<HttpResponse>() {
+            @Override
+            public void completed(HttpResponse response) {
+                int responseCode = response.getStatusLine().getStatusCode();
+                Header retryAfter = response.getFirstHeader("Retry-After");
+                limiter.onResponse(responseCode, retryAfter != null ? retryAfter.getValue() : null,
+                        System.currentTimeMillis() - attemptStart, put.getContentLength());
+                limiter.release();
+                if (responseCode == HttpURLConnection.HTTP_CREATED || responseCode == HttpURLConnection.HTTP_OK) {
+                    succeeded(put);
+                } else {
+                    retryOrFail(put, new IOException("上传失败，HTTP状态码: " + responseCode),
+                            RetryBackoff.isRetryable(responseCode), AdaptiveConcurrencyLimiter.parseRetryAfter(
+                                    retryAfter != null ? retryAfter.getValue() : null));
+                }
+            }
+
+            @Override
+            public void failed(Exception ex) {
+                limiter.onError();
+                limiter.release();
+                retryOrFail(put, ex instanceof IOException ? (IOException) ex : new IOException(ex.getMessage(), ex),
+                        true, 0);
+            }
+
+            @Override
+            public void cancelled() {
+                limiter.release();
+                AsyncUploadEngine.this.failed(put, new IOException("上传被取消: " + put.url));
+            }
+        });
+    }
+
+    private void retryOrFail(final Put put, IOException error, boolean retryable, long retryAfterMillis) {
+        if (!retryable || put.attempt >= RetryBackoff.MAX_ATTEMPTS) {
+            failed(put, error);
+            return;
+        }
+        if (put.artifact != null) {
+            listener.onRetry(put.artifact, put.attempt, RetryBackoff.MAX_ATTEMPTS, error);
+        } else {
+            logger.debug("Checksum upload attempt {} failed, will retry: {} - {}", put.attempt, put.url,
+                    error.getMessage());
+        }
+        try {
+            retryScheduler.schedule(() -> retry(put), RetryBackoff.delayMillis(put.attempt, retryAfterMillis),
+                    TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            // 重试队列已关闭
+            failed(put, error);
+        }
+    }
+
+    /**
+     * 重试线程中执行的一次重试
+     */
+    private void retry(Put put) {
+        put.attempt++;
+        try {
+            send(put);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            failed(put, new IOException("上传被中断", e));
+        }
+    }
+
+    /**
+     * 构件上传成功后由重试线程上传其校验文件，校验文件全部结束后构件的上传结果才完成
+     */
+    private void succeeded(final Put put) {
+        if (put.artifact == null) {
+            put.result.complete(null);
+            return;
+        }
+        listener.onUploaded(put.artifact, System.currentTimeMillis() - put.startTime);
+        if (!uploadChecksums) {
+            put.result.complete(null);
+            return;
+        }
+        try {
+            retryScheduler.execute(() -> {
+                try {
+                    completeAfter(uploadChecksumFiles(put.url, put.artifact), put.result);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    put.result.completeExceptionally(new IOException("上传被中断", e));
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            put.result.completeExceptionally(new IOException("重试队列已关闭，校验文件未上传: " + put.url));
+        }
+    }
+
+    private void failed(Put put, IOException failure) {
+        if (put.artifact != null) {
+            put.result.completeExceptionally(failure);
+            return;
+        }
+        listener.onChecksumFailed(put.url, failure);
+        logger.debug("Checksum upload failed: {}", put.url, failure);
+        put.result.completeExceptionally(new ChecksumUploadException(put.url, failure));
+    }
+
+    /**
+     * 逐个获取并发名额并提交全部校验文件
+     *
+     * @return 每个校验文件的上传结果，最终失败时以{@link ChecksumUploadException}完成
+     */
+    private List<CompletableFuture<Void>> uploadChecksumFiles(String fileUrl, FileBodyEntity entity)
+            throws InterruptedException {
+        List<CompletableFuture<Void>> pending = new ArrayList<>();
+        for (Map.Entry<String, String> checksum : entity.getDigests().entrySet()) {
+            String extension = Digests.CHECKSUM_EXTENSIONS.get(checksum.getKey());
+            if (extension == null) {
+                continue;
+            }
+            Put put = new Put(fileUrl + "." + extension, null, checksum.getValue().getBytes(StandardCharsets.US_ASCII));
+            send(put);
+            pending.add(put.result);
+        }
+        return pending;
+    }
+
+    /**
+     * 全部校验文件结束后完成构件的上传结果，有失败时以第一个失败完成
+     */
+    private static void completeAfter(final List<CompletableFuture<Void>> pending, final CompletableFuture<Void> result) {
+        CompletableFuture.allOf(pending.toArray(new CompletableFuture<?>[0])).whenComplete((ignored, error) -> {
+            for (CompletableFuture<Void> done : pending) {
+                try {
+                    done.join();
+                } catch (CompletionException e) {
+                    // allOf只给出包装后的异常，取出第一个失败的校验文件
+                    result.completeExceptionally(e.getCause());
+                    return;
+                }
+            }
+            result.complete(null);
+        });
+    }
+
+    @Override
+    public void close() throws IOException {
+        client.close();
+    }
+}
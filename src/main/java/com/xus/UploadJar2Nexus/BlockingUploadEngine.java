@@ -0,0 +1,243 @@
+package com.xus.UploadJar2Nexus;
+
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpPut;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.StringEntity;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.util.EntityUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 阻塞上传引擎
+ * 第一次发送在调用线程中同步执行；失败后按{@link RetryBackoff}计算等待时间，把重试放入引擎的延迟队列，
+ * 调用线程立即返回去上传下一个文件，到期的重试由重试线程发送，等待期间不占用任何线程。
+ * 校验文件与构件一样，每个请求都经过并发限制器（及熔断器），失败时同样放入延迟队列重试。
+ * 同时进行的请求数不超过并发限制器的当前上限
+ */
+public class BlockingUploadEngine implements UploadEngine {
+    private static final Logger logger = LoggerFactory.getLogger(BlockingUploadEngine.class);
+
+    private final CloseableHttpClient httpClient;
+    private final boolean uploadChecksums;
+    private final UploadListener listener;
+    private final AdaptiveConcurrencyLimiter limiter;
+    // 目标的重试队列，到期的重试在其线程中发送
+    private final ScheduledExecutorService retryScheduler;
+
+    /**
+     * 一个PUT请求（构件文件或它的一个校验文件）及其重试状态
+     */
+    private static final class Put {
+        final String url;
+        final HttpEntity body;
+        // 构件文件的内容，校验文件为null
+        final FileBodyEntity artifact;
+        final long startTime = System.currentTimeMillis();
+        final CompletableFuture<Void> result = new CompletableFuture<>();
+        // 第几次发送，从1开始；同一时刻只有一个线程在发送，不需要同步
+        int attempt = 1;
+
+        Put(String url, HttpEntity body, FileBodyEntity artifact) {
+            this.url = url;
+            this.body = body;
+            this.artifact = artifact;
+        }
+    }
+
+    /**
+     * @param retryScheduler 目标的重试队列，与组件上传、npm发布共用，由调用方关闭
+     */
+    public BlockingUploadEngine(CloseableHttpClient httpClient, AdaptiveConcurrencyLimiter limiter,
+            ScheduledExecutorService retryScheduler, boolean uploadChecksums, UploadListener listener) {
+        this.httpClient = httpClient;
+        this.limiter = limiter;
+        this.retryScheduler = retryScheduler;
+        this.uploadChecksums = uploadChecksums;
+        this.listener = listener;
+    }
+
+    @Override
+    public String getName() {
+        return "blocking";
+    }
+
+    /**
+     * 在调用线程中发送第一次（连同校验文件）；返回的Future在最终成功或失败时完成，需要重试时在重试线程中完成
+     */
+    @Override
+    public CompletableFuture<Void> upload(String fileUrl, FileBodyEntity entity) throws InterruptedException {
+        Put put = new Put(fileUrl, entity, entity);
+        send(put);
+        return put.result;
+    }
+
+    /**
+     * 获取并发名额，使用HTTP PUT方法发送一次，结束后立即归还名额；失败且可以重试时安排下一次发送
+     */
+    private void send(final Put put) throws InterruptedException {
+        long retryAfterMillis = 0;
+        boolean retryable = true;
+        IOException failure = null;
+        limiter.acquire();
+        long attemptStart = System.currentTimeMillis();
+        try {
+            HttpPut request = new HttpPut(put.url);
+            request.setEntity(put.body);
+
+            int responseCode;
+            // 读完响应内容，连接才会归还连接池供下一个请求复用；读取失败时关闭响应，连接不会泄漏
+            try (CloseableHttpResponse response = httpClient.execute(request)) {
+                responseCode = response.getStatusLine().getStatusCode();
+                EntityUtils.consume(response.getEntity());
+                Header retryAfter = response.getFirstHeader("Retry-After");
+                limiter.onResponse(responseCode, retryAfter != null ? retryAfter.getValue() : null,
+                        System.currentTimeMillis() - attemptStart, put.body.getContentLength());
+                retryAfterMillis = AdaptiveConcurrencyLimiter.parseRetryAfter(
+                        retryAfter != null ? retryAfter.getValue() : null);
+            }
+            if (responseCode != HttpURLConnection.HTTP_CREATED && responseCode != HttpURLConnection.HTTP_OK) {
+                failure = new IOException("上传失败，HTTP状态码: " + responseCode);
+                retryable = RetryBackoff.isRetryable(responseCode);
+            }
+        } catch (IOException e) {
+            failure = e;
+            limiter.onError();
+        } catch (RuntimeException e) {
+            // 调用方在Future完成时统计和收尾，任何异常都需要通过Future报告
+            failure = new IOException(e.getMessage(), e);
+            retryable = false;
+        } finally {
+            limiter.release();
+        }
+
+        if (failure == null) {
+            succeeded(put);
+            return;
+        }
+        if (!retryable || put.attempt >= RetryBackoff.MAX_ATTEMPTS) {
+            failed(put, failure);
+            return;
+        }
+        if (put.artifact != null) {
+            listener.onRetry(put.artifact, put.attempt, RetryBackoff.MAX_ATTEMPTS, failure);
+        } else {
+            logger.debug("Checksum upload attempt {} failed, will retry: {} - {}", put.attempt, put.url,
+                    failure.getMessage());
+        }
+        try {
+            retryScheduler.schedule(() -> retry(put), RetryBackoff.delayMillis(put.attempt, retryAfterMillis),
+                    TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            // 重试队列已关闭
+            failed(put, failure);
+        }
+    }
+
+    /**
+     * 重试线程中执行的一次重试
+     */
+    private void retry(Put put) {
+        put.attempt++;
+        try {
+            send(put);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            failed(put, new IOException("上传被中断", e));
+        }
+    }
+
+    /**
+     * 构件上传成功后在当前线程中上传其校验文件，校验文件全部结束后构件的上传结果才完成
+     */
+    private void succeeded(Put put) {
+        if (put.artifact == null) {
+            put.result.complete(null);
+            return;
+        }
+        listener.onUploaded(put.artifact, System.currentTimeMillis() - put.startTime);
+        if (!uploadChecksums) {
+            put.result.complete(null);
+            return;
+        }
+        try {
+            completeAfter(uploadChecksumFiles(put.url, put.artifact), put.result);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            put.result.completeExceptionally(new IOException("上传被中断", e));
+        }
+    }
+
+    private void failed(Put put, IOException failure) {
+        if (put.artifact != null) {
+            put.result.completeExceptionally(failure);
+            return;
+        }
+        listener.onChecksumFailed(put.url, failure);
+        logger.debug("Checksum upload failed: {}", put.url, failure);
+        put.result.completeExceptionally(new ChecksumUploadException(put.url, failure));
+    }
+
+    /**
+     * 上传文件对应的校验文件（.sha1/.md5/.sha256/.sha512）
+     * 摘要来自上传文件内容时的同一次读取；每个校验文件是一个独立的请求，各自获取并发名额和重试
+     *
+     * @param fileUrl 构件文件的URL
+     * @param entity 已上传的文件内容，包含发送时计算的摘要
+     * @return 每个校验文件的上传结果，最终失败时以{@link ChecksumUploadException}完成
+     */
+    private List<CompletableFuture<Void>> uploadChecksumFiles(String fileUrl, FileBodyEntity entity)
+            throws InterruptedException {
+        List<CompletableFuture<Void>> pending = new ArrayList<>();
+        for (Map.Entry<String, String> checksum : entity.getDigests().entrySet()) {
+            String extension = Digests.CHECKSUM_EXTENSIONS.get(checksum.getKey());
+            if (extension == null) {
+                continue;
+            }
+            Put put = new Put(fileUrl + "." + extension, new StringEntity(checksum.getValue(), ContentType.TEXT_PLAIN),
+                    null);
+            send(put);
+            pending.add(put.result);
+        }
+        return pending;
+    }
+
+    /**
+     * 全部校验文件结束后完成构件的上传结果，有失败时以第一个失败完成
+     */
+    private static void completeAfter(final List<CompletableFuture<Void>> pending, final CompletableFuture<Void> result) {
+        CompletableFuture.allOf(pending.toArray(new CompletableFuture<?>[0])).whenComplete((ignored, error) -> {
+            for (CompletableFuture<Void> done : pending) {
+                try {
+                    done.join();
+                } catch (CompletionException e) {
+                    // allOf只给出包装后的异常，取出第一个失败的校验文件
+                    result.completeExceptionally(e.getCause());
+                    return;
+                }
+            }
+            result.complete(null);
+        });
+    }
+
+    /**
+     * HTTP客户端和重试队列都由调用方共享和关闭
+     */
+    @Override
+    public void close() {
+    }
+}
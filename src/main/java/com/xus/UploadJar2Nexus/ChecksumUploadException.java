@@ -0,0 +1,26 @@
+package com.xus.UploadJar2Nexus;
+
+import java.io.IOException;
+
+/**
+ * 构件本身已上传成功，但校验文件重试耗尽仍未上传
+ * 上传引擎以此异常完成构件的上传结果，调用方据此不写入上传日志（下次运行重新上传）并写入死信，
+ * 但不把该版本从maven-metadata.xml中去掉。
+ */
+public class ChecksumUploadException extends IOException {
+    private static final long serialVersionUID = 1L;
+
+    private final String checksumUrl;
+
+    public ChecksumUploadException(String checksumUrl, Throwable cause) {
+        super("校验文件上传失败: " + checksumUrl + " - " + cause.getMessage(), cause);
+        this.checksumUrl = checksumUrl;
+    }
+
+    /**
+     * 第一个上传失败的校验文件URL
+     */
+    public String getChecksumUrl() {
+        return checksumUrl;
+    }
+}
@@ -0,0 +1,126 @@
+package com.xus.UploadJar2Nexus;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 一个目标仓库的熔断器
+ * <ul>
+ * <li>关闭：正常发送请求，连续失败（5xx、429、网络错误）达到阈值后打开</li>
+ * <li>打开：暂停向该目标发起新的请求，上传线程和重试任务在并发限制器的acquire中等待，不再消耗重试次数</li>
+ * <li>半开：打开时间结束后只放行一个探测请求，成功则关闭，失败则再次打开，打开时间加倍直到上限</li>
+ * </ul>
+ * 服务器能正常回应的4xx说明服务器本身是健康的，按成功处理。
+ * 由{@link AdaptiveConcurrencyLimiter}在发放并发名额前调用，因此所有经过限制器的请求都受熔断器控制。
+ */
+public class CircuitBreaker {
+    private static final Logger logger = LoggerFactory.getLogger(CircuitBreaker.class);
+    // 连续失败多少次后打开
+    static final int FAILURE_THRESHOLD = 5;
+    // 第一次打开的时长，之后每次连续打开翻倍
+    static final long INITIAL_OPEN_MS = 5000;
+    static final long MAX_OPEN_MS = 60000;
+    // 探测请求超过该时间没有反馈结果时（例如调用方异常退出），允许发出新的探测
+    private static final long PROBE_TIMEOUT_MS = 60000;
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final String name;
+    private final long initialOpenMillis;
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    // 连续打开的次数，关闭后清零
+    private int consecutiveOpens;
+    private long openUntil;
+    private long probeStartedAt;
+    private final LongAdder opened = new LongAdder();
+
+    /**
+     * @param name 目标仓库URL，只用于日志
+     */
+    public CircuitBreaker(String name) {
+        this(name, INITIAL_OPEN_MS);
+    }
+
+    /**
+     * @param initialOpenMillis 第一次打开的时长，测试中使用较短的时间
+     */
+    CircuitBreaker(String name, long initialOpenMillis) {
+        this.name = name;
+        this.initialOpenMillis = initialOpenMillis;
+    }
+
+    /**
+     * 等待允许发送请求：打开期间阻塞，半开时只放行一个探测请求
+     */
+    public synchronized void awaitPermission() throws InterruptedException {
+        while (true) {
+            long now = System.currentTimeMillis();
+            if (state == State.CLOSED) {
+                return;
+            }
+            if (state == State.OPEN) {
+                if (now < openUntil) {
+                    wait(openUntil - now);
+                    continue;
+                }
+                state = State.HALF_OPEN;
+                probeStartedAt = 0;
+            }
+            if (probeStartedAt == 0 || now - probeStartedAt > PROBE_TIMEOUT_MS) {
+                probeStartedAt = now;
+                logger.info("目标 {} 熔断结束，发送探测请求", name);
+                return;
+            }
+            wait(Math.max(1, probeStartedAt + PROBE_TIMEOUT_MS - now));
+        }
+    }
+
+    /**
+     * 请求得到了服务器的正常回应
+     */
+    public synchronized void onSuccess() {
+        consecutiveFailures = 0;
+        if (state != State.CLOSED) {
+            logger.info("目标 {} 已恢复，继续上传", name);
+            state = State.CLOSED;
+            consecutiveOpens = 0;
+            notifyAll();
+        }
+    }
+
+    /**
+     * 请求因服务器错误、过载或网络错误失败
+     */
+    public synchronized void onFailure() {
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN || (state == State.CLOSED && consecutiveFailures >= FAILURE_THRESHOLD)) {
+            open();
+        }
+    }
+
+    private void open() {
+        long duration = Math.min(MAX_OPEN_MS, initialOpenMillis << Math.min(consecutiveOpens, 10));
+        consecutiveOpens++;
+        state = State.OPEN;
+        openUntil = System.currentTimeMillis() + duration;
+        opened.increment();
+        logger.warn("目标 {} 连续失败 {} 次，暂停发送 {} 秒", name, consecutiveFailures, duration / 1000);
+        notifyAll();
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    /**
+     * 熔断器打开的次数
+     */
+    public long getOpenCount() {
+        return opened.sum();
+    }
+}
@@ -0,0 +1,117 @@
+package com.xus.UploadJar2Nexus;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.SequenceInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+import org.apache.http.entity.AbstractHttpEntity;
+
+/**
+ * Nexus 3组件上传接口的multipart/form-data请求体，包含一个GAV的坐标字段和全部文件
+ * 文本字段在构造时编码好，文件内容在发送时通过各自的{@link FileBodyEntity}从磁盘流式写出（同时计算摘要），
+ * 因此请求体长度事先确定，可以带Content-Length发送，整个组件也不会读入内存。可重复发送以支持重试。
+ */
+class ComponentUploadEntity extends AbstractHttpEntity {
+    private static final byte[] CRLF = {'\r', '\n'};
+
+    private final String boundary;
+    // 依次写出的各部分：byte[]为已编码的分隔符、头部和文本字段，FileBodyEntity为文件内容
+    private final List<Object> parts = new ArrayList<>();
+    private final long length;
+
+    /**
+     * @param coordinates 组件的坐标，取groupId、artifactId和version
+     * @param files 组件中的文件
+     * @param entities 与files一一对应的文件内容
+     */
+    ComponentUploadEntity(MavenCoordinates coordinates, List<ArtifactFile> files, List<FileBodyEntity> entities) {
+        this.boundary = "----UploadJar2Nexus" + UUID.randomUUID().toString().replace("-", "");
+        setContentType("multipart/form-data; boundary=" + boundary);
+        field("maven2.groupId", coordinates.getGroupId());
+        field("maven2.artifactId", coordinates.getArtifactId());
+        field("maven2.version", coordinates.getVersion());
+        field("maven2.generate-pom", "false");
+        for (int i = 0; i < files.size(); i++) {
+            MavenCoordinates file = files.get(i).getCoordinates();
+            String asset = "maven2.asset" + (i + 1);
+            parts.add(encode("--" + boundary + "\r\nContent-Disposition: form-data; name=\"" + asset
+                    + "\"; filename=\"" + quote(entities.get(i).getFile().getName())
+                    + "\"\r\nContent-Type: application/octet-stream\r\n\r\n"));
+            parts.add(entities.get(i));
+            parts.add(CRLF);
+            field(asset + ".extension", file.getExtension());
+            if (file.getClassifier() != null) {
+                field(asset + ".classifier", file.getClassifier());
+            }
+        }
+        parts.add(encode("--" + boundary + "--\r\n"));
+        long total = 0;
+        for (Object part : parts) {
+            total += part instanceof byte[] ? ((byte[]) part).length : ((FileBodyEntity) part).getContentLength();
+        }
+        this.length = total;
+    }
+
+    private void field(String name, String value) {
+        parts.add(encode("--" + boundary + "\r\nContent-Disposition: form-data; name=\"" + name + "\"\r\n\r\n"
+                + value + "\r\n"));
+    }
+
+    private static byte[] encode(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String quote(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+
+    @Override
+    public boolean isRepeatable() {
+        return true;
+    }
+
+    @Override
+    public long getContentLength() {
+        return length;
+    }
+
+    @Override
+    public boolean isStreaming() {
+        return false;
+    }
+
+    /**
+     * 只用于调试，发送时使用writeTo
+     */
+    @Override
+    public InputStream getContent() throws IOException {
+        List<InputStream> streams = new ArrayList<>(parts.size());
+        for (Object part : parts) {
+            streams.add(part instanceof byte[] ? new ByteArrayInputStream((byte[]) part)
+                    : ((FileBodyEntity) part).getContent());
+        }
+        return new SequenceInputStream(Collections.enumeration(streams));
+    }
+
+    @Override
+    public void writeTo(OutputStream outStream) throws IOException {
+        if (outStream == null) {
+            throw new IllegalArgumentException("Output stream cannot be null");
+        }
+        for (Object part : parts) {
+            if (part instanceof byte[]) {
+                outStream.write((byte[]) part);
+            } else {
+                ((FileBodyEntity) part).writeTo(outStream);
+            }
+        }
+        outStream.flush();
+    }
+}
@@ -0,0 +1,227 @@
+package com.xus.UploadJar2Nexus;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 组件上传：一个GAV目录中需要上传的文件通过Nexus 3组件上传接口一次发送到每个目标
+ * 快照版本不支持组件上传接口，仍然逐个PUT；不支持或拒绝组件上传的目标同样改为逐个PUT这些文件。
+ */
+final class ComponentUploadMode implements UploadMode {
+    private static final Logger logger = LoggerFactory.getLogger(ComponentUploadMode.class);
+
+    private final UploadSession session;
+    private final PutUploadMode put;
+    // 重试结束后改为逐个PUT的文件在这里发送，重试线程不等待上传
+    private final ExecutorService componentFallback;
+
+    ComponentUploadMode(UploadSession session, PutUploadMode put) {
+        this.session = session;
+        this.put = put;
+        this.componentFallback = Executors.newFixedThreadPool(session.uploadWorkers);
+    }
+
+    /**
+     * 按目录整组接收扫描结果
+     */
+    @Override
+    public ArtifactScanner.ArtifactSink createSink() {
+        return new ArtifactScanner.ArtifactSink() {
+            @Override
+            public void accept(ArtifactFile artifact) throws InterruptedException {
+                session.enqueue(artifact);
+            }
+
+            @Override
+            public void acceptDirectory(List<ArtifactFile> artifacts) throws InterruptedException {
+                enqueueDirectory(artifacts);
+            }
+        };
+    }
+
+    @Override
+    public void upload(List<ArtifactFile> batch) throws InterruptedException {
+        if (batch.get(0).getCoordinates().isSnapshot()) {
+            put.upload(batch);
+            return;
+        }
+        try {
+            uploadComponent(batch);
+        } catch (RuntimeException e) {
+            session.pendingFiles.addAndGet(-batch.size());
+            logger.error("Unexpected error while uploading component {}", batch.get(0).getCoordinates(), e);
+        }
+    }
+
+    @Override
+    public void close() {
+        componentFallback.shutdownNow();
+    }
+
+    /**
+     * 处理扫描到的一个目录：需要上传的文件作为一组放入上传队列，整组一起上传
+     * 快照版本不支持组件上传接口，仍然逐个放入队列
+     *
+     * @param artifacts 同一GAV目录中的构件，POM在前
+     */
+    private void enqueueDirectory(List<ArtifactFile> artifacts) throws InterruptedException {
+        List<ArtifactFile> group = new ArrayList<>(artifacts.size());
+        for (ArtifactFile artifact : artifacts) {
+            if (session.shouldUpload(artifact)) {
+                group.add(artifact);
+            }
+        }
+        if (group.isEmpty()) {
+            return;
+        }
+        if (group.get(0).getCoordinates().isSnapshot()) {
+            for (ArtifactFile artifact : group) {
+                session.pendingFiles.incrementAndGet();
+                session.uploadQueue.put(artifact);
+            }
+            return;
+        }
+        logger.debug("Submitting component upload for: {} ({} files)", group.get(0).getCoordinates(), group.size());
+        session.pendingFiles.addAndGet(group.size());
+        session.uploadQueue.putGroup(group);
+    }
+
+    /**
+     * 各目标的第一次发送依次在当前上传线程中进行，重试在目标的重试队列中进行；
+     * 全部目标结束后，不支持或拒绝的目标改为逐个PUT这些文件，有重试时在组件回退线程中发送
+     *
+     * @param group 同一GAV目录中的文件，POM在前
+     */
+    private void uploadComponent(final List<ArtifactFile> group) throws InterruptedException {
+        MavenCoordinates coordinates = group.get(0).getCoordinates();
+        final List<NexusTarget> selected = new ArrayList<>(session.targets.size());
+        final List<List<ArtifactFile>> selectedFiles = new ArrayList<>(session.targets.size());
+        // 与selected一一对应，false表示需要改为逐个PUT
+        final List<CompletableFuture<Boolean>> results = new ArrayList<>(session.targets.size());
+        session.activeUploads.incrementAndGet();
+        try {
+            for (NexusTarget target : session.targets) {
+                List<ArtifactFile> files = new ArrayList<>(group.size());
+                for (ArtifactFile artifact : group) {
+                    if (put.needsUpload(target, artifact)) {
+                        files.add(artifact);
+                    }
+                }
+                if (files.isEmpty()) {
+                    continue;
+                }
+                // 组件上传结束后归还积压名额，回退的逐个PUT再各自获取
+                target.backlog.acquire();
+                CompletableFuture<Boolean> result;
+                try {
+                    result = uploadComponentTo(target, coordinates, files);
+                } catch (InterruptedException | RuntimeException e) {
+                    target.backlog.release();
+                    throw e;
+                }
+                selected.add(target);
+                selectedFiles.add(files);
+                results.add(result.whenComplete((uploaded, error) -> target.backlog.release()));
+            }
+        } catch (InterruptedException | RuntimeException e) {
+            session.activeUploads.decrementAndGet();
+            throw e;
+        }
+        CompletableFuture<Void> all = CompletableFuture.allOf(results.toArray(new CompletableFuture<?>[0]));
+        if (all.isDone()) {
+            uploadFallback(group, selected, selectedFiles, results);
+            return;
+        }
+        all.whenComplete((ignored, error) -> {
+            try {
+                componentFallback.execute(() -> {
+                    try {
+                        uploadFallback(group, selected, selectedFiles, results);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                // 正在退出
+                session.activeUploads.decrementAndGet();
+            }
+        });
+    }
+
+    /**
+     * 组件上传全部结束后，把需要改为逐个PUT的文件发送到对应的目标
+     */
+    private void uploadFallback(List<ArtifactFile> group, List<NexusTarget> selected,
+            List<List<ArtifactFile>> selectedFiles, List<CompletableFuture<Boolean>> results)
+            throws InterruptedException {
+        try {
+            // 需要逐个PUT的文件 -> 目标
+            Map<ArtifactFile, List<NexusTarget>> fallback = new LinkedHashMap<>();
+            for (int i = 0; i < selected.size(); i++) {
+                if (results.get(i).join()) {
+                    continue;
+                }
+                for (ArtifactFile artifact : selectedFiles.get(i)) {
+                    fallback.computeIfAbsent(artifact, key -> new ArrayList<>()).add(selected.get(i));
+                }
+            }
+            // 逐个PUT的文件在各自上传结束后计数
+            session.pendingFiles.addAndGet(fallback.size() - group.size());
+            for (Map.Entry<ArtifactFile, List<NexusTarget>> entry : fallback.entrySet()) {
+                put.uploadToTargets(entry.getKey(), entry.getValue());
+            }
+        } finally {
+            // 逐个PUT已各自计入在途上传
+            session.activeUploads.decrementAndGet();
+        }
+    }
+
+    /**
+     * 通过组件上传接口把文件发送到一个目标，成功后写入该目标的上传日志
+     *
+     * @return 上传结果，需要改为逐个PUT时以false完成
+     */
+    private CompletableFuture<Boolean> uploadComponentTo(final NexusTarget target,
+            final MavenCoordinates coordinates, final List<ArtifactFile> files) throws InterruptedException {
+        if (target.componentUploader == null || !target.componentUploader.isSupported()) {
+            return CompletableFuture.completedFuture(false);
+        }
+        for (ArtifactFile artifact : files) {
+            if (artifact.getSize() > session.options.maxFileSize || artifact.getSize() < 0) {
+                // 由逐个上传报告超过大小限制的文件；源仓库没有给出大小的文件无法计算请求体长度
+                return CompletableFuture.completedFuture(false);
+            }
+        }
+        // 组件上传的校验文件由Nexus生成，只有上传日志需要在发送时计算SHA-1
+        String[] digestAlgorithms = target.journal != null ? new String[] {"SHA-1"} : new String[0];
+        return target.componentUploader.upload(coordinates, files, digestAlgorithms).handle((entities, error) -> {
+            if (error != null) {
+                logger.warn("组件上传出错，改为逐个上传 {}: {}", coordinates, error.getMessage());
+                return false;
+            }
+            if (entities == null) {
+                return false;
+            }
+            if (target.journal != null) {
+                for (int i = 0; i < files.size(); i++) {
+                    try {
+                        target.journal.record(files.get(i), entities.get(i).getDigestHex("SHA-1"));
+                    } catch (IOException e) {
+                        logger.warn("无法写入上传日志 {}: {}", files.get(i).getRelativePath(), e.getMessage());
+                    }
+                }
+            }
+            return true;
+        });
+    }
+}
@@ -0,0 +1,232 @@
+package com.xus.UploadJar2Nexus;
+
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.URLEncoder;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.http.Header;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.entity.ContentType;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.util.EntityUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 通过Nexus 3的组件上传接口（POST /service/rest/v1/components?repository=名称）一次请求上传一个GAV目录中的全部文件
+ * 逐个PUT时一个GAV的POM、JAR、分类器文件和各自的校验文件需要4到10个请求，这里只需要一个，校验文件由Nexus生成。
+ * 目标不支持该接口（404/405/501，或URL不是/repository/名称/的形式）时关闭组件上传；
+ * 其他拒绝（4xx，例如仓库策略不允许）只对当前组件回退；服务器错误按{@link RetryBackoff}计算等待时间，
+ * 与逐个PUT一样放入目标的重试队列，上传线程不等待，重试耗尽后同样回退。
+ * 回退的文件由调用方改为逐个PUT。
+ */
+public class ComponentUploader {
+    private static final Logger logger = LoggerFactory.getLogger(ComponentUploader.class);
+    private static final Pattern REPOSITORY_URL = Pattern.compile("^(https?://.+?)/repository/([^/]+)/?$");
+
+    private final CloseableHttpClient httpClient;
+    private final AdaptiveConcurrencyLimiter limiter;
+    private final UploadListener listener;
+    private final ScheduledExecutorService retryScheduler;
+    // 组件上传接口地址，无法从仓库URL中解析时为null
+    private final String componentsUrl;
+    private volatile boolean supported;
+    private final LongAdder uploadedComponents = new LongAdder();
+    private final LongAdder uploadedFiles = new LongAdder();
+    private final LongAdder fallbackComponents = new LongAdder();
+
+    /**
+     * @param retryScheduler 目标的重试队列，到期的重试在其线程中发送
+     */
+    public ComponentUploader(CloseableHttpClient httpClient, String repositoryUrl, AdaptiveConcurrencyLimiter limiter,
+            ScheduledExecutorService retryScheduler, UploadListener listener) {
+        this.httpClient = httpClient;
+        this.limiter = limiter;
+        this.retryScheduler = retryScheduler;
+        this.listener = listener;
+        Matcher matcher = REPOSITORY_URL.matcher(repositoryUrl.trim());
+        if (matcher.matches()) {
+            this.componentsUrl = matcher.group(1) + "/service/rest/v1/components?repository=" + encode(matcher.group(2));
+            this.supported = true;
+        } else {
+            this.componentsUrl = null;
+            this.supported = false;
+            logger.warn("无法从仓库URL解析仓库名，组件上传不可用，改为逐个上传文件: {}", repositoryUrl);
+        }
+    }
+
+    /**
+     * 目标是否（仍然）可以使用组件上传接口
+     */
+    public boolean isSupported() {
+        return supported;
+    }
+
+    public long getUploadedComponents() {
+        return uploadedComponents.sum();
+    }
+
+    public long getUploadedFiles() {
+        return uploadedFiles.sum();
+    }
+
+    public long getFallbackComponents() {
+        return fallbackComponents.sum();
+    }
+
+    /**
+     * 一个组件的上传请求及其重试状态
+     */
+    private static final class Upload {
+        final MavenCoordinates coordinates;
+        final List<ArtifactFile> files;
+        final List<FileBodyEntity> entities;
+        final ComponentUploadEntity body;
+        final long startTime = System.currentTimeMillis();
+        final CompletableFuture<List<FileBodyEntity>> result = new CompletableFuture<>();
+        // 第几次发送，从1开始
+        volatile int attempt = 1;
+
+        Upload(MavenCoordinates coordinates, List<ArtifactFile> files, List<FileBodyEntity> entities) {
+            this.coordinates = coordinates;
+            this.files = files;
+            this.entities = entities;
+            this.body = new ComponentUploadEntity(coordinates, files, entities);
+        }
+    }
+
+    /**
+     * 上传一个组件：第一次在调用线程中发送，失败后的重试放入重试队列，调用线程不等待
+     *
+     * @param coordinates 组件的坐标
+     * @param files 组件中的文件，应属于同一个GAV目录
+     * @param digestAlgorithms 发送时顺带计算的摘要（上传日志需要SHA-1）
+     * @return 上传成功时以与files一一对应的文件内容（含计算出的摘要）完成；需要逐个上传时以null完成
+     */
+    public CompletableFuture<List<FileBodyEntity>> upload(MavenCoordinates coordinates, List<ArtifactFile> files,
+            String[] digestAlgorithms) throws InterruptedException {
+        if (!supported) {
+            return CompletableFuture.completedFuture(null);
+        }
+        List<FileBodyEntity> entities = new ArrayList<>(files.size());
+        for (ArtifactFile file : files) {
+            FileBodyEntity entity = FileBodyEntity.forArtifact(file, ContentType.APPLICATION_OCTET_STREAM);
+            entity.setDigestAlgorithms(digestAlgorithms);
+            entities.add(entity);
+        }
+        Upload upload = new Upload(coordinates, files, entities);
+        send(upload);
+        return upload.result;
+    }
+
+    /**
+     * 发送一次，失败且可以重试时按退避时间安排下一次发送
+     */
+    private void send(final Upload upload) throws InterruptedException {
+        long retryAfterMillis = 0;
+        IOException failure;
+        limiter.acquire();
+        long attemptStart = System.currentTimeMillis();
+        try {
+            HttpPost request = new HttpPost(componentsUrl);
+            request.setEntity(upload.body);
+            try (CloseableHttpResponse response = httpClient.execute(request)) {
+                int status = response.getStatusLine().getStatusCode();
+                EntityUtils.consume(response.getEntity());
+                Header retryAfter = response.getFirstHeader("Retry-After");
+                limiter.onResponse(status, retryAfter != null ? retryAfter.getValue() : null,
+                        System.currentTimeMillis() - attemptStart, upload.body.getContentLength());
+                if (status >= 200 && status < 300) {
+                    long uploadTime = System.currentTimeMillis() - upload.startTime;
+                    for (FileBodyEntity entity : upload.entities) {
+                        listener.onUploaded(entity, uploadTime);
+                    }
+                    uploadedComponents.increment();
+                    uploadedFiles.add(upload.files.size());
+                    logger.debug("Component uploaded: {} ({} files)", upload.coordinates, upload.files.size());
+                    upload.result.complete(upload.entities);
+                    return;
+                }
+                if (status == HttpURLConnection.HTTP_NOT_FOUND || status == HttpURLConnection.HTTP_BAD_METHOD
+                        || status == HttpURLConnection.HTTP_NOT_IMPLEMENTED) {
+                    fallbackComponents.increment();
+                    if (supported) {
+                        // 并发的请求可能同时收到404，只提示一次
+                        supported = false;
+                        logger.warn("目标仓库不支持组件上传接口（HTTP {}），改为逐个上传文件: {}", status, componentsUrl);
+                    }
+                    upload.result.complete(null);
+                    return;
+                }
+                if (!RetryBackoff.isRetryable(status)) {
+                    fallbackComponents.increment();
+                    logger.warn("组件上传被拒绝（HTTP {}），改为逐个上传: {}", status, upload.coordinates);
+                    upload.result.complete(null);
+                    return;
+                }
+                failure = new IOException("组件上传失败，HTTP状态码: " + status);
+                retryAfterMillis = AdaptiveConcurrencyLimiter.parseRetryAfter(
+                        retryAfter != null ? retryAfter.getValue() : null);
+            }
+        } catch (IOException e) {
+            failure = e;
+            limiter.onError();
+        } catch (RuntimeException e) {
+            // 重试在重试线程中执行，异常需要通过Future报告给调用方
+            upload.result.completeExceptionally(e);
+            return;
+        } finally {
+            limiter.release();
+        }
+        if (upload.attempt >= RetryBackoff.MAX_ATTEMPTS) {
+            fallBack(upload, failure);
+            return;
+        }
+        listener.onRetry(upload.entities.get(0), upload.attempt, RetryBackoff.MAX_ATTEMPTS, failure);
+        final IOException lastFailure = failure;
+        try {
+            retryScheduler.schedule(() -> retry(upload, lastFailure),
+                    RetryBackoff.delayMillis(upload.attempt, retryAfterMillis), TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            // 重试队列已关闭
+            fallBack(upload, failure);
+        }
+    }
+
+    /**
+     * 重试线程中执行的一次重试
+     */
+    private void retry(Upload upload, IOException lastFailure) {
+        upload.attempt++;
+        try {
+            send(upload);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            fallBack(upload, lastFailure);
+        }
+    }
+
+    private void fallBack(Upload upload, IOException failure) {
+        fallbackComponents.increment();
+        logger.warn("组件上传失败，改为逐个上传 {}: {}", upload.coordinates, failure.getMessage());
+        upload.result.complete(null);
+    }
+
+    private static String encode(String value) {
+        try {
+            return URLEncoder.encode(value, "UTF-8");
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package com.xus.UploadJar2Nexus;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 死信文件：本次运行中重试耗尽或被拒绝、最终没有上传成功的文件
+ * 每次失败追加一行（制表符分隔）：目标仓库URL、大小、修改时间、SHA-1（未知时为-）、类型、相对路径和失败原因，
+ * 首行记录源仓库。之后可以用--replay只重新上传这些文件，不需要重新扫描整个仓库。
+ * 每次运行开始时重新创建（重放时先读取再创建），没有失败的运行结束时删除该文件。
+ */
+public class DeadLetterLog implements Closeable {
+    private static final Logger logger = LoggerFactory.getLogger(DeadLetterLog.class);
+    private static final String HEADER = "# UploadJar2Nexus dead letters v1";
+    private static final String UNKNOWN = "-";
+    private static final int FIELD_COUNT = 7;
+    private static final Pattern USER_INFO = Pattern.compile("^(https?://)[^/@]*@");
+
+    private final Path file;
+    private final Writer writer;
+    private int count;
+
+    /**
+     * 死信中的一个文件
+     */
+    public static final class Entry {
+        private final String target;
+        private final long size;
+        private final long lastModified;
+        private final String sha1;
+        private final String type;
+        private final String relativePath;
+        private final String reason;
+
+        Entry(String target, long size, long lastModified, String sha1, String type, String relativePath,
+                String reason) {
+            this.target = target;
+            this.size = size;
+            this.lastModified = lastModified;
+            this.sha1 = sha1;
+            this.type = type;
+            this.relativePath = relativePath;
+            this.reason = reason;
+        }
+
+        /**
+         * 失败时的目标仓库URL
+         */
+        public String getTarget() {
+            return target;
+        }
+
+        public long getSize() {
+            return size;
+        }
+
+        public long getLastModified() {
+            return lastModified;
+        }
+
+        /**
+         * 源仓库给出的SHA-1，未知时为null
+         */
+        public String getSha1() {
+            return sha1;
+        }
+
+        public String getType() {
+            return type;
+        }
+
+        public String getRelativePath() {
+            return relativePath;
+        }
+
+        public String getReason() {
+            return reason;
+        }
+    }
+
+    private DeadLetterLog(Path file, String repository) throws IOException {
+        this.file = file;
+        this.writer = new BufferedWriter(new OutputStreamWriter(Files.newOutputStream(file,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE),
+                StandardCharsets.UTF_8));
+        writer.write(HEADER + " " + repository + "\n");
+        writer.flush();
+    }
+
+    /**
+     * 创建（或清空）死信文件
+     *
+     * @param file 死信文件路径
+     * @param repository 源仓库路径或URL（不含认证信息），写入首行，重放时据此确认是同一个仓库
+     */
+    public static DeadLetterLog create(Path file, String repository) throws IOException {
+        return new DeadLetterLog(file, repository);
+    }
+
+    /**
+     * 根据目标仓库URL生成默认的死信文件名，与上传日志的命名方式相同
+     */
+    public static String defaultFileName(String target) {
+        return "upload-dead-letter-" + target.replaceAll("^https?://", "").replaceAll("[^A-Za-z0-9.-]+", "_")
+                + ".tsv";
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    public synchronized int size() {
+        return count;
+    }
+
+    /**
+     * 记录一个最终失败的文件，立即写入磁盘，进程随后被终止时记录也不会丢失
+     *
+     * @param target 目标仓库URL
+     * @param reason 失败原因
+     */
+    public synchronized void record(String target, ArtifactFile artifact, String reason) throws IOException {
+        StringBuilder line = new StringBuilder(160);
+        line.append(target).append('\t')
+            .append(artifact.getSize()).append('\t')
+            .append(artifact.getLastModified()).append('\t')
+            .append(artifact.getSha1() != null ? artifact.getSha1() : UNKNOWN).append('\t')
+            .append(artifact.getType()).append('\t')
+            .append(artifact.getRelativePath()).append('\t')
+            .append(reason == null ? "" : reason.replaceAll("[\t\r\n]+", " "))
+            .append('\n');
+        writer.write(line.toString());
+        writer.flush();
+        count++;
+    }
+
+    /**
+     * 读取死信文件，同一个文件失败于多个目标时只返回一次（顺序为第一次出现的顺序）
+     * 格式不正确的行跳过
+     *
+     * @param repository 本次运行的源仓库（不含认证信息），与文件首行记录的不同时输出警告
+     */
+    public static List<Entry> read(Path file, String repository) throws IOException {
+        Map<String, Entry> entries = new LinkedHashMap<>();
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.startsWith(HEADER)) {
+                    // 旧版本写入的URL可能带有认证信息，比较和输出之前去掉
+                    String recorded = USER_INFO.matcher(line.substring(HEADER.length()).trim()).replaceFirst("$1");
+                    if (!recorded.isEmpty() && !recorded.equals(repository)) {
+                        logger.warn("死信文件 {} 来自另一个仓库 {}，按本次的仓库路径重放", file, recorded);
+                    }
+                    continue;
+                }
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                String[] fields = line.split("\t", FIELD_COUNT);
+                if (fields.length < FIELD_COUNT - 1) {
+                    logger.debug("Malformed dead letter line skipped: {}", line);
+                    continue;
+                }
+                try {
+                    Entry entry = new Entry(fields[0], Long.parseLong(fields[1]), Long.parseLong(fields[2]),
+                            UNKNOWN.equals(fields[3]) ? null : fields[3], fields[4], fields[5],
+                            fields.length > 6 ? fields[6] : "");
+                    entries.putIfAbsent(entry.getRelativePath(), entry);
+                } catch (NumberFormatException e) {
+                    logger.debug("Malformed dead letter line skipped: {}", line);
+                }
+            }
+        }
+        return new ArrayList<>(entries.values());
+    }
+
+    /**
+     * 关闭文件，没有记录任何失败时删除
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        writer.close();
+        if (count == 0) {
+            Files.deleteIfExists(file);
+        }
+    }
+}
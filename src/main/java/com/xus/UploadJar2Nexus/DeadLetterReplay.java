@@ -0,0 +1,94 @@
+package com.xus.UploadJar2Nexus;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 重放死信（--replay）：不扫描仓库，把死信中的文件按目录交给扫描结果的接收方，之后与正常扫描相同
+ * 本地文件重新读取属性（已删除的跳过，已修改的按新内容上传）；镜像模式下按记录的大小和SHA-1从源仓库读取。
+ * 重放的文件发往本次配置的全部目标，已上传成功的目标由各自的上传日志跳过。
+ */
+final class DeadLetterReplay {
+    private static final Logger logger = LoggerFactory.getLogger(DeadLetterReplay.class);
+
+    private DeadLetterReplay() {
+    }
+
+    /**
+     * 读取要重放的死信，需要在重新创建本次运行的死信文件之前读取（两者可以是同一个文件）
+     *
+     * @return 死信中的文件，文件不存在或无法读取时返回null
+     */
+    static List<DeadLetterLog.Entry> read(Path replayFile, String sourceName) {
+        if (!Files.exists(replayFile)) {
+            // 上次运行没有失败的文件时不会留下死信文件
+            logger.info("死信文件 {} 不存在，没有需要重放的文件", replayFile);
+            return null;
+        }
+        List<DeadLetterLog.Entry> entries;
+        try {
+            entries = DeadLetterLog.read(replayFile, sourceName);
+        } catch (IOException e) {
+            logger.error("无法读取死信文件 {}: {}", replayFile, e.getMessage());
+            return null;
+        }
+        logger.info("已读取死信文件 {} - 文件数: {}", replayFile, entries.size());
+        return entries;
+    }
+
+    /**
+     * 把死信中的文件按目录交给扫描器的接收方
+     *
+     * @param localScanner 本地仓库的扫描器，镜像模式下为null
+     * @param source 镜像模式的源仓库，本地仓库时为null
+     */
+    static void deliver(ArtifactScanner scanner, RepositoryScanner localScanner, RemoteRepository source,
+            String repositoryPath, List<DeadLetterLog.Entry> entries) throws InterruptedException {
+        Path root = localScanner != null ? Paths.get(repositoryPath).toAbsolutePath().normalize() : null;
+        Map<String, List<ArtifactFile>> directories = new LinkedHashMap<>();
+        int missing = 0;
+        for (DeadLetterLog.Entry entry : entries) {
+            ArtifactFile artifact = source != null
+                    ? new ArtifactFile(source, entry.getRelativePath(), entry.getSize(), entry.getLastModified(),
+                            entry.getSha1(), entry.getType())
+                    : localArtifact(localScanner, root, entry.getRelativePath());
+            if (artifact == null) {
+                missing++;
+                logger.warn("死信中的文件已不存在或不再是构件，跳过: {}", entry.getRelativePath());
+                continue;
+            }
+            String relativePath = artifact.getRelativePath();
+            directories.computeIfAbsent(relativePath.substring(0, relativePath.lastIndexOf('/') + 1),
+                    key -> new ArrayList<>()).add(artifact);
+        }
+        for (List<ArtifactFile> artifacts : directories.values()) {
+            scanner.deliver(artifacts);
+        }
+        logger.info("重放死信 - 文件: {}, 目录: {}, 已跳过: {}", entries.size() - missing, directories.size(), missing);
+    }
+
+    /**
+     * 本地仓库中的一个文件，不存在、不在仓库目录内或不再是构件时返回null
+     */
+    private static ArtifactFile localArtifact(RepositoryScanner scanner, Path root, String relativePath) {
+        Path file = root.resolve(relativePath).normalize();
+        if (!file.startsWith(root)) {
+            return null;
+        }
+        try {
+            return scanner.toArtifact(file, Files.readAttributes(file, BasicFileAttributes.class));
+        } catch (IOException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.xus.UploadJar2Nexus;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 摘要计算相关的工具方法
+ */
+public final class Digests {
+    // 读取文件计算摘要时使用的缓冲区大小（64KB）
+    static final int BUFFER_SIZE = 64 * 1024;
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+    // Maven仓库使用的校验文件：算法 -> 文件扩展名
+    public static final Map<String, String> CHECKSUM_EXTENSIONS;
+
+    static {
+        Map<String, String> extensions = new LinkedHashMap<>();
+        extensions.put("SHA-1", "sha1");
+        extensions.put("MD5", "md5");
+        extensions.put("SHA-256", "sha256");
+        extensions.put("SHA-512", "sha512");
+        CHECKSUM_EXTENSIONS = Collections.unmodifiableMap(extensions);
+    }
+
+    private Digests() {
+    }
+
+    /**
+     * 创建摘要实例，JDK保证提供的算法（MD5、SHA-1、SHA-256等）不会失败
+     */
+    public static MessageDigest newDigest(String algorithm) {
+        try {
+            return MessageDigest.getInstance(algorithm);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("不支持的摘要算法: " + algorithm, e);
+        }
+    }
+
+    /**
+     * 读取整个文件计算摘要，返回十六进制字符串
+     */
+    public static String digest(File file, String algorithm) throws IOException {
+        MessageDigest digest = newDigest(algorithm);
+        ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            while (channel.read(buffer) >= 0) {
+                buffer.flip();
+                digest.update(buffer);
+                buffer.clear();
+            }
+        }
+        return toHex(digest.digest());
+    }
+
+    public static String toHex(byte[] bytes) {
+        char[] chars = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            chars[i * 2] = HEX[(bytes[i] >> 4) & 0x0f];
+            chars[i * 2 + 1] = HEX[bytes[i] & 0x0f];
+        }
+        return new String(chars);
+    }
+}
@@ -0,0 +1,338 @@
+package com.xus.UploadJar2Nexus;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.http.entity.AbstractHttpEntity;
+import org.apache.http.entity.ContentType;
+
+/**
+ * 基于文件的可重复HTTP实体
+ * 发送时直接从FileChannel向连接输出流传输数据，不会把整个文件读入堆内存，
+ * 每个上传线程占用的内存与文件大小无关，也不受2GB数组长度的限制。
+ * 需要计算摘要时（启用上传日志或上传校验文件，即默认配置）不使用transferTo，改为通过固定大小的缓冲区边读边发送，
+ * 内存占用同样与文件大小无关（见FileBodyEntityTest和benchmark中的LargeFileRun）。
+ * 每次调用writeTo都会重新打开文件，因此可以配合重试逻辑重复发送。
+ * 镜像模式下内容来自远程仓库，由子类{@link RemoteBodyEntity}提供。
+ */
+public class FileBodyEntity extends AbstractHttpEntity {
+    private final File file;
+    // 创建实体时的文件长度，发送过程中以此为准，保证Content-Length一致
+    private final long length;
+    // 发送时顺带计算的摘要算法，为空时不计算
+    private String[] digestAlgorithms = new String[0];
+    // 最近一次完整发送得到的摘要，算法 -> 十六进制值
+    private volatile Map<String, String> digests;
+    // 最近一次发送中花在摘要计算上的时间（纳秒）
+    private volatile long digestNanos;
+    // 最近一次发送中读取文件和发送请求体的时间（纳秒），以及请求体发送完毕的时刻（System.nanoTime）
+    private volatile long readNanos;
+    private volatile long sendNanos;
+    private volatile long sentAt;
+    // 多目标上传时与其他目标共享的文件读取及本实体的槽位，为null时自己读取文件
+    private SharedFileBody sharedBody;
+    private int sharedSlot;
+
+    public FileBodyEntity(File file, ContentType contentType) {
+        if (file == null) {
+            throw new IllegalArgumentException("File cannot be null");
+        }
+        this.file = file;
+        this.length = file.length();
+        if (contentType != null) {
+            setContentType(contentType.toString());
+        }
+    }
+
+    /**
+     * 内容不在本地磁盘上的实体，file只用于日志中的文件名
+     *
+     * @param length 内容长度，未知时为-1
+     */
+    FileBodyEntity(File file, long length, ContentType contentType) {
+        this.file = file;
+        this.length = length;
+        if (contentType != null) {
+            setContentType(contentType.toString());
+        }
+    }
+
+    /**
+     * 创建构件的上传内容：本地文件直接读取磁盘，远程构件由源仓库提供
+     */
+    public static FileBodyEntity forArtifact(ArtifactFile artifact, ContentType contentType) {
+        if (artifact.isRemote()) {
+            return artifact.getSource().newEntity(artifact, contentType);
+        }
+        return new FileBodyEntity(artifact.toFile(), contentType);
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * 在发送文件内容的同时计算摘要，多个算法共用同一次读取，不需要额外读取一遍文件
+     * 启用后改为通过固定大小的缓冲区发送，不再使用transferTo
+     */
+    public void setDigestAlgorithms(String... digestAlgorithms) {
+        this.digestAlgorithms = digestAlgorithms.clone();
+    }
+
+    /**
+     * 返回最近一次完整发送时计算出的摘要（十六进制），未启用该算法或尚未发送完成时返回null
+     */
+    public String getDigestHex(String algorithm) {
+        Map<String, String> values = digests;
+        return values == null ? null : values.get(algorithm);
+    }
+
+    /**
+     * 返回最近一次完整发送时计算出的全部摘要，算法 -> 十六进制值
+     */
+    public Map<String, String> getDigests() {
+        Map<String, String> values = digests;
+        return values == null ? Collections.<String, String>emptyMap() : values;
+    }
+
+    /**
+     * 最近一次发送中花在摘要计算上的时间（纳秒）
+     */
+    public long getDigestNanos() {
+        return digestNanos;
+    }
+
+    /**
+     * 最近一次发送中读取文件的时间（纳秒），使用transferTo零拷贝发送时读取计入发送时间，这里为0
+     */
+    public long getReadNanos() {
+        return readNanos;
+    }
+
+    /**
+     * 最近一次发送中发送请求体的时间（纳秒），不含读取文件和摘要计算
+     */
+    public long getSendNanos() {
+        return sendNanos;
+    }
+
+    /**
+     * 最近一次请求体发送完毕的时刻（System.nanoTime），尚未发送完成时为0
+     */
+    public long getSentAt() {
+        return sentAt;
+    }
+
+    /**
+     * 改为通过共享读取获取文件内容，同一文件发往多个目标时只读取一次磁盘
+     * 共享模式下不使用transferTo，摘要由共享读取统一计算
+     */
+    void setSharedBody(SharedFileBody sharedBody, int slot) {
+        this.sharedBody = sharedBody;
+        this.sharedSlot = slot;
+    }
+
+    boolean hasSharedBody() {
+        return sharedBody != null;
+    }
+
+    SharedFileBody.Reader openSharedReader() {
+        return sharedBody == null ? null : sharedBody.newReader(sharedSlot);
+    }
+
+    /**
+     * 异步引擎读取内容的来源：内容不在本地磁盘上的实体返回一个有界缓冲，由生产者非阻塞地读取；
+     * 本地文件返回null，由生产者自己打开文件
+     */
+    StreamPipe openPipe() {
+        return null;
+    }
+
+    @Override
+    public boolean isRepeatable() {
+        return true;
+    }
+
+    @Override
+    public long getContentLength() {
+        return length;
+    }
+
+    @Override
+    public InputStream getContent() throws IOException {
+        return new FileInputStream(file);
+    }
+
+    @Override
+    public boolean isStreaming() {
+        return false;
+    }
+
+    /**
+     * 使用FileChannel.transferTo将文件内容写入输出流
+     * 目标通道支持时由JDK使用零拷贝或内存映射，否则使用固定大小的临时缓冲区分块传输
+     */
+    @Override
+    public void writeTo(OutputStream outStream) throws IOException {
+        if (outStream == null) {
+            throw new IllegalArgumentException("Output stream cannot be null");
+        }
+        if (sharedBody != null) {
+            writeShared(outStream);
+            return;
+        }
+        if (digestAlgorithms.length > 0) {
+            writeWithDigest(outStream);
+            return;
+        }
+        long start = System.nanoTime();
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            // 注意不能关闭该通道，否则会连带关闭HTTP连接的输出流
+            WritableByteChannel target = Channels.newChannel(outStream);
+            long position = 0;
+            while (position < length) {
+                long transferred = channel.transferTo(position, length - position, target);
+                if (transferred <= 0) {
+                    if (channel.size() < length) {
+                        throw new IOException("文件在上传过程中被截断: " + file.getName());
+                    }
+                    continue;
+                }
+                position += transferred;
+            }
+        }
+        outStream.flush();
+        recordTransfer(0, System.nanoTime() - start);
+    }
+
+    /**
+     * 边读边计算摘要边发送，每次发送使用一个固定大小的缓冲区
+     */
+    private void writeWithDigest(OutputStream outStream) throws IOException {
+        MessageDigest[] messageDigests = new MessageDigest[digestAlgorithms.length];
+        for (int i = 0; i < messageDigests.length; i++) {
+            messageDigests[i] = Digests.newDigest(digestAlgorithms[i]);
+        }
+        long nanos = 0;
+        long read = 0;
+        long start = System.nanoTime();
+        byte[] buffer = new byte[Digests.BUFFER_SIZE];
+        ByteBuffer wrapped = ByteBuffer.wrap(buffer);
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long remaining = length;
+            while (remaining > 0) {
+                wrapped.clear();
+                wrapped.limit((int) Math.min(buffer.length, remaining));
+                long readStart = System.nanoTime();
+                int count = channel.read(wrapped);
+                if (count < 0) {
+                    throw new IOException("文件在上传过程中被截断: " + file.getName());
+                }
+                long digestStart = System.nanoTime();
+                read += digestStart - readStart;
+                for (MessageDigest messageDigest : messageDigests) {
+                    messageDigest.update(buffer, 0, count);
+                }
+                nanos += System.nanoTime() - digestStart;
+                outStream.write(buffer, 0, count);
+                remaining -= count;
+            }
+        }
+        outStream.flush();
+        recordDigests(messageDigests, nanos);
+        recordTransfer(read, System.nanoTime() - start - read - nanos);
+    }
+
+    /**
+     * 从共享读取中获取文件内容发送，摘要由共享读取计算
+     */
+    private void writeShared(OutputStream outStream) throws IOException {
+        long read = 0;
+        long start = System.nanoTime();
+        byte[] buffer = new byte[Digests.BUFFER_SIZE];
+        ByteBuffer wrapped = ByteBuffer.wrap(buffer);
+        try (SharedFileBody.Reader reader = openSharedReader()) {
+            while (true) {
+                wrapped.clear();
+                long readStart = System.nanoTime();
+                int count = reader.read(wrapped);
+                read += System.nanoTime() - readStart;
+                if (count < 0) {
+                    break;
+                }
+                outStream.write(buffer, 0, count);
+            }
+        }
+        outStream.flush();
+        recordSharedDigests();
+        recordTransfer(read, System.nanoTime() - start - read);
+    }
+
+    /**
+     * 从共享读取中取得摘要；共享读取未能完整计算时（例如最先读取的请求中途失败）重新读取文件计算
+     * 摘要耗时只计入第一个槽位，避免同一次计算按目标数重复统计
+     */
+    void recordSharedDigests() throws IOException {
+        if (digestAlgorithms.length == 0) {
+            return;
+        }
+        Map<String, String> values = sharedBody.getDigests();
+        if (values != null) {
+            digests = values;
+            digestNanos = sharedSlot == 0 ? sharedBody.getDigestNanos() : 0;
+            return;
+        }
+        MessageDigest[] messageDigests = new MessageDigest[digestAlgorithms.length];
+        for (int i = 0; i < messageDigests.length; i++) {
+            messageDigests[i] = Digests.newDigest(digestAlgorithms[i]);
+        }
+        long start = System.nanoTime();
+        byte[] buffer = new byte[Digests.BUFFER_SIZE];
+        try (InputStream in = new FileInputStream(file)) {
+            int count;
+            while ((count = in.read(buffer)) > 0) {
+                for (MessageDigest messageDigest : messageDigests) {
+                    messageDigest.update(buffer, 0, count);
+                }
+            }
+        }
+        recordDigests(messageDigests, System.nanoTime() - start);
+    }
+
+    /**
+     * 保存一次完整发送的读取和发送耗时，并把当前时刻记为请求体发送完毕的时刻
+     */
+    void recordTransfer(long readNanos, long sendNanos) {
+        this.readNanos = readNanos;
+        this.sendNanos = Math.max(0, sendNanos);
+        this.sentAt = System.nanoTime();
+    }
+
+    String[] getDigestAlgorithms() {
+        return digestAlgorithms;
+    }
+
+    /**
+     * 保存一次完整发送计算出的摘要，异步上传引擎自行读取文件时也通过这里回填结果
+     */
+    void recordDigests(MessageDigest[] messageDigests, long nanos) {
+        Map<String, String> values = new LinkedHashMap<>();
+        for (int i = 0; i < messageDigests.length; i++) {
+            values.put(digestAlgorithms[i], Digests.toHex(messageDigests[i].digest()));
+        }
+        digests = values;
+        digestNanos = nanos;
+    }
+}
@@ -0,0 +1,234 @@
+package com.xus.UploadJar2Nexus;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+
+import org.apache.http.HttpHost;
+import org.apache.http.HttpRequest;
+import org.apache.http.client.methods.HttpPut;
+import org.apache.http.client.utils.URIUtils;
+import org.apache.http.entity.BasicHttpEntity;
+import org.apache.http.nio.ContentEncoder;
+import org.apache.http.nio.FileContentEncoder;
+import org.apache.http.nio.IOControl;
+import org.apache.http.nio.protocol.HttpAsyncRequestProducer;
+import org.apache.http.protocol.HttpContext;
+
+/**
+ * 异步上传引擎使用的请求生产者，从FileChannel分块读取文件写入非阻塞连接
+ * 不需要计算摘要且连接支持时直接使用FileContentEncoder.transfer零拷贝发送；
+ * 否则每次读取一个固定大小的直接缓冲区，同时更新摘要。请求可重复，重试或认证质询时重新打开文件。
+ * 实体使用共享读取（多目标上传）时从共享读取中获取内容，摘要由共享读取计算。
+ * 远程构件（镜像模式）从源仓库GET响应的有界缓冲中读取，缓冲暂时为空时暂停输出，长度未知时以分块编码发送。
+ */
+class FileRequestProducer implements HttpAsyncRequestProducer {
+    private final URI uri;
+    private final HttpHost target;
+    private final FileBodyEntity entity;
+    private final long length;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(Digests.BUFFER_SIZE);
+
+    private FileChannel channel;
+    // 共享读取，实体未使用共享读取时为null
+    private SharedFileBody.Reader sharedReader;
+    // 源仓库响应的缓冲，本地文件时为null
+    private StreamPipe pipe;
+    private boolean opened;
+    // 已从文件读出（或已零拷贝发送）的字节数
+    private long position;
+    // 内容是否已全部读出
+    private boolean exhausted;
+    private MessageDigest[] messageDigests;
+    private long digestNanos;
+    private boolean digestsRecorded;
+    // 本次发送开始的时刻和读取文件的累计耗时（纳秒）
+    private long sendStart;
+    private long readNanos;
+
+    FileRequestProducer(String url, FileBodyEntity entity) {
+        this.uri = URI.create(url);
+        this.target = URIUtils.extractHost(uri);
+        this.entity = entity;
+        this.length = entity.getContentLength();
+    }
+
+    @Override
+    public HttpHost getTarget() {
+        return target;
+    }
+
+    @Override
+    public HttpRequest generateRequest() {
+        HttpPut request = new HttpPut(uri);
+        // 只用于生成Content-Length和Content-Type请求头，内容由produceContent写出
+        BasicHttpEntity headers = new BasicHttpEntity();
+        headers.setContentLength(length);
+        headers.setContentType(entity.getContentType());
+        request.setEntity(headers);
+        return request;
+    }
+
+    @Override
+    public void produceContent(ContentEncoder encoder, IOControl ioControl) throws IOException {
+        if (!opened) {
+            open();
+        }
+        if (channel != null && messageDigests.length == 0 && encoder instanceof FileContentEncoder) {
+            position += ((FileContentEncoder) encoder).transfer(channel, position, length - position);
+            exhausted = position >= length;
+        } else {
+            if (!buffer.hasRemaining() && !exhausted && !fillBuffer(ioControl)) {
+                // 源仓库暂时没有新数据，输出已暂停，收到数据后恢复
+                return;
+            }
+            encoder.write(buffer);
+        }
+        if (exhausted && !buffer.hasRemaining()) {
+            encoder.complete();
+            if (sharedReader != null) {
+                entity.recordSharedDigests();
+            } else {
+                finishDigests();
+            }
+            entity.recordTransfer(readNanos, System.nanoTime() - sendStart - readNanos - digestNanos);
+            closeChannel();
+        }
+    }
+
+    private void open() throws IOException {
+        pipe = entity.openPipe();
+        sharedReader = pipe == null ? entity.openSharedReader() : null;
+        if (pipe == null && sharedReader == null) {
+            channel = FileChannel.open(entity.getFile().toPath(), StandardOpenOption.READ);
+        }
+        opened = true;
+        position = 0;
+        exhausted = pipe == null && length == 0;
+        buffer.clear();
+        buffer.flip();
+        // 共享读取自行计算摘要
+        String[] algorithms = sharedReader == null ? entity.getDigestAlgorithms() : new String[0];
+        messageDigests = new MessageDigest[algorithms.length];
+        for (int i = 0; i < algorithms.length; i++) {
+            messageDigests[i] = Digests.newDigest(algorithms[i]);
+        }
+        digestNanos = 0;
+        digestsRecorded = false;
+        readNanos = 0;
+        sendStart = System.nanoTime();
+    }
+
+    /**
+     * 读取下一段内容到缓冲区并更新摘要
+     *
+     * @return 源仓库暂时没有新数据时返回false
+     */
+    private boolean fillBuffer(IOControl ioControl) throws IOException {
+        buffer.clear();
+        long readStart = System.nanoTime();
+        int read;
+        if (pipe != null) {
+            // 长度由源仓库的响应决定，由缓冲校验
+            read = pipe.read(buffer, ioControl);
+        } else {
+            buffer.limit((int) Math.min(buffer.capacity(), length - position));
+            read = sharedReader != null ? sharedReader.read(buffer) : channel.read(buffer);
+        }
+        readNanos += System.nanoTime() - readStart;
+        buffer.flip();
+        if (read < 0) {
+            if (pipe == null) {
+                throw new IOException("文件在上传过程中被截断: " + entity.getFile().getName());
+            }
+            exhausted = true;
+            return true;
+        }
+        if (read == 0 && pipe != null) {
+            return false;
+        }
+        position += read;
+        // 长度已知时编码器写满即结束，不会再等到源仓库响应的结尾
+        exhausted = length >= 0 && position >= length;
+        if (messageDigests.length > 0) {
+            long digestStart = System.nanoTime();
+            for (MessageDigest messageDigest : messageDigests) {
+                messageDigest.update(buffer.duplicate());
+            }
+            digestNanos += System.nanoTime() - digestStart;
+        }
+        return true;
+    }
+
+    private void finishDigests() {
+        if (!digestsRecorded && messageDigests != null && messageDigests.length > 0) {
+            entity.recordDigests(messageDigests, digestNanos);
+            digestsRecorded = true;
+        }
+    }
+
+    @Override
+    public void requestCompleted(HttpContext context) {
+        // 空文件可能不会调用produceContent，此时补记空内容的摘要
+        if (length == 0 && messageDigests == null) {
+            if (entity.hasSharedBody()) {
+                try {
+                    entity.recordSharedDigests();
+                } catch (IOException ignored) {
+                    // 空文件的摘要不需要读取文件
+                }
+                return;
+            }
+            String[] algorithms = entity.getDigestAlgorithms();
+            messageDigests = new MessageDigest[algorithms.length];
+            for (int i = 0; i < algorithms.length; i++) {
+                messageDigests[i] = Digests.newDigest(algorithms[i]);
+            }
+            finishDigests();
+        }
+    }
+
+    @Override
+    public void failed(Exception ex) {
+        closeChannel();
+    }
+
+    @Override
+    public boolean isRepeatable() {
+        return true;
+    }
+
+    @Override
+    public void resetRequest() {
+        closeChannel();
+        messageDigests = null;
+    }
+
+    @Override
+    public void close() {
+        closeChannel();
+    }
+
+    private void closeChannel() {
+        opened = false;
+        if (pipe != null) {
+            pipe.close();
+            pipe = null;
+        }
+        if (sharedReader != null) {
+            sharedReader.close();
+            sharedReader = null;
+        }
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException ignored) {
+                // 只读通道关闭失败不影响上传结果
+            }
+            channel = null;
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package com.xus.UploadJar2Nexus;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 从仓库相对路径解析出的构件坐标：groupId:artifactId:version[:classifier]@extension
+ * Maven仓库的目录结构为groupId/artifactId/version/artifactId-version[-classifier].extension，
+ * 解析只在路径上扫描一遍定位最后三个'/'，除各字段本身外不产生中间数组或字符串。
+ * groupId数量远少于文件数，解析结果通过{@link #GROUP_IDS}复用同一个实例。
+ */
+public final class MavenCoordinates {
+    private static final String SNAPSHOT = "SNAPSHOT";
+    // groupId驻留表，同一个groupId的所有文件共用一个字符串
+    private static final ConcurrentHashMap<String, String> GROUP_IDS = new ConcurrentHashMap<>();
+
+    private final String groupId;
+    private final String artifactId;
+    // 目录中的版本号，快照为x.y-SNAPSHOT
+    private final String version;
+    // 文件名中的版本号，时间戳快照为x.y-yyyyMMdd.HHmmss-n，其余与version相同
+    private final String fileVersion;
+    private final String classifier;
+    private final String extension;
+
+    private MavenCoordinates(String groupId, String artifactId, String version, String fileVersion,
+            String classifier, String extension) {
+        this.groupId = groupId;
+        this.artifactId = artifactId;
+        this.version = version;
+        this.fileVersion = fileVersion;
+        this.classifier = classifier;
+        this.extension = extension;
+    }
+
+    /**
+     * 解析相对于仓库根目录、以'/'分隔的路径
+     *
+     * @param relativePath 例如org/example/foo/1.0/foo-1.0-tests.jar
+     * @return 解析结果，路径不符合Maven仓库目录结构时返回null
+     */
+    public static MavenCoordinates parse(String relativePath) {
+        int fileStart = relativePath.lastIndexOf('/') + 1;
+        if (fileStart <= 0) {
+            return null;
+        }
+        int versionStart = relativePath.lastIndexOf('/', fileStart - 2) + 1;
+        if (versionStart <= 0) {
+            return null;
+        }
+        int artifactStart = relativePath.lastIndexOf('/', versionStart - 2) + 1;
+        if (artifactStart <= 0) {
+            return null;
+        }
+        int artifactLength = versionStart - 1 - artifactStart;
+        int versionLength = fileStart - 1 - versionStart;
+        if (artifactStart < 2 || artifactLength <= 0 || versionLength <= 0) {
+            return null;
+        }
+        // 文件名必须以artifactId-开头
+        if (!relativePath.regionMatches(fileStart, relativePath, artifactStart, artifactLength)
+                || relativePath.length() <= fileStart + artifactLength
+                || relativePath.charAt(fileStart + artifactLength) != '-') {
+            return null;
+        }
+        String version = relativePath.substring(versionStart, fileStart - 1);
+        int fileVersionStart = fileStart + artifactLength + 1;
+        int fileVersionEnd = fileVersionEnd(relativePath, fileVersionStart, version);
+        if (fileVersionEnd < 0) {
+            return null;
+        }
+
+        String classifier = null;
+        int extensionStart;
+        if (relativePath.charAt(fileVersionEnd) == '-') {
+            int dot = relativePath.indexOf('.', fileVersionEnd + 1);
+            if (dot < 0 || dot == fileVersionEnd + 1) {
+                return null;
+            }
+            classifier = relativePath.substring(fileVersionEnd + 1, dot);
+            extensionStart = dot + 1;
+        } else if (relativePath.charAt(fileVersionEnd) == '.') {
+            extensionStart = fileVersionEnd + 1;
+        } else {
+            return null;
+        }
+        if (extensionStart >= relativePath.length()) {
+            return null;
+        }
+
+        String fileVersion = fileVersionEnd - fileVersionStart == versionLength
+                ? version : relativePath.substring(fileVersionStart, fileVersionEnd);
+        return new MavenCoordinates(
+                internGroupId(relativePath, artifactStart - 1),
+                relativePath.substring(artifactStart, versionStart - 1),
+                version,
+                fileVersion,
+                classifier,
+                relativePath.substring(extensionStart));
+    }
+
+    /**
+     * 文件名中版本号结束的位置，版本号与目录不匹配时返回-1
+     * 快照目录中的文件可以使用目录版本（x.y-SNAPSHOT），也可以使用时间戳版本（x.y-yyyyMMdd.HHmmss-n）
+     */
+    private static int fileVersionEnd(String path, int start, String version) {
+        int end = start + version.length();
+        if (path.startsWith(version, start) && end < path.length()
+                && (path.charAt(end) == '.' || path.charAt(end) == '-')) {
+            return end;
+        }
+        if (!version.endsWith(SNAPSHOT)) {
+            return -1;
+        }
+        int baseLength = version.length() - SNAPSHOT.length();
+        if (!path.regionMatches(start, version, 0, baseLength)) {
+            return -1;
+        }
+        // yyyyMMdd.HHmmss-n
+        int i = start + baseLength;
+        if (!digits(path, i, 8) || i + 8 >= path.length() || path.charAt(i + 8) != '.'
+                || !digits(path, i + 9, 6) || i + 15 >= path.length() || path.charAt(i + 15) != '-') {
+            return -1;
+        }
+        i += 16;
+        int buildStart = i;
+        while (i < path.length() && Character.isDigit(path.charAt(i))) {
+            i++;
+        }
+        return i > buildStart && i < path.length() ? i : -1;
+    }
+
+    private static boolean digits(String value, int start, int count) {
+        if (start + count > value.length()) {
+            return false;
+        }
+        for (int i = start; i < start + count; i++) {
+            if (!Character.isDigit(value.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 把路径前缀中的'/'替换为'.'得到groupId，并返回驻留后的实例
+     */
+    private static String internGroupId(String path, int end) {
+        char[] chars = new char[end];
+        path.getChars(0, end, chars, 0);
+        for (int i = 0; i < end; i++) {
+            if (chars[i] == '/') {
+                chars[i] = '.';
+            }
+        }
+        String groupId = new String(chars);
+        String existing = GROUP_IDS.putIfAbsent(groupId, groupId);
+        return existing != null ? existing : groupId;
+    }
+
+    public String getGroupId() {
+        return groupId;
+    }
+
+    public String getArtifactId() {
+        return artifactId;
+    }
+
+    public String getVersion() {
+        return version;
+    }
+
+    public String getFileVersion() {
+        return fileVersion;
+    }
+
+    /**
+     * 分类器，例如tests、javadoc，没有时为null
+     */
+    public String getClassifier() {
+        return classifier;
+    }
+
+    /**
+     * 扩展名，例如jar、pom、war、aar、module
+     */
+    public String getExtension() {
+        return extension;
+    }
+
+    public boolean isSnapshot() {
+        return version.endsWith(SNAPSHOT);
+    }
+
+    /**
+     * groupId:artifactId，用于按构件分组
+     */
+    public String getGroupArtifactKey() {
+        return groupId + ':' + artifactId;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder(groupId.length() + artifactId.length() + version.length() + 16);
+        builder.append(groupId).append(':').append(artifactId).append(':').append(version);
+        if (classifier != null) {
+            builder.append(':').append(classifier);
+        }
+        return builder.append('@').append(extension).toString();
+    }
+}
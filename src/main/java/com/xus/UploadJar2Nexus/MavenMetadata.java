@@ -0,0 +1,272 @@
+package com.xus.UploadJar2Nexus;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+import java.util.TimeZone;
+import java.util.TreeSet;
+
+import javax.xml.XMLConstants;
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+import org.xml.sax.SAXException;
+
+/**
+ * 构件级（groupId/artifactId/maven-metadata.xml）的版本元数据
+ * 版本按Maven的版本比较规则排序，latest为最大的版本，release为最大的非快照版本。
+ * 快照版本目录下的maven-metadata.xml（时间戳和构建号）仍由Nexus维护，这里不生成。
+ */
+public class MavenMetadata {
+    /**
+     * Maven版本比较规则的简化实现：按'.'、'-'以及数字和字母的交界拆分，
+     * 数字段按数值比较，限定符按alpha < beta < milestone < rc < snapshot < 正式版 < sp排序，其余限定符按字母顺序排在sp之后
+     */
+    public static final Comparator<String> VERSION_ORDER = MavenMetadata::compareVersions;
+
+    private static final List<String> QUALIFIERS = Arrays.asList(
+            "alpha", "beta", "milestone", "rc", "snapshot", "", "sp");
+
+    private final String groupId;
+    private final String artifactId;
+    private final TreeSet<String> versions = new TreeSet<>(VERSION_ORDER);
+
+    public MavenMetadata(String groupId, String artifactId) {
+        this.groupId = groupId;
+        this.artifactId = artifactId;
+    }
+
+    /**
+     * 解析目标仓库中已有的maven-metadata.xml，只读取versioning/versions中的版本列表
+     * 禁用DOCTYPE，避免外部实体引用
+     */
+    public static MavenMetadata parse(String groupId, String artifactId, InputStream in) throws IOException {
+        MavenMetadata metadata = new MavenMetadata(groupId, artifactId);
+        Document document;
+        try {
+            DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+            factory.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
+            factory.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
+            factory.setExpandEntityReferences(false);
+            DocumentBuilder builder = factory.newDocumentBuilder();
+            document = builder.parse(in);
+        } catch (ParserConfigurationException | SAXException e) {
+            throw new IOException("无法解析maven-metadata.xml: " + e.getMessage(), e);
+        }
+        NodeList versionsNodes = document.getElementsByTagName("versions");
+        for (int i = 0; i < versionsNodes.getLength(); i++) {
+            NodeList children = versionsNodes.item(i).getChildNodes();
+            for (int j = 0; j < children.getLength(); j++) {
+                Node child = children.item(j);
+                if (child instanceof Element && "version".equals(child.getNodeName())) {
+                    String version = child.getTextContent().trim();
+                    if (!version.isEmpty()) {
+                        metadata.versions.add(version);
+                    }
+                }
+            }
+        }
+        return metadata;
+    }
+
+    /**
+     * @return 版本是否为新增
+     */
+    public boolean addVersion(String version) {
+        return versions.add(version);
+    }
+
+    public boolean addVersions(Set<String> newVersions) {
+        return versions.addAll(newVersions);
+    }
+
+    public Set<String> getVersions() {
+        return Collections.unmodifiableSet(versions);
+    }
+
+    public String getLatest() {
+        return versions.isEmpty() ? null : versions.last();
+    }
+
+    /**
+     * 最大的非快照版本，没有时返回null
+     */
+    public String getRelease() {
+        for (String version : versions.descendingSet()) {
+            if (!version.endsWith("SNAPSHOT")) {
+                return version;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 生成maven-metadata.xml内容
+     *
+     * @param lastUpdated 更新时间（毫秒），按UTC格式化为yyyyMMddHHmmss
+     */
+    public byte[] toXml(long lastUpdated) {
+        SimpleDateFormat format = new SimpleDateFormat("yyyyMMddHHmmss");
+        format.setTimeZone(TimeZone.getTimeZone("UTC"));
+        StringBuilder xml = new StringBuilder(256 + versions.size() * 32);
+        xml.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+        xml.append("<metadata>\n");
+        element(xml, "  ", "groupId", groupId);
+        element(xml, "  ", "artifactId", artifactId);
+        xml.append("  <versioning>\n");
+        if (getLatest() != null) {
+            element(xml, "    ", "latest", getLatest());
+        }
+        if (getRelease() != null) {
+            element(xml, "    ", "release", getRelease());
+        }
+        xml.append("    <versions>\n");
+        for (String version : versions) {
+            element(xml, "      ", "version", version);
+        }
+        xml.append("    </versions>\n");
+        element(xml, "    ", "lastUpdated", format.format(new Date(lastUpdated)));
+        xml.append("  </versioning>\n");
+        xml.append("</metadata>\n");
+        return xml.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static void element(StringBuilder xml, String indent, String name, String value) {
+        xml.append(indent).append('<').append(name).append('>');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '<':
+                    xml.append("&lt;");
+                    break;
+                case '>':
+                    xml.append("&gt;");
+                    break;
+                case '&':
+                    xml.append("&amp;");
+                    break;
+                default:
+                    xml.append(c);
+            }
+        }
+        xml.append("</").append(name).append(">\n");
+    }
+
+    /**
+     * 按Maven的规则比较两个版本号，例如1.9 < 1.10，1.0-rc1 < 1.0 < 1.0-sp1
+     */
+    public static int compareVersions(String a, String b) {
+        List<Object> left = tokenize(a);
+        List<Object> right = tokenize(b);
+        int length = Math.max(left.size(), right.size());
+        for (int i = 0; i < length; i++) {
+            int result = compareTokens(i < left.size() ? left.get(i) : null, i < right.size() ? right.get(i) : null);
+            if (result != 0) {
+                return result;
+            }
+        }
+        // 规则认为相等的不同写法（例如1.0和1.0.0）按字符串区分，保证集合中不丢失版本
+        return a.compareTo(b);
+    }
+
+    /**
+     * 拆分为数字段（Long）和限定符段（小写String）
+     */
+    private static List<Object> tokenize(String version) {
+        List<Object> tokens = new ArrayList<>();
+        int start = 0;
+        for (int i = 1; i <= version.length(); i++) {
+            boolean end = i == version.length();
+            char c = end ? 0 : version.charAt(i);
+            if (end || c == '.' || c == '-' || c == '_'
+                    || Character.isDigit(c) != Character.isDigit(version.charAt(i - 1))) {
+                if (i > start) {
+                    tokens.add(token(version.substring(start, i)));
+                }
+                start = end || Character.isLetterOrDigit(c) ? i : i + 1;
+            }
+        }
+        // 去掉末尾的0，使1.0与1.0.0排在一起
+        while (!tokens.isEmpty() && Long.valueOf(0).equals(tokens.get(tokens.size() - 1))) {
+            tokens.remove(tokens.size() - 1);
+        }
+        return tokens;
+    }
+
+    private static Object token(String value) {
+        if (Character.isDigit(value.charAt(0))) {
+            try {
+                return Long.parseLong(value);
+            } catch (NumberFormatException e) {
+                return value;
+            }
+        }
+        String qualifier = value.toLowerCase();
+        switch (qualifier) {
+            case "a":
+                return "alpha";
+            case "b":
+                return "beta";
+            case "m":
+                return "milestone";
+            case "cr":
+                return "rc";
+            case "ga":
+            case "final":
+            case "release":
+                return "";
+            default:
+                return qualifier;
+        }
+    }
+
+    /**
+     * 缺少的段视为0（数字）或正式版（限定符）；数字段大于任何限定符
+     */
+    private static int compareTokens(Object left, Object right) {
+        if (left == null) {
+            return right instanceof Long ? Long.compare(0, (Long) right) : -compareQualifier((String) right, "");
+        }
+        if (right == null) {
+            return left instanceof Long ? Long.compare((Long) left, 0) : compareQualifier((String) left, "");
+        }
+        if (left instanceof Long && right instanceof Long) {
+            return Long.compare((Long) left, (Long) right);
+        }
+        if (left instanceof Long) {
+            return 1;
+        }
+        if (right instanceof Long) {
+            return -1;
+        }
+        return compareQualifier((String) left, (String) right);
+    }
+
+    private static int compareQualifier(String left, String right) {
+        int li = QUALIFIERS.indexOf(left);
+        int ri = QUALIFIERS.indexOf(right);
+        if (li >= 0 && ri >= 0) {
+            return Integer.compare(li, ri);
+        }
+        if (li >= 0) {
+            return -1;
+        }
+        if (ri >= 0) {
+            return 1;
+        }
+        return left.compareTo(right);
+    }
+}
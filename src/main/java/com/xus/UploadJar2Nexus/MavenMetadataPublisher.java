@@ -0,0 +1,263 @@
+package com.xus.UploadJar2Nexus;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.HttpURLConnection;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpPut;
+import org.apache.http.client.methods.HttpRequestBase;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.ContentType;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.util.EntityUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 按groupId:artifactId汇总本次上传的版本，在全部文件上传结束后统一生成并上传maven-metadata.xml
+ * 一个版本目录（GAV）中的所有文件（含分类器和各种扩展名）作为一个整体：只要其中有文件上传失败，
+ * 该版本就不写入元数据，避免元数据指向不完整的版本。
+ * 每个构件只读取一次目标仓库中已有的元数据并合并版本，版本没有变化时不重新上传。
+ * 读取和上传元数据与文件上传一样经过目标的并发限制器和熔断器，服务器错误和网络错误按{@link RetryBackoff}重试；
+ * 元数据在文件全部上传结束后由单独的线程池处理，重试在该线程中等待。
+ */
+public class MavenMetadataPublisher {
+    private static final Logger logger = LoggerFactory.getLogger(MavenMetadataPublisher.class);
+    static final String METADATA_FILE = "maven-metadata.xml";
+    private static final ContentType XML = ContentType.create("application/xml", StandardCharsets.UTF_8);
+
+    /**
+     * 一个构件（groupId:artifactId）的版本状态
+     */
+    private static final class ArtifactVersions {
+        final String groupId;
+        final String artifactId;
+        // 版本 -> 该版本的全部文件是否都已上传成功（或已存在）
+        final Map<String, Boolean> versions = new ConcurrentHashMap<>();
+
+        ArtifactVersions(String groupId, String artifactId) {
+            this.groupId = groupId;
+            this.artifactId = artifactId;
+        }
+    }
+
+    private final CloseableHttpClient httpClient;
+    private final String repositoryUrl;
+    private final AdaptiveConcurrencyLimiter limiter;
+    private final boolean uploadChecksums;
+    private final Map<String, ArtifactVersions> artifacts = new ConcurrentHashMap<>();
+    private final AtomicInteger updated = new AtomicInteger();
+    private final AtomicInteger unchanged = new AtomicInteger();
+    private final AtomicInteger failed = new AtomicInteger();
+    private final AtomicInteger incompleteVersions = new AtomicInteger();
+
+    /**
+     * 读取或上传元数据得到响应后的处理，只会收到不需要重试的响应
+     */
+    private interface ResponseHandler<T> {
+        T handle(int status, HttpEntity body) throws IOException;
+    }
+
+    public MavenMetadataPublisher(CloseableHttpClient httpClient, String repositoryUrl,
+            AdaptiveConcurrencyLimiter limiter, boolean uploadChecksums) {
+        this.httpClient = httpClient;
+        this.repositoryUrl = repositoryUrl.endsWith("/") ? repositoryUrl : repositoryUrl + "/";
+        this.limiter = limiter;
+        this.uploadChecksums = uploadChecksums;
+    }
+
+    /**
+     * 记录一个将要上传（或已存在于目标仓库）的文件，其版本默认计入元数据
+     */
+    public void register(MavenCoordinates coordinates) {
+        versionsOf(coordinates).versions.putIfAbsent(coordinates.getVersion(), Boolean.TRUE);
+    }
+
+    /**
+     * 记录一个上传失败的文件，其所在版本不再计入元数据
+     */
+    public void markFailed(MavenCoordinates coordinates) {
+        versionsOf(coordinates).versions.put(coordinates.getVersion(), Boolean.FALSE);
+    }
+
+    private ArtifactVersions versionsOf(MavenCoordinates coordinates) {
+        return artifacts.computeIfAbsent(coordinates.getGroupArtifactKey(),
+                key -> new ArtifactVersions(coordinates.getGroupId(), coordinates.getArtifactId()));
+    }
+
+    /**
+     * 为上次发布之后记录过的构件生成并上传元数据，等待全部完成后返回
+     * 调用时不应再有新的文件在上传（监视模式下每批上传完成后调用一次）
+     *
+     * @param parallelism 同时处理的构件数
+     */
+    public void publish(int parallelism) {
+        List<ArtifactVersions> batch = new ArrayList<>(artifacts.values());
+        if (batch.isEmpty()) {
+            return;
+        }
+        artifacts.clear();
+        updated.set(0);
+        unchanged.set(0);
+        failed.set(0);
+        incompleteVersions.set(0);
+        long lastUpdated = System.currentTimeMillis();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(parallelism, batch.size())));
+        try {
+            List<CompletableFuture<Void>> futures = new ArrayList<>(batch.size());
+            for (ArtifactVersions entry : batch) {
+                futures.add(CompletableFuture.runAsync(() -> publish(entry, lastUpdated), executor));
+            }
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).join();
+        } finally {
+            executor.shutdown();
+        }
+        logger.info("maven-metadata.xml - 构件: {}, 已更新: {}, 无变化: {}, 失败: {}, 因文件上传失败未写入的版本: {}",
+                batch.size(), updated.get(), unchanged.get(), failed.get(), incompleteVersions.get());
+    }
+
+    private void publish(ArtifactVersions entry, long lastUpdated) {
+        Set<String> completed = new TreeSet<>(MavenMetadata.VERSION_ORDER);
+        for (Map.Entry<String, Boolean> version : entry.versions.entrySet()) {
+            if (version.getValue()) {
+                completed.add(version.getKey());
+            } else {
+                incompleteVersions.incrementAndGet();
+            }
+        }
+        if (completed.isEmpty()) {
+            return;
+        }
+        String path = entry.groupId.replace('.', '/') + "/" + entry.artifactId + "/" + METADATA_FILE;
+        try {
+            MavenMetadata metadata = fetchRemote(entry, path);
+            boolean exists = metadata != null;
+            if (metadata == null) {
+                metadata = new MavenMetadata(entry.groupId, entry.artifactId);
+            }
+            if (!metadata.addVersions(completed) && exists) {
+                unchanged.incrementAndGet();
+                logger.debug("Metadata unchanged: {}", path);
+                return;
+            }
+            byte[] xml = metadata.toXml(lastUpdated);
+            put(path, xml, XML);
+            if (uploadChecksums) {
+                for (Map.Entry<String, String> checksum : Digests.CHECKSUM_EXTENSIONS.entrySet()) {
+                    String hex = Digests.toHex(Digests.newDigest(checksum.getKey()).digest(xml));
+                    put(path + "." + checksum.getValue(), hex.getBytes(StandardCharsets.US_ASCII),
+                            ContentType.TEXT_PLAIN);
+                }
+            }
+            updated.incrementAndGet();
+            logger.debug("Metadata updated: {} ({} versions)", path, metadata.getVersions().size());
+        } catch (IOException | RuntimeException e) {
+            failed.incrementAndGet();
+            logger.warn("maven-metadata.xml上传失败 {}: {}", path, e.getMessage());
+        }
+    }
+
+    /**
+     * 读取目标仓库中已有的元数据，不存在时返回null
+     * 其他错误（无法确定远程内容）时抛出异常，避免用不完整的版本列表覆盖远程元数据
+     */
+    private MavenMetadata fetchRemote(ArtifactVersions entry, String path) throws IOException {
+        return execute(new HttpGet(repositoryUrl + path), 0, (status, body) -> {
+            if (status == HttpURLConnection.HTTP_NOT_FOUND) {
+                EntityUtils.consume(body);
+                return null;
+            }
+            if (status != HttpURLConnection.HTTP_OK || body == null) {
+                EntityUtils.consume(body);
+                throw new IOException("读取远程元数据失败，HTTP " + status);
+            }
+            try (InputStream in = body.getContent()) {
+                return MavenMetadata.parse(entry.groupId, entry.artifactId, in);
+            }
+        });
+    }
+
+    private void put(String path, byte[] content, ContentType contentType) throws IOException {
+        HttpPut request = new HttpPut(repositoryUrl + path);
+        request.setEntity(new ByteArrayEntity(content, contentType));
+        execute(request, content.length, (status, body) -> {
+            EntityUtils.consume(body);
+            if (status < 200 || status >= 300) {
+                throw new IOException("HTTP " + status + " - " + path);
+            }
+            return null;
+        });
+    }
+
+    /**
+     * 获取并发名额后发送一次请求，服务器错误（5xx、408、429）和网络错误按退避时间等待后重试
+     *
+     * @param bytes 请求体大小，用于并发限制器按大小归一化延迟
+     * @return handler的处理结果
+     */
+    private <T> T execute(HttpRequestBase request, long bytes, ResponseHandler<T> handler) throws IOException {
+        for (int attempt = 1; ; attempt++) {
+            IOException failure;
+            long retryAfterMillis = 0;
+            boolean responded = false;
+            try {
+                limiter.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("元数据请求被中断: " + request.getURI());
+            }
+            long start = System.currentTimeMillis();
+            try (CloseableHttpResponse response = httpClient.execute(request)) {
+                responded = true;
+                int status = response.getStatusLine().getStatusCode();
+                Header retryAfter = response.getFirstHeader("Retry-After");
+                limiter.onResponse(status, retryAfter != null ? retryAfter.getValue() : null,
+                        System.currentTimeMillis() - start, bytes);
+                if (status < 400 || !RetryBackoff.isRetryable(status)) {
+                    return handler.handle(status, response.getEntity());
+                }
+                EntityUtils.consume(response.getEntity());
+                failure = new IOException("HTTP " + status + " - " + request.getURI());
+                retryAfterMillis = AdaptiveConcurrencyLimiter.parseRetryAfter(
+                        retryAfter != null ? retryAfter.getValue() : null);
+            } catch (IOException e) {
+                if (responded) {
+                    // 已经收到响应，处理响应时的错误（例如无法解析）不重试
+                    throw e;
+                }
+                limiter.onError();
+                failure = e;
+            } finally {
+                limiter.release();
+            }
+            if (attempt >= RetryBackoff.MAX_ATTEMPTS) {
+                throw failure;
+            }
+            long delay = RetryBackoff.delayMillis(attempt, retryAfterMillis);
+            logger.debug("Metadata request attempt {} failed, retrying in {} ms: {}", attempt, delay,
+                    failure.getMessage());
+            try {
+                Thread.sleep(delay);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("元数据请求被中断: " + request.getURI());
+            }
+        }
+    }
+}
@@ -0,0 +1,243 @@
+package com.xus.UploadJar2Nexus;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import org.apache.http.HttpClientConnection;
+import org.apache.http.HttpConnection;
+import org.apache.http.HttpConnectionMetrics;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpEntityEnclosingRequest;
+import org.apache.http.HttpException;
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpHost;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpRequestInterceptor;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpResponseInterceptor;
+import org.apache.http.HttpVersion;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.protocol.HttpClientContext;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.impl.nio.client.HttpAsyncClients;
+import org.apache.http.impl.nio.reactor.IOReactorConfig;
+import org.apache.http.protocol.HTTP;
+import org.apache.http.protocol.HttpContext;
+import org.apache.http.protocol.HttpCoreContext;
+import org.apache.http.protocol.HttpRequestExecutor;
+
+/**
+ * 访问仓库的HTTP请求层，阻塞客户端和异步客户端使用相同的规则：
+ * <ul>
+ * <li>预先认证：Authorization头只计算一次，随每个发往仓库主机的请求发送，不等待401质询。
+ * 使用CredentialsProvider时每个新连接的第一个PUT会先不带认证发送，收到401后再完整发送一次请求体；
+ * 认证信息不会发往其他主机（例如重定向的目标）</li>
+ * <li>不小于{@link #EXPECT_CONTINUE_MIN_SIZE}的请求体带Expect: 100-continue，
+ * 服务器直接拒绝（401/403/400等）时请求体不会发送；服务器不回应时等待3秒后照常发送</li>
+ * <li>每次请求结束时从连接读取实际发送和接收的字节数（含请求行和头部），计入{@link UploadMetrics}，
+ * 与文件大小比较即可确认每个文件只经过网络一次</li>
+ * </ul>
+ * 响应内容必须读完或关闭响应，连接才会归还连接池，调用方统一使用try-with-resources。
+ */
+public final class NexusHttpClients {
+    // 小于该大小的请求体直接发送：多等一个往返比发送请求体本身还慢
+    static final long EXPECT_CONTINUE_MIN_SIZE = 1024 * 1024;
+    private static final int TIMEOUT_MS = 30000;
+    private static final long KEEP_ALIVE_MS = 30 * 1000;
+
+    private NexusHttpClients() {
+    }
+
+    /**
+     * Basic认证的Authorization头
+     */
+    public static String basicAuthorization(String username, String password) {
+        String credentials = username + ":" + (password == null ? "" : password);
+        return "Basic " + Base64.getEncoder().encodeToString(credentials.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Bearer令牌的Authorization头，例如Nexus npm仓库的登录令牌
+     */
+    public static String bearerAuthorization(String token) {
+        return "Bearer " + token;
+    }
+
+    /**
+     * 创建阻塞客户端
+     *
+     * @param url 仓库URL，认证信息只发往该主机
+     * @param authorization Authorization头，匿名访问时为null
+     * @param maxTotal 连接池大小
+     * @param maxPerRoute 每个主机的最大连接数
+     * @param expectContinue 是否对较大的请求体使用Expect: 100-continue
+     * @param metrics 记录网络字节数，为null时不记录
+     */
+    public static CloseableHttpClient createClient(String url, String authorization, int maxTotal, int maxPerRoute,
+            boolean expectContinue, UploadMetrics metrics) {
+        RequestConfig requestConfig = RequestConfig.custom()
+            .setConnectTimeout(TIMEOUT_MS)
+            .setSocketTimeout(TIMEOUT_MS)
+            .setConnectionRequestTimeout(TIMEOUT_MS)
+            .build();
+        return HttpClients.custom()
+            .addInterceptorLast(new PreemptiveAuth(url, authorization))
+            .addInterceptorLast(new ExpectContinue(expectContinue))
+            .setRequestExecutor(new WireAccountingExecutor(metrics))
+            .setMaxConnTotal(maxTotal)
+            .setMaxConnPerRoute(maxPerRoute)
+            .setDefaultRequestConfig(requestConfig)
+            .setKeepAliveStrategy((response, context) -> KEEP_ALIVE_MS)
+            .build();
+    }
+
+    /**
+     * 创建并启动异步客户端，参数同{@link #createClient}，连接池大小即最大在途请求数
+     */
+    public static CloseableHttpAsyncClient createAsyncClient(String url, String authorization, int maxConnections,
+            int ioThreads, boolean expectContinue, UploadMetrics metrics) {
+        IOReactorConfig ioReactorConfig = IOReactorConfig.custom()
+            .setIoThreadCount(ioThreads)
+            .setConnectTimeout(TIMEOUT_MS)
+            .setSoTimeout(TIMEOUT_MS)
+            .build();
+        RequestConfig requestConfig = RequestConfig.custom()
+            .setConnectTimeout(TIMEOUT_MS)
+            .setSocketTimeout(TIMEOUT_MS)
+            .setConnectionRequestTimeout(0)
+            .build();
+        CloseableHttpAsyncClient client = HttpAsyncClients.custom()
+            .addInterceptorLast(new PreemptiveAuth(url, authorization))
+            .addInterceptorLast(new ExpectContinue(expectContinue))
+            .addInterceptorLast(new WireAccountingInterceptor(metrics))
+            .setDefaultIOReactorConfig(ioReactorConfig)
+            .setDefaultRequestConfig(requestConfig)
+            .setMaxConnTotal(maxConnections)
+            .setMaxConnPerRoute(maxConnections)
+            .build();
+        client.start();
+        return client;
+    }
+
+    /**
+     * 给发往仓库主机的请求加上Authorization头
+     */
+    private static final class PreemptiveAuth implements HttpRequestInterceptor {
+        private final String host;
+        private final int port;
+        private final String authorization;
+
+        PreemptiveAuth(String url, String authorization) {
+            URI uri = URI.create(url);
+            this.host = uri.getHost();
+            this.port = port(uri.getScheme(), uri.getPort());
+            this.authorization = authorization;
+        }
+
+        @Override
+        public void process(HttpRequest request, HttpContext context) {
+            if (authorization == null || request.containsHeader(HttpHeaders.AUTHORIZATION)) {
+                return;
+            }
+            HttpHost target = HttpClientContext.adapt(context).getTargetHost();
+            if (target == null || !host.equalsIgnoreCase(target.getHostName())
+                    || port != port(target.getSchemeName(), target.getPort())) {
+                return;
+            }
+            request.addHeader(HttpHeaders.AUTHORIZATION, authorization);
+        }
+
+        private static int port(String scheme, int port) {
+            if (port >= 0) {
+                return port;
+            }
+            return "https".equalsIgnoreCase(scheme) ? 443 : 80;
+        }
+    }
+
+    /**
+     * 较大或长度未知的请求体带Expect: 100-continue
+     */
+    private static final class ExpectContinue implements HttpRequestInterceptor {
+        private final boolean enabled;
+
+        ExpectContinue(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        @Override
+        public void process(HttpRequest request, HttpContext context) {
+            if (!enabled || !(request instanceof HttpEntityEnclosingRequest) || request.containsHeader(HTTP.EXPECT_DIRECTIVE)
+                    || request.getProtocolVersion().lessEquals(HttpVersion.HTTP_1_0)) {
+                return;
+            }
+            HttpEntity entity = ((HttpEntityEnclosingRequest) request).getEntity();
+            if (entity != null && (entity.getContentLength() < 0 || entity.getContentLength() >= EXPECT_CONTINUE_MIN_SIZE)) {
+                request.addHeader(HTTP.EXPECT_DIRECTIVE, HTTP.EXPECT_CONTINUE);
+            }
+        }
+    }
+
+    /**
+     * 阻塞客户端：请求发送完、收到响应头时读取连接的字节计数
+     * 响应拦截器执行时，没有响应内容的连接已经归还连接池，因此在执行器中读取
+     */
+    private static final class WireAccountingExecutor extends HttpRequestExecutor {
+        private final UploadMetrics metrics;
+
+        WireAccountingExecutor(UploadMetrics metrics) {
+            this.metrics = metrics;
+        }
+
+        @Override
+        public HttpResponse execute(HttpRequest request, HttpClientConnection conn, HttpContext context)
+                throws IOException, HttpException {
+            HttpResponse response = super.execute(request, conn, context);
+            if (metrics != null) {
+                recordExchange(metrics, conn, request, response);
+            }
+            return response;
+        }
+    }
+
+    /**
+     * 异步客户端：收到响应头时读取连接的字节计数，响应拦截器在I/O线程中执行，此时连接仍属于这次请求
+     */
+    private static final class WireAccountingInterceptor implements HttpResponseInterceptor {
+        private final UploadMetrics metrics;
+
+        WireAccountingInterceptor(UploadMetrics metrics) {
+            this.metrics = metrics;
+        }
+
+        @Override
+        public void process(HttpResponse response, HttpContext context) {
+            HttpCoreContext coreContext = HttpCoreContext.adapt(context);
+            if (metrics != null && coreContext.getConnection() != null) {
+                recordExchange(metrics, coreContext.getConnection(), coreContext.getRequest(), response);
+            }
+        }
+    }
+
+    /**
+     * 读取并清零连接的字节计数，即这次请求（以及上一个响应剩余的内容）在连接上的字节数
+     */
+    private static void recordExchange(UploadMetrics metrics, HttpConnection connection, HttpRequest request,
+            HttpResponse response) {
+        HttpConnectionMetrics connectionMetrics = connection.getMetrics();
+        long sent = connectionMetrics.getSentBytesCount();
+        long received = connectionMetrics.getReceivedBytesCount();
+        connectionMetrics.reset();
+        // 带Expect的请求在发送请求体之前就收到了最终响应，请求体没有发送
+        boolean bodyWithheld = false;
+        if (request instanceof HttpEntityEnclosingRequest && ((HttpEntityEnclosingRequest) request).expectContinue()) {
+            HttpEntity entity = ((HttpEntityEnclosingRequest) request).getEntity();
+            bodyWithheld = entity != null && entity.getContentLength() > 0 && sent < entity.getContentLength();
+        }
+        metrics.recordExchange(sent, received, response.getStatusLine().getStatusCode(), bodyWithheld);
+    }
+}
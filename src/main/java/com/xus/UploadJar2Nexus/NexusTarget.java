@@ -0,0 +1,174 @@
+package com.xus.UploadJar2Nexus;
+
+import java.io.UnsupportedEncodingException;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.http.impl.client.CloseableHttpClient;
+
+/**
+ * 一个上传目标（Nexus仓库）及其运行时状态
+ * 每个目标有自己的认证信息、HTTP连接池、并发限制器、上传引擎、上传日志和元数据发布器，
+ * 重试、失败和进度分别统计，一个目标变慢或出错不会降低其他目标的并发上限。
+ * 逐个PUT、组件上传和npm发布的重试都放入目标自己的重试队列，等待期间不占用上传线程。
+ * 每个目标最多积压backlog个未完成的上传（包括等待重试的上传），积压满之后才会阻塞上传线程，重试队列因此有界；
+ * 上传到多个目标时另有一个分发线程池，慢的目标积压满之前不影响其他目标。
+ */
+public class NexusTarget {
+    private final String url;
+    private final String username;
+    private final String password;
+    // 预先发送的Authorization头，匿名访问时为null
+    private String authorization;
+
+    AdaptiveConcurrencyLimiter limiter;
+    CloseableHttpClient httpClient;
+    UploadEngine engine;
+    ScheduledExecutorService retryScheduler;
+    UploadJournal journal;
+    RemoteArtifactIndex remoteIndex;
+    MavenMetadataPublisher metadataPublisher;
+    // 组件上传模式下使用，否则为null
+    ComponentUploader componentUploader;
+    // npm上传模式下使用，否则为null
+    NpmPublisher npmPublisher;
+    // 只在上传到多个目标时使用
+    ExecutorService dispatcher;
+    // 已开始、尚未完成（包括等待重试）的上传占用的名额
+    Semaphore backlog;
+    int backlogCapacity;
+
+    private final LongAdder uploadedFiles = new LongAdder();
+    private final LongAdder uploadedBytes = new LongAdder();
+    private final LongAdder skippedFiles = new LongAdder();
+    private final LongAdder failedUploads = new LongAdder();
+    private final LongAdder retries = new LongAdder();
+
+    public NexusTarget(String url, String username, String password) {
+        String trimmed = url.trim();
+        this.url = trimmed.endsWith("/") ? trimmed : trimmed + "/";
+        this.username = username;
+        this.password = password;
+        this.authorization = username != null ? NexusHttpClients.basicAuthorization(username, password) : null;
+    }
+
+    /**
+     * 解析--target参数，格式为http(s)://[用户名:密码@]主机[:端口]/repository/名称/
+     * URL中没有认证信息时使用默认的用户名和密码，用户名和密码中的特殊字符需要进行URL编码
+     */
+    public static NexusTarget parse(String spec, String defaultUsername, String defaultPassword) {
+        URI uri;
+        try {
+            uri = URI.create(spec.trim());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid target URL: " + spec, e);
+        }
+        if (uri.getScheme() == null || uri.getHost() == null) {
+            throw new IllegalArgumentException("Invalid target URL: " + spec);
+        }
+        String userInfo = uri.getRawUserInfo();
+        if (userInfo == null) {
+            return new NexusTarget(uri.toString(), defaultUsername, defaultPassword);
+        }
+        int colon = userInfo.indexOf(':');
+        if (colon < 0) {
+            throw new IllegalArgumentException("Target URL must contain both username and password: " + uri.getHost());
+        }
+        String url = uri.getScheme() + "://" + uri.getRawAuthority().substring(userInfo.length() + 1)
+                + (uri.getRawPath() == null ? "" : uri.getRawPath());
+        return new NexusTarget(url, decode(userInfo.substring(0, colon)), decode(userInfo.substring(colon + 1)));
+    }
+
+    /**
+     * 按URL的百分号编码解码用户名或密码；与表单编码不同，+保持原样，不解码为空格
+     */
+    private static String decode(String value) {
+        try {
+            return URLDecoder.decode(value.replace("+", "%2B"), "UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 仓库URL，以/结尾，不含认证信息
+     */
+    public String getUrl() {
+        return url;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    String getPassword() {
+        return password;
+    }
+
+    /**
+     * 每个请求预先发送的Authorization头，匿名访问时为null
+     */
+    String getAuthorization() {
+        return authorization;
+    }
+
+    /**
+     * 改为使用Bearer令牌认证，取代用户名和密码
+     */
+    void useToken(String token) {
+        this.authorization = NexusHttpClients.bearerAuthorization(token);
+    }
+
+    void recordUpload(long bytes) {
+        uploadedFiles.increment();
+        uploadedBytes.add(bytes);
+    }
+
+    void recordSkip() {
+        skippedFiles.increment();
+    }
+
+    void recordFailure() {
+        failedUploads.increment();
+    }
+
+    void recordRetry() {
+        retries.increment();
+    }
+
+    public long getUploadedFiles() {
+        return uploadedFiles.sum();
+    }
+
+    public long getUploadedBytes() {
+        return uploadedBytes.sum();
+    }
+
+    public long getSkippedFiles() {
+        return skippedFiles.sum();
+    }
+
+    public long getFailedUploads() {
+        return failedUploads.sum();
+    }
+
+    public long getRetries() {
+        return retries.sum();
+    }
+
+    /**
+     * 积压中（已开始、尚未完成）的上传数
+     */
+    public int getBacklog() {
+        return backlogCapacity - backlog.availablePermits();
+    }
+
+    @Override
+    public String toString() {
+        return url;
+    }
+}
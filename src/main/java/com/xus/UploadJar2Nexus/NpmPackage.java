@@ -0,0 +1,275 @@
+package com.xus.UploadJar2Nexus;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.util.Base64;
+import java.util.zip.GZIPInputStream;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * 一个npm包（npm pack生成的.tgz文件）发布所需的信息
+ * 读取时流式读取一遍文件：边解压边解析tar，找到顶层目录下的package.json后不再解压，
+ * 其余内容只用来计算整个文件的SHA-1和SHA-512（发布文档中的dist.shasum和dist.integrity）。
+ * 发布时{@link NpmPublishEntity}再读一遍文件作为附件，这两遍不能合并：发布文档按npm publish的字段顺序，
+ * dist位于附件之前，发送附件之前就必须知道摘要；读取时还会先确认包完整可读，损坏的包不会发出请求。
+ * 第二遍紧接着第一遍进行，通常从页缓存读取。
+ */
+public class NpmPackage {
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final int BLOCK_SIZE = 512;
+    // package.json的大小上限，超过时认为文件损坏
+    private static final int MAX_MANIFEST_SIZE = 16 * 1024 * 1024;
+
+    private final File file;
+    private final long size;
+    private final ObjectNode manifest;
+    private final String name;
+    private final String version;
+    private final String shasum;
+    private final String integrity;
+
+    private NpmPackage(File file, long size, ObjectNode manifest, String shasum, String integrity) throws IOException {
+        this.file = file;
+        this.size = size;
+        this.manifest = manifest;
+        this.name = manifest.path("name").asText("");
+        this.version = manifest.path("version").asText("");
+        this.shasum = shasum;
+        this.integrity = integrity;
+        if (name.isEmpty() || version.isEmpty()) {
+            throw new IOException("package.json缺少name或version: " + file.getName());
+        }
+    }
+
+    /**
+     * 读取npm包
+     *
+     * @throws IOException 文件不是gzip压缩的tar、其中没有package.json，或package.json缺少name和version
+     */
+    public static NpmPackage read(File file) throws IOException {
+        MessageDigest sha1 = Digests.newDigest("SHA-1");
+        MessageDigest sha512 = Digests.newDigest("SHA-512");
+        ObjectNode manifest;
+        try (InputStream in = new DigestInputStream(new DigestInputStream(new FileInputStream(file), sha1), sha512);
+                GZIPInputStream tar = new GZIPInputStream(in, Digests.BUFFER_SIZE)) {
+            manifest = readManifest(tar, file);
+            // 解压时已经读过的部分已计入摘要，这里只读取剩余的压缩数据
+            byte[] buffer = new byte[Digests.BUFFER_SIZE];
+            while (in.read(buffer) >= 0) {
+                // 只计算摘要
+            }
+        }
+        return new NpmPackage(file, file.length(), manifest, Digests.toHex(sha1.digest()),
+                "sha512-" + Base64.getEncoder().encodeToString(sha512.digest()));
+    }
+
+    /**
+     * 依次读取tar中的条目，返回顶层目录（npm pack生成的包为package/）下的package.json
+     */
+    private static ObjectNode readManifest(InputStream tar, File file) throws IOException {
+        byte[] header = new byte[BLOCK_SIZE];
+        String longName = null;
+        while (readBlock(tar, header)) {
+            if (isEmptyBlock(header)) {
+                break;
+            }
+            String entryName = longName != null ? longName : entryName(header);
+            longName = null;
+            long entrySize = parseNumber(header, 124, 12);
+            long padded = (entrySize + BLOCK_SIZE - 1) / BLOCK_SIZE * BLOCK_SIZE;
+            byte type = header[156];
+            if (type == 'L' && entrySize < BLOCK_SIZE * 8) {
+                // GNU格式的长文件名，作用于下一个条目
+                byte[] value = readFully(tar, (int) entrySize);
+                longName = trimName(new String(value, StandardCharsets.UTF_8));
+                skipFully(tar, padded - entrySize);
+                continue;
+            }
+            if ((type == '0' || type == 0) && isManifest(entryName)) {
+                if (entrySize > MAX_MANIFEST_SIZE) {
+                    throw new IOException("package.json过大（" + entrySize + "字节）: " + file.getName());
+                }
+                JsonNode node = MAPPER.readTree(readFully(tar, (int) entrySize));
+                if (!(node instanceof ObjectNode)) {
+                    throw new IOException("package.json不是JSON对象: " + file.getName());
+                }
+                return (ObjectNode) node;
+            }
+            skipFully(tar, padded);
+        }
+        throw new IOException("npm包中没有package.json: " + file.getName());
+    }
+
+    /**
+     * 顶层目录下的package.json，例如package/package.json
+     */
+    private static boolean isManifest(String entryName) {
+        String path = entryName.startsWith("./") ? entryName.substring(2) : entryName;
+        int slash = path.indexOf('/');
+        return slash > 0 && path.indexOf('/', slash + 1) < 0 && path.endsWith("/package.json");
+    }
+
+    private static String entryName(byte[] header) {
+        String name = field(header, 0, 100);
+        // ustar格式中较长的路径拆为前缀和名称两部分
+        if ("ustar".equals(field(header, 257, 5))) {
+            String prefix = field(header, 345, 155);
+            if (!prefix.isEmpty()) {
+                return prefix + "/" + name;
+            }
+        }
+        return name;
+    }
+
+    private static String field(byte[] header, int offset, int length) {
+        int end = offset;
+        while (end < offset + length && header[end] != 0) {
+            end++;
+        }
+        return new String(header, offset, end - offset, StandardCharsets.UTF_8);
+    }
+
+    private static String trimName(String value) {
+        int end = value.indexOf('\0');
+        return end < 0 ? value : value.substring(0, end);
+    }
+
+    /**
+     * 解析头部中的数字字段：通常为八进制文本，超过8GB的大小使用base-256（最高位为1）
+     */
+    private static long parseNumber(byte[] header, int offset, int length) throws IOException {
+        if ((header[offset] & 0x80) != 0) {
+            long value = header[offset] & 0x7f;
+            for (int i = offset + 1; i < offset + length; i++) {
+                value = (value << 8) | (header[i] & 0xff);
+            }
+            return value;
+        }
+        long value = 0;
+        for (int i = offset; i < offset + length; i++) {
+            byte b = header[i];
+            if (b == 0 || b == ' ') {
+                if (value > 0) {
+                    break;
+                }
+                continue;
+            }
+            if (b < '0' || b > '7') {
+                throw new IOException("无效的tar头部");
+            }
+            value = value * 8 + (b - '0');
+        }
+        return value;
+    }
+
+    private static boolean isEmptyBlock(byte[] block) {
+        for (byte b : block) {
+            if (b != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 读取一个完整的块，流已结束时返回false
+     */
+    private static boolean readBlock(InputStream in, byte[] block) throws IOException {
+        int total = 0;
+        while (total < block.length) {
+            int count = in.read(block, total, block.length - total);
+            if (count < 0) {
+                if (total == 0) {
+                    return false;
+                }
+                throw new EOFException("tar流在块中间结束");
+            }
+            total += count;
+        }
+        return true;
+    }
+
+    private static byte[] readFully(InputStream in, int length) throws IOException {
+        byte[] value = new byte[length];
+        if (length > 0 && !readBlock(in, value)) {
+            throw new EOFException("tar流在条目中间结束");
+        }
+        return value;
+    }
+
+    private static void skipFully(InputStream in, long length) throws IOException {
+        long remaining = length;
+        while (remaining > 0) {
+            long skipped = in.skip(remaining);
+            if (skipped <= 0) {
+                if (in.read() < 0) {
+                    throw new EOFException("tar流在条目中间结束");
+                }
+                skipped = 1;
+            }
+            remaining -= skipped;
+        }
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * 读取摘要时的文件大小
+     */
+    public long getSize() {
+        return size;
+    }
+
+    /**
+     * 包内的package.json
+     */
+    public ObjectNode getManifest() {
+        return manifest;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getVersion() {
+        return version;
+    }
+
+    /**
+     * 整个.tgz文件的SHA-1（十六进制），即dist.shasum
+     */
+    public String getShasum() {
+        return shasum;
+    }
+
+    /**
+     * 整个.tgz文件的SHA-512（Subresource Integrity格式），即dist.integrity
+     */
+    public String getIntegrity() {
+        return integrity;
+    }
+
+    /**
+     * 附件的文件名：不带作用域的包名-版本.tgz，与npm pack生成的文件名相同
+     */
+    public String getTarballName() {
+        String simpleName = name.startsWith("@") && name.indexOf('/') > 0 ? name.substring(name.indexOf('/') + 1) : name;
+        return simpleName + "-" + version + ".tgz";
+    }
+
+    @Override
+    public String toString() {
+        return name + "@" + version;
+    }
+}
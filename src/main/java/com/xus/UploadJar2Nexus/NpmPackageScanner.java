@@ -0,0 +1,26 @@
+package com.xus.UploadJar2Nexus;
+
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+
+/**
+ * npm上传模式的扫描阶段：遍历目录树，收集其中的npm包（npm pack生成的.tgz文件）
+ * 目录结构不限，包名和版本在上传阶段从包内的package.json读取。
+ */
+public class NpmPackageScanner extends RepositoryScanner {
+
+    /**
+     * @param directoryLatency 记录每个目录读取耗时的直方图，可以为null
+     */
+    public NpmPackageScanner(Path root, ArtifactSink sink, int parallelism, LatencyHistogram directoryLatency) {
+        super(root, sink, parallelism, directoryLatency);
+    }
+
+    @Override
+    ArtifactFile toArtifact(Path file, BasicFileAttributes attrs) {
+        if (!attrs.isRegularFile() || !file.getFileName().toString().endsWith(".tgz")) {
+            return null;
+        }
+        return new ArtifactFile(file, relativize(file), attrs.size(), attrs.lastModifiedTime().toMillis(), "tgz");
+    }
+}
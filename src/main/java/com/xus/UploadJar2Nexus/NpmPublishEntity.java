@@ -0,0 +1,126 @@
+package com.xus.UploadJar2Nexus;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import org.apache.http.entity.AbstractHttpEntity;
+import org.apache.http.entity.ContentType;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * npm发布文档的请求体，与npm publish发送的内容相同：包名、dist-tags、该版本的package.json（加上dist信息）
+ * 以及base64编码内联的tarball附件
+ * JSON在附件内容处切开，前后两段在构造时生成；附件在发送时通过{@link FileBodyEntity}从磁盘流式读取、边读边编码，
+ * 整个包不会读入内存。base64的长度可以事先算出，因此带Content-Length发送，可重复发送以支持重试。
+ * dist中的摘要在附件之前，由{@link NpmPackage#read}事先算出，发送时不再计算。
+ */
+class NpmPublishEntity extends AbstractHttpEntity {
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final byte[] head;
+    private final FileBodyEntity tarball;
+    private final byte[] tail;
+    private final long length;
+
+    /**
+     * @param tag 发布到的dist-tag，通常为latest
+     * @param tarballUrl 写入dist.tarball的下载地址，Nexus保存时会改写为自己的地址
+     * @param tarball 包文件的内容
+     */
+    NpmPublishEntity(NpmPackage npmPackage, String tag, String tarballUrl, FileBodyEntity tarball) throws IOException {
+        this.tarball = tarball;
+        setContentType(ContentType.APPLICATION_JSON.toString());
+
+        ObjectNode version = npmPackage.getManifest().deepCopy();
+        version.put("_id", npmPackage.getName() + "@" + npmPackage.getVersion());
+        ObjectNode dist = version.putObject("dist");
+        dist.put("integrity", npmPackage.getIntegrity());
+        dist.put("shasum", npmPackage.getShasum());
+        dist.put("tarball", tarballUrl);
+
+        ObjectNode document = MAPPER.createObjectNode();
+        document.put("_id", npmPackage.getName());
+        document.put("name", npmPackage.getName());
+        if (version.hasNonNull("description")) {
+            document.set("description", version.get("description"));
+        }
+        document.putObject("dist-tags").put(tag, npmPackage.getVersion());
+        document.putObject("versions").set(npmPackage.getVersion(), version);
+        document.putNull("access");
+        String json = MAPPER.writeValueAsString(document);
+
+        // 去掉末尾的}，接上附件的开头，附件内容之后补全剩余的结构
+        this.head = (json.substring(0, json.length() - 1) + ",\"_attachments\":{"
+                + MAPPER.writeValueAsString(npmPackage.getTarballName())
+                + ":{\"content_type\":\"application/octet-stream\",\"data\":\"").getBytes(StandardCharsets.UTF_8);
+        long size = tarball.getContentLength();
+        this.tail = ("\",\"length\":" + size + "}}}").getBytes(StandardCharsets.UTF_8);
+        this.length = head.length + (size + 2) / 3 * 4 + tail.length;
+    }
+
+    @Override
+    public boolean isRepeatable() {
+        return true;
+    }
+
+    @Override
+    public long getContentLength() {
+        return length;
+    }
+
+    @Override
+    public boolean isStreaming() {
+        return false;
+    }
+
+    /**
+     * 只用于调试，整个文档写入内存后返回，发送时使用writeTo
+     */
+    @Override
+    public InputStream getContent() throws IOException {
+        ByteArrayOutputStream content = new ByteArrayOutputStream((int) Math.min(length, Integer.MAX_VALUE - 8));
+        writeTo(content);
+        return new ByteArrayInputStream(content.toByteArray());
+    }
+
+    @Override
+    public void writeTo(OutputStream outStream) throws IOException {
+        if (outStream == null) {
+            throw new IllegalArgumentException("Output stream cannot be null");
+        }
+        outStream.write(head);
+        // 关闭编码流只写出最后不足3字节的部分，不关闭连接的输出流
+        OutputStream encoded = Base64.getEncoder().wrap(new UnclosableOutputStream(outStream));
+        tarball.writeTo(encoded);
+        encoded.close();
+        outStream.write(tail);
+        outStream.flush();
+    }
+
+    /**
+     * 直接转发批量写入，关闭时只刷新
+     */
+    private static final class UnclosableOutputStream extends FilterOutputStream {
+        UnclosableOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.flush();
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package com.xus.UploadJar2Nexus;
+
+import java.io.IOException;
+import java.net.URLEncoder;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.http.Header;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpPut;
+import org.apache.http.entity.ContentType;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.util.EntityUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 把npm包发布到Nexus的npm hosted仓库：PUT {仓库URL}{包名}，请求体为npm publish格式的发布文档（见{@link NpmPublishEntity}）
+ * 不需要为每个包启动npm进程，也不需要事先npm login：使用目标仓库的HTTP连接池、并发限制器和Basic认证。
+ * 服务器错误和网络错误按{@link RetryBackoff}计算等待时间，放入目标的重试队列，发布线程不等待；
+ * 其他4xx（例如版本已存在、没有权限）不重试，直接按失败处理。
+ */
+public class NpmPublisher {
+    private static final Logger logger = LoggerFactory.getLogger(NpmPublisher.class);
+
+    private final CloseableHttpClient httpClient;
+    // 以/结尾
+    private final String registryUrl;
+    private final String tag;
+    private final AdaptiveConcurrencyLimiter limiter;
+    private final ScheduledExecutorService retryScheduler;
+    private final UploadListener listener;
+    private final LongAdder publishedPackages = new LongAdder();
+    private final LongAdder rejectedPackages = new LongAdder();
+
+    /**
+     * @param registryUrl npm仓库URL，例如http://localhost:8081/repository/npm-hosted/
+     * @param tag 发布到的dist-tag
+     * @param retryScheduler 目标的重试队列，到期的重试在其线程中发送
+     */
+    public NpmPublisher(CloseableHttpClient httpClient, String registryUrl, String tag,
+            AdaptiveConcurrencyLimiter limiter, ScheduledExecutorService retryScheduler, UploadListener listener) {
+        this.httpClient = httpClient;
+        this.registryUrl = registryUrl.endsWith("/") ? registryUrl : registryUrl + "/";
+        this.tag = tag;
+        this.limiter = limiter;
+        this.retryScheduler = retryScheduler;
+        this.listener = listener;
+    }
+
+    public long getPublishedPackages() {
+        return publishedPackages.sum();
+    }
+
+    /**
+     * 被仓库拒绝（4xx）的包数
+     */
+    public long getRejectedPackages() {
+        return rejectedPackages.sum();
+    }
+
+    /**
+     * 一个包的发布请求及其重试状态
+     */
+    private static final class Publish {
+        final NpmPackage npmPackage;
+        final String url;
+        final FileBodyEntity tarball;
+        final NpmPublishEntity body;
+        final long startTime = System.currentTimeMillis();
+        final CompletableFuture<Void> result = new CompletableFuture<>();
+        // 第几次发送，从1开始
+        volatile int attempt = 1;
+
+        Publish(NpmPackage npmPackage, String url, FileBodyEntity tarball, NpmPublishEntity body) {
+            this.npmPackage = npmPackage;
+            this.url = url;
+            this.tarball = tarball;
+            this.body = body;
+        }
+    }
+
+    /**
+     * 发布一个包：第一次在调用线程中发送，失败后的重试放入重试队列，调用线程不等待
+     *
+     * @return 发布成功时完成；无法生成发布文档、被仓库拒绝或重试耗尽仍未成功时以IOException完成
+     */
+    public CompletableFuture<Void> publish(NpmPackage npmPackage) throws InterruptedException {
+        String url = registryUrl + escapeName(npmPackage.getName());
+        String tarballUrl = registryUrl + npmPackage.getName() + "/-/" + npmPackage.getTarballName();
+        FileBodyEntity tarball = new FileBodyEntity(npmPackage.getFile(), ContentType.APPLICATION_OCTET_STREAM);
+        Publish publish;
+        try {
+            publish = new Publish(npmPackage, url, tarball, new NpmPublishEntity(npmPackage, tag, tarballUrl, tarball));
+        } catch (IOException e) {
+            CompletableFuture<Void> failed = new CompletableFuture<>();
+            failed.completeExceptionally(e);
+            return failed;
+        }
+        send(publish);
+        return publish.result;
+    }
+
+    /**
+     * 发送一次，失败且可以重试时按退避时间安排下一次发送
+     */
+    private void send(final Publish publish) throws InterruptedException {
+        long retryAfterMillis = 0;
+        IOException failure;
+        limiter.acquire();
+        long attemptStart = System.currentTimeMillis();
+        try {
+            HttpPut request = new HttpPut(publish.url);
+            request.setEntity(publish.body);
+            try (CloseableHttpResponse response = httpClient.execute(request)) {
+                int status = response.getStatusLine().getStatusCode();
+                String message = response.getEntity() != null ? EntityUtils.toString(response.getEntity()) : "";
+                Header retryAfter = response.getFirstHeader("Retry-After");
+                limiter.onResponse(status, retryAfter != null ? retryAfter.getValue() : null,
+                        System.currentTimeMillis() - attemptStart, publish.body.getContentLength());
+                if (status >= 200 && status < 300) {
+                    listener.onUploaded(publish.tarball, System.currentTimeMillis() - publish.startTime);
+                    publishedPackages.increment();
+                    logger.debug("Published {} to {}", publish.npmPackage, publish.url);
+                    publish.result.complete(null);
+                    return;
+                }
+                if (!RetryBackoff.isRetryable(status)) {
+                    rejectedPackages.increment();
+                    publish.result.completeExceptionally(
+                            new IOException("发布被拒绝，HTTP状态码: " + status + abbreviate(message)));
+                    return;
+                }
+                failure = new IOException("发布失败，HTTP状态码: " + status);
+                retryAfterMillis = AdaptiveConcurrencyLimiter.parseRetryAfter(
+                        retryAfter != null ? retryAfter.getValue() : null);
+            }
+        } catch (IOException e) {
+            failure = e;
+            limiter.onError();
+        } catch (RuntimeException e) {
+            // 重试在重试线程中执行，异常需要通过Future报告给调用方
+            publish.result.completeExceptionally(new IOException(e.getMessage(), e));
+            return;
+        } finally {
+            limiter.release();
+        }
+        if (publish.attempt >= RetryBackoff.MAX_ATTEMPTS) {
+            publish.result.completeExceptionally(failure);
+            return;
+        }
+        listener.onRetry(publish.tarball, publish.attempt, RetryBackoff.MAX_ATTEMPTS, failure);
+        try {
+            retryScheduler.schedule(() -> retry(publish), RetryBackoff.delayMillis(publish.attempt, retryAfterMillis),
+                    TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            // 重试队列已关闭
+            publish.result.completeExceptionally(failure);
+        }
+    }
+
+    /**
+     * 重试线程中执行的一次重试
+     */
+    private void retry(Publish publish) {
+        publish.attempt++;
+        try {
+            send(publish);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            publish.result.completeExceptionally(new IOException("发布被中断", e));
+        }
+    }
+
+    /**
+     * 文档地址中的包名：作用域包的/编码为%2f（@scope%2fname），与npm客户端一致
+     */
+    static String escapeName(String name) {
+        int slash = name.indexOf('/');
+        if (name.startsWith("@") && slash > 0) {
+            return "@" + encode(name.substring(1, slash)) + "%2f" + encode(name.substring(slash + 1));
+        }
+        return encode(name);
+    }
+
+    private static String encode(String value) {
+        try {
+            return URLEncoder.encode(value, "UTF-8");
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String abbreviate(String message) {
+        String text = message.trim();
+        if (text.isEmpty()) {
+            return "";
+        }
+        return " - " + (text.length() > 200 ? text.substring(0, 200) + "..." : text);
+    }
+}
@@ -0,0 +1,121 @@
+package com.xus.UploadJar2Nexus;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * npm上传：读取包内的package.json并计算摘要（一次读取），然后依次发布到每个需要的目标
+ * 多目标时跳过该目标上传日志中已记录的包；发布成功后以整个文件的SHA-1写入上传日志
+ */
+final class NpmUploadMode implements UploadMode {
+    private static final Logger logger = LoggerFactory.getLogger(NpmUploadMode.class);
+
+    private final UploadSession session;
+
+    NpmUploadMode(UploadSession session) {
+        this.session = session;
+    }
+
+    @Override
+    public ArtifactScanner.ArtifactSink createSink() {
+        return session::enqueue;
+    }
+
+    @Override
+    public void upload(List<ArtifactFile> batch) throws InterruptedException {
+        for (ArtifactFile artifact : batch) {
+            try {
+                uploadNpmPackage(artifact);
+            } catch (RuntimeException e) {
+                logger.error("Unexpected error while publishing {}", artifact.getRelativePath(), e);
+            }
+        }
+    }
+
+    private void uploadNpmPackage(final ArtifactFile artifact) throws InterruptedException {
+        List<NexusTarget> targets = session.targets;
+        List<NexusTarget> selected = new ArrayList<>(targets.size());
+        for (NexusTarget target : targets) {
+            if (session.isMultiTarget() && session.isJournaled(target, artifact)) {
+                target.recordSkip();
+            } else {
+                selected.add(target);
+            }
+        }
+        if (selected.isEmpty()) {
+            session.pendingFiles.decrementAndGet();
+            return;
+        }
+        long maxFileSize = session.options.maxFileSize;
+        if (artifact.getSize() > maxFileSize) {
+            logger.error("文件 {} 超过允许的最大大小 {} MB",
+                artifact.getFileName(), maxFileSize / (1024 * 1024));
+            session.pendingFiles.decrementAndGet();
+            return;
+        }
+        final NpmPackage npmPackage;
+        try {
+            npmPackage = NpmPackage.read(artifact.toFile());
+        } catch (IOException e) {
+            session.metrics.recordFailure();
+            for (NexusTarget target : selected) {
+                target.recordFailure();
+            }
+            logger.error("无法读取npm包 {}: {}", artifact.getRelativePath(), e.getMessage());
+            session.pendingFiles.decrementAndGet();
+            return;
+        }
+        // 全部目标结束（包括重试）后该包处理完毕
+        final AtomicInteger remaining = new AtomicInteger(selected.size());
+        session.activeUploads.incrementAndGet();
+        for (int i = 0; i < selected.size(); i++) {
+            final NexusTarget target = selected.get(i);
+            CompletableFuture<Void> result;
+            try {
+                target.backlog.acquire();
+                try {
+                    result = target.npmPublisher.publish(npmPackage);
+                } catch (InterruptedException | RuntimeException e) {
+                    target.backlog.release();
+                    throw e;
+                }
+            } catch (InterruptedException | RuntimeException e) {
+                // 尚未发布的目标不会再完成
+                if (remaining.addAndGet(i - selected.size()) == 0) {
+                    session.activeUploads.decrementAndGet();
+                    session.pendingFiles.decrementAndGet();
+                }
+                throw e;
+            }
+            result.whenComplete((ignored, error) -> {
+                target.backlog.release();
+                try {
+                    if (error != null) {
+                        Throwable cause = error instanceof CompletionException ? error.getCause() : error;
+                        session.metrics.recordFailure();
+                        target.recordFailure();
+                        logger.error("发布npm包最终失败: {}{} - {}", npmPackage, session.describeTarget(target),
+                                cause.getMessage());
+                        session.recordDeadLetter(target, artifact, cause);
+                    } else if (target.journal != null) {
+                        target.journal.record(artifact, npmPackage.getShasum());
+                    }
+                } catch (IOException e) {
+                    logger.warn("无法写入上传日志 {}: {}", artifact.getRelativePath(), e.getMessage());
+                } finally {
+                    if (remaining.decrementAndGet() == 0) {
+                        session.activeUploads.decrementAndGet();
+                        session.pendingFiles.decrementAndGet();
+                    }
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,264 @@
+package com.xus.UploadJar2Nexus;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.http.entity.ContentType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 逐个文件PUT：仓库内的路径与本地仓库中的相对路径相同，因此带分类器的文件不会互相覆盖
+ * 需要上传到多个目标时，文件只从磁盘读取一次，发往各目标的请求共用读取的内容和计算出的摘要；
+ * 各目标分别重试、分别记录上传日志和元数据，全部目标结束后该文件才算处理完毕。
+ * 组件上传方式中的快照和回退文件同样由这里上传。
+ */
+final class PutUploadMode implements UploadMode {
+    private static final Logger logger = LoggerFactory.getLogger(PutUploadMode.class);
+    // 多目标上传时同一文件最快和最慢的请求之间最多相差的块数（4MB），超出后慢的请求自己读取磁盘
+    private static final int FANOUT_WINDOW_CHUNKS = 64;
+
+    private final UploadSession session;
+    private final List<NexusTarget> targets;
+    private final UploadMetrics metrics;
+
+    PutUploadMode(UploadSession session) {
+        this.session = session;
+        this.targets = session.targets;
+        this.metrics = session.metrics;
+    }
+
+    @Override
+    public ArtifactScanner.ArtifactSink createSink() {
+        return session::enqueue;
+    }
+
+    @Override
+    public void upload(List<ArtifactFile> batch) throws InterruptedException {
+        for (ArtifactFile artifact : batch) {
+            try {
+                uploadArtifact(artifact);
+            } catch (RuntimeException e) {
+                session.pendingFiles.decrementAndGet();
+                logger.error("Unexpected error while uploading {}", artifact.getRelativePath(), e);
+            }
+        }
+    }
+
+    /**
+     * 上传一个构件文件到每个需要的目标
+     */
+    void uploadArtifact(ArtifactFile artifact) throws InterruptedException {
+        List<NexusTarget> selected = new ArrayList<>(targets.size());
+        for (NexusTarget target : targets) {
+            if (needsUpload(target, artifact)) {
+                selected.add(target);
+            }
+        }
+        uploadToTargets(artifact, selected);
+    }
+
+    /**
+     * 判断文件是否需要上传到该目标：跳过该目标上传日志中已记录的（多目标时在这里逐个判断）和目标仓库中已存在的文件
+     */
+    boolean needsUpload(NexusTarget target, ArtifactFile artifact) {
+        MavenCoordinates coordinates = artifact.getCoordinates();
+        if (session.isMultiTarget() && session.isJournaled(target, artifact)) {
+            target.recordSkip();
+            return false;
+        }
+        if (target.remoteIndex != null && existsOnRemote(target, artifact, coordinates.getGroupId(),
+                coordinates.getArtifactId(), artifact.getRelativePath())) {
+            target.recordSkip();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * 把一个文件逐个PUT到选定的目标，全部目标结束（或没有需要上传的目标）后该文件处理完毕
+     */
+    void uploadToTargets(ArtifactFile artifact, List<NexusTarget> selected) throws InterruptedException {
+        MavenCoordinates coordinates = artifact.getCoordinates();
+        if (selected.isEmpty()) {
+            session.pendingFiles.decrementAndGet();
+            return;
+        }
+        boolean journalNeeded = false;
+        for (NexusTarget target : selected) {
+            journalNeeded |= target.journal != null;
+        }
+
+        String[] digestAlgorithms = new String[0];
+        if (session.options.uploadChecksums) {
+            // 校验文件所需的全部摘要在发送文件内容的同一次读取中计算
+            digestAlgorithms = Digests.CHECKSUM_EXTENSIONS.keySet().toArray(new String[0]);
+        } else if (journalNeeded) {
+            // 上传日志需要记录内容哈希，在发送的同时计算
+            digestAlgorithms = new String[] {"SHA-1"};
+        }
+        long maxFileSize = session.options.maxFileSize;
+        if (artifact.getSize() > maxFileSize) {
+            logger.error("文件 {} 超过允许的最大大小 {} MB",
+                artifact.getFileName(), maxFileSize / (1024 * 1024));
+            for (NexusTarget target : selected) {
+                if (target.metadataPublisher != null) {
+                    target.metadataPublisher.markFailed(coordinates);
+                }
+            }
+            session.pendingFiles.decrementAndGet();
+            return;
+        }
+
+        // 多个目标共用一次读取，慢的目标落后太多时自己读取磁盘，不会拖住其他目标；镜像模式下每个目标各自读取源仓库
+        final SharedFileBody sharedBody = selected.size() > 1 && !artifact.isRemote()
+                ? new SharedFileBody(artifact.toFile(), selected.size(), digestAlgorithms, FANOUT_WINDOW_CHUNKS,
+                        session.fanoutBudget)
+                : null;
+        final AtomicInteger remaining = new AtomicInteger(selected.size());
+        session.activeUploads.incrementAndGet();
+        for (int i = 0; i < selected.size(); i++) {
+            final NexusTarget target = selected.get(i);
+            final int slot = i;
+            // 从磁盘（镜像模式下从源仓库）流式发送文件内容，实体可重复发送以支持重试
+            FileBodyEntity entity = FileBodyEntity.forArtifact(artifact, ContentType.create("application/java-archive"));
+            entity.setDigestAlgorithms(digestAlgorithms);
+            if (sharedBody != null) {
+                entity.setSharedBody(sharedBody, slot);
+            }
+            uploadArtifactToNexus(target, artifact.getRelativePath(), entity).whenComplete((ignored, error) -> {
+                try {
+                    Throwable cause = error instanceof CompletionException ? error.getCause() : error;
+                    if (error == null) {
+                        if (target.journal != null) {
+                            target.journal.record(artifact, entity.getDigestHex("SHA-1"));
+                        }
+                    } else if (cause instanceof ChecksumUploadException) {
+                        // 构件已在仓库中，元数据照常包含该版本；不写入上传日志，下次运行（或重放死信）连同校验文件重新上传
+                        metrics.recordFailure();
+                        target.recordFailure();
+                        logger.error("校验文件最终上传失败，未写入上传日志: {}{} - {}", artifact.getFileName(),
+                                session.describeTarget(target), cause.getMessage());
+                        session.recordDeadLetter(target, artifact, cause);
+                    } else {
+                        metrics.recordFailure();
+                        target.recordFailure();
+                        if (target.metadataPublisher != null) {
+                            target.metadataPublisher.markFailed(coordinates);
+                        }
+                        logger.error("上传文件最终失败: {}{} - {}", artifact.getFileName(),
+                                session.describeTarget(target), error.getMessage());
+                        session.recordDeadLetter(target, artifact, error);
+                    }
+                } catch (IOException e) {
+                    logger.warn("无法写入上传日志 {}: {}", artifact.getRelativePath(), e.getMessage());
+                } finally {
+                    if (sharedBody != null) {
+                        // 未开始发送就失败的目标不再占用共享缓存
+                        sharedBody.release(slot);
+                    }
+                    if (remaining.decrementAndGet() == 0) {
+                        session.activeUploads.decrementAndGet();
+                        session.pendingFiles.decrementAndGet();
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * 预检目标仓库中是否已有内容相同的文件
+     * 远程存在同路径文件时计算本地SHA-1进行比较，一致则跳过上传并写入该目标的上传日志
+     */
+    private boolean existsOnRemote(NexusTarget target, ArtifactFile artifact, String groupId, String artifactId,
+            String path) {
+        try {
+            String remoteSha1 = target.remoteIndex.remoteSha1(groupId, artifactId, path);
+            if (remoteSha1 == null) {
+                return false;
+            }
+            // 镜像模式下使用源仓库给出的SHA-1，没有时不预检
+            String localSha1 = artifact.isRemote() ? artifact.getSha1() : Digests.digest(artifact.toFile(), "SHA-1");
+            if (localSha1 == null) {
+                return false;
+            }
+            if (!remoteSha1.equalsIgnoreCase(localSha1)) {
+                logger.warn("目标仓库中已存在内容不同的文件，将覆盖上传: {}", path);
+                return false;
+            }
+            metrics.recordRemoteSkip();
+            logger.debug("Identical file already on remote: {}", path);
+            if (target.journal != null) {
+                target.journal.record(artifact, localSha1);
+            }
+            return true;
+        } catch (IOException e) {
+            logger.warn("远程预检失败，继续上传 {}: {}", path, e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * 上传构件到一个Nexus仓库
+     * 上传URL为：{目标仓库URL}/{groupId}/{artifactId}/{version}/{artifactId}-{version}[-{classifier}].{extension}
+     *
+     * @param target 目标仓库
+     * @param path 构件在仓库内的相对路径
+     * @param entity 要上传的文件内容
+     * @return 上传结果，最终成功时正常完成，重试耗尽后以异常完成
+     */
+    private CompletableFuture<Void> uploadArtifactToNexus(NexusTarget target, String path, FileBodyEntity entity)
+            throws InterruptedException {
+        String url = target.getUrl() + path;
+        if (target.dispatcher != null) {
+            return dispatch(target, url, entity);
+        }
+        target.backlog.acquire();
+        try {
+            return target.engine.upload(url, entity).whenComplete((ignored, error) -> target.backlog.release());
+        } catch (InterruptedException | RuntimeException e) {
+            target.backlog.release();
+            throw e;
+        }
+    }
+
+    /**
+     * 把一个上传交给目标自己的分发线程，积压已满时阻塞
+     * 慢的目标因此最多积压backlogCapacity个文件，其他目标在此之前不受影响
+     */
+    private static CompletableFuture<Void> dispatch(final NexusTarget target, final String url,
+            final FileBodyEntity entity) throws InterruptedException {
+        final CompletableFuture<Void> result = new CompletableFuture<>();
+        target.backlog.acquire();
+        try {
+            target.dispatcher.execute(() -> {
+                try {
+                    target.engine.upload(url, entity).whenComplete((ignored, error) -> {
+                        target.backlog.release();
+                        if (error == null) {
+                            result.complete(null);
+                        } else {
+                            result.completeExceptionally(error);
+                        }
+                    });
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    target.backlog.release();
+                    result.completeExceptionally(e);
+                } catch (RuntimeException e) {
+                    target.backlog.release();
+                    result.completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            target.backlog.release();
+            result.completeExceptionally(e);
+        }
+        return result;
+    }
+}
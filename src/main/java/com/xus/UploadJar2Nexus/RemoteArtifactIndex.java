@@ -0,0 +1,192 @@
+package com.xus.UploadJar2Nexus;
+
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.util.EntityUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * 目标仓库中已有构件的索引，用于上传前的存在性预检
+ * 按groupId:artifactId批量调用Nexus 3的搜索接口（/service/rest/v1/search/assets），
+ * 一次取回该构件所有版本文件的路径和SHA-1，结果缓存在按访问顺序淘汰的有界缓存中。
+ * 目标不是Nexus 3或搜索接口不存在（404/405）时，退化为逐个读取远程的.sha1校验文件；
+ * 搜索接口暂时出错（5xx、429等）或拒绝某次查询时只有这一次查询改为读取校验文件，结果不缓存，之后的查询仍使用搜索接口。
+ */
+public class RemoteArtifactIndex {
+    private static final Logger logger = LoggerFactory.getLogger(RemoteArtifactIndex.class);
+    private static final Pattern REPOSITORY_URL = Pattern.compile("^(https?://.+?)/repository/([^/]+)/?$");
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final CloseableHttpClient httpClient;
+    private final String repositoryUrl;
+    // Nexus服务根地址和仓库名，无法从URL中解析时为null
+    private final String serverUrl;
+    private final String repositoryName;
+    private volatile boolean searchSupported;
+    // groupId:artifactId -> (仓库内路径 -> SHA-1)，同一个构件只会有一个线程去查询
+    private final Map<String, CompletableFuture<Map<String, String>>> cache;
+
+    public RemoteArtifactIndex(CloseableHttpClient httpClient, String repositoryUrl, final int maxCachedArtifacts) {
+        this.httpClient = httpClient;
+        this.repositoryUrl = repositoryUrl.endsWith("/") ? repositoryUrl : repositoryUrl + "/";
+        Matcher matcher = REPOSITORY_URL.matcher(repositoryUrl.trim());
+        if (matcher.matches()) {
+            this.serverUrl = matcher.group(1);
+            this.repositoryName = matcher.group(2);
+            this.searchSupported = true;
+        } else {
+            this.serverUrl = null;
+            this.repositoryName = null;
+            this.searchSupported = false;
+        }
+        this.cache = new LinkedHashMap<String, CompletableFuture<Map<String, String>>>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CompletableFuture<Map<String, String>>> eldest) {
+                return size() > maxCachedArtifacts;
+            }
+        };
+    }
+
+    /**
+     * 查询目标仓库中指定路径文件的SHA-1
+     *
+     * @param groupId 构件的组ID
+     * @param artifactId 构件ID
+     * @param path 文件在仓库内的相对路径
+     * @return 远程文件的SHA-1，文件不存在时返回null
+     */
+    public String remoteSha1(String groupId, String artifactId, String path) throws IOException {
+        if (searchSupported) {
+            Map<String, String> assets = assetsOf(groupId, artifactId);
+            if (assets != null) {
+                return assets.get(path);
+            }
+        }
+        return fetchChecksumFile(path);
+    }
+
+    private Map<String, String> assetsOf(String groupId, String artifactId) throws IOException {
+        String key = groupId + ":" + artifactId;
+        CompletableFuture<Map<String, String>> future;
+        boolean owner = false;
+        synchronized (cache) {
+            future = cache.get(key);
+            if (future == null) {
+                future = new CompletableFuture<>();
+                cache.put(key, future);
+                owner = true;
+            }
+        }
+        if (owner) {
+            try {
+                Map<String, String> assets = searchAssets(groupId, artifactId);
+                if (assets == null) {
+                    // 这次查询没有结果，等待中的线程同样读取校验文件，之后的查询重新搜索
+                    synchronized (cache) {
+                        cache.remove(key);
+                    }
+                }
+                future.complete(assets);
+            } catch (IOException | RuntimeException e) {
+                synchronized (cache) {
+                    cache.remove(key);
+                }
+                future.completeExceptionally(e);
+                throw e;
+            }
+        }
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("查询远程构件被中断", e);
+        } catch (ExecutionException e) {
+            throw new IOException("查询远程构件失败: " + key, e.getCause());
+        }
+    }
+
+    /**
+     * 分页调用搜索接口取回一个构件的全部文件
+     * 搜索接口不存在时关闭搜索并返回null；其他失败只让这一次查询返回null
+     */
+    private Map<String, String> searchAssets(String groupId, String artifactId) throws IOException {
+        Map<String, String> assets = new HashMap<>();
+        String continuationToken = null;
+        do {
+            String url = serverUrl + "/service/rest/v1/search/assets?repository=" + encode(repositoryName)
+                    + "&maven.groupId=" + encode(groupId) + "&maven.artifactId=" + encode(artifactId)
+                    + (continuationToken != null ? "&continuationToken=" + encode(continuationToken) : "");
+            try (CloseableHttpResponse response = httpClient.execute(new HttpGet(url))) {
+                int status = response.getStatusLine().getStatusCode();
+                String body = response.getEntity() != null ? EntityUtils.toString(response.getEntity(),
+                        StandardCharsets.UTF_8) : "";
+                if (status == HttpURLConnection.HTTP_NOT_FOUND || status == HttpURLConnection.HTTP_BAD_METHOD) {
+                    if (searchSupported) {
+                        // 并发的查询可能同时收到404，只提示一次
+                        searchSupported = false;
+                        logger.warn("目标仓库不支持搜索接口（HTTP {}），改为逐个读取校验文件", status);
+                    }
+                    return null;
+                }
+                if (status != HttpURLConnection.HTTP_OK) {
+                    logger.debug("Search for {}:{} failed with HTTP {}, reading checksum files instead", groupId,
+                            artifactId, status);
+                    return null;
+                }
+                JsonNode root = MAPPER.readTree(body);
+                for (JsonNode item : root.path("items")) {
+                    String path = item.path("path").asText(null);
+                    String sha1 = item.path("checksum").path("sha1").asText(null);
+                    if (path != null && sha1 != null) {
+                        assets.put(path.startsWith("/") ? path.substring(1) : path, sha1);
+                    }
+                }
+                JsonNode token = root.path("continuationToken");
+                continuationToken = token.isTextual() ? token.asText() : null;
+            }
+        } while (continuationToken != null);
+        logger.debug("Remote index for {}:{} - {} files", groupId, artifactId, assets.size());
+        return assets;
+    }
+
+    /**
+     * 读取远程的.sha1校验文件，不存在时返回null
+     */
+    private String fetchChecksumFile(String path) throws IOException {
+        try (CloseableHttpResponse response = httpClient.execute(new HttpGet(repositoryUrl + path + ".sha1"))) {
+            int status = response.getStatusLine().getStatusCode();
+            String body = response.getEntity() != null ? EntityUtils.toString(response.getEntity(),
+                    StandardCharsets.UTF_8) : "";
+            if (status != HttpURLConnection.HTTP_OK) {
+                return null;
+            }
+            // 校验文件内容可能带有文件名，只取第一个字段
+            String trimmed = body.trim();
+            int space = trimmed.indexOf(' ');
+            return space < 0 ? trimmed : trimmed.substring(0, space);
+        }
+    }
+
+    private static String encode(String value) throws IOException {
+        return URLEncoder.encode(value, "UTF-8");
+    }
+}
@@ -0,0 +1,176 @@
+package com.xus.UploadJar2Nexus;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.MessageDigest;
+
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.entity.ContentType;
+import org.apache.http.nio.client.methods.HttpAsyncMethods;
+
+/**
+ * 远程仓库中文件的HTTP实体，镜像模式下使用
+ * 每次发送（包括重试）都向源仓库重新发起GET，响应体经过固定大小的缓冲直接写入PUT请求，同时计算摘要，
+ * 文件不经过本地磁盘，也不会整个读入内存。
+ * 阻塞引擎通过writeTo在调用线程中边读边写；异步引擎通过{@link #openPipe()}在I/O线程中衔接GET和PUT。
+ * 源仓库没有给出文件大小时以分块编码发送，完整发送一次之后getContentLength返回实际长度。
+ */
+class RemoteBodyEntity extends FileBodyEntity {
+    // 异步引擎中每个传输的缓冲大小，缓冲满时暂停读取源仓库的响应
+    static final int PIPE_CAPACITY = Digests.BUFFER_SIZE * 2;
+
+    private final RemoteRepository source;
+    private final String url;
+    // 源仓库列表给出的长度，未知时为-1
+    private final long declaredLength;
+    // 最近一次完整读取得到的长度
+    private volatile long transferredLength = -1;
+
+    RemoteBodyEntity(RemoteRepository source, ArtifactFile artifact, ContentType contentType) {
+        super(new File(artifact.getFileName()), artifact.getSize(), contentType);
+        this.source = source;
+        this.url = source.urlOf(artifact.getRelativePath());
+        this.declaredLength = artifact.getSize();
+    }
+
+    /**
+     * 源仓库中的下载地址
+     */
+    String getUrl() {
+        return url;
+    }
+
+    @Override
+    public long getContentLength() {
+        return declaredLength >= 0 ? declaredLength : transferredLength;
+    }
+
+    @Override
+    public boolean isStreaming() {
+        return false;
+    }
+
+    /**
+     * 只用于调试，直接返回源仓库的响应流，关闭该流即释放连接
+     */
+    @Override
+    public InputStream getContent() throws IOException {
+        CloseableHttpResponse response = source.getHttpClient().execute(new HttpGet(url));
+        IOException error = checkResponse(response);
+        if (error != null || response.getEntity() == null) {
+            response.close();
+            if (error != null) {
+                throw error;
+            }
+            return new ByteArrayInputStream(new byte[0]);
+        }
+        return response.getEntity().getContent();
+    }
+
+    /**
+     * 在调用线程中向源仓库发起GET，边读边计算摘要边写入输出流
+     */
+    @Override
+    public void writeTo(OutputStream outStream) throws IOException {
+        if (outStream == null) {
+            throw new IllegalArgumentException("Output stream cannot be null");
+        }
+        String[] algorithms = getDigestAlgorithms();
+        MessageDigest[] messageDigests = new MessageDigest[algorithms.length];
+        for (int i = 0; i < messageDigests.length; i++) {
+            messageDigests[i] = Digests.newDigest(algorithms[i]);
+        }
+        long nanos = 0;
+        long read = 0;
+        long total = 0;
+        long start = System.nanoTime();
+        byte[] buffer = new byte[Digests.BUFFER_SIZE];
+        // 中途失败时关闭响应会断开源仓库的连接，不会把剩余内容读完
+        try (CloseableHttpResponse response = source.getHttpClient().execute(new HttpGet(url))) {
+            IOException error = checkResponse(response);
+            if (error != null) {
+                throw error;
+            }
+            InputStream in = response.getEntity() != null ? response.getEntity().getContent() : null;
+            while (in != null) {
+                long readStart = System.nanoTime();
+                int count = in.read(buffer);
+                long digestStart = System.nanoTime();
+                read += digestStart - readStart;
+                if (count < 0) {
+                    break;
+                }
+                for (MessageDigest messageDigest : messageDigests) {
+                    messageDigest.update(buffer, 0, count);
+                }
+                nanos += System.nanoTime() - digestStart;
+                outStream.write(buffer, 0, count);
+                total += count;
+                checkLength(total, false);
+            }
+            checkLength(total, true);
+        }
+        outStream.flush();
+        transferredLength = total;
+        recordDigests(messageDigests, nanos);
+        recordTransfer(read, System.nanoTime() - start - read - nanos);
+    }
+
+    /**
+     * 异步引擎：通过源仓库的异步客户端发起GET，响应体写入返回的有界缓冲
+     */
+    @Override
+    StreamPipe openPipe() {
+        if (source.getAsyncClient() == null) {
+            throw new IllegalStateException("Source repository has no async client: " + source);
+        }
+        StreamPipe pipe = new StreamPipe(this, PIPE_CAPACITY);
+        pipe.setRequest(source.getAsyncClient().execute(HttpAsyncMethods.createGet(url), pipe.newConsumer(), null));
+        return pipe;
+    }
+
+    /**
+     * 检查源仓库的响应：状态码必须为200，列表给出了大小时Content-Length必须一致
+     *
+     * @return 响应不可用时返回对应的异常，否则返回null
+     */
+    IOException checkResponse(HttpResponse response) {
+        int status = response.getStatusLine().getStatusCode();
+        if (status != 200) {
+            return new IOException("源仓库返回HTTP状态码 " + status + ": " + url);
+        }
+        HttpEntity body = response.getEntity();
+        if (body == null) {
+            return declaredLength > 0 ? new IOException("源仓库的响应没有内容: " + url) : null;
+        }
+        if (declaredLength >= 0 && body.getContentLength() >= 0 && body.getContentLength() != declaredLength) {
+            return new IOException("源仓库中的文件大小与列表不一致（" + body.getContentLength() + " / " + declaredLength
+                    + "）: " + url);
+        }
+        return null;
+    }
+
+    /**
+     * 检查已读取的长度：超过列表给出的大小，或读完时与之不一致，说明文件在列出之后发生了变化
+     *
+     * @param complete 是否已读完
+     */
+    void checkLength(long total, boolean complete) throws IOException {
+        if (declaredLength >= 0 && (total > declaredLength || complete && total != declaredLength)) {
+            throw new IOException("源仓库中的文件大小与列表不一致（" + total + " / " + declaredLength + "）: " + url);
+        }
+    }
+
+    /**
+     * 异步读取完整结束时记录实际长度
+     */
+    void recordLength(long total) {
+        transferredLength = total;
+    }
+}
@@ -0,0 +1,134 @@
+package com.xus.UploadJar2Nexus;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.URLEncoder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.http.entity.ContentType;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 镜像模式的源仓库：另一个Maven仓库（Nexus、Artifactory或任何提供HTML目录列表的HTTP服务器）
+ * 文件内容不经过本地磁盘：每次上传时向源仓库发起GET，响应体直接写入发往目标仓库的PUT请求（见{@link RemoteBodyEntity}）。
+ * 列出仓库内容和阻塞引擎的GET使用阻塞的HTTP客户端；异步引擎另外使用一个HttpAsyncClient，
+ * GET响应和PUT请求体在I/O线程中通过有界缓冲衔接。
+ */
+public class RemoteRepository implements Closeable {
+    private static final Logger logger = LoggerFactory.getLogger(RemoteRepository.class);
+    private static final Pattern NEXUS3_URL = Pattern.compile("^(https?://.+?)/repository/([^/]+)/$");
+
+    private final String url;
+    private final String username;
+    private final CloseableHttpClient httpClient;
+    // 只在异步引擎下创建，否则为null
+    private final CloseableHttpAsyncClient asyncClient;
+    // Nexus 3组件列表接口，URL不是/repository/名称/的形式时为null
+    private final String componentsUrl;
+
+    /**
+     * @param spec 源仓库URL，格式为http(s)://[用户名:密码@]主机[:端口]/路径/，没有认证信息时匿名访问
+     * @param maxConnections 连接池大小，应不少于上传并发数加扫描线程数
+     * @param async 是否同时创建异步客户端（异步引擎）
+     */
+    public RemoteRepository(String spec, int maxConnections, boolean async) {
+        // 与--target相同的URL格式，默认没有认证信息
+        NexusTarget parsed = NexusTarget.parse(spec, null, null);
+        this.url = parsed.getUrl();
+        this.username = parsed.getUsername();
+        // 源仓库的认证信息同样预先发送，每个GET不需要先收到401；源仓库的流量不计入上传的网络统计
+        String authorization = parsed.getAuthorization();
+        this.httpClient = NexusHttpClients.createClient(url, authorization, maxConnections, maxConnections, false, null);
+        this.asyncClient = async
+                ? NexusHttpClients.createAsyncClient(url, authorization, maxConnections,
+                        Math.min(4, Runtime.getRuntime().availableProcessors()), false, null)
+                : null;
+        Matcher matcher = NEXUS3_URL.matcher(url);
+        this.componentsUrl = matcher.matches()
+                ? matcher.group(1) + "/service/rest/v1/components?repository=" + encode(matcher.group(2))
+                : null;
+    }
+
+    /**
+     * 判断仓库路径参数是否为远程仓库URL（镜像模式）
+     */
+    public static boolean isRemote(String repositoryPath) {
+        String value = repositoryPath.trim().toLowerCase();
+        return value.startsWith("http://") || value.startsWith("https://");
+    }
+
+    /**
+     * 仓库URL，以/结尾，不含认证信息
+     */
+    public String getUrl() {
+        return url;
+    }
+
+    /**
+     * 访问源仓库的用户名，匿名访问时为null
+     */
+    public String getUsername() {
+        return username;
+    }
+
+    /**
+     * 构件在源仓库中的下载地址
+     */
+    public String urlOf(String relativePath) {
+        return url + relativePath;
+    }
+
+    /**
+     * Nexus 3组件列表接口的地址，不是Nexus 3仓库URL时返回null
+     */
+    String getComponentsUrl() {
+        return componentsUrl;
+    }
+
+    CloseableHttpClient getHttpClient() {
+        return httpClient;
+    }
+
+    /**
+     * 异步客户端，阻塞引擎下为null
+     */
+    CloseableHttpAsyncClient getAsyncClient() {
+        return asyncClient;
+    }
+
+    /**
+     * 创建读取远程构件内容的实体，每次发送都重新向源仓库发起GET
+     */
+    public FileBodyEntity newEntity(ArtifactFile artifact, ContentType contentType) {
+        return new RemoteBodyEntity(this, artifact, contentType);
+    }
+
+    private static String encode(String value) {
+        try {
+            return URLEncoder.encode(value, "UTF-8");
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            httpClient.close();
+            if (asyncClient != null) {
+                asyncClient.close();
+            }
+        } catch (IOException e) {
+            logger.error("Error closing source repository client", e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return url;
+    }
+}
@@ -0,0 +1,297 @@
+package com.xus.UploadJar2Nexus;
+
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.RecursiveAction;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.util.EntityUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * 镜像模式的扫描阶段：列出远程仓库中的构件，与本地扫描一样按目录（GAV）交给sink
+ * 源仓库是Nexus 3时分页调用组件列表接口（/service/rest/v1/components），每个组件即一个GAV，
+ * 同时取得每个文件的大小、修改时间和SHA-1；接口不可用时逐层读取HTML目录列表（Nexus 2、Artifactory、
+ * Maven Central等），每个子目录作为独立任务并行读取，列表中带有大小和时间时一并解析。
+ * 列表中没有大小的文件以分块编码上传。
+ * 设置了过滤器时，目录列表同样从起始目录开始读取并跳过不匹配的子目录；组件列表接口按仓库整体分页，不能按目录跳过，
+ * 其中的构件在上传前逐个过滤。
+ */
+public class RemoteRepositoryScanner extends ArtifactScanner {
+    private static final Logger logger = LoggerFactory.getLogger(RemoteRepositoryScanner.class);
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final Pattern LINK = Pattern.compile("<a\\s[^>]*?href\\s*=\\s*\"([^\"]+)\"[^>]*>.*?</a>([^<\\r\\n]*)",
+            Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+    // 链接之后的"日期 时间 大小"，例如Maven Central的"2020-01-21 17:29    381765"
+    private static final Pattern LISTING_DETAILS = Pattern.compile(
+            "^\\s*(\\d{4}-\\d{2}-\\d{2} \\d{2}:\\d{2})(?::\\d{2})?\\s+(\\d+)\\s*$");
+    private static final DateTimeFormatter LISTING_TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+
+    private final RemoteRepository source;
+
+    /**
+     * @param parallelism 同时读取目录列表的线程数
+     * @param directoryLatency 记录每次列表请求耗时的直方图，可以为null
+     */
+    public RemoteRepositoryScanner(RemoteRepository source, ArtifactSink sink, int parallelism,
+            LatencyHistogram directoryLatency) {
+        super(sink, parallelism, directoryLatency);
+        this.source = source;
+    }
+
+    @Override
+    RecursiveAction newRootTask() {
+        return new RecursiveAction() {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected void compute() {
+                try {
+                    if (source.getComponentsUrl() != null && listComponents()) {
+                        return;
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    cancelled = true;
+                    return;
+                }
+                if (filter == null) {
+                    new DirectoryTask("").invoke();
+                    return;
+                }
+                List<DirectoryTask> tasks = new ArrayList<>();
+                for (String start : filter.getStartDirectories()) {
+                    if (start.isEmpty() || allowsDirectory(start)) {
+                        tasks.add(new DirectoryTask(start));
+                    }
+                }
+                invokeAll(tasks);
+            }
+        };
+    }
+
+    /**
+     * 分页读取Nexus 3的组件列表，每个组件中的构件作为一个目录交给sink
+     *
+     * @return 组件列表接口不可用时返回false，由调用方改为读取目录列表
+     */
+    private boolean listComponents() throws InterruptedException {
+        String continuationToken = null;
+        boolean firstPage = true;
+        do {
+            String url = source.getComponentsUrl()
+                    + (continuationToken != null ? "&continuationToken=" + encode(continuationToken) : "");
+            long readStart = System.nanoTime();
+            JsonNode root;
+            try (CloseableHttpResponse response = source.getHttpClient().execute(new HttpGet(url))) {
+                int status = response.getStatusLine().getStatusCode();
+                String body = response.getEntity() != null ? EntityUtils.toString(response.getEntity(),
+                        StandardCharsets.UTF_8) : "";
+                if (status != HttpURLConnection.HTTP_OK) {
+                    if (firstPage) {
+                        logger.info("源仓库不支持组件列表接口（HTTP {}），改为读取目录列表", status);
+                        return false;
+                    }
+                    throw new IOException("HTTP状态码: " + status);
+                }
+                root = MAPPER.readTree(body);
+            } catch (IOException e) {
+                if (firstPage) {
+                    logger.info("无法读取源仓库的组件列表，改为读取目录列表: {}", e.getMessage());
+                    return false;
+                }
+                // 分页令牌无法跳过出错的一页，已列出的组件照常上传
+                logger.error("读取源仓库组件列表失败，后续组件未列出: {}", e.getMessage());
+                return true;
+            }
+            if (directoryLatency != null) {
+                directoryLatency.record(System.nanoTime() - readStart);
+            }
+            firstPage = false;
+            for (JsonNode component : root.path("items")) {
+                if (cancelled) {
+                    return true;
+                }
+                acceptComponent(component);
+            }
+            JsonNode token = root.path("continuationToken");
+            continuationToken = token.isTextual() ? token.asText() : null;
+        } while (continuationToken != null && !cancelled);
+        return true;
+    }
+
+    /**
+     * 按目录整理一个组件中的文件（快照的多个时间戳版本在同一目录中）后交给sink
+     */
+    private void acceptComponent(JsonNode component) throws InterruptedException {
+        Map<String, List<ArtifactFile>> directories = new LinkedHashMap<>();
+        for (JsonNode asset : component.path("assets")) {
+            String path = asset.path("path").asText("");
+            if (path.startsWith("/")) {
+                path = path.substring(1);
+            }
+            scannedFiles.increment();
+            ArtifactFile artifact = toArtifact(path, asset.path("fileSize").asLong(-1),
+                    parseTime(asset.path("lastModified").asText(null)), asset.path("checksum").path("sha1").asText(null));
+            if (artifact != null) {
+                String directory = path.substring(0, path.lastIndexOf('/') + 1);
+                directories.computeIfAbsent(directory, key -> new ArrayList<>()).add(artifact);
+            }
+        }
+        for (List<ArtifactFile> artifacts : directories.values()) {
+            scannedDirectories.increment();
+            deliver(artifacts);
+        }
+    }
+
+    /**
+     * 列表中的一个文件，不是需要上传的构件或不符合Maven仓库目录结构时返回null
+     */
+    private ArtifactFile toArtifact(String relativePath, long size, long lastModified, String sha1) {
+        String type = artifactType(relativePath.substring(relativePath.lastIndexOf('/') + 1));
+        if (type == null) {
+            return null;
+        }
+        ArtifactFile artifact = new ArtifactFile(source, relativePath, size, lastModified, sha1, type);
+        if (artifact.getCoordinates() == null) {
+            logger.debug("Not in Maven repository layout, skipped: {}", relativePath);
+            return null;
+        }
+        matchedArtifacts.increment();
+        return artifact;
+    }
+
+    private static long parseTime(String value) {
+        if (value == null || value.isEmpty()) {
+            return 0;
+        }
+        try {
+            return OffsetDateTime.parse(value).toInstant().toEpochMilli();
+        } catch (DateTimeParseException e) {
+            return 0;
+        }
+    }
+
+    private static String encode(String value) {
+        try {
+            return URLEncoder.encode(value, "UTF-8");
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 读取一个目录的HTML列表，其中的构件交给sink，子目录拆分为新的任务
+     */
+    private class DirectoryTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        // 相对于仓库根目录，以/结尾，根目录为空字符串
+        private final String directory;
+
+        DirectoryTask(String directory) {
+            this.directory = directory;
+        }
+
+        @Override
+        protected void compute() {
+            if (cancelled) {
+                return;
+            }
+            List<String> subdirectories = new ArrayList<>();
+            List<ArtifactFile> artifacts = new ArrayList<>();
+            String directoryUrl = source.urlOf(directory);
+            long readStart = System.nanoTime();
+            String body;
+            try (CloseableHttpResponse response = source.getHttpClient().execute(new HttpGet(directoryUrl))) {
+                int status = response.getStatusLine().getStatusCode();
+                body = response.getEntity() != null ? EntityUtils.toString(response.getEntity(),
+                        StandardCharsets.UTF_8) : "";
+                if (status != HttpURLConnection.HTTP_OK) {
+                    logger.warn("读取源仓库目录失败 {}: HTTP状态码 {}", directoryUrl, status);
+                    return;
+                }
+            } catch (IOException e) {
+                logger.warn("读取源仓库目录失败 {}: {}", directoryUrl, e.getMessage());
+                return;
+            }
+            scannedDirectories.increment();
+            if (directoryLatency != null) {
+                directoryLatency.record(System.nanoTime() - readStart);
+            }
+            URI base = URI.create(directoryUrl);
+            Matcher matcher = LINK.matcher(body);
+            while (matcher.find()) {
+                String href = matcher.group(1).trim();
+                String resolved;
+                try {
+                    resolved = base.resolve(href).toString();
+                } catch (IllegalArgumentException e) {
+                    continue;
+                }
+                // 只接受当前目录的直接子项，忽略上级目录、排序链接和指向其他位置的链接
+                if (!resolved.startsWith(directoryUrl) || resolved.length() == directoryUrl.length()) {
+                    continue;
+                }
+                String name = resolved.substring(directoryUrl.length());
+                boolean isDirectory = name.endsWith("/");
+                String bare = isDirectory ? name.substring(0, name.length() - 1) : name;
+                if (bare.isEmpty() || bare.indexOf('/') >= 0 || bare.indexOf('?') >= 0 || bare.indexOf('#') >= 0
+                        || bare.startsWith(".")) {
+                    continue;
+                }
+                if (isDirectory) {
+                    if (allowsDirectory(directory + name)) {
+                        subdirectories.add(directory + name);
+                    }
+                    continue;
+                }
+                scannedFiles.increment();
+                long size = -1;
+                long lastModified = 0;
+                Matcher details = LISTING_DETAILS.matcher(matcher.group(2));
+                if (details.matches()) {
+                    size = Long.parseLong(details.group(2));
+                    lastModified = LocalDateTime.parse(details.group(1), LISTING_TIME)
+                            .toInstant(ZoneOffset.UTC).toEpochMilli();
+                }
+                ArtifactFile artifact = toArtifact(directory + name, size, lastModified, null);
+                if (artifact != null) {
+                    artifacts.add(artifact);
+                }
+            }
+            try {
+                deliver(artifacts);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                cancelled = true;
+                return;
+            }
+            if (!subdirectories.isEmpty() && !cancelled) {
+                List<DirectoryTask> subtasks = new ArrayList<>(subdirectories.size());
+                for (String subdirectory : subdirectories) {
+                    subtasks.add(new DirectoryTask(subdirectory));
+                }
+                invokeAll(subtasks);
+            }
+        }
+    }
+}
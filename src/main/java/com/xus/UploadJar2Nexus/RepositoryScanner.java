@@ -0,0 +1,182 @@
+package com.xus.UploadJar2Nexus;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RecursiveAction;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 本地仓库的扫描阶段
+ * 使用DirectoryStream逐层读取目录，每个目录项读取一次属性（Linux/macOS上是一次不跟随链接的stat），
+ * 先据此区分子目录和文件，再按名称判断文件是否需要上传；Windows的目录读取结果已带属性，读取属性不再访问磁盘。
+ * 每个子目录作为独立任务交给ForkJoinPool并行处理。
+ * 子类可以替换要上传的文件（例如{@link NpmPackageScanner}），统计和POM优先的排序保持一致。
+ * 设置了{@link ArtifactFilter}时从过滤规则给出的起始目录开始扫描，不可能包含需要上传的构件的子目录不再读取。
+ * 本地目录可以按目录重新扫描（{@link #scanDirectory(Path)}），供监视模式使用。
+ */
+public class RepositoryScanner extends ArtifactScanner {
+    private static final Logger logger = LoggerFactory.getLogger(RepositoryScanner.class);
+    // 本地仓库根目录
+    private final Path root;
+
+    public RepositoryScanner(Path root, ArtifactSink sink, int parallelism) {
+        this(root, sink, parallelism, null);
+    }
+
+    /**
+     * @param directoryLatency 记录每个目录读取耗时的直方图，可以为null
+     */
+    public RepositoryScanner(Path root, ArtifactSink sink, int parallelism, LatencyHistogram directoryLatency) {
+        super(sink, parallelism, directoryLatency);
+        this.root = root.toAbsolutePath().normalize();
+    }
+
+    @Override
+    RecursiveAction newRootTask() {
+        if (filter == null) {
+            return new DirectoryTask(root);
+        }
+        final List<DirectoryTask> tasks = new ArrayList<>();
+        for (String start : filter.getStartDirectories()) {
+            Path dir = root.resolve(start);
+            if (Files.isDirectory(dir) && (start.isEmpty() || allowsDirectory(start))) {
+                tasks.add(new DirectoryTask(dir));
+            }
+        }
+        return new RecursiveAction() {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected void compute() {
+                invokeAll(tasks);
+            }
+        };
+    }
+
+    String relativize(Path file) {
+        String relative = root.relativize(file).toString();
+        return '/' == File.separatorChar ? relative : relative.replace(File.separatorChar, '/');
+    }
+
+    /**
+     * 只扫描一个目录（不含子目录），发现的构件同样交给sink，供监视模式处理有变化的目录
+     *
+     * @param dir 仓库中的目录
+     */
+    public void scanDirectory(Path dir) throws InterruptedException {
+        Path normalized = dir.toAbsolutePath().normalize();
+        if (filter != null && !filter.allowsDirectory(relativize(normalized))) {
+            return;
+        }
+        readDirectory(normalized, null);
+    }
+
+    /**
+     * 读取一个目录，把其中的构件按POM优先的顺序交给sink
+     *
+     * @param subdirectories 收集子目录，为null时忽略子目录
+     * @return 目录读取失败时返回false
+     */
+    private boolean readDirectory(Path dir, List<Path> subdirectories) throws InterruptedException {
+        List<ArtifactFile> artifacts = new ArrayList<>();
+        long readStart = System.nanoTime();
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(dir)) {
+            for (Path entry : entries) {
+                BasicFileAttributes attrs;
+                try {
+                    // 与不跟随符号链接的遍历一致：指向目录的链接不进入，指向文件的链接不上传；
+                    // 名称像校验文件或元数据（例如以.xml结尾）的也可能是目录，不能只按名称跳过
+                    attrs = Files.readAttributes(entry, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+                } catch (IOException e) {
+                    logger.warn("无法读取 {}: {}", entry, e.getMessage());
+                    continue;
+                }
+                if (attrs.isDirectory()) {
+                    // 没有过滤器时不需要计算相对路径
+                    if (subdirectories != null && (filter == null || filter.allowsDirectory(relativize(entry)))) {
+                        subdirectories.add(entry);
+                    }
+                    continue;
+                }
+                scannedFiles.increment();
+                ArtifactFile artifact = toArtifact(entry, attrs);
+                if (artifact != null) {
+                    matchedArtifacts.increment();
+                    artifacts.add(artifact);
+                }
+            }
+        } catch (IOException | DirectoryIteratorException e) {
+            logger.warn("扫描目录失败 {}: {}", dir, e.getMessage());
+            return false;
+        }
+        scannedDirectories.increment();
+        if (directoryLatency != null) {
+            directoryLatency.record(System.nanoTime() - readStart);
+        }
+        deliver(artifacts);
+        return true;
+    }
+
+    /**
+     * 目录中的一个文件，不是需要上传的构件或不符合Maven仓库目录结构时返回null
+     */
+    ArtifactFile toArtifact(Path file, BasicFileAttributes attrs) {
+        String type = artifactType(file.getFileName().toString());
+        if (type == null || !attrs.isRegularFile()) {
+            return null;
+        }
+        ArtifactFile artifact = new ArtifactFile(file, relativize(file), attrs.size(),
+                attrs.lastModifiedTime().toMillis(), type);
+        if (artifact.getCoordinates() == null) {
+            logger.debug("Not in Maven repository layout, skipped: {}", artifact.getRelativePath());
+            return null;
+        }
+        return artifact;
+    }
+
+    /**
+     * 单个目录的扫描任务，只读取当前目录一层，子目录拆分为新的任务
+     */
+    private class DirectoryTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final Path dir;
+
+        DirectoryTask(Path dir) {
+            this.dir = dir;
+        }
+
+        @Override
+        protected void compute() {
+            if (cancelled) {
+                return;
+            }
+            List<Path> subdirectories = new ArrayList<>();
+            try {
+                if (!readDirectory(dir, subdirectories)) {
+                    return;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                cancelled = true;
+                return;
+            }
+            if (!subdirectories.isEmpty() && !cancelled) {
+                List<DirectoryTask> subtasks = new ArrayList<>(subdirectories.size());
+                for (Path subdirectory : subdirectories) {
+                    subtasks.add(new DirectoryTask(subdirectory));
+                }
+                invokeAll(subtasks);
+            }
+        }
+    }
+}
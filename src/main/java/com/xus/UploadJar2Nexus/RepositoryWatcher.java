@@ -0,0 +1,300 @@
+package com.xus.UploadJar2Nexus;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 监视模式：通过WatchService监视整棵仓库目录树，把有构件变化的目录合并成批交给{@link BurstListener}
+ * 目录中最后一次变化之后安静debounceMillis才处理，期间的多次写入合并为一次；
+ * 有JAR等文件但还没有POM的目录继续等待POM，最多等待maxWaitMillis，这样同一GAV的POM和JAR通常在同一批中上传。
+ * 新建的目录会立即注册监视，子树中已有构件的目录标记为有变化（注册之前写入的文件不会产生事件）；
+ * 只建了上级目录（groupId、artifactId）还没有文件的目录不标记，不会让整批等到maxWaitMillis。
+ * 事件溢出时无法知道哪些目录有变化，改为通知重新扫描整个仓库。
+ * 无法注册监视时（通常是达到了inotify的max_user_watches上限）不再逐个目录监视，
+ * 改为每{@link #RESCAN_INTERVAL_MILLIS}毫秒通知重新扫描整个仓库。
+ */
+public class RepositoryWatcher implements Closeable {
+    private static final Logger logger = LoggerFactory.getLogger(RepositoryWatcher.class);
+    // 无法监视全部目录时重新扫描整个仓库的间隔
+    static final long RESCAN_INTERVAL_MILLIS = 60000;
+
+    /**
+     * 接收变化通知，回调都在调用{@link #run}的线程中执行
+     */
+    public interface BurstListener {
+        /**
+         * 一批已经稳定的目录
+         */
+        void onBurst(List<Path> directories) throws InterruptedException;
+
+        /**
+         * 事件溢出，需要重新扫描整个仓库
+         */
+        void onOverflow() throws InterruptedException;
+
+        /**
+         * 没有任何变化已持续idleMillis，可以用来保持连接
+         */
+        void onIdle();
+    }
+
+    /**
+     * 一个有变化、尚未处理的目录
+     */
+    private static final class PendingDirectory {
+        final long firstEvent;
+        long lastEvent;
+
+        PendingDirectory(long now) {
+            this.firstEvent = now;
+            this.lastEvent = now;
+        }
+    }
+
+    private final Path root;
+    private final WatchService watchService;
+    private final long debounceMillis;
+    private final long maxWaitMillis;
+    private final long idleMillis;
+    private final Map<WatchKey, Path> keys = new HashMap<>();
+    // 按第一次变化的顺序处理
+    private final Map<Path, PendingDirectory> pending = new LinkedHashMap<>();
+    private boolean overflow;
+    // 无法监视全部目录，改为定期重新扫描
+    private boolean rescanning;
+
+    /**
+     * @param root 仓库根目录
+     * @param debounceMillis 目录安静多久之后处理
+     * @param maxWaitMillis 等待POM的最长时间，从目录第一次变化开始计算
+     * @param idleMillis 没有变化时调用onIdle的间隔
+     */
+    public RepositoryWatcher(Path root, long debounceMillis, long maxWaitMillis, long idleMillis) throws IOException {
+        this.root = root.toAbsolutePath().normalize();
+        this.watchService = this.root.getFileSystem().newWatchService();
+        this.debounceMillis = debounceMillis;
+        this.maxWaitMillis = Math.max(maxWaitMillis, debounceMillis);
+        this.idleMillis = idleMillis;
+        try {
+            int registered = registerTree(this.root, false);
+            logger.info("已监视 {} 个目录: {}", registered, this.root);
+        } catch (IOException e) {
+            fallBackToRescan(e);
+        }
+    }
+
+    /**
+     * 处理变化直到被关闭，关闭后返回
+     */
+    public void run(BurstListener listener) throws InterruptedException {
+        long lastActivity = System.currentTimeMillis();
+        long lastRescan = lastActivity;
+        try {
+            while (true) {
+                if (rescanning) {
+                    // 不再有注册的目录，poll只用于等待和检测close
+                    watchService.poll(Math.min(idleMillis, RESCAN_INTERVAL_MILLIS), TimeUnit.MILLISECONDS);
+                    long now = System.currentTimeMillis();
+                    if (overflow || now - lastRescan >= RESCAN_INTERVAL_MILLIS) {
+                        overflow = false;
+                        listener.onOverflow();
+                        lastRescan = lastActivity = System.currentTimeMillis();
+                    } else if (now - lastActivity >= idleMillis) {
+                        listener.onIdle();
+                        lastActivity = now;
+                    }
+                    continue;
+                }
+                WatchKey key = watchService.poll(pending.isEmpty() ? idleMillis : Math.max(50, debounceMillis / 4),
+                        TimeUnit.MILLISECONDS);
+                long now = System.currentTimeMillis();
+                while (key != null) {
+                    handleEvents(key, now);
+                    key = watchService.poll();
+                }
+                if (overflow) {
+                    overflow = false;
+                    pending.clear();
+                    logger.warn("目录变化事件溢出，重新扫描整个仓库");
+                    listener.onOverflow();
+                    lastActivity = System.currentTimeMillis();
+                    continue;
+                }
+                List<Path> ready = takeReady(now);
+                if (!ready.isEmpty()) {
+                    listener.onBurst(ready);
+                    lastActivity = System.currentTimeMillis();
+                } else if (pending.isEmpty() && now - lastActivity >= idleMillis) {
+                    listener.onIdle();
+                    lastActivity = now;
+                }
+            }
+        } catch (ClosedWatchServiceException e) {
+            // 已被close，正常退出
+        }
+    }
+
+    private void handleEvents(WatchKey key, long now) {
+        Path dir = keys.get(key);
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                overflow = true;
+                continue;
+            }
+            if (dir == null) {
+                continue;
+            }
+            Path child = dir.resolve((Path) event.context());
+            if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE
+                    && Files.isDirectory(child, LinkOption.NOFOLLOW_LINKS)) {
+                try {
+                    registerTree(child, true);
+                } catch (IOException e) {
+                    fallBackToRescan(e);
+                    // 新目录中的文件没有被监视到，立即重新扫描一次
+                    overflow = true;
+                    return;
+                }
+            } else if (RepositoryScanner.artifactType(child.getFileName().toString()) != null) {
+                markPending(dir, now);
+            }
+        }
+        if (!key.reset()) {
+            keys.remove(key);
+        }
+    }
+
+    /**
+     * 无法注册监视时取消已注册的目录（释放占用的监视数量），改为定期重新扫描整个仓库
+     */
+    private void fallBackToRescan(IOException cause) {
+        logger.error("无法监视仓库中的全部目录（{}），Linux上通常是达到了inotify监视数量上限，"
+                + "可以调大/proc/sys/fs/inotify/max_user_watches；改为每{}秒重新扫描整个仓库",
+                cause.getMessage(), RESCAN_INTERVAL_MILLIS / 1000);
+        for (WatchKey key : keys.keySet()) {
+            key.cancel();
+        }
+        keys.clear();
+        pending.clear();
+        rescanning = true;
+    }
+
+    /**
+     * 是否已改为定期重新扫描整个仓库
+     */
+    boolean isRescanning() {
+        return rescanning;
+    }
+
+    private void markPending(Path dir, long now) {
+        PendingDirectory directory = pending.get(dir);
+        if (directory == null) {
+            pending.put(dir, new PendingDirectory(now));
+        } else {
+            directory.lastEvent = now;
+        }
+    }
+
+    /**
+     * 取出已经稳定的目录：安静时间达到debounceMillis，并且已有POM或等待已超过maxWaitMillis
+     */
+    private List<Path> takeReady(long now) {
+        List<Path> ready = new ArrayList<>();
+        Iterator<Map.Entry<Path, PendingDirectory>> iterator = pending.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Path, PendingDirectory> entry = iterator.next();
+            PendingDirectory directory = entry.getValue();
+            if (now - directory.lastEvent < debounceMillis) {
+                continue;
+            }
+            if (now - directory.firstEvent < maxWaitMillis && !containsPom(entry.getKey())) {
+                continue;
+            }
+            ready.add(entry.getKey());
+            iterator.remove();
+        }
+        return ready;
+    }
+
+    private static boolean containsPom(Path dir) {
+        try (DirectoryStream<Path> poms = Files.newDirectoryStream(dir, "*.pom")) {
+            return poms.iterator().hasNext();
+        } catch (IOException e) {
+            // 目录已被删除等情况，交给扫描处理
+            return true;
+        }
+    }
+
+    /**
+     * 注册一棵子树中的所有目录
+     *
+     * @param markPending 是否把子树中含有构件的目录标记为有变化
+     * @return 注册的目录数
+     */
+    private int registerTree(Path start, final boolean markPending) throws IOException {
+        final long now = System.currentTimeMillis();
+        final int[] count = new int[1];
+        Files.walkFileTree(start, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                WatchKey key;
+                try {
+                    key = dir.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                            StandardWatchEventKinds.ENTRY_MODIFY);
+                } catch (NoSuchFileException e) {
+                    // 目录在遍历期间被删除
+                    return FileVisitResult.SKIP_SUBTREE;
+                }
+                keys.put(key, dir);
+                count[0]++;
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                if (markPending && RepositoryScanner.artifactType(file.getFileName().toString()) != null) {
+                    markPending(file.getParent(), now);
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed(Path file, IOException e) {
+                logger.warn("无法读取 {}: {}", file, e.getMessage());
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        return count[0];
+    }
+
+    /**
+     * 停止监视，可以从其他线程调用，正在执行的run随后返回
+     */
+    @Override
+    public void close() throws IOException {
+        watchService.close();
+    }
+}
@@ -0,0 +1,42 @@
+package com.xus.UploadJar2Nexus;
+
+import java.net.HttpURLConnection;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 重试策略：最多重试的次数、哪些响应值得重试，以及第几次失败之后等待多久
+ * 等待时间按指数增长并加上随机抖动（一半固定、一半随机），同时失败的大量请求不会在同一时刻一起重试；
+ * 服务器给出Retry-After时至少等待该时间。各上传方式（PUT、组件上传、npm发布）共用同一策略。
+ */
+final class RetryBackoff {
+    // 每个文件最多发送的次数（含第一次）
+    static final int MAX_ATTEMPTS = 5;
+    // 第一次失败后的基准等待时间，之后每次翻倍
+    static final long BASE_DELAY_MS = 1000;
+    // 等待时间的上限（不含Retry-After）
+    static final long MAX_DELAY_MS = 30000;
+
+    private RetryBackoff() {
+    }
+
+    /**
+     * 第attempt次发送失败后、下一次发送之前的等待时间
+     *
+     * @param attempt 已经失败的发送次数，从1开始
+     * @param retryAfterMillis 服务器通过Retry-After要求的等待时间，未指定时为0
+     */
+    static long delayMillis(int attempt, long retryAfterMillis) {
+        long ceiling = Math.min(MAX_DELAY_MS, BASE_DELAY_MS << Math.min(attempt - 1, 20));
+        long half = ceiling / 2;
+        long delay = half + ThreadLocalRandom.current().nextLong(half + 1);
+        return Math.max(delay, retryAfterMillis);
+    }
+
+    /**
+     * 响应状态码是否值得重试：5xx、408和429；其他4xx（例如没有权限、不允许重新部署）再发送也会被拒绝
+     */
+    static boolean isRetryable(int statusCode) {
+        return statusCode >= 500 || statusCode == HttpURLConnection.HTTP_CLIENT_TIMEOUT || statusCode == 429
+                || statusCode < 400;
+    }
+}
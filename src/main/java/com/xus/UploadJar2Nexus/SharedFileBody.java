@@ -0,0 +1,306 @@
+package com.xus.UploadJar2Nexus;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+
+/**
+ * 多目标上传时同一个文件的共享读取
+ * 每个目标占一个槽位，文件按块读取一次，缓存在由最慢的读者决定的有界窗口中，发往各目标的请求共用这些块。
+ * 读者落后最快的读者超过windowChunks块，或全局缓冲预算（所有文件共用）不足时，该读者脱离共享，
+ * 改为自己从磁盘读取剩余部分：慢的目标不会拖住其他目标，内存占用也有上限。
+ * 摘要由读到当前摘要位置的读者按顺序更新，每个文件只计算一次；无法完整计算时返回null，由调用方自行计算。
+ */
+final class SharedFileBody {
+    static final int CHUNK_SIZE = Digests.BUFFER_SIZE;
+    // 槽位状态：已脱离共享（自己读取磁盘）；已读完或已关闭，不再占用缓存
+    private static final long DETACHED = -1;
+    private static final long DONE = -2;
+
+    private final File file;
+    private final long length;
+    private final int windowChunks;
+    // 全局缓冲预算，单位为块
+    private final Semaphore budget;
+    private final String[] algorithms;
+    private final MessageDigest[] messageDigests;
+    // 下一个需要计入摘要的字节位置
+    private long digestPosition;
+    private long digestNanos;
+    private volatile Map<String, String> digestValues;
+
+    // 块序号 -> 内容，只保存[firstChunk, loadedChunks)范围内的块
+    private final Map<Long, byte[]> chunks = new HashMap<>();
+    private long firstChunk;
+    private long loadedChunks;
+    private FileChannel channel;
+    // 每个槽位下一个要读的块序号，或DETACHED/DONE
+    private final long[] slots;
+
+    /**
+     * @param slots 槽位数，即目标数
+     * @param algorithms 需要计算的摘要算法
+     * @param windowChunks 最快和最慢的读者之间最多相差的块数
+     * @param budget 全局缓冲预算（块），所有共享文件共用
+     */
+    SharedFileBody(File file, int slots, String[] algorithms, int windowChunks, Semaphore budget) {
+        this.file = file;
+        this.length = file.length();
+        this.windowChunks = Math.max(1, windowChunks);
+        this.budget = budget;
+        this.algorithms = algorithms.clone();
+        this.messageDigests = new MessageDigest[algorithms.length];
+        for (int i = 0; i < algorithms.length; i++) {
+            messageDigests[i] = Digests.newDigest(algorithms[i]);
+        }
+        this.slots = new long[slots];
+        if (length == 0) {
+            finishDigests();
+        }
+    }
+
+    long getLength() {
+        return length;
+    }
+
+    /**
+     * 完整计算出的摘要，算法 -> 十六进制值；尚未完成或无法完成时返回null
+     */
+    Map<String, String> getDigests() {
+        return digestValues;
+    }
+
+    long getDigestNanos() {
+        return digestNanos;
+    }
+
+    /**
+     * 为一个槽位打开一次读取，每次发送（包括重试）都重新打开
+     * 第一块已不在缓存中时（例如重试），该读取直接从磁盘进行
+     */
+    synchronized Reader newReader(int slot) {
+        slots[slot] = firstChunk == 0 ? 0 : DETACHED;
+        return new Reader(slot, slots[slot] == DETACHED);
+    }
+
+    /**
+     * 返回槽位所需的块，必要时从磁盘读入；返回null表示该槽位应脱离共享
+     */
+    private synchronized byte[] chunkFor(int slot, long index) throws IOException {
+        if (slots[slot] == DETACHED || index < firstChunk) {
+            slots[slot] = DETACHED;
+            return null;
+        }
+        byte[] data = chunks.get(index);
+        if (data == null && index < loadedChunks) {
+            // 预算不足时没有缓存的块
+            slots[slot] = DETACHED;
+            return null;
+        }
+        if (data == null) {
+            data = load(slot, index);
+        }
+        slots[slot] = index;
+        return data;
+    }
+
+    /**
+     * 读入下一个块，index必须等于loadedChunks
+     */
+    private byte[] load(int slot, long index) throws IOException {
+        // 超出窗口的慢读者脱离共享，不再占用缓存
+        for (int i = 0; i < slots.length; i++) {
+            if (i != slot && slots[i] >= 0 && slots[i] <= index - windowChunks) {
+                slots[i] = DETACHED;
+            }
+        }
+        evict();
+        boolean cached = budget.tryAcquire();
+        if (!cached) {
+            // 全局预算不足：其他读者全部脱离共享，释放本文件的缓存后再试一次
+            for (int i = 0; i < slots.length; i++) {
+                if (i != slot && slots[i] >= 0) {
+                    slots[i] = DETACHED;
+                }
+            }
+            slots[slot] = index;
+            evict();
+            cached = budget.tryAcquire();
+        }
+        if (channel == null) {
+            channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        }
+        long start = index * CHUNK_SIZE;
+        ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(CHUNK_SIZE, length - start));
+        try {
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, start + buffer.position()) < 0) {
+                    throw new IOException("文件在上传过程中被截断: " + file.getName());
+                }
+            }
+        } catch (IOException e) {
+            if (cached) {
+                budget.release();
+            }
+            throw e;
+        }
+        buffer.flip();
+        digest(start, buffer);
+        loadedChunks = index + 1;
+        if (cached) {
+            chunks.put(index, buffer.array());
+        }
+        return buffer.array();
+    }
+
+    /**
+     * 丢弃所有仍在共享的读者都已读过的块；没有读者仍在共享时丢弃全部缓存并关闭文件
+     */
+    private void evict() {
+        long min = Long.MAX_VALUE;
+        for (long position : slots) {
+            if (position >= 0) {
+                min = Math.min(min, position);
+            }
+        }
+        long keepFrom = min == Long.MAX_VALUE ? loadedChunks : min;
+        Iterator<Map.Entry<Long, byte[]>> iterator = chunks.entrySet().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().getKey() < keepFrom) {
+                iterator.remove();
+                budget.release();
+            }
+        }
+        firstChunk = Math.max(firstChunk, keepFrom);
+        if (min == Long.MAX_VALUE && channel != null && loadedChunks > 0) {
+            closeChannel();
+        }
+    }
+
+    /**
+     * 槽位不再读取（发送完成、失败或放弃），不再占用缓存
+     */
+    synchronized void release(int slot) {
+        slots[slot] = DONE;
+        evict();
+    }
+
+    /**
+     * 按顺序更新摘要：只使用data中从当前摘要位置开始的部分，data不包含当前摘要位置时忽略
+     * 脱离共享的读者按自己的缓冲大小读取，与块边界不对齐，因此需要从中间接上
+     */
+    private synchronized void digest(long position, ByteBuffer data) {
+        if (digestValues != null || position > digestPosition || position + data.remaining() <= digestPosition) {
+            return;
+        }
+        ByteBuffer unread = data.duplicate();
+        unread.position(unread.position() + (int) (digestPosition - position));
+        long start = System.nanoTime();
+        for (MessageDigest messageDigest : messageDigests) {
+            messageDigest.update(unread.duplicate());
+        }
+        digestNanos += System.nanoTime() - start;
+        digestPosition += unread.remaining();
+        if (digestPosition >= length) {
+            finishDigests();
+        }
+    }
+
+    private void finishDigests() {
+        Map<String, String> values = new LinkedHashMap<>();
+        for (int i = 0; i < messageDigests.length; i++) {
+            values.put(algorithms[i], Digests.toHex(messageDigests[i].digest()));
+        }
+        digestValues = values;
+    }
+
+    private void closeChannel() {
+        try {
+            channel.close();
+        } catch (IOException ignored) {
+            // 只读通道关闭失败不影响上传结果
+        }
+        channel = null;
+    }
+
+    @Override
+    public String toString() {
+        return file.getName() + " (" + slots.length + " targets, slots " + Arrays.toString(slots) + ")";
+    }
+
+    /**
+     * 一个槽位的一次顺序读取
+     */
+    final class Reader implements Closeable {
+        private final int slot;
+        private long position;
+        private boolean detached;
+        private FileChannel ownChannel;
+
+        private Reader(int slot, boolean detached) {
+            this.slot = slot;
+            this.detached = detached;
+        }
+
+        /**
+         * 读取下一段内容写入dst，返回读取的字节数，已读完时返回-1
+         */
+        int read(ByteBuffer dst) throws IOException {
+            if (position >= length) {
+                return -1;
+            }
+            if (!detached) {
+                long index = position / CHUNK_SIZE;
+                byte[] data = chunkFor(slot, index);
+                if (data != null) {
+                    int offset = (int) (position - index * CHUNK_SIZE);
+                    int count = Math.min(dst.remaining(), data.length - offset);
+                    dst.put(data, offset, count);
+                    position += count;
+                    return count;
+                }
+                detached = true;
+            }
+            if (ownChannel == null) {
+                ownChannel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+            }
+            ByteBuffer view = dst.duplicate();
+            if (view.remaining() > length - position) {
+                view.limit(view.position() + (int) (length - position));
+            }
+            int count = ownChannel.read(view, position);
+            if (count < 0) {
+                throw new IOException("文件在上传过程中被截断: " + file.getName());
+            }
+            ByteBuffer read = dst.duplicate();
+            read.limit(read.position() + count);
+            digest(position, read);
+            dst.position(dst.position() + count);
+            position += count;
+            return count;
+        }
+
+        @Override
+        public void close() {
+            release(slot);
+            if (ownChannel != null) {
+                try {
+                    ownChannel.close();
+                } catch (IOException ignored) {
+                    // 只读通道关闭失败不影响上传结果
+                }
+                ownChannel = null;
+            }
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.xus.UploadJar2Nexus;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 滑动窗口速率，按秒分桶的环形数组
+ * 统计最近若干个完整秒内的累计值，用于输出当前的文件数/秒和字节/秒，而不是从启动开始的平均值。
+ */
+public class SlidingWindowRate {
+    private final int windowSeconds;
+    private final AtomicLongArray amounts;
+    // 每个桶当前对应的秒（System.currentTimeMillis() / 1000）
+    private final AtomicLongArray seconds;
+    private final long createdSecond;
+
+    /**
+     * @param windowSeconds 窗口长度（秒）
+     */
+    public SlidingWindowRate(int windowSeconds) {
+        this.windowSeconds = Math.max(1, windowSeconds);
+        // 多一个桶给当前尚未结束的一秒
+        this.amounts = new AtomicLongArray(this.windowSeconds + 1);
+        this.seconds = new AtomicLongArray(this.windowSeconds + 1);
+        this.createdSecond = System.currentTimeMillis() / 1000;
+    }
+
+    public void add(long amount) {
+        long second = System.currentTimeMillis() / 1000;
+        int index = (int) (second % amounts.length());
+        if (seconds.get(index) != second) {
+            synchronized (this) {
+                if (seconds.get(index) != second) {
+                    amounts.set(index, 0);
+                    seconds.set(index, second);
+                }
+            }
+        }
+        amounts.addAndGet(index, amount);
+    }
+
+    /**
+     * 最近windowSeconds个完整秒内的平均每秒累计值；运行时间不足一个窗口时按实际秒数计算
+     */
+    public double ratePerSecond() {
+        long current = System.currentTimeMillis() / 1000;
+        long total = 0;
+        for (int i = 0; i < amounts.length(); i++) {
+            long second = seconds.get(i);
+            if (second < current && second >= current - windowSeconds) {
+                total += amounts.get(i);
+            }
+        }
+        long covered = Math.min(windowSeconds, current - createdSecond);
+        return covered <= 0 ? 0 : (double) total / covered;
+    }
+
+    public int getWindowSeconds() {
+        return windowSeconds;
+    }
+}
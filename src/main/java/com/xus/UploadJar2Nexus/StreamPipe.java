@@ -0,0 +1,178 @@
+package com.xus.UploadJar2Nexus;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.Future;
+
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpResponse;
+import org.apache.http.entity.ContentType;
+import org.apache.http.nio.ContentDecoder;
+import org.apache.http.nio.IOControl;
+import org.apache.http.nio.protocol.AbstractAsyncResponseConsumer;
+import org.apache.http.protocol.HttpContext;
+
+/**
+ * 异步引擎镜像模式下衔接源仓库GET响应和目标仓库PUT请求体的有界缓冲
+ * GET响应由源仓库客户端的I/O线程写入，PUT请求体由上传引擎的I/O线程读出，两边都不阻塞线程：
+ * 缓冲满时暂停读取GET响应（suspendInput），缓冲空时暂停写出PUT请求体（suspendOutput），
+ * 另一边放入或取走数据后再恢复。GET失败时读取方收到IOException（由上传引擎重试），PUT结束时取消尚未完成的GET。
+ */
+final class StreamPipe implements Closeable {
+    private final RemoteBodyEntity entity;
+    // 始终处于写模式：[0, position)为已收到、尚未读出的数据
+    private final ByteBuffer buffer;
+    private Future<?> request;
+    // PUT连接，缓冲空时暂停其输出
+    private IOControl outputControl;
+    private boolean outputSuspended;
+    // GET连接，缓冲满时暂停其输入
+    private IOControl inputControl;
+    private boolean inputSuspended;
+    // 已从源仓库收到的字节数
+    private long received;
+    private boolean finished;
+    private IOException failure;
+    private boolean closed;
+
+    StreamPipe(RemoteBodyEntity entity, int capacity) {
+        this.entity = entity;
+        this.buffer = ByteBuffer.allocate(capacity);
+    }
+
+    synchronized void setRequest(Future<?> request) {
+        this.request = request;
+        if (closed) {
+            request.cancel(true);
+        }
+    }
+
+    /**
+     * 读出数据写入dst
+     *
+     * @param ioControl PUT连接，暂时没有数据时暂停其输出，收到数据后恢复
+     * @return 读出的字节数；暂时没有数据时返回0；源仓库的响应已完整读出时返回-1
+     * @throws IOException 源仓库请求失败
+     */
+    synchronized int read(ByteBuffer dst, IOControl ioControl) throws IOException {
+        if (failure != null) {
+            throw failure;
+        }
+        outputControl = ioControl;
+        if (buffer.position() == 0) {
+            if (finished) {
+                return -1;
+            }
+            ioControl.suspendOutput();
+            outputSuspended = true;
+            return 0;
+        }
+        buffer.flip();
+        int count = Math.min(dst.remaining(), buffer.remaining());
+        ByteBuffer chunk = buffer.duplicate();
+        chunk.limit(chunk.position() + count);
+        dst.put(chunk);
+        buffer.position(buffer.position() + count);
+        buffer.compact();
+        if (inputSuspended) {
+            inputSuspended = false;
+            inputControl.requestInput();
+        }
+        return count;
+    }
+
+    /**
+     * PUT结束（成功、失败或重试前重置）后调用，取消尚未完成的GET
+     * 响应体已经全部收到、只差响应结束回调时不取消，以便源仓库的连接可以复用
+     */
+    @Override
+    public synchronized void close() {
+        closed = true;
+        long length = entity.getContentLength();
+        if (request != null && !finished && failure == null && (length < 0 || received < length)) {
+            request.cancel(true);
+        }
+    }
+
+    HttpAsyncConsumer newConsumer() {
+        return new HttpAsyncConsumer();
+    }
+
+    private synchronized void fail(Exception error) {
+        if (finished || failure != null) {
+            return;
+        }
+        failure = error instanceof IOException ? (IOException) error
+                : new IOException("读取源仓库失败: " + entity.getUrl(), error);
+        wakeOutput();
+    }
+
+    private void wakeOutput() {
+        if (outputSuspended) {
+            outputSuspended = false;
+            outputControl.requestOutput();
+        }
+    }
+
+    /**
+     * 源仓库GET响应的消费者，把响应体写入缓冲
+     */
+    final class HttpAsyncConsumer extends AbstractAsyncResponseConsumer<Void> {
+        @Override
+        protected void onResponseReceived(HttpResponse response) throws IOException {
+            IOException error = entity.checkResponse(response);
+            if (error != null) {
+                throw error;
+            }
+        }
+
+        @Override
+        protected void onEntityEnclosed(HttpEntity body, ContentType contentType) {
+        }
+
+        @Override
+        protected void onContentReceived(ContentDecoder decoder, IOControl ioControl) throws IOException {
+            synchronized (StreamPipe.this) {
+                if (closed) {
+                    throw new IOException("上传已结束: " + entity.getUrl());
+                }
+                int total = 0;
+                int count;
+                while (buffer.hasRemaining() && (count = decoder.read(buffer)) > 0) {
+                    total += count;
+                }
+                received += total;
+                entity.checkLength(received, false);
+                if (!buffer.hasRemaining() && !decoder.isCompleted()) {
+                    ioControl.suspendInput();
+                    inputControl = ioControl;
+                    inputSuspended = true;
+                }
+                if (total > 0) {
+                    wakeOutput();
+                }
+            }
+        }
+
+        @Override
+        protected Void buildResult(HttpContext context) throws IOException {
+            synchronized (StreamPipe.this) {
+                entity.checkLength(received, true);
+                finished = true;
+                entity.recordLength(received);
+                wakeOutput();
+            }
+            return null;
+        }
+
+        /**
+         * 成功、失败和取消都会调用，没有完整读完时通知读取方
+         */
+        @Override
+        protected void releaseResources() {
+            Exception error = getException();
+            fail(error != null ? error : new IOException("读取源仓库被取消: " + entity.getUrl()));
+        }
+    }
+}
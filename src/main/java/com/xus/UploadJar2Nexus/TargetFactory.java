@@ -0,0 +1,190 @@
+package com.xus.UploadJar2Nexus;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.Semaphore;
+
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 按配置创建和关闭上传目标的运行时部件：并发限制器、HTTP连接池、重试队列、上传日志、预检索引、
+ * 元数据发布器、上传引擎，以及组件上传器或npm发布器
+ */
+final class TargetFactory {
+    private static final Logger logger = LoggerFactory.getLogger(TargetFactory.class);
+    // HTTP连接池配置，并发上限更高时按并发上限扩大
+    private static final int MAX_CONNECTIONS = 200;
+    private static final int MAX_PER_ROUTE = 20;
+    // 阻塞引擎启用自适应并发时默认的并发上限最大值（也是上传线程数）
+    static final int MAX_ADAPTIVE_THREADS = 64;
+
+    private final UploadSession session;
+    private final UploadOptions options;
+
+    TargetFactory(UploadSession session) {
+        this.session = session;
+        this.options = session.options;
+    }
+
+    /**
+     * 根据engineType为一个目标创建并发限制器，按配置带上该目标的熔断器
+     * 自适应时从线程池大小（异步引擎为其2倍）起步，逐步探测到服务器能承受的并发数；
+     * 关闭自适应时阻塞引擎固定为线程池大小，异步引擎固定为maxInFlight，与之前的行为一致
+     */
+    AdaptiveConcurrencyLimiter createLimiter(NexusTarget target) {
+        CircuitBreaker breaker = options.circuitBreaker ? new CircuitBreaker(target.getUrl()) : null;
+        int threadPoolSize = options.threadPoolSize;
+        if (options.isAsync()) {
+            int max = options.maxConcurrency > 0 ? options.maxConcurrency : options.maxInFlight;
+            return new AdaptiveConcurrencyLimiter(options.adaptiveConcurrency, Math.min(max, threadPoolSize * 2), max,
+                    breaker);
+        }
+        int max = options.maxConcurrency > 0 ? options.maxConcurrency
+                : (options.adaptiveConcurrency ? MAX_ADAPTIVE_THREADS : threadPoolSize);
+        return new AdaptiveConcurrencyLimiter(options.adaptiveConcurrency, Math.min(max, threadPoolSize), max, breaker);
+    }
+
+    /**
+     * 创建一个目标的HTTP连接池、上传日志、预检索引、元数据发布器和上传引擎
+     * npm上传模式下不使用预检索引和元数据发布器，改为创建npm发布器
+     * 命令行指定的上传日志路径只用于第一个目标，其他目标的上传日志根据各自的URL在当前目录生成
+     */
+    void open(NexusTarget target, boolean primary) {
+        target.httpClient = createHttpClient(target, target.limiter.getMaxLimit());
+        // 到期的重试在重试线程中获取并发名额后发送，阻塞的发送最多同时占用并发上限的最大值个线程；
+        // 异步引擎的PUT（包括校验文件）在重试线程中只等待并发名额，提交后立即返回，少量线程即可
+        int retryThreads = options.isAsync() && !options.isComponentMode() && !options.isNpmMode()
+                ? options.threadPoolSize : target.limiter.getMaxLimit();
+        ScheduledThreadPoolExecutor retryScheduler = new ScheduledThreadPoolExecutor(retryThreads,
+                r -> {
+                    Thread thread = new Thread(r, "upload-retry");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        retryScheduler.setRemoveOnCancelPolicy(true);
+        target.retryScheduler = retryScheduler;
+
+        if (options.useJournal) {
+            String journalTarget = primary ? options.nexusUrl : target.getUrl();
+            Path journalFile = Paths.get(primary && options.journalPath != null ? options.journalPath
+                    : UploadJournal.defaultFileName(journalTarget));
+            try {
+                target.journal = UploadJournal.open(journalFile, journalTarget);
+            } catch (IOException e) {
+                logger.warn("无法打开上传日志 {}，本次运行将上传全部文件: {}", journalFile, e.getMessage());
+            }
+        }
+
+        if (options.remotePrecheck && !options.isNpmMode()) {
+            target.remoteIndex = new RemoteArtifactIndex(target.httpClient, target.getUrl(), options.precheckCacheSize);
+        }
+        if (options.generateMetadata && !options.isNpmMode()) {
+            target.metadataPublisher = new MavenMetadataPublisher(target.httpClient, target.getUrl(), target.limiter,
+                    options.uploadChecksums);
+        }
+
+        target.engine = createUploadEngine(target);
+        if (options.isComponentMode()) {
+            target.componentUploader = new ComponentUploader(target.httpClient, target.getUrl(), target.limiter,
+                    target.retryScheduler, listenerFor(target));
+        }
+        if (options.isNpmMode()) {
+            target.npmPublisher = new NpmPublisher(target.httpClient, target.getUrl(), options.npmTag, target.limiter,
+                    target.retryScheduler, listenerFor(target));
+        }
+        // 上传在结束（包括全部重试）之前一直占用积压名额，等待重试的上传与新的上传共用这个上限
+        target.backlogCapacity = target.limiter.getMaxLimit() * 2;
+        target.backlog = new Semaphore(target.backlogCapacity);
+        if (session.isMultiTarget()) {
+            // 阻塞引擎每个上传占用一个分发线程；异步引擎的upload只在等待并发许可时阻塞，一个分发线程即可
+            int dispatchThreads = options.isAsync() ? 1 : target.limiter.getMaxLimit();
+            target.dispatcher = Executors.newFixedThreadPool(dispatchThreads);
+        }
+    }
+
+    static void close(NexusTarget target) {
+        if (target.dispatcher != null) {
+            target.dispatcher.shutdownNow();
+        }
+        if (target.retryScheduler != null) {
+            target.retryScheduler.shutdownNow();
+        }
+        if (target.engine != null) {
+            try {
+                target.engine.close();
+            } catch (IOException e) {
+                logger.error("Error closing upload engine", e);
+            }
+        }
+        if (target.journal != null) {
+            try {
+                target.journal.close();
+            } catch (IOException e) {
+                logger.error("Error closing upload journal", e);
+            }
+        }
+        if (target.httpClient != null) {
+            try {
+                target.httpClient.close();
+            } catch (IOException e) {
+                logger.error("Error closing httpClient", e);
+            }
+        }
+    }
+
+    private CloseableHttpClient createHttpClient(NexusTarget target, int maxPerRoute) {
+        return NexusHttpClients.createClient(target.getUrl(), target.getAuthorization(),
+                Math.max(MAX_CONNECTIONS, maxPerRoute), Math.max(MAX_PER_ROUTE, maxPerRoute), options.expectContinue,
+                session.metrics);
+    }
+
+    /**
+     * 根据engineType为一个目标创建上传引擎
+     */
+    private UploadEngine createUploadEngine(NexusTarget target) {
+        UploadListener listener = listenerFor(target);
+        if (options.isAsync()) {
+            int ioThreads = Math.min(4, Runtime.getRuntime().availableProcessors());
+            return new AsyncUploadEngine(NexusHttpClients.createAsyncClient(target.getUrl(), target.getAuthorization(),
+                    target.limiter.getMaxLimit(), ioThreads, options.expectContinue, session.metrics), target.limiter,
+                    target.retryScheduler, options.uploadChecksums, listener);
+        }
+        return new BlockingUploadEngine(target.httpClient, target.limiter, target.retryScheduler,
+                options.uploadChecksums, listener);
+    }
+
+    /**
+     * 一个目标的上传事件：计入该目标自己的统计和全局指标
+     */
+    private UploadListener listenerFor(final NexusTarget target) {
+        final UploadMetrics metrics = session.metrics;
+        return new UploadListener() {
+            @Override
+            public void onUploaded(FileBodyEntity entity, long uploadTime) {
+                target.recordUpload(entity.getContentLength());
+                metrics.recordUpload(entity, uploadTime);
+                logger.debug("Uploaded {} ({} bytes) in {} ms", entity.getFile().getName(), entity.getContentLength(),
+                        uploadTime);
+            }
+
+            @Override
+            public void onRetry(FileBodyEntity entity, int attempt, int maxAttempts, Exception cause) {
+                target.recordRetry();
+                metrics.recordRetry();
+                logger.warn("上传重试 {}/{} 失败: {} - {}",
+                        attempt, maxAttempts, entity.getFile().getName(), cause.getMessage());
+            }
+
+            @Override
+            public void onChecksumFailed(String checksumUrl, Exception cause) {
+                metrics.recordChecksumFailure();
+                logger.warn("校验文件上传失败: {} - {}", checksumUrl, cause.getMessage());
+            }
+        };
+    }
+}
@@ -0,0 +1,26 @@
+package com.xus.UploadJar2Nexus;
+
+import java.io.Closeable;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 上传引擎，负责把一个文件（连同校验文件）PUT到目标URL，包括失败重试
+ * 阻塞引擎在调用线程中发送第一次，重试由重试线程发送；异步引擎立即返回，由少量I/O线程同时处理大量请求
+ */
+public interface UploadEngine extends Closeable {
+
+    /**
+     * 上传文件，返回的Future在最终成功时完成，被拒绝或重试耗尽后以IOException异常完成；
+     * 文件本身已上传但校验文件最终失败时以{@link ChecksumUploadException}异常完成
+     * 在途请求数达到上限时该方法会阻塞调用线程，从而向上游形成背压
+     *
+     * @param fileUrl 文件应该上传到的完整URL
+     * @param entity 要上传的文件内容
+     */
+    CompletableFuture<Void> upload(String fileUrl, FileBodyEntity entity) throws InterruptedException;
+
+    /**
+     * 引擎名称，用于日志输出
+     */
+    String getName();
+}
@@ -1,102 +1,52 @@
 package com.xus.UploadJar2Nexus;
 
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
-import java.net.HttpURLConnection;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.LinkedBlockingQueue;
-import java.util.concurrent.RejectedExecutionException;
-import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicInteger;
-import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.TimeoutException;
 
-import org.apache.http.HttpResponse;
-import org.apache.http.auth.AuthScope;
-import org.apache.http.auth.UsernamePasswordCredentials;
-import org.apache.http.client.CredentialsProvider;
-import org.apache.http.client.methods.HttpPut;
-import org.apache.http.impl.client.BasicCredentialsProvider;
-import org.apache.http.impl.client.CloseableHttpClient;
-import org.apache.http.impl.client.HttpClients;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.core.LifeCycle;
+import org.apache.logging.log4j.core.impl.Log4jContextFactory;
+import org.apache.logging.log4j.core.util.ShutdownCallbackRegistry;
+import org.apache.logging.log4j.spi.LoggerContextFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
  * 用于将JAR和POM文件上传到Nexus仓库的主类
  * 支持多线程并发上传，自动处理文件路径解析，支持快照版本筛选
+ * 可以同时上传到多个Nexus仓库，每个文件只从磁盘读取一次，由发往各仓库的请求共用
+ * 仓库路径为http(s) URL时进入镜像模式：列出远程仓库中的构件，GET响应直接写入PUT请求，不经过本地磁盘
+ * 配置见{@link UploadOptions}；这里只负责按顺序组织扫描、上传和收尾，各上传方式见{@link UploadMode}
  */
 public class UploadJar2NexusRunner {
-    // 线程池执行器，用于并发处理文件上传任务
-    private ExecutorService executorService;
-    // HTTP客户端，用于执行上传请求
-    private CloseableHttpClient httpClient;
-    // 当前活跃的上传任务计数器
-    private final AtomicInteger activeUploads = new AtomicInteger(0);
-    // 上传任务队列大小，可根据系统内存调整
-    private static final int QUEUE_SIZE = 1000;
-    // 已成功上传的文件计数器
-    private static final AtomicInteger totalUploadedFiles = new AtomicInteger(0);
-    // 上传速率监控（字节/秒）
-    private static final AtomicLong uploadSpeed = new AtomicLong(0);
-    // 上传失败的文件计数
-    private static final AtomicInteger failedUploads = new AtomicInteger(0);
-    // HTTP连接池配置
-    private static final int MAX_CONNECTIONS = 200;
-    private static final int MAX_PER_ROUTE = 20;
-    // 缓冲区大小（8KB）
-    private static final int BUFFER_SIZE = 8 * 1024;
+    // 进度日志输出间隔
+    private static final long PROGRESS_INTERVAL_MS = 10000;
+    // 收到终止信号后，等待监视模式完成已提交的上传的最长时间
+    private static final long WATCH_SHUTDOWN_WAIT_MS = 60000;
 
     private static final Logger logger = LoggerFactory.getLogger(UploadJar2NexusRunner.class);
-    // 已上传文件的总大小（字节）
-    private static AtomicLong totalUploadSize = new AtomicLong(0);
-    // 上传开始时间（毫秒）
+    // 记录上传开始时间
     private static long startTime = 0;
 
-    // Maven本地仓库路径，默认使用用户目录下的.m2/repository
-    public String repositoryPath = "E:\\repository";
-    // Nexus仓库URL，根据实际部署情况修改
-    public String nexusUrl = "http://localhost:8081/repository/maven2-test/";
-    // Nexus仓库访问用户名
-    public String username = "admin";
-    // Nexus仓库访问密码
-    public String password = "admin123";
-    // 是否只上传快照版本，true表示只上传带有SNAPSHOT的版本
-    public boolean isSnapshots = false;
-    // 上传线程池大小，默认为CPU核心数的2倍，可根据网络带宽和系统资源调整
-    private int threadPoolSize = Runtime.getRuntime().availableProcessors() * 2;
-    // 线程池最大大小限制，防止创建过多线程
-    private static final int MAX_POOL_SIZE = 20;
-    // 单个文件大小限制，默认1GB，可根据Nexus服务器配置调整
-    private long maxFileSize = 1024 * 1024 * 1024;
+    private final UploadOptions options = new UploadOptions();
+    // 上传指标：计数、速率、各阶段耗时和网络传输
+    private final UploadMetrics metrics = new UploadMetrics();
+    private MetricsServer metricsServer;
+    // 正在执行start()的线程和监视模式的监视器，供关闭钩子使用
+    private volatile Thread uploadThread;
+    private volatile RepositoryWatcher activeWatcher;
 
     public UploadJar2NexusRunner() {
-        // 确保线程池大小在合理范围内
-        threadPoolSize = Math.min(threadPoolSize, MAX_POOL_SIZE);
-        initHttpClient();
-    }
-
-    private void initHttpClient() {
-        CredentialsProvider credentialsProvider = new BasicCredentialsProvider();
-        credentialsProvider.setCredentials(
-            new AuthScope(AuthScope.ANY_HOST, AuthScope.ANY_PORT),
-            new UsernamePasswordCredentials(username, password)
-        );
-        
-        org.apache.http.client.config.RequestConfig requestConfig = org.apache.http.client.config.RequestConfig.custom()
-            .setConnectTimeout(30000)
-            .setSocketTimeout(30000)
-            .setConnectionRequestTimeout(30000)
-            .build();
-
-        httpClient = HttpClients.custom()
-            .setDefaultCredentialsProvider(credentialsProvider)
-            .setMaxConnTotal(MAX_CONNECTIONS)
-            .setMaxConnPerRoute(MAX_PER_ROUTE)
-            .setDefaultRequestConfig(requestConfig)
-            .setKeepAliveStrategy((response, context) -> 30 * 1000)
-            .build();
     }
 
     public UploadJar2NexusRunner(String repositoryPath, String nexusUrl, String username, String password, boolean isSnapshots) {
@@ -112,367 +62,385 @@ public class UploadJar2NexusRunner {
         if (password == null || password.trim().isEmpty()) {
             throw new IllegalArgumentException("Password cannot be null or empty");
         }
-        
-        // 确保repositoryPath以文件分隔符结尾
-        this.repositoryPath = repositoryPath.endsWith(File.separator) ? repositoryPath : repositoryPath + File.separator;
-        this.nexusUrl = nexusUrl;
-        this.username = username;
-        this.password = password;
-        this.isSnapshots = isSnapshots;
-        
-        // 初始化HTTP客户端
-        threadPoolSize = Math.min(threadPoolSize, MAX_POOL_SIZE);
-        initHttpClient();
+
+        // 确保repositoryPath以文件分隔符结尾，远程仓库URL保持不变
+        options.repositoryPath = RemoteRepository.isRemote(repositoryPath) || repositoryPath.endsWith(File.separator)
+                ? repositoryPath : repositoryPath + File.separator;
+        options.nexusUrl = nexusUrl;
+        options.username = username;
+        options.password = password;
+        options.isSnapshots = isSnapshots;
     }
 
     /**
      * 启动上传进程的主方法
      * @param args 命令行参数，按顺序包括：
-     *            1. repositoryPath - Maven本地仓库路径
+     *            1. repositoryPath - Maven本地仓库路径，或远程仓库URL（镜像模式，可以带用户名:密码@）
      *            2. nexusUrl - Nexus仓库URL
      *            3. username - Nexus访问用户名
      *            4. password - Nexus访问密码
      *            5. isSnapshots - 是否只上传快照版本（true/false）
+     *            之后可以跟可选参数，格式为--name=value，参见{@link UploadOptions#applyOption(String)}
      */
     public static void main(String[] args) {
         UploadJar2NexusRunner runner = new UploadJar2NexusRunner();
 
         if (args.length < 5) {
-            logger.info("Usage: java -jar jar-file.jar <repositoryPath> <nexusUrl> <username> <password> <isSnapshots>");
+            logger.info("Usage: java -jar jar-file.jar <repositoryPath> <nexusUrl> <username> <password> <isSnapshots> [options]");
             //return;
         } else {
             runner = new UploadJar2NexusRunner(
-                args[0], 
+                args[0],
                 args[1],
                 args[2],
                 args[3],
                 Boolean.valueOf(args[4])
             );
+            for (int i = 5; i < args.length; i++) {
+                runner.applyOption(args[i]);
+            }
         }
-        
+
+        runner.installShutdownHook();
         runner.start();
     }
 
+    /**
+     * 本次运行的配置，在start()之前修改
+     */
+    public UploadOptions getOptions() {
+        return options;
+    }
+
+    /**
+     * 解析一个可选参数，格式为--name=value，参见{@link UploadOptions#applyOption(String)}
+     *
+     * @param option 命令行参数
+     */
+    public void applyOption(String option) {
+        options.applyOption(option);
+    }
+
+    /**
+     * 注册进程退出时的收尾工作：正常结束、Ctrl+C和SIGTERM都会执行
+     * 监视模式下先停止监视并等待已提交的上传完成；批量上传中途被终止时记录已完成的进度。
+     * 最后关闭日志系统，保证退出前的日志全部写出。log4j自己的关闭钩子在这里取消，
+     * 否则JVM可能先执行它，之后的日志会丢失；只由命令行入口调用，作为库使用时log4j的钩子保持不变。
+     */
+    public void installShutdownHook() {
+        LoggerContextFactory factory = LogManager.getFactory();
+        if (factory instanceof Log4jContextFactory) {
+            ShutdownCallbackRegistry registry = ((Log4jContextFactory) factory).getShutdownCallbackRegistry();
+            if (registry instanceof LifeCycle) {
+                ((LifeCycle) registry).stop();
+            }
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                onShutdown();
+            } finally {
+                LogManager.shutdown();
+            }
+        }, "shutdown"));
+    }
+
+    private void onShutdown() {
+        Thread thread = uploadThread;
+        if (thread == null) {
+            return;
+        }
+        RepositoryWatcher watcher = activeWatcher;
+        if (watcher == null) {
+            logger.warn("收到终止信号，上传未完成即退出 - 已上传: {}, 失败: {}，再次运行时由上传日志跳过已上传的文件",
+                    metrics.getUploadedFiles(), metrics.getFailedUploads());
+            return;
+        }
+        logger.info("停止监视，等待已提交的上传完成");
+        try {
+            watcher.close();
+            thread.join(WATCH_SHUTDOWN_WAIT_MS);
+        } catch (IOException e) {
+            logger.warn("停止监视失败: {}", e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
     /**
      * 启动上传进程
      */
     public void start() {
-        if (repositoryPath == null || repositoryPath.trim().isEmpty()) {
+        if (options.repositoryPath == null || options.repositoryPath.trim().isEmpty()) {
             logger.error("Repository path is not set");
             return;
         }
 
-        // 打印当前配置参数
-        logger.info("当前配置参数：");
-        logger.info("本地仓库路径: {}", repositoryPath);
-        logger.info("Nexus仓库URL: {}", nexusUrl);
-        logger.info("用户名: {}", username);
-        logger.info("是否只上传快照版本: {}", isSnapshots);
-        logger.info("线程池大小: {}", threadPoolSize);
-        logger.info("单个文件大小限制: {} MB", maxFileSize / (1024 * 1024));
-
+        UploadSession session = new UploadSession(options, metrics);
+        TargetFactory targetFactory = new TargetFactory(session);
+        List<NexusTarget> targets = session.targets;
+        targets.add(new NexusTarget(options.nexusUrl, options.username, options.password));
+        if (options.authToken != null) {
+            targets.get(0).useToken(options.authToken);
+        }
+        for (String spec : options.additionalTargets) {
+            targets.add(NexusTarget.parse(spec, options.username, options.password));
+        }
+        // 每个目标有自己的并发限制器，一个目标出错降低的只是它自己的并发上限
+        for (NexusTarget target : targets) {
+            target.limiter = targetFactory.createLimiter(target);
+        }
+        // 阻塞引擎每个上传占用一个线程，线程数按并发上限的最大值创建，实际并发由限制器控制
+        session.uploadWorkers = options.isAsync() ? options.threadPoolSize : targets.get(0).limiter.getMaxLimit();
+
+        boolean mirror = options.isMirror();
+        // 镜像模式的源仓库URL可能带有用户名和密码，输出日志和写入死信文件时只使用去掉认证信息的URL
+        String sourceName = mirror ? NexusTarget.parse(options.repositoryPath, null, null).getUrl()
+                : options.repositoryPath;
+        if (mirror && options.isNpmMode()) {
+            logger.error("npm上传模式不支持从远程仓库镜像: {}", sourceName);
+            return;
+        }
+        if (mirror && options.watchMode) {
+            logger.warn("镜像模式不支持监视，只上传一次");
+            options.watchMode = false;
+        }
+        if (options.replayDeadLetters && options.watchMode) {
+            logger.warn("重放死信时不监视仓库目录");
+            options.watchMode = false;
+        }
+        Path deadLetterFile = Paths.get(options.deadLetterPath != null ? options.deadLetterPath
+                : DeadLetterLog.defaultFileName(options.nexusUrl));
+
+        UploadReport report = new UploadReport(session);
+        report.logConfiguration(sourceName, deadLetterFile);
+
+        ArtifactScanner scanner = null;
+        // 本地仓库的扫描器，监视和重放本地文件时使用，镜像模式下为null
+        RepositoryScanner localScanner = null;
+        RepositoryWatcher watcher = null;
+        ExecutorService executorService = null;
+        UploadMode mode = null;
+        uploadThread = Thread.currentThread();
         try {
             startTime = System.currentTimeMillis();
-            // 优化线程池配置
-            executorService = new ThreadPoolExecutor(
-                threadPoolSize,
-                threadPoolSize,  // 保持核心和最大线程数相同以避免线程数波动
-                60L, TimeUnit.SECONDS,
-                new LinkedBlockingQueue<>(QUEUE_SIZE),
-                (r, executor) -> {
-                    try {
-                        // 使用阻塞提交以避免任务被拒绝
-                        executor.getQueue().put(r);
-                    } catch (InterruptedException e) {
-                        Thread.currentThread().interrupt();
-                        throw new RejectedExecutionException("Task " + r.toString() +
-                            " rejected from " + executor.toString(), e);
-                    }
+            File repositoryDir = mirror ? null : new File(options.repositoryPath);
+            if (!mirror) {
+                logger.info("Repository path: {}", options.repositoryPath);
+                if (!repositoryDir.exists() || !repositoryDir.isDirectory()) {
+                    logger.error("Invalid repository path: {}", options.repositoryPath);
+                    return;
                 }
-            );
+            }
 
-            File repositoryDir = new File(repositoryPath);
-            logger.info("Repository path: {}", repositoryPath);
-            if (!repositoryDir.exists() || !repositoryDir.isDirectory()) {
-                logger.error("Invalid repository path: {}", repositoryPath);
-                return;
+            // 先读取要重放的死信，再重新创建本次运行的死信文件（两者可以是同一个文件）
+            List<DeadLetterLog.Entry> replayEntries = null;
+            if (options.replayDeadLetters) {
+                replayEntries = DeadLetterReplay.read(
+                        options.replayPath != null ? Paths.get(options.replayPath) : deadLetterFile, sourceName);
+                if (replayEntries == null) {
+                    return;
+                }
+            }
+            if (options.useDeadLetter) {
+                try {
+                    session.deadLetters = DeadLetterLog.create(deadLetterFile, sourceName);
+                } catch (IOException e) {
+                    logger.warn("无法创建死信文件 {}，最终失败的文件只记录在日志中: {}", deadLetterFile, e.getMessage());
+                }
             }
 
-            logger.info("Starting upload process from repository: {}", repositoryPath);
-            logger.debug("Nexus URL: {}", nexusUrl);
-            logger.debug("Thread pool size: {}", threadPoolSize);
-            extractJarInfo(repositoryDir);
-            
-            // Wait for all upload tasks to complete
-            while (activeUploads.get() > 0) {
-                Thread.sleep(1000);
-                logger.debug("Waiting for {} active uploads to complete", activeUploads.get());
+            if (session.isMultiTarget()) {
+                session.fanoutBudget = new Semaphore(Math.max(1,
+                        (int) ((long) options.fanoutBufferMB * 1024 * 1024 / SharedFileBody.CHUNK_SIZE)));
+            }
+            for (int i = 0; i < targets.size(); i++) {
+                targetFactory.open(targets.get(i), i == 0);
+            }
+            if (mirror) {
+                // 每个目标的每个上传各自向源仓库发起GET，另加列表请求
+                int sourceConnections = options.scanParallelism;
+                for (NexusTarget target : targets) {
+                    sourceConnections += target.limiter.getMaxLimit();
+                }
+                session.source = new RemoteRepository(options.repositoryPath, sourceConnections, options.isAsync());
+            }
+            startMetrics(session);
+
+            // 上传阶段：固定数量的工作线程持续从有界调度队列中按策略取任务
+            session.uploadQueue = new UploadScheduler(options.schedulePolicy, options.pomFirst,
+                    options.smallFileBatch, options.scheduleWindow);
+            mode = UploadMode.create(session);
+            executorService = Executors.newFixedThreadPool(session.uploadWorkers);
+            for (int i = 0; i < session.uploadWorkers; i++) {
+                final UploadMode workerMode = mode;
+                executorService.execute(() -> drainUploadQueue(session.uploadQueue, workerMode));
+            }
+
+            logger.info("Starting upload process from repository: {}", sourceName);
+            logger.debug("Nexus URL: {}", options.nexusUrl);
+            logger.debug("Thread pool size: {}", session.uploadWorkers);
+            if (options.watchMode) {
+                // 在首次扫描之前开始监视，扫描期间新增的文件同样会产生事件
+                try {
+                    watcher = WatchMode.createWatcher(repositoryDir.toPath(), options);
+                } catch (IOException e) {
+                    logger.error("无法监视仓库目录 {}", options.repositoryPath, e);
+                }
+            }
+            // 扫描阶段：并行遍历目录树（镜像模式下列出远程仓库），队列满时阻塞等待上传阶段消费
+            LatencyHistogram scanHistogram = metrics.histogram(UploadMetrics.Phase.SCAN);
+            if (mirror) {
+                scanner = new RemoteRepositoryScanner(session.source, mode.createSink(), options.scanParallelism,
+                        scanHistogram);
+            } else if (options.isNpmMode()) {
+                scanner = localScanner = new NpmPackageScanner(repositoryDir.toPath(), mode.createSink(),
+                        options.scanParallelism, scanHistogram);
+            } else {
+                scanner = localScanner = new RepositoryScanner(repositoryDir.toPath(), mode.createSink(),
+                        options.scanParallelism, scanHistogram);
+            }
+            // npm包目录不是按坐标组织的，只按大小和修改时间过滤文件
+            ArtifactFilter filter = session.filter;
+            if (filter != null && filter.hasCoordinateRules() && !options.isNpmMode()) {
+                scanner.setFilter(filter);
+                logger.info("扫描起始目录: {}", filter.getStartDirectories());
+            }
+            if (replayEntries != null) {
+                DeadLetterReplay.deliver(scanner, localScanner, session.source, options.repositoryPath,
+                        replayEntries);
+            } else {
+                ForkJoinTask<Void> scanTask = scanner.start();
+                while (true) {
+                    try {
+                        scanTask.get(PROGRESS_INTERVAL_MS, TimeUnit.MILLISECONDS);
+                        break;
+                    } catch (TimeoutException e) {
+                        report.logProgress(scanner);
+                    } catch (ExecutionException e) {
+                        logger.error("仓库扫描失败", e.getCause());
+                        break;
+                    }
+                }
+                scanner.markFinished();
+                logger.info("扫描完成 - {}, 用时: {} 秒", scanner.describeProgress(),
+                        String.format("%.2f", scanner.getElapsedMillis() / 1000.0));
+                if (filter != null) {
+                    logger.info("过滤 - 跳过目录: {}, 按坐标排除: {}, 按大小排除: {}, 按修改时间排除: {}",
+                            filter.getPrunedDirectories(), filter.getExcludedByCoordinates(),
+                            filter.getExcludedBySize(), filter.getExcludedByTime());
+                }
+            }
+            if (watcher != null) {
+                WatchMode watch = new WatchMode(session, localScanner, watcher);
+                watch.awaitFirstUpload();
+                // 收到终止信号时由installShutdownHook注册的钩子关闭监视器，watch.run随之返回
+                activeWatcher = watcher;
+                watch.run();
             }
-            
+
+            // 队列取空后工作线程退出
+            session.uploadQueue.close();
             executorService.shutdown();
-            if (!executorService.awaitTermination(1, TimeUnit.HOURS)) {
-                logger.warn("Timeout while waiting for uploads to complete");
+            long waitDeadline = System.currentTimeMillis() + TimeUnit.HOURS.toMillis(1);
+            while (!executorService.awaitTermination(PROGRESS_INTERVAL_MS, TimeUnit.MILLISECONDS)) {
+                if (System.currentTimeMillis() > waitDeadline) {
+                    logger.warn("Timeout while waiting for uploads to complete");
+                    break;
+                }
+                report.logProgress(scanner);
             }
-            
-            double totalTime = (System.currentTimeMillis() - startTime) / 1000.0;
-            double totalSizeMB = totalUploadSize.get() / (1024.0 * 1024.0);
-            logger.info("Upload process completed - Total Files: {}, Total Size: {} MB in {} seconds",
-                    totalUploadedFiles.get(),
-                    String.format("%.2f", totalSizeMB),
-                    String.format("%.2f", totalTime));
+            // 异步引擎中仍有在途请求时，工作线程已经退出，需要等待全部请求结束
+            while (session.activeUploads.get() > 0) {
+                Thread.sleep(1000);
+                logger.debug("Waiting for {} active uploads to complete", session.activeUploads.get());
+            }
+            // 全部文件上传结束后，按构件统一生成并上传maven-metadata.xml
+            session.publishMetadata();
+
+            report.logSummary((System.currentTimeMillis() - startTime) / 1000.0);
         } catch (InterruptedException e) {
             logger.error("Upload process interrupted", e);
             Thread.currentThread().interrupt();
         } finally {
+            if (metricsServer != null) {
+                metricsServer.close();
+                metricsServer = null;
+            }
+            metrics.unregisterJmx();
+            if (scanner != null) {
+                scanner.cancel();
+                scanner.shutdown();
+            }
+            if (watcher != null) {
+                try {
+                    watcher.close();
+                } catch (IOException e) {
+                    logger.error("Error closing repository watcher", e);
+                }
+            }
             if (executorService != null && !executorService.isShutdown()) {
                 executorService.shutdownNow();
             }
-            if (httpClient != null) {
+            if (mode != null) {
+                mode.close();
+            }
+            for (NexusTarget target : targets) {
+                TargetFactory.close(target);
+            }
+            if (session.deadLetters != null) {
                 try {
-                    httpClient.close();
+                    session.deadLetters.close();
                 } catch (IOException e) {
-                    logger.error("Error closing httpClient", e);
+                    logger.error("Error closing dead letter file", e);
                 }
             }
-        }
-    }
-
-    /**
-     * 递归遍历目录提取JAR和POM文件
-     * 会自动过滤掉sources.jar文件，只处理正常的jar包和pom文件
-     * 根据isSnapshots配置决定是否只处理快照版本
-     * 
-     * @param dir 要搜索的目录，通常是Maven本地仓库目录
-     */
-    private void extractJarInfo(File dir) {
-        File[] files = dir.listFiles();
-        if (files != null) {
-            for (File file : files) {
-                if (file.isDirectory()) {
-                    extractJarInfo(file); // Recursively process subdirectories
-                } else if (file.getName().endsWith(".jar") && (!file.getName().endsWith("-sources.jar"))) {
-                    processArtifactFile(file, "jar");
-                } else if (file.getName().endsWith(".pom")) {
-                    processArtifactFile(file, "pom");
-                }
+            if (session.source != null) {
+                session.source.close();
             }
+            activeWatcher = null;
+            uploadThread = null;
         }
     }
 
     /**
-     * 从文件路径中提取版本号
-     * Maven仓库的目录结构：groupId/artifactId/version/files
-     * 版本号是文件所在目录的父目录名
-     * 
-     * @param file 需要处理的文件
-     * @return 提取出的版本号
-     */
-    private String getVersionFromFileName(File file) {
-        String filePath = file.getAbsolutePath();
-        String[] paths = filePath.split(File.separator.replace("\\", "\\\\"));
-        return paths[paths.length - 2];
-    }
-
-    /**
-     * 从文件路径中提取构件ID（artifactId）
-     * Maven仓库的目录结构：groupId/artifactId/version/files
-     * artifactId是版本号目录的父目录名
-     * 
-     * @param file 需要处理的文件
-     * @return 提取出的构件ID
-     */
-    private String getArtifactIdFromFileName(File file) {
-        String filePath = file.getAbsolutePath();
-        String[] paths = filePath.split(File.separator.replace("\\", "\\\\"));
-        return paths[paths.length - 3];
-    }
-
-    /**
-     * 从文件路径中提取组ID（groupId）
-     * Maven仓库的目录结构：groupId/artifactId/version/files
-     * groupId是由repositoryPath到artifactId之间的路径，以点号分隔
-     * 
-     * @param file 需要处理的文件
-     * @return 提取出的组ID，例如：org.springframework.boot
-     */
-    private String getGroupId(File file) {
-        String filePath = file.getAbsolutePath();
-        // 确保repositoryPath以文件分隔符结尾再进行替换
-        String normalizedRepoPath = repositoryPath.endsWith(File.separator) ? repositoryPath : repositoryPath + File.separator;
-        filePath = filePath.replace(normalizedRepoPath, "");
-        String[] paths = filePath.split(File.separator.replace("\\", "\\\\"));
-        int len = paths.length;
-        String groupId = "";
-        for (int i = 0; i < len - 3; i++) {
-            groupId = groupId + paths[i] + ".";
-        }
-        groupId = groupId.substring(0, groupId.length() - 1);
-        return groupId;
-    }
-
-    /**
-     * 处理构件文件（JAR或POM）
-     * 根据isSnapshots配置过滤版本，提交上传任务到线程池
-     * 
-     * @param file 要处理的文件（JAR或POM文件）
-     * @param type 文件类型，"jar"或"pom"
+     * 注册运行时状态，按配置发布JMX指标和启动Prometheus抓取端点
      */
-    private String formatSpeed(long bytesPerSecond) {
-        if (bytesPerSecond < 1024) {
-            return bytesPerSecond + " B";
-        } else if (bytesPerSecond < 1024 * 1024) {
-            return String.format("%.2f KB", bytesPerSecond / 1024.0);
-        } else {
-            return String.format("%.2f MB", bytesPerSecond / (1024.0 * 1024.0));
-        }
-    }
-
-    private void processArtifactFile(File file, String type) {
-        if (isSnapshots) {
-            if (!file.getName().toLowerCase().contains("snapshot")) {
-                return;
-            }
-        } else {
-            if (file.getName().toLowerCase().contains("snapshot")) {
-                return;
-            }
+    private void startMetrics(UploadSession session) {
+        session.registerGauges();
+        if (options.jmxMetrics) {
+            metrics.registerJmx();
         }
-        
-        String version = getVersionFromFileName(file);
-        String artifactId = getArtifactIdFromFileName(file);
-        String groupId = getGroupId(file);
-
-        logger.debug("Submitting upload task for: {}", file.getAbsolutePath());
-        executorService.submit(() -> {
-            activeUploads.incrementAndGet();
+        if (options.metricsPort > 0) {
             try {
-                if ("jar".equals(type)) {
-                    uploadArtifactToNexus(groupId, artifactId, version, file, "jar");
-                } else if ("pom".equals(type)) {
-                    uploadArtifactToNexus(groupId, artifactId, version, file, "pom");
-                }
+                metricsServer = new MetricsServer(options.metricsPort, metrics);
+                logger.info("Prometheus指标: http://127.0.0.1:{}/metrics", metricsServer.getPort());
             } catch (IOException e) {
-                logger.error("Failed to upload {} file: {}", type.toUpperCase(), file.getName(), e);
-            } finally {
-                activeUploads.decrementAndGet();
+                logger.warn("无法启动指标端点，端口 {}: {}", options.metricsPort, e.getMessage());
             }
-        });
-    }
-
-    /**
-     * 上传构件到Nexus仓库
-     * 根据Maven规范构建上传URL，格式为：
-     * {nexusUrl}/{groupId}/{artifactId}/{version}/{artifactId}-{version}.{type}
-     * 
-     * @param groupId 构件的组ID
-     * @param artifactId 构件ID
-     * @param version 版本号
-     * @param file 要上传的文件
-     * @param type 文件类型（jar/pom）
-     */
-    private void uploadArtifactToNexus(String groupId, String artifactId, String version, File file, String type)
-            throws IOException {
-        // 移除URL中的多余空格并规范化URL格式
-        String baseUrl = nexusUrl.trim();
-        if (!baseUrl.endsWith("/")) {
-            baseUrl = baseUrl + "/";
         }
-        String url = baseUrl + groupId.replace(".", "/") + "/" + artifactId + "/" + version + "/" + artifactId
-                + "-" + version + "." + type;
-
-        uploadFile(url.trim(), file);
     }
 
     /**
-     * 使用HTTP PUT方法上传文件到指定URL
-     * @param fileUrl 文件应该上传到的完整URL
-     * @param file 要上传的文件
-     * @throws IOException 如果在上传过程中发生I/O错误
+     * 上传工作线程主循环，从调度队列中取出一批构件交给上传方式，直到扫描结束且队列取空
      */
-    private static final int MAX_RETRIES = 3;
-    private static final long RETRY_DELAY_MS = 1000;
-
-    private void uploadFile(String fileUrl, File file) throws IOException {
-        if (file.length() > maxFileSize) {
-            logger.error("文件 {} 超过允许的最大大小 {} MB", 
-                file.getName(), maxFileSize / (1024 * 1024));
-            return;
-        }
-
-        long startUploadTime = System.currentTimeMillis();
-        int retryCount = 0;
-        IOException lastException = null;
-
-        // 读取文件内容到内存中，创建可重复使用的HttpEntity
-        byte[] fileContent;
-        try (FileInputStream fis = new FileInputStream(file)) {
-            fileContent = new byte[(int) file.length()];
-            try (java.io.BufferedInputStream bis = new java.io.BufferedInputStream(fis, BUFFER_SIZE)) {
-                int bytesRead = bis.read(fileContent);
-                if (bytesRead != file.length()) {
-                    throw new IOException("Failed to read complete file content");
-                }
-            }
-        }
-
-        while (retryCount < MAX_RETRIES) {
+    private static void drainUploadQueue(UploadScheduler uploadQueue, UploadMode mode) {
+        while (true) {
+            List<ArtifactFile> batch;
             try {
-                HttpPut request = new HttpPut(fileUrl);
-                request.setHeader("Content-Type", "application/java-archive");
-                
-                // 使用ByteArrayEntity确保请求可重复
-                org.apache.http.entity.ByteArrayEntity entity = new org.apache.http.entity.ByteArrayEntity(fileContent);
-                request.setEntity(entity);
-                
-                HttpResponse response = httpClient.execute(request);
-                int responseCode = response.getStatusLine().getStatusCode();
-                
-                if (responseCode == HttpURLConnection.HTTP_CREATED || responseCode == HttpURLConnection.HTTP_OK) {
-                    long fileSize = file.length();
-                    long currentTotal = totalUploadSize.addAndGet(fileSize);
-                    double totalSizeMB = currentTotal / (1024.0 * 1024.0);
-                    int fileCount = totalUploadedFiles.incrementAndGet();
-                    
-                    // 计算上传速度
-                    long uploadTime = System.currentTimeMillis() - startUploadTime;
-                    long speed = uploadTime > 0 ? (fileSize * 1000 / uploadTime) : 0;
-                    uploadSpeed.set(speed);
-                    
-                    double elapsedTime = (System.currentTimeMillis() - startTime) / 1000.0;
-                    logger.info("已上传 {} ({}) - 速度: {}/s, 总计: {} MB, 文件数: {} 总用时: {} 秒",
-                            file.getName(),
-                            String.format("%.2f MB", fileSize / (1024.0 * 1024.0)),
-                            formatSpeed(speed),
-                            String.format("%.2f", totalSizeMB),
-                            fileCount,
-                            String.format("%.2f", elapsedTime));
-                    return;
-                } else {
-                    lastException = new IOException("上传失败，HTTP状态码: " + responseCode);
-                }
-            } catch (IOException e) {
-                lastException = e;
-                logger.warn("上传重试 {}/{} 失败: {} - {}", 
-                    retryCount + 1, MAX_RETRIES, file.getName(), e.getMessage());
+                batch = uploadQueue.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
             }
-
-            retryCount++;
-            if (retryCount < MAX_RETRIES) {
-                try {
-                    Thread.sleep(RETRY_DELAY_MS * retryCount);
-                } catch (InterruptedException ie) {
-                    Thread.currentThread().interrupt();
-                    throw new IOException("上传被中断", ie);
-                }
+            if (batch.isEmpty()) {
+                return;
+            }
+            try {
+                mode.upload(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
             }
-        }
-
-        failedUploads.incrementAndGet();
-        if (lastException != null) {
-            logger.error("上传文件最终失败: {} - {}", file.getName(), lastException.getMessage());
-            throw lastException;
-        } else {
-            throw new IOException("上传文件失败，已达到最大重试次数");
         }
     }
-    }
\ No newline at end of file
+}
@@ -0,0 +1,315 @@
+package com.xus.UploadJar2Nexus;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.RandomAccessFile;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 上传日志（只追加写入）
+ * 每成功上传一个文件追加一行：大小、修改时间、SHA-1和相对路径，再次运行时据此跳过已上传的文件，
+ * 实现断点续传和增量上传。
+ * 内存中的索引不保存路径，只保存路径的两个相互独立的64位哈希、大小、修改时间和SHA-1前8字节，
+ * 查找时两个哈希都相同才算同一路径（两个不同路径被误认为同一个的概率约为2^-128），
+ * 使用开放寻址的long数组存储，百万条记录约占用80MB内存，加载只需顺序读一遍文件。
+ * 同一路径出现多条记录时以最后一条为准；进程崩溃导致的残缺行在加载时跳过。
+ */
+public class UploadJournal implements Closeable {
+    private static final Logger logger = LoggerFactory.getLogger(UploadJournal.class);
+    private static final String HEADER = "# UploadJar2Nexus upload journal v1";
+    private static final int INITIAL_CAPACITY = 1 << 16;
+    private static final int READ_BUFFER_SIZE = 1 << 20;
+
+    private final Path journalFile;
+    private final Writer writer;
+    private final Object writeLock = new Object();
+
+    // 开放寻址索引，key为0表示空槽；checks为路径的第二个哈希，与key一起确定路径
+    private long[] keys;
+    private long[] checks;
+    private long[] sizes;
+    private long[] modifiedTimes;
+    private long[] hashPrefixes;
+    private int count;
+
+    private UploadJournal(Path journalFile, String target) throws IOException {
+        this.journalFile = journalFile;
+        allocate(INITIAL_CAPACITY);
+        boolean exists = Files.exists(journalFile);
+        boolean needsNewline = false;
+        if (exists) {
+            load();
+            needsNewline = !endsWithNewline(journalFile);
+        }
+        this.writer = new BufferedWriter(new OutputStreamWriter(Files.newOutputStream(journalFile,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND, StandardOpenOption.WRITE),
+                StandardCharsets.UTF_8));
+        if (!exists) {
+            writer.write(HEADER + " " + target + "\n");
+            writer.flush();
+        } else if (needsNewline) {
+            // 上次运行在写入一行的中途退出，补一个换行避免与新记录拼接
+            writer.write('\n');
+            writer.flush();
+        }
+    }
+
+    /**
+     * 打开（或创建）上传日志并加载已有记录
+     *
+     * @param journalFile 日志文件路径
+     * @param target 目标仓库URL，仅写入新文件的首行用于识别
+     */
+    public static UploadJournal open(Path journalFile, String target) throws IOException {
+        long start = System.currentTimeMillis();
+        UploadJournal journal = new UploadJournal(journalFile, target);
+        logger.info("已加载上传日志 {} - 记录数: {}, 用时: {} ms",
+                journalFile, journal.size(), System.currentTimeMillis() - start);
+        return journal;
+    }
+
+    /**
+     * 根据目标仓库URL生成默认的日志文件名，不同目标使用不同的日志
+     */
+    public static String defaultFileName(String target) {
+        return "upload-journal-" + target.replaceAll("^https?://", "").replaceAll("[^A-Za-z0-9.-]+", "_")
+                + ".journal";
+    }
+
+    public Path getJournalFile() {
+        return journalFile;
+    }
+
+    public synchronized int size() {
+        return count;
+    }
+
+    /**
+     * 判断文件是否已经上传过
+     * 大小和修改时间都一致时直接认为已上传；只有修改时间变化时重新计算SHA-1与记录比较，
+     * 内容相同则更新记录并跳过。远程构件（镜像模式）使用源仓库给出的SHA-1，没有时按未上传处理；
+     * 大小或修改时间未知的远程构件只按SHA-1判断。
+     */
+    public boolean isUploaded(ArtifactFile artifact) throws IOException {
+        String path = artifact.getRelativePath();
+        long key = hashKey(path, 0);
+        long check = hashCheck(path, 0);
+        long recordedSize;
+        long recordedModified;
+        long recordedHash;
+        synchronized (this) {
+            int slot = find(key, check);
+            if (keys[slot] == 0) {
+                return false;
+            }
+            recordedSize = sizes[slot];
+            recordedModified = modifiedTimes[slot];
+            recordedHash = hashPrefixes[slot];
+        }
+        // 镜像模式下目录列表可能没有大小或修改时间（记为-1和0），未知时不能据此判断，只比较SHA-1
+        boolean attributesKnown = artifact.getSize() >= 0 && artifact.getLastModified() > 0;
+        if (attributesKnown) {
+            if (recordedSize != artifact.getSize()) {
+                return false;
+            }
+            if (recordedModified == artifact.getLastModified()) {
+                return true;
+            }
+        }
+        if (recordedHash == 0) {
+            return false;
+        }
+        String sha1 = artifact.isRemote() ? artifact.getSha1() : Digests.digest(artifact.toFile(), "SHA-1");
+        if (sha1 == null || hashPrefix(sha1) != recordedHash) {
+            return false;
+        }
+        if (attributesKnown) {
+            record(artifact, sha1);
+        }
+        return true;
+    }
+
+    /**
+     * 记录一次成功的上传，写入后立即刷新到操作系统，进程崩溃也不会丢失
+     *
+     * @param artifact 已上传的文件
+     * @param sha1 文件内容的SHA-1，未知时传null
+     */
+    public void record(ArtifactFile artifact, String sha1) throws IOException {
+        String line = artifact.getSize() + "\t" + artifact.getLastModified() + "\t"
+                + (sha1 == null ? "-" : sha1) + "\t" + artifact.getRelativePath() + "\n";
+        synchronized (writeLock) {
+            writer.write(line);
+            writer.flush();
+        }
+        synchronized (this) {
+            String path = artifact.getRelativePath();
+            put(hashKey(path, 0), hashCheck(path, 0), artifact.getSize(), artifact.getLastModified(),
+                    hashPrefix(sha1));
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (writeLock) {
+            writer.close();
+        }
+    }
+
+    private void load() throws IOException {
+        int malformed = 0;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(Files.newInputStream(journalFile),
+                StandardCharsets.UTF_8), READ_BUFFER_SIZE)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty() || line.charAt(0) == '#') {
+                    continue;
+                }
+                int first = line.indexOf('\t');
+                int second = first < 0 ? -1 : line.indexOf('\t', first + 1);
+                int third = second < 0 ? -1 : line.indexOf('\t', second + 1);
+                if (third < 0 || third == line.length() - 1) {
+                    malformed++;
+                    continue;
+                }
+                try {
+                    long size = Long.parseLong(line.substring(0, first));
+                    long modified = Long.parseLong(line.substring(first + 1, second));
+                    String sha1 = line.substring(second + 1, third);
+                    put(hashKey(line, third + 1), hashCheck(line, third + 1), size, modified, hashPrefix(sha1));
+                } catch (NumberFormatException e) {
+                    malformed++;
+                }
+            }
+        }
+        if (malformed > 0) {
+            logger.warn("上传日志 {} 中有 {} 行无法解析，已忽略", journalFile, malformed);
+        }
+    }
+
+    private static boolean endsWithNewline(Path file) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "r")) {
+            long length = raf.length();
+            if (length == 0) {
+                return true;
+            }
+            raf.seek(length - 1);
+            return raf.read() == '\n';
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        checks = new long[capacity];
+        sizes = new long[capacity];
+        modifiedTimes = new long[capacity];
+        hashPrefixes = new long[capacity];
+    }
+
+    /**
+     * 查找路径所在的槽位，不存在时返回应插入的空槽；第一个哈希相同但第二个不同的路径各占一个槽位
+     */
+    private int find(long key, long check) {
+        int mask = keys.length - 1;
+        int slot = (int) key & mask;
+        while (keys[slot] != 0 && (keys[slot] != key || checks[slot] != check)) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void put(long key, long check, long size, long modified, long hash) {
+        int slot = find(key, check);
+        if (keys[slot] == 0) {
+            if ((count + 1) * 2 > keys.length) {
+                rehash();
+                slot = find(key, check);
+            }
+            keys[slot] = key;
+            checks[slot] = check;
+            count++;
+        }
+        sizes[slot] = size;
+        modifiedTimes[slot] = modified;
+        hashPrefixes[slot] = hash;
+    }
+
+    private void rehash() {
+        long[] oldKeys = keys;
+        long[] oldChecks = checks;
+        long[] oldSizes = sizes;
+        long[] oldModified = modifiedTimes;
+        long[] oldHashes = hashPrefixes;
+        allocate(oldKeys.length * 2);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != 0) {
+                int slot = find(oldKeys[i], oldChecks[i]);
+                keys[slot] = oldKeys[i];
+                checks[slot] = oldChecks[i];
+                sizes[slot] = oldSizes[i];
+                modifiedTimes[slot] = oldModified[i];
+                hashPrefixes[slot] = oldHashes[i];
+            }
+        }
+    }
+
+    /**
+     * 对路径（从offset开始）计算64位哈希：FNV-1a后再做一次混合，0保留为空槽标记
+     */
+    private static long hashKey(String text, int offset) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = offset; i < text.length(); i++) {
+            h ^= text.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h == 0 ? 1 : h;
+    }
+
+    /**
+     * 路径的第二个哈希，与{@link #hashKey}使用不同的乘数、初值和混合函数（SplitMix64），两者相互独立
+     */
+    private static long hashCheck(String text, int offset) {
+        long h = 0x9e3779b97f4a7c15L;
+        for (int i = offset; i < text.length(); i++) {
+            h = (h + text.charAt(i)) * 0xbf58476d1ce4e5b9L;
+            h ^= h >>> 31;
+        }
+        h ^= h >>> 30;
+        h *= 0xbf58476d1ce4e5b9L;
+        h ^= h >>> 27;
+        h *= 0x94d049bb133111ebL;
+        h ^= h >>> 31;
+        return h;
+    }
+
+    /**
+     * 取SHA-1十六进制串的前16个字符作为比较用的64位值，未知时返回0
+     */
+    private static long hashPrefix(String sha1) {
+        if (sha1 == null || sha1.length() < 16) {
+            return 0;
+        }
+        try {
+            long value = Long.parseUnsignedLong(sha1.substring(0, 16), 16);
+            return value == 0 ? 1 : value;
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.xus.UploadJar2Nexus;
+
+/**
+ * 上传引擎的事件回调，用于统计和输出进度
+ */
+public interface UploadListener {
+
+    /**
+     * 文件上传成功
+     *
+     * @param entity 已上传的文件内容，包含发送时计算的摘要
+     * @param uploadMillis 从开始上传到成功的耗时（毫秒），包括重试
+     */
+    void onUploaded(FileBodyEntity entity, long uploadMillis);
+
+    /**
+     * 一次上传尝试失败，之后还会重试
+     */
+    void onRetry(FileBodyEntity entity, int attempt, int maxAttempts, Exception cause);
+
+    /**
+     * 校验文件上传失败
+     */
+    void onChecksumFailed(String checksumUrl, Exception cause);
+}
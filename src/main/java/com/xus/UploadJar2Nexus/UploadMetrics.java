@@ -0,0 +1,350 @@
+package com.xus.UploadJar2Nexus;
+
+import java.lang.management.ManagementFactory;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 上传过程的指标汇总
+ * 计数器使用LongAdder，耗时使用{@link LatencyHistogram}，速率使用{@link SlidingWindowRate}，
+ * 每个文件的记录开销只有几次原子操作，不做字符串格式化。
+ * 同一份数据用于周期性进度日志、JMX和Prometheus文本格式输出。
+ */
+public class UploadMetrics implements UploadMetricsMXBean {
+    private static final Logger logger = LoggerFactory.getLogger(UploadMetrics.class);
+    static final String OBJECT_NAME = "com.xus.UploadJar2Nexus:type=UploadMetrics";
+    // 速率滑动窗口长度（秒），与进度日志间隔一致
+    private static final int RATE_WINDOW_SECONDS = 10;
+
+    /**
+     * 分阶段耗时
+     */
+    public enum Phase {
+        // 读取一个目录
+        SCAN("scan", "读取一个仓库目录"),
+        // 从磁盘读取文件内容（零拷贝发送时读取和发送无法区分，计入send）
+        READ("read", "从磁盘读取文件内容"),
+        // 发送请求体
+        SEND("send", "发送请求体"),
+        // 请求体发送完毕到收到响应
+        RESPONSE("response", "等待服务器响应"),
+        // 单个文件从开始上传到成功，包括重试
+        UPLOAD("upload", "单个文件上传总耗时（含重试）");
+
+        private final String metricName;
+        private final String description;
+
+        Phase(String metricName, String description) {
+            this.metricName = metricName;
+            this.description = description;
+        }
+
+        public String getMetricName() {
+            return metricName;
+        }
+
+        public String getDescription() {
+            return description;
+        }
+    }
+
+    private final Map<Phase, LatencyHistogram> histograms = new EnumMap<>(Phase.class);
+    private final LongAdder uploadedFiles = new LongAdder();
+    private final LongAdder uploadedBytes = new LongAdder();
+    private final LongAdder failedUploads = new LongAdder();
+    private final LongAdder retries = new LongAdder();
+    private final LongAdder checksumFailures = new LongAdder();
+    private final LongAdder journalSkippedFiles = new LongAdder();
+    private final LongAdder remoteSkippedFiles = new LongAdder();
+    // 连接上实际发送和接收的字节数，包括请求行、头部、重试和校验文件
+    private final LongAdder wireSentBytes = new LongAdder();
+    private final LongAdder wireReceivedBytes = new LongAdder();
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder authChallenges = new LongAdder();
+    private final LongAdder withheldBodies = new LongAdder();
+    // 摘要计算累计耗时（纳秒）和参与计算的字节数，用于评估摘要计算的开销
+    private final LongAdder digestNanos = new LongAdder();
+    private final LongAdder digestedBytes = new LongAdder();
+    private final SlidingWindowRate fileRate = new SlidingWindowRate(RATE_WINDOW_SECONDS);
+    private final SlidingWindowRate byteRate = new SlidingWindowRate(RATE_WINDOW_SECONDS);
+    private final Map<String, LongSupplier> gauges = new LinkedHashMap<>();
+    private ObjectName registeredName;
+
+    public UploadMetrics() {
+        for (Phase phase : Phase.values()) {
+            histograms.put(phase, new LatencyHistogram());
+        }
+    }
+
+    public LatencyHistogram histogram(Phase phase) {
+        return histograms.get(phase);
+    }
+
+    /**
+     * 注册一个运行时状态，在JMX和Prometheus输出时读取
+     */
+    public synchronized void registerGauge(String name, LongSupplier supplier) {
+        gauges.put(name, supplier);
+    }
+
+    /**
+     * 记录一个上传成功的文件：数量、字节数、速率和各阶段耗时
+     *
+     * @param entity 已上传的文件内容，包含最近一次发送的分阶段耗时
+     * @param uploadMillis 从开始上传到成功的耗时（毫秒），包括重试
+     */
+    public void recordUpload(FileBodyEntity entity, long uploadMillis) {
+        long size = entity.getContentLength();
+        uploadedFiles.increment();
+        uploadedBytes.add(size);
+        fileRate.add(1);
+        byteRate.add(size);
+        if (entity.getDigestNanos() > 0) {
+            digestNanos.add(entity.getDigestNanos());
+            digestedBytes.add(size);
+        }
+        if (entity.getSentAt() > 0) {
+            histograms.get(Phase.READ).record(entity.getReadNanos());
+            histograms.get(Phase.SEND).record(entity.getSendNanos());
+            histograms.get(Phase.RESPONSE).record(System.nanoTime() - entity.getSentAt());
+        }
+        histograms.get(Phase.UPLOAD).record(uploadMillis * 1000000L);
+    }
+
+    public void recordFailure() {
+        failedUploads.increment();
+    }
+
+    public void recordRetry() {
+        retries.increment();
+    }
+
+    public void recordChecksumFailure() {
+        checksumFailures.increment();
+    }
+
+    public void recordJournalSkip() {
+        journalSkippedFiles.increment();
+    }
+
+    public void recordRemoteSkip() {
+        remoteSkippedFiles.increment();
+    }
+
+    /**
+     * 记录一次HTTP请求在连接上的字节数
+     *
+     * @param status 响应状态码，401表示预先发送的认证信息没有被接受
+     * @param bodyWithheld 服务器在Expect: 100-continue阶段拒绝，请求体没有发送
+     */
+    public void recordExchange(long sentBytes, long receivedBytes, int status, boolean bodyWithheld) {
+        requests.increment();
+        wireSentBytes.add(sentBytes);
+        wireReceivedBytes.add(receivedBytes);
+        if (status == 401) {
+            authChallenges.increment();
+        }
+        if (bodyWithheld) {
+            withheldBodies.increment();
+        }
+    }
+
+    public long getDigestNanos() {
+        return digestNanos.sum();
+    }
+
+    public long getDigestedBytes() {
+        return digestedBytes.sum();
+    }
+
+    public int getRateWindowSeconds() {
+        return RATE_WINDOW_SECONDS;
+    }
+
+    @Override
+    public long getUploadedFiles() {
+        return uploadedFiles.sum();
+    }
+
+    @Override
+    public long getUploadedBytes() {
+        return uploadedBytes.sum();
+    }
+
+    @Override
+    public long getFailedUploads() {
+        return failedUploads.sum();
+    }
+
+    @Override
+    public long getRetries() {
+        return retries.sum();
+    }
+
+    @Override
+    public long getChecksumFailures() {
+        return checksumFailures.sum();
+    }
+
+    @Override
+    public long getJournalSkippedFiles() {
+        return journalSkippedFiles.sum();
+    }
+
+    @Override
+    public long getRemoteSkippedFiles() {
+        return remoteSkippedFiles.sum();
+    }
+
+    @Override
+    public long getRequests() {
+        return requests.sum();
+    }
+
+    @Override
+    public long getWireSentBytes() {
+        return wireSentBytes.sum();
+    }
+
+    @Override
+    public long getWireReceivedBytes() {
+        return wireReceivedBytes.sum();
+    }
+
+    @Override
+    public long getAuthChallenges() {
+        return authChallenges.sum();
+    }
+
+    @Override
+    public long getWithheldBodies() {
+        return withheldBodies.sum();
+    }
+
+    @Override
+    public double getFilesPerSecond() {
+        return fileRate.ratePerSecond();
+    }
+
+    @Override
+    public double getBytesPerSecond() {
+        return byteRate.ratePerSecond();
+    }
+
+    @Override
+    public double getUploadLatencyP50Millis() {
+        return histograms.get(Phase.UPLOAD).percentile(0.5) / 1e6;
+    }
+
+    @Override
+    public double getUploadLatencyP99Millis() {
+        return histograms.get(Phase.UPLOAD).percentile(0.99) / 1e6;
+    }
+
+    @Override
+    public double getSendLatencyP99Millis() {
+        return histograms.get(Phase.SEND).percentile(0.99) / 1e6;
+    }
+
+    @Override
+    public double getResponseLatencyP99Millis() {
+        return histograms.get(Phase.RESPONSE).percentile(0.99) / 1e6;
+    }
+
+    @Override
+    public synchronized Map<String, Long> getGauges() {
+        Map<String, Long> values = new LinkedHashMap<>();
+        for (Map.Entry<String, LongSupplier> gauge : gauges.entrySet()) {
+            values.put(gauge.getKey(), gauge.getValue().getAsLong());
+        }
+        return values;
+    }
+
+    /**
+     * 注册到平台MBeanServer，失败只记录警告
+     */
+    public void registerJmx() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+            server.registerMBean(this, name);
+            registeredName = name;
+        } catch (JMException e) {
+            logger.warn("无法注册JMX指标: {}", e.getMessage());
+        }
+    }
+
+    public void unregisterJmx() {
+        if (registeredName == null) {
+            return;
+        }
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(registeredName);
+        } catch (JMException e) {
+            logger.debug("Failed to unregister metrics MBean", e);
+        }
+        registeredName = null;
+    }
+
+    /**
+     * 按Prometheus文本格式（0.0.4）输出全部指标
+     */
+    public String toPrometheusText() {
+        StringBuilder out = new StringBuilder(4096);
+        counter(out, "uploaded_files_total", "上传成功的文件数", getUploadedFiles());
+        counter(out, "uploaded_bytes_total", "上传成功的字节数", getUploadedBytes());
+        counter(out, "failed_uploads_total", "重试耗尽后仍失败的文件数", getFailedUploads());
+        counter(out, "retries_total", "上传重试次数", getRetries());
+        counter(out, "checksum_failures_total", "校验文件上传失败次数", getChecksumFailures());
+        counter(out, "journal_skipped_files_total", "根据上传日志跳过的文件数", getJournalSkippedFiles());
+        counter(out, "remote_skipped_files_total", "目标仓库已存在而跳过的文件数", getRemoteSkippedFiles());
+        counter(out, "http_requests_total", "发往目标仓库的HTTP请求数", getRequests());
+        counter(out, "wire_sent_bytes_total", "连接上实际发送的字节数（含头部、重试和校验文件）", getWireSentBytes());
+        counter(out, "wire_received_bytes_total", "连接上实际接收的字节数", getWireReceivedBytes());
+        counter(out, "auth_challenges_total", "收到401的请求数", getAuthChallenges());
+        counter(out, "withheld_bodies_total", "被服务器在发送请求体之前拒绝的请求数", getWithheldBodies());
+        gauge(out, "files_per_second", "最近" + RATE_WINDOW_SECONDS + "秒的文件上传速率", getFilesPerSecond());
+        gauge(out, "bytes_per_second", "最近" + RATE_WINDOW_SECONDS + "秒的字节上传速率", getBytesPerSecond());
+        for (Map.Entry<String, Long> gauge : getGauges().entrySet()) {
+            gauge(out, gauge.getKey(), gauge.getKey(), gauge.getValue());
+        }
+        for (Phase phase : Phase.values()) {
+            LatencyHistogram histogram = histograms.get(phase);
+            String name = "uploadjar2nexus_" + phase.getMetricName() + "_seconds";
+            out.append("# HELP ").append(name).append(' ').append(phase.getDescription()).append('\n');
+            out.append("# TYPE ").append(name).append(" summary\n");
+            for (double quantile : new double[] {0.5, 0.9, 0.99}) {
+                out.append(name).append("{quantile=\"").append(quantile).append("\"} ")
+                        .append(histogram.percentile(quantile) / 1e9).append('\n');
+            }
+            out.append(name).append("_sum ").append(histogram.getSumNanos() / 1e9).append('\n');
+            out.append(name).append("_count ").append(histogram.getCount()).append('\n');
+        }
+        return out.toString();
+    }
+
+    private static void counter(StringBuilder out, String name, String help, long value) {
+        out.append("# HELP uploadjar2nexus_").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE uploadjar2nexus_").append(name).append(" counter\n");
+        out.append("uploadjar2nexus_").append(name).append(' ').append(value).append('\n');
+    }
+
+    private static void gauge(StringBuilder out, String name, String help, double value) {
+        out.append("# HELP uploadjar2nexus_").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE uploadjar2nexus_").append(name).append(" gauge\n");
+        out.append("uploadjar2nexus_").append(name).append(' ').append(value).append('\n');
+    }
+}
@@ -0,0 +1,51 @@
+package com.xus.UploadJar2Nexus;
+
+import java.util.Map;
+
+/**
+ * 通过JMX发布的上传指标，ObjectName为com.xus.UploadJar2Nexus:type=UploadMetrics
+ * 耗时单位为毫秒，速率为最近一个滑动窗口内的平均值
+ */
+public interface UploadMetricsMXBean {
+
+    long getUploadedFiles();
+
+    long getUploadedBytes();
+
+    long getFailedUploads();
+
+    long getRetries();
+
+    long getChecksumFailures();
+
+    long getJournalSkippedFiles();
+
+    long getRemoteSkippedFiles();
+
+    long getRequests();
+
+    long getWireSentBytes();
+
+    long getWireReceivedBytes();
+
+    long getAuthChallenges();
+
+    long getWithheldBodies();
+
+    double getFilesPerSecond();
+
+    double getBytesPerSecond();
+
+    double getUploadLatencyP50Millis();
+
+    double getUploadLatencyP99Millis();
+
+    double getSendLatencyP99Millis();
+
+    double getResponseLatencyP99Millis();
+
+    /**
+     * 运行时状态，例如在途上传数、排队文件数和当前并发上限
+     */
+    Map<String, Long> getGauges();
+}
@@ -0,0 +1,33 @@
+package com.xus.UploadJar2Nexus;
+
+import java.util.List;
+
+/**
+ * 上传方式（--upload-mode）：决定扫描结果如何放入调度队列，以及上传线程如何处理从队列中取出的一批文件
+ */
+interface UploadMode {
+
+    /**
+     * 根据配置创建上传方式，组件上传方式另有自己的回退线程，由{@link #close()}关闭
+     */
+    static UploadMode create(UploadSession session) {
+        if (session.options.isNpmMode()) {
+            return new NpmUploadMode(session);
+        }
+        PutUploadMode put = new PutUploadMode(session);
+        return session.options.isComponentMode() ? new ComponentUploadMode(session, put) : put;
+    }
+
+    /**
+     * 扫描结果的接收方
+     */
+    ArtifactScanner.ArtifactSink createSink();
+
+    /**
+     * 在上传线程中处理一批文件，单个文件的意外错误记录后继续处理其余文件
+     */
+    void upload(List<ArtifactFile> batch) throws InterruptedException;
+
+    default void close() {
+    }
+}
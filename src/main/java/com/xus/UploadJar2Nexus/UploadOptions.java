@@ -0,0 +1,337 @@
+package com.xus.UploadJar2Nexus;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 上传配置：命令行中的必选参数和全部可选参数（--name=value），以及各项的默认值
+ * 作为库使用时可以直接修改这些字段，也可以像命令行一样逐个调用{@link #applyOption(String)}。
+ */
+public class UploadOptions {
+    // 调度窗口的默认大小，可根据系统内存调整；每项只有路径和属性，一万项约几MB
+    static final int DEFAULT_SCHEDULE_WINDOW = 10000;
+    // 线程池最大大小限制，防止创建过多线程
+    private static final int MAX_POOL_SIZE = 20;
+
+    // Maven本地仓库路径，默认使用用户目录下的.m2/repository；为http(s) URL时从该远程仓库镜像
+    public String repositoryPath = "E:\\repository";
+    // Nexus仓库URL，根据实际部署情况修改
+    public String nexusUrl = "http://localhost:8081/repository/maven2-test/";
+    // Nexus仓库访问用户名
+    public String username = "admin";
+    // Nexus仓库访问密码
+    public String password = "admin123";
+    // 是否只上传快照版本，true表示只上传带有SNAPSHOT的版本
+    public boolean isSnapshots = false;
+    // 是否启用上传日志，启用后再次运行会跳过已成功上传的文件
+    public boolean useJournal = true;
+    // 上传日志文件路径，为空时根据nexusUrl在当前目录生成
+    public String journalPath = null;
+    // 是否在上传前预检目标仓库中是否已有相同文件
+    public boolean remotePrecheck = false;
+    // 预检缓存最多保存的groupId:artifactId数量
+    public int precheckCacheSize = 10000;
+    // 是否在全部文件上传结束后生成并上传构件级的maven-metadata.xml
+    public boolean generateMetadata = true;
+    // 额外的上传目标，格式为http(s)://[用户名:密码@]主机[:端口]/repository/名称/，没有认证信息时使用username和password
+    public List<String> additionalTargets = new ArrayList<>();
+    // 多目标上传时共享读取的缓冲总量（MB），所有文件共用
+    public int fanoutBufferMB = 64;
+    // 监视模式：首次上传完成后继续监视仓库目录，自动上传新增或变化的文件，直到进程被终止
+    public boolean watchMode = false;
+    // 监视模式下目录最后一次变化之后等待多久再上传（毫秒），期间的多次变化合并为一批
+    public long watchDebounceMillis = 2000;
+    // 是否同时上传校验文件（.sha1/.md5/.sha256/.sha512）
+    public boolean uploadChecksums = true;
+    // 上传方式：put为逐个文件PUT，component为每个GAV目录通过Nexus 3组件上传接口一次上传，不支持时回退为put；
+    // npm为把目录中的npm包（.tgz）发布到npm仓库
+    public String uploadMode = "put";
+    // npm上传模式下发布到的dist-tag
+    public String npmTag = "latest";
+    // 较大的请求体是否带Expect: 100-continue，服务器拒绝时不发送请求体
+    public boolean expectContinue = true;
+    // Bearer令牌，设置时命令行中的Nexus仓库改用令牌认证
+    public String authToken = null;
+    // 是否把最终上传失败的文件写入死信文件
+    public boolean useDeadLetter = true;
+    // 死信文件路径，为空时根据nexusUrl在当前目录生成
+    public String deadLetterPath = null;
+    // 重放模式：不扫描仓库，只重新上传死信文件中的文件
+    public boolean replayDeadLetters = false;
+    // 重放的死信文件路径，为空时使用deadLetterPath（或其默认值）
+    public String replayPath = null;
+    // 目标仓库连续失败时是否熔断，暂停发送请求直到服务器恢复
+    public boolean circuitBreaker = true;
+    // 只上传匹配这些规则的构件，格式为groupId[:artifactId[:version]]，支持*、?、**和~正则，为空时全部上传
+    public List<String> includes = new ArrayList<>();
+    // 不上传匹配这些规则的构件，格式同includes
+    public List<String> excludes = new ArrayList<>();
+    // 只上传不小于该大小的文件（字节），0表示不限
+    public long minSize = 0;
+    // 只上传不大于该大小的文件（字节），0表示不限
+    public long maxSize = 0;
+    // 只上传在该时间之后修改的文件（毫秒），0表示不限
+    public long modifiedAfter = 0;
+    // 只上传在该时间之前修改的文件（毫秒），0表示不限
+    public long modifiedBefore = 0;
+    // 上传引擎：blocking为每个上传占用一个线程，async为非阻塞I/O
+    public String engineType = "blocking";
+    // 异步引擎的最大在途请求数，取代线程数作为并发上限
+    public int maxInFlight = 200;
+    // 是否根据延迟和服务器错误自动调整并发上限
+    public boolean adaptiveConcurrency = true;
+    // 并发上限的最大值，0表示使用默认值（阻塞引擎为线程池大小或TargetFactory.MAX_ADAPTIVE_THREADS，异步引擎为maxInFlight）
+    public int maxConcurrency = 0;
+    // 上传顺序：fifo为扫描顺序，largest-first为调度窗口内先上传大文件
+    public UploadScheduler.Policy schedulePolicy = UploadScheduler.Policy.LARGEST_FIRST;
+    // 同一GAV内是否先上传POM
+    public boolean pomFirst = true;
+    // 小文件每批最多合并的文件数，1表示不合并
+    public int smallFileBatch = 8;
+    // 调度窗口大小，即扫描阶段最多缓存的待上传文件数
+    public int scheduleWindow = DEFAULT_SCHEDULE_WINDOW;
+    // 是否通过JMX发布上传指标
+    public boolean jmxMetrics = true;
+    // Prometheus抓取端点端口（只监听127.0.0.1），0表示不启动
+    public int metricsPort = 0;
+    // 上传线程池大小，默认为CPU核心数的2倍（不超过MAX_POOL_SIZE），可根据网络带宽和系统资源调整
+    int threadPoolSize = Math.min(Runtime.getRuntime().availableProcessors() * 2, MAX_POOL_SIZE);
+    // 扫描线程数，目录读取以I/O为主，默认与CPU核心数相同
+    int scanParallelism = Math.max(2, Runtime.getRuntime().availableProcessors());
+    // 单个文件大小限制，默认1GB，可根据Nexus服务器配置调整
+    long maxFileSize = 1024 * 1024 * 1024;
+
+    /**
+     * 解析一个可选参数，格式为--name=value
+     * 支持的参数：
+     *   --journal=path|off 上传日志文件路径，off表示不使用上传日志
+     *   --precheck=true|false 上传前是否预检目标仓库中已有的相同文件
+     *   --precheck-cache=N 预检缓存最多保存的构件（groupId:artifactId）数量
+     *   --checksums=true|false 是否同时上传校验文件
+     *   --engine=blocking|async 上传引擎
+     *   --max-in-flight=N 异步引擎的最大在途请求数
+     *   --adaptive=true|false 是否根据延迟和服务器错误自动调整并发上限
+     *   --max-concurrency=N 并发上限的最大值
+     *   --schedule=fifo|largest-first 上传顺序
+     *   --pom-first=true|false 同一GAV内是否先上传POM
+     *   --small-file-batch=N 小文件每批最多合并的文件数
+     *   --schedule-window=N 调度窗口大小（最多缓存的待上传文件数）
+     *   --jmx=true|false 是否通过JMX发布上传指标
+     *   --metrics-port=N 在127.0.0.1:N/metrics提供Prometheus格式的指标，0表示不启动
+     *   --metadata=true|false 上传结束后是否生成并上传各构件的maven-metadata.xml
+     *   --watch=true|false 首次上传完成后是否继续监视仓库目录
+     *   --watch-debounce=N 监视模式下目录安静多少毫秒后上传
+     *   --target=URL 同时上传到另一个Nexus仓库，可以重复指定，URL中可以带用户名:密码@
+     *   --fanout-buffer=N 多目标上传时共享读取的缓冲总量（MB）
+     *   --upload-mode=put|component|npm 逐个文件PUT，每个GAV目录通过组件上传接口一次上传，或发布目录中的npm包
+     *   --npm-tag=TAG npm上传模式下发布到的dist-tag
+     *   --expect-continue=true|false 较大的请求体是否带Expect: 100-continue
+     *   --auth-token=TOKEN 命令行中的Nexus仓库改用Bearer令牌认证
+     *   --dead-letter=path|off 死信文件路径（最终上传失败的文件），off表示不记录
+     *   --replay[=path] 不扫描仓库，只重新上传死信文件中的文件，未指定路径时使用--dead-letter的文件
+     *   --circuit-breaker=true|false 目标仓库连续失败时是否暂停发送请求
+     *   --include=G[:A[:V]] 只上传匹配的构件，可以重复指定，例如com.ourcorp.**或org.foo:*:1.*
+     *   --exclude=G[:A[:V]] 不上传匹配的构件，可以重复指定
+     *   --min-size=N[K|M|G] 只上传不小于该大小的文件
+     *   --max-size=N[K|M|G] 只上传不大于该大小的文件
+     *   --modified-after=yyyy-MM-dd[THH:mm[:ss]] 只上传在该时间之后修改的文件
+     *   --modified-before=yyyy-MM-dd[THH:mm[:ss]] 只上传在该时间之前修改的文件
+     *
+     * @param option 命令行参数
+     */
+    public void applyOption(String option) {
+        if (option == null || !option.startsWith("--")) {
+            throw new IllegalArgumentException("Invalid option: " + option);
+        }
+        int separator = option.indexOf('=');
+        String name = separator < 0 ? option.substring(2) : option.substring(2, separator);
+        String value = separator < 0 ? "" : option.substring(separator + 1).trim();
+        switch (name) {
+            case "journal":
+                if ("off".equalsIgnoreCase(value)) {
+                    useJournal = false;
+                } else if (!value.isEmpty()) {
+                    journalPath = value;
+                }
+                break;
+            case "precheck":
+                remotePrecheck = Boolean.parseBoolean(value);
+                break;
+            case "precheck-cache":
+                precheckCacheSize = Integer.parseInt(value);
+                break;
+            case "checksums":
+                uploadChecksums = Boolean.parseBoolean(value);
+                break;
+            case "engine":
+                if (!"blocking".equals(value) && !"async".equals(value)) {
+                    throw new IllegalArgumentException("Unknown engine: " + value);
+                }
+                engineType = value;
+                break;
+            case "max-in-flight":
+                maxInFlight = Integer.parseInt(value);
+                break;
+            case "adaptive":
+                adaptiveConcurrency = Boolean.parseBoolean(value);
+                break;
+            case "max-concurrency":
+                maxConcurrency = Integer.parseInt(value);
+                break;
+            case "schedule":
+                schedulePolicy = UploadScheduler.Policy.fromOption(value);
+                break;
+            case "pom-first":
+                pomFirst = Boolean.parseBoolean(value);
+                break;
+            case "small-file-batch":
+                smallFileBatch = Integer.parseInt(value);
+                break;
+            case "schedule-window":
+                scheduleWindow = Integer.parseInt(value);
+                break;
+            case "jmx":
+                jmxMetrics = Boolean.parseBoolean(value);
+                break;
+            case "metrics-port":
+                metricsPort = Integer.parseInt(value);
+                break;
+            case "metadata":
+                generateMetadata = Boolean.parseBoolean(value);
+                break;
+            case "watch":
+                watchMode = Boolean.parseBoolean(value);
+                break;
+            case "watch-debounce":
+                watchDebounceMillis = Long.parseLong(value);
+                break;
+            case "target":
+                // 提前校验格式，错误的URL在启动前报告
+                NexusTarget.parse(value, username, password);
+                additionalTargets.add(value);
+                break;
+            case "fanout-buffer":
+                fanoutBufferMB = Integer.parseInt(value);
+                break;
+            case "upload-mode":
+                if (!"put".equals(value) && !"component".equals(value) && !"npm".equals(value)) {
+                    throw new IllegalArgumentException("Unknown upload mode: " + value);
+                }
+                uploadMode = value;
+                break;
+            case "npm-tag":
+                if (value.isEmpty()) {
+                    throw new IllegalArgumentException("Empty npm tag");
+                }
+                npmTag = value;
+                break;
+            case "expect-continue":
+                expectContinue = Boolean.parseBoolean(value);
+                break;
+            case "auth-token":
+                if (value.isEmpty()) {
+                    throw new IllegalArgumentException("Empty auth token");
+                }
+                authToken = value;
+                break;
+            case "dead-letter":
+                if ("off".equalsIgnoreCase(value)) {
+                    useDeadLetter = false;
+                } else if (!value.isEmpty()) {
+                    deadLetterPath = value;
+                }
+                break;
+            case "replay":
+                replayDeadLetters = true;
+                if (!value.isEmpty()) {
+                    replayPath = value;
+                }
+                break;
+            case "circuit-breaker":
+                circuitBreaker = Boolean.parseBoolean(value);
+                break;
+            case "include":
+            case "exclude":
+                // 提前编译，错误的规则在启动前报告
+                new ArtifactFilter(Collections.singletonList(value), Collections.<String>emptyList(), 0, 0, 0, 0);
+                if ("include".equals(name)) {
+                    includes.add(value);
+                } else {
+                    excludes.add(value);
+                }
+                break;
+            case "min-size":
+                minSize = parseSize(value);
+                break;
+            case "max-size":
+                maxSize = parseSize(value);
+                break;
+            case "modified-after":
+                modifiedAfter = parseTime(value);
+                break;
+            case "modified-before":
+                modifiedBefore = parseTime(value);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown option: " + option);
+        }
+    }
+
+    /**
+     * 解析文件大小，可以带K、M、G后缀（1024进制）
+     */
+    static long parseSize(String value) {
+        String upper = value.toUpperCase();
+        int shift = upper.endsWith("K") ? 10 : upper.endsWith("M") ? 20 : upper.endsWith("G") ? 30 : 0;
+        String digits = shift > 0 ? upper.substring(0, upper.length() - 1) : upper;
+        return Long.parseLong(digits.trim()) << shift;
+    }
+
+    /**
+     * 解析本地时区的日期或日期时间，例如2024-01-31或2024-01-31T08:00
+     */
+    static long parseTime(String value) {
+        try {
+            LocalDateTime time = value.indexOf('T') >= 0 ? LocalDateTime.parse(value)
+                    : LocalDate.parse(value).atStartOfDay();
+            return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid time (yyyy-MM-dd[THH:mm[:ss]]): " + value, e);
+        }
+    }
+
+    /**
+     * 由过滤条件编译出的过滤器，没有任何条件时返回null
+     */
+    ArtifactFilter createFilter() {
+        if (includes.isEmpty() && excludes.isEmpty() && minSize <= 0 && maxSize <= 0 && modifiedAfter <= 0
+                && modifiedBefore <= 0) {
+            return null;
+        }
+        return new ArtifactFilter(includes, excludes, minSize, maxSize, modifiedAfter, modifiedBefore);
+    }
+
+    boolean isAsync() {
+        return "async".equals(engineType);
+    }
+
+    boolean isComponentMode() {
+        return "component".equals(uploadMode);
+    }
+
+    boolean isNpmMode() {
+        return "npm".equals(uploadMode);
+    }
+
+    /**
+     * 仓库路径为http(s) URL时为镜像模式
+     */
+    boolean isMirror() {
+        return RemoteRepository.isRemote(repositoryPath);
+    }
+}
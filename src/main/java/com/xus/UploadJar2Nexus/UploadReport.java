@@ -0,0 +1,249 @@
+package com.xus.UploadJar2Nexus;
+
+import java.nio.file.Path;
+import java.time.Instant;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 运行日志：启动时的配置、周期性的进度汇总，以及结束时的统计、分阶段耗时、摘要开销和网络传输
+ */
+final class UploadReport {
+    private static final Logger logger = LoggerFactory.getLogger(UploadReport.class);
+
+    private final UploadSession session;
+    private final UploadOptions options;
+    private final UploadMetrics metrics;
+
+    UploadReport(UploadSession session) {
+        this.session = session;
+        this.options = session.options;
+        this.metrics = session.metrics;
+    }
+
+    /**
+     * 打印当前配置参数，源仓库只输出去掉认证信息的URL
+     */
+    void logConfiguration(String sourceName, Path deadLetterFile) {
+        NexusTarget primary = session.targets.get(0);
+        AdaptiveConcurrencyLimiter limiter = primary.limiter;
+        ArtifactFilter filter = session.filter;
+        logger.info("当前配置参数：");
+        if (options.isMirror()) {
+            logger.info("源仓库（镜像模式）: {}", sourceName);
+        } else if (options.isNpmMode()) {
+            logger.info("npm包目录: {}", options.repositoryPath);
+        } else {
+            logger.info("本地仓库路径: {}", options.repositoryPath);
+        }
+        logger.info("Nexus仓库URL: {}", options.nexusUrl);
+        logger.info("用户名: {}", options.authToken != null ? "(Bearer令牌)" : options.username);
+        for (int i = 1; i < session.targets.size(); i++) {
+            NexusTarget target = session.targets.get(i);
+            logger.info("其他上传目标: {} (用户名: {})", target.getUrl(), target.getUsername());
+        }
+        if (session.isMultiTarget()) {
+            logger.info("多目标共享读取缓冲: {} MB", options.fanoutBufferMB);
+        }
+        logger.info("是否只上传快照版本: {}", options.isSnapshots);
+        if (filter != null) {
+            logger.info("包含: {}, 排除: {}, 文件大小: {} - {}, 修改时间: {} - {}",
+                    options.includes.isEmpty() ? "全部" : options.includes,
+                    options.excludes.isEmpty() ? "无" : options.excludes,
+                    options.minSize > 0 ? options.minSize : "-", options.maxSize > 0 ? options.maxSize : "-",
+                    options.modifiedAfter > 0 ? Instant.ofEpochMilli(options.modifiedAfter) : "-",
+                    options.modifiedBefore > 0 ? Instant.ofEpochMilli(options.modifiedBefore) : "-");
+        }
+        logger.info("上传方式: {}", options.uploadMode);
+        if (options.isNpmMode()) {
+            logger.info("npm dist-tag: {}", options.npmTag);
+        }
+        logger.info("上传引擎: {}", options.engineType);
+        logger.info("线程池大小: {}", session.uploadWorkers);
+        if (options.isAsync()) {
+            logger.info("最大在途请求数: {}", options.maxInFlight);
+        }
+        logger.info("自适应并发: {}, 初始并发上限: {}, 最大并发上限: {}",
+                limiter.isAdaptive(), limiter.getLimit(), limiter.getMaxLimit());
+        logger.info("扫描线程数: {}", options.scanParallelism);
+        logger.info("上传顺序: {}, POM优先: {}, 小文件批量: {}, 调度窗口: {}",
+                options.schedulePolicy.getOptionName(), options.pomFirst, options.smallFileBatch,
+                options.scheduleWindow);
+        logger.info("上传前远程预检: {}", options.remotePrecheck);
+        logger.info("上传校验文件: {}", options.uploadChecksums);
+        logger.info("Expect: 100-continue: {}", options.expectContinue ? "请求体 >= "
+                + NexusHttpClients.EXPECT_CONTINUE_MIN_SIZE / 1024 + " KB" : "off");
+        logger.info("生成maven-metadata.xml: {}", options.generateMetadata);
+        logger.info("上传日志: {}", options.useJournal ? (options.journalPath != null ? options.journalPath
+                : UploadJournal.defaultFileName(options.nexusUrl)) : "off");
+        logger.info("死信文件: {}, 熔断: {}", options.useDeadLetter ? deadLetterFile : "off", options.circuitBreaker);
+        if (options.replayDeadLetters) {
+            logger.info("重放死信: {}", options.replayPath != null ? options.replayPath : deadLetterFile);
+        }
+        logger.info("单个文件大小限制: {} MB", options.maxFileSize / (1024 * 1024));
+        logger.info("JMX指标: {}, Prometheus端口: {}", options.jmxMetrics,
+                options.metricsPort > 0 ? options.metricsPort : "off");
+        logger.info("监视模式: {}", options.watchMode ? "debounce " + options.watchDebounceMillis + " ms" : "off");
+    }
+
+    /**
+     * 周期性汇总：分别输出扫描速率和上传速率，上传速率为最近一个滑动窗口内的值，取代逐个文件的日志
+     */
+    void logProgress(ArtifactScanner scanner) {
+        NexusTarget primary = session.targets.get(0);
+        logger.info("扫描进度 - {}", scanner.describeProgress());
+        logger.info("上传进度 - 文件: {} (近{}秒 {}/s), 速度: {}/s, 总计: {} MB, 上传耗时 p50/p99: {}/{} ms, "
+                + "进行中: {}, 并发上限: {}/{}, 排队: {}, 已跳过: {}, 重试: {}, 失败: {}",
+                metrics.getUploadedFiles(),
+                metrics.getRateWindowSeconds(),
+                String.format("%.1f", metrics.getFilesPerSecond()),
+                formatSpeed((long) metrics.getBytesPerSecond()),
+                String.format("%.2f", metrics.getUploadedBytes() / (1024.0 * 1024.0)),
+                String.format("%.0f", metrics.getUploadLatencyP50Millis()),
+                String.format("%.0f", metrics.getUploadLatencyP99Millis()),
+                session.activeUploads.get(),
+                primary.limiter.getLimit(),
+                primary.limiter.getMaxLimit(),
+                session.uploadQueue.size(),
+                metrics.getJournalSkippedFiles() + metrics.getRemoteSkippedFiles(),
+                metrics.getRetries(),
+                metrics.getFailedUploads());
+        if (session.isMultiTarget()) {
+            for (NexusTarget target : session.targets) {
+                logger.info("目标 {} - 上传: {}, 积压: {}, 在途: {}, 并发上限: {}/{}, 已跳过: {}, 重试: {}, 失败: {}",
+                        target.getUrl(),
+                        target.getUploadedFiles(),
+                        target.getBacklog(),
+                        target.limiter.getInFlight(),
+                        target.limiter.getLimit(),
+                        target.limiter.getMaxLimit(),
+                        target.getSkippedFiles(),
+                        target.getRetries(),
+                        target.getFailedUploads());
+            }
+        }
+    }
+
+    /**
+     * 全部上传结束后的汇总
+     *
+     * @param totalSeconds 从开始到现在的总用时（秒）
+     */
+    void logSummary(double totalSeconds) {
+        double totalSizeMB = metrics.getUploadedBytes() / (1024.0 * 1024.0);
+        logger.info("Upload process completed - Total Files: {}, Total Size: {} MB in {} seconds",
+                metrics.getUploadedFiles(),
+                String.format("%.2f", totalSizeMB),
+                String.format("%.2f", totalSeconds));
+        logger.info("已跳过（上传日志中已存在）: {}, 已跳过（目标仓库已存在）: {}, 失败: {}, 重试: {}",
+                metrics.getJournalSkippedFiles(), metrics.getRemoteSkippedFiles(),
+                metrics.getFailedUploads(), metrics.getRetries());
+        if (session.isMultiTarget()) {
+            for (NexusTarget target : session.targets) {
+                logger.info("目标 {} - 上传: {} 个文件 ({} MB), 已跳过: {}, 失败: {}, 重试: {}",
+                        target.getUrl(),
+                        target.getUploadedFiles(),
+                        String.format("%.2f", target.getUploadedBytes() / (1024.0 * 1024.0)),
+                        target.getSkippedFiles(),
+                        target.getFailedUploads(),
+                        target.getRetries());
+            }
+        }
+        for (NexusTarget target : session.targets) {
+            if (target.componentUploader != null) {
+                logger.info("组件上传 {} - 组件: {}, 文件: {}, 回退为逐个上传的组件: {}",
+                        target.getUrl(),
+                        target.componentUploader.getUploadedComponents(),
+                        target.componentUploader.getUploadedFiles(),
+                        target.componentUploader.getFallbackComponents());
+            }
+            if (target.npmPublisher != null) {
+                logger.info("npm发布 {} - 已发布: {}, 被拒绝: {}",
+                        target.getUrl(),
+                        target.npmPublisher.getPublishedPackages(),
+                        target.npmPublisher.getRejectedPackages());
+            }
+        }
+        for (NexusTarget target : session.targets) {
+            CircuitBreaker breaker = target.limiter.getCircuitBreaker();
+            if (breaker != null && breaker.getOpenCount() > 0) {
+                logger.info("熔断 {} - 暂停次数: {}", target.getUrl(), breaker.getOpenCount());
+            }
+        }
+        DeadLetterLog deadLetters = session.deadLetters;
+        if (deadLetters != null && deadLetters.size() > 0) {
+            logger.info("死信: {} 条已写入 {}，可使用--replay只重新上传这些文件",
+                    deadLetters.size(), deadLetters.getFile());
+        }
+        logPhaseTimings();
+        logDigestCost(totalSeconds);
+        logWireUsage();
+    }
+
+    /**
+     * 输出各阶段耗时的分位数
+     */
+    private void logPhaseTimings() {
+        for (UploadMetrics.Phase phase : UploadMetrics.Phase.values()) {
+            LatencyHistogram histogram = metrics.histogram(phase);
+            if (histogram.getCount() == 0) {
+                continue;
+            }
+            logger.info("阶段耗时 {} - 次数: {}, 平均: {} ms, p50: {} ms, p99: {} ms, 最大: {} ms",
+                    phase.getMetricName(),
+                    histogram.getCount(),
+                    String.format("%.2f", histogram.getSumNanos() / 1e6 / histogram.getCount()),
+                    String.format("%.2f", histogram.percentile(0.5) / 1e6),
+                    String.format("%.2f", histogram.percentile(0.99) / 1e6),
+                    String.format("%.2f", histogram.getMaxNanos() / 1e6));
+        }
+    }
+
+    /**
+     * 输出摘要计算的开销：单核摘要吞吐量和占全部上传线程时间的比例
+     */
+    private void logDigestCost(double totalSeconds) {
+        long nanos = metrics.getDigestNanos();
+        if (nanos == 0) {
+            return;
+        }
+        double digestSeconds = nanos / 1e9;
+        double threadSeconds = Math.max(totalSeconds * session.uploadWorkers, 0.001);
+        logger.info("摘要计算 - 数据量: {} MB, 耗时: {} 秒, 单核吞吐: {}/s, 占上传线程时间: {}%, 校验文件失败: {}",
+                String.format("%.2f", metrics.getDigestedBytes() / (1024.0 * 1024.0)),
+                String.format("%.3f", digestSeconds),
+                formatSpeed((long) (metrics.getDigestedBytes() / digestSeconds)),
+                String.format("%.2f", digestSeconds * 100 / threadSeconds),
+                metrics.getChecksumFailures());
+    }
+
+    /**
+     * 网络传输汇总：连接上实际发送的字节数与上传成功的文件大小之比接近1时，每个文件只发送了一次；
+     * 多出的部分是请求头、校验文件、元数据和重试
+     */
+    private void logWireUsage() {
+        long payload = metrics.getUploadedBytes();
+        logger.info("网络传输 - 请求: {}, 发送: {} MB, 接收: {} MB, 文件内容: {} MB, 发送/内容: {}, 401: {}, 未发送请求体的拒绝: {}",
+                metrics.getRequests(),
+                String.format("%.2f", metrics.getWireSentBytes() / (1024.0 * 1024.0)),
+                String.format("%.2f", metrics.getWireReceivedBytes() / (1024.0 * 1024.0)),
+                String.format("%.2f", payload / (1024.0 * 1024.0)),
+                payload > 0 ? String.format("%.3f", metrics.getWireSentBytes() / (double) payload) : "-",
+                metrics.getAuthChallenges(),
+                metrics.getWithheldBodies());
+    }
+
+    /**
+     * 格式化速率显示
+     */
+    private static String formatSpeed(long bytesPerSecond) {
+        if (bytesPerSecond < 1024) {
+            return bytesPerSecond + " B";
+        } else if (bytesPerSecond < 1024 * 1024) {
+            return String.format("%.2f KB", bytesPerSecond / 1024.0);
+        } else {
+            return String.format("%.2f MB", bytesPerSecond / (1024.0 * 1024.0));
+        }
+    }
+}
@@ -0,0 +1,237 @@
+package com.xus.UploadJar2Nexus;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 扫描阶段与上传阶段之间的调度队列，取代原来的FIFO队列
+ * 最多缓存capacity个待上传文件（内存有界，已满时put阻塞扫描线程），在这个窗口内按调度策略决定上传顺序：
+ * <ul>
+ * <li>fifo：按扫描顺序</li>
+ * <li>largest-first：先上传大文件，避免少数大文件在最后单独上传、其他线程空闲</li>
+ * </ul>
+ * 另外可以组合两个规则：
+ * <ul>
+ * <li>pom-first：取出某个JAR时，如果同一GAV目录的POM还在队列中，先交出POM</li>
+ * <li>小文件批量：取出的是小文件时，连同后续的小文件一起交给一个工作线程，减少线程交接开销</li>
+ * </ul>
+ * 通过putGroup加入的一组文件（组件上传时同一GAV目录的全部文件）总是作为一批整体取出，不与其他文件合并。
+ * 扫描结束后调用close，队列取空后take返回空列表，工作线程据此退出。
+ */
+public class UploadScheduler {
+    // 小于该大小的文件可以合并为一批
+    static final long SMALL_FILE_BYTES = 256 * 1024;
+
+    public enum Policy {
+        FIFO("fifo"),
+        LARGEST_FIRST("largest-first");
+
+        private final String optionName;
+
+        Policy(String optionName) {
+            this.optionName = optionName;
+        }
+
+        public String getOptionName() {
+            return optionName;
+        }
+
+        public static Policy fromOption(String value) {
+            for (Policy policy : values()) {
+                if (policy.optionName.equalsIgnoreCase(value)) {
+                    return policy;
+                }
+            }
+            throw new IllegalArgumentException("Unknown schedule policy: " + value);
+        }
+    }
+
+    /**
+     * 队列中的一项，sequence为加入顺序，保证排序唯一
+     */
+    private static final class Entry {
+        final ArtifactFile artifact;
+        final long sequence;
+        // 所属的组，单个文件时为null
+        List<Entry> group;
+
+        Entry(ArtifactFile artifact, long sequence) {
+            this.artifact = artifact;
+            this.sequence = sequence;
+        }
+    }
+
+    private final Policy policy;
+    private final boolean pomFirst;
+    private final int batchSize;
+    private final int capacity;
+    // 有序集合而不是PriorityQueue，提前取出POM时可以按O(log n)删除
+    private final TreeSet<Entry> queue;
+    // GAV目录 -> 队列中尚未取出的POM
+    private final Map<String, Entry> pendingPoms = new HashMap<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Condition notFull = lock.newCondition();
+    private long sequence;
+    private boolean closed;
+
+    /**
+     * @param policy 调度策略
+     * @param pomFirst 同一GAV内是否先上传POM
+     * @param batchSize 小文件每批最多的文件数，1表示不合并
+     * @param capacity 最多缓存的待上传文件数
+     */
+    public UploadScheduler(Policy policy, boolean pomFirst, int batchSize, int capacity) {
+        this.policy = policy;
+        this.pomFirst = pomFirst;
+        this.batchSize = Math.max(1, batchSize);
+        this.capacity = Math.max(1, capacity);
+        Comparator<Entry> bySequence = (a, b) -> Long.compare(a.sequence, b.sequence);
+        Comparator<Entry> comparator = policy == Policy.LARGEST_FIRST
+                ? Comparator.<Entry>comparingLong(e -> e.artifact.getSize()).reversed().thenComparing(bySequence)
+                : bySequence;
+        this.queue = new TreeSet<>(comparator);
+    }
+
+    /**
+     * 加入一个待上传文件，队列已满时阻塞
+     */
+    public void put(ArtifactFile artifact) throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            while (queue.size() >= capacity) {
+                notFull.await();
+            }
+            if (closed) {
+                throw new IllegalStateException("Scheduler already closed");
+            }
+            Entry entry = new Entry(artifact, sequence++);
+            queue.add(entry);
+            if (pomFirst && "pom".equals(artifact.getType())) {
+                pendingPoms.put(gavDirectory(artifact), entry);
+            }
+            notEmpty.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 加入一组必须一起上传的文件，按组中最先被调度的文件排序，队列放不下时阻塞
+     * 组比整个队列还大时，等队列取空后加入
+     */
+    public void putGroup(List<ArtifactFile> artifacts) throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            while (!queue.isEmpty() && queue.size() + artifacts.size() > capacity) {
+                notFull.await();
+            }
+            if (closed) {
+                throw new IllegalStateException("Scheduler already closed");
+            }
+            List<Entry> group = new ArrayList<>(artifacts.size());
+            for (ArtifactFile artifact : artifacts) {
+                Entry entry = new Entry(artifact, sequence++);
+                entry.group = group;
+                group.add(entry);
+            }
+            queue.addAll(group);
+            notEmpty.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 取出下一批待上传文件，队列为空时阻塞；已关闭且取空后返回空列表
+     */
+    public List<ArtifactFile> take() throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            while (queue.isEmpty()) {
+                if (closed) {
+                    return Collections.emptyList();
+                }
+                notEmpty.await();
+            }
+            List<ArtifactFile> batch = new ArrayList<>(1);
+            Entry head = poll();
+            if (head.group != null) {
+                for (Entry entry : head.group) {
+                    queue.remove(entry);
+                    batch.add(entry.artifact);
+                }
+            } else {
+                batch.add(head.artifact);
+            }
+            if (head.group == null && batchSize > 1 && head.artifact.getSize() < SMALL_FILE_BYTES) {
+                while (batch.size() < batchSize && !queue.isEmpty() && queue.first().group == null
+                        && queue.first().artifact.getSize() < SMALL_FILE_BYTES) {
+                    batch.add(poll().artifact);
+                }
+            }
+            notFull.signalAll();
+            if (!queue.isEmpty()) {
+                notEmpty.signal();
+            }
+            return batch;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 扫描结束，不再加入新文件；队列中剩余的文件仍会被取出
+     */
+    public void close() {
+        lock.lock();
+        try {
+            closed = true;
+            notEmpty.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int size() {
+        lock.lock();
+        try {
+            return queue.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public Policy getPolicy() {
+        return policy;
+    }
+
+    private Entry poll() {
+        Entry entry = queue.first();
+        if (pomFirst) {
+            Entry pom = pendingPoms.remove(gavDirectory(entry.artifact));
+            if (pom != null) {
+                // 同一GAV的POM还没有上传时先交出POM，当前文件留在队列中
+                entry = pom;
+            }
+        }
+        queue.remove(entry);
+        return entry;
+    }
+
+    /**
+     * 文件所在目录（groupId/artifactId/version）的相对路径
+     */
+    private static String gavDirectory(ArtifactFile artifact) {
+        String relativePath = artifact.getRelativePath();
+        int slash = relativePath.lastIndexOf('/');
+        return slash < 0 ? "" : relativePath.substring(0, slash);
+    }
+}
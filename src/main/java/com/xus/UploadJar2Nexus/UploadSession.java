@@ -0,0 +1,196 @@
+package com.xus.UploadJar2Nexus;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 一次运行（start()）中各上传方式共用的状态：配置、上传目标、调度队列、计数和死信
+ * 扫描阶段通过{@link #shouldUpload}选择文件放入调度队列，上传阶段每个文件处理完毕（上传成功、失败或跳过）后
+ * 由上传方式把pendingFiles减一；监视模式据此判断一批文件是否全部处理完。
+ */
+final class UploadSession {
+    private static final Logger logger = LoggerFactory.getLogger(UploadSession.class);
+
+    final UploadOptions options;
+    final UploadMetrics metrics;
+    // 上传目标，第一个为命令行中的nexusUrl，其余来自--target；每个目标有自己的连接池、上传引擎和上传日志
+    final List<NexusTarget> targets = new ArrayList<>();
+    // 当前活跃（在途）的上传任务计数器
+    final AtomicInteger activeUploads = new AtomicInteger(0);
+    // 已放入调度队列、尚未处理完（上传成功、失败或跳过）的文件数
+    final AtomicInteger pendingFiles = new AtomicInteger(0);
+    // 由配置中的过滤条件编译而成，没有任何条件时为null
+    final ArtifactFilter filter;
+    // 扫描阶段与上传阶段之间的有界调度队列
+    UploadScheduler uploadQueue;
+    // 多目标上传时所有共享读取共用的缓冲预算（块）
+    Semaphore fanoutBudget;
+    // 镜像模式的源仓库，仓库路径为本地目录时为null
+    RemoteRepository source;
+    // 本次运行最终上传失败的文件，不记录时为null
+    DeadLetterLog deadLetters;
+    // 实际启动的上传线程数
+    int uploadWorkers;
+
+    UploadSession(UploadOptions options, UploadMetrics metrics) {
+        this.options = options;
+        this.metrics = metrics;
+        this.filter = options.createFilter();
+    }
+
+    boolean isMultiTarget() {
+        return targets.size() > 1;
+    }
+
+    /**
+     * 处理扫描到的构件文件（JAR或POM）
+     * 根据isSnapshots配置过滤版本，跳过上传日志中已记录的文件，其余放入上传队列；
+     * 队列已满时阻塞，从而限制扫描速度
+     * 快照按版本目录判断，文件名为时间戳格式（例如foo-1.0-20240101.120000-1.jar）的快照同样识别
+     *
+     * @param artifact 扫描到的构件文件
+     */
+    void enqueue(ArtifactFile artifact) throws InterruptedException {
+        if (!shouldUpload(artifact)) {
+            return;
+        }
+        logger.debug("Submitting upload task for: {}", artifact.getPath());
+        pendingFiles.incrementAndGet();
+        uploadQueue.put(artifact);
+    }
+
+    /**
+     * 根据isSnapshots和过滤条件选择构件，登记元数据，判断文件是否需要上传（所有目标的上传日志中都已记录时不需要）
+     * npm包没有Maven坐标，只按大小、修改时间和上传日志判断
+     */
+    boolean shouldUpload(ArtifactFile artifact) {
+        MavenCoordinates coordinates = artifact.getCoordinates();
+        if (coordinates != null) {
+            if (coordinates.isSnapshot() != options.isSnapshots) {
+                return false;
+            }
+        }
+        if (filter != null && !filter.matches(artifact)) {
+            return false;
+        }
+        if (coordinates != null) {
+            for (NexusTarget target : targets) {
+                if (target.metadataPublisher != null) {
+                    target.metadataPublisher.register(coordinates);
+                }
+            }
+        }
+
+        // 多个目标时只跳过所有目标的上传日志中都已记录的文件，其余目标在上传阶段逐个判断
+        boolean journaled = true;
+        for (NexusTarget target : targets) {
+            if (!isJournaled(target, artifact)) {
+                journaled = false;
+                break;
+            }
+        }
+        if (journaled) {
+            metrics.recordJournalSkip();
+            for (NexusTarget target : targets) {
+                target.recordSkip();
+            }
+            logger.debug("Already uploaded according to journal: {}", artifact.getRelativePath());
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * 判断目标的上传日志中是否已记录该文件，未使用上传日志或无法校验时返回false
+     */
+    boolean isJournaled(NexusTarget target, ArtifactFile artifact) {
+        if (target.journal == null) {
+            return false;
+        }
+        try {
+            return target.journal.isUploaded(artifact);
+        } catch (IOException e) {
+            logger.warn("无法校验上传日志记录 {}: {}", artifact.getRelativePath(), e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * 把最终上传失败的文件写入死信文件
+     */
+    void recordDeadLetter(NexusTarget target, ArtifactFile artifact, Throwable error) {
+        if (deadLetters == null) {
+            return;
+        }
+        try {
+            deadLetters.record(target.getUrl(), artifact, error.getMessage());
+        } catch (IOException e) {
+            logger.warn("无法写入死信文件 {}: {}", artifact.getRelativePath(), e.getMessage());
+        }
+    }
+
+    /**
+     * 日志中的目标后缀：多个目标时为" -> 目标URL"，只有一个目标时为空
+     */
+    String describeTarget(NexusTarget target) {
+        return isMultiTarget() ? " -> " + target.getUrl() : "";
+    }
+
+    /**
+     * 等待已放入调度队列的文件全部处理完毕
+     */
+    void awaitPendingUploads() throws InterruptedException {
+        while (pendingFiles.get() > 0) {
+            Thread.sleep(100);
+        }
+    }
+
+    /**
+     * 把运行时状态注册为指标；多个目标时在途请求数和并发上限为各目标之和
+     */
+    void registerGauges() {
+        metrics.registerGauge("active_uploads", activeUploads::get);
+        metrics.registerGauge("queued_files", () -> uploadQueue != null ? uploadQueue.size() : 0);
+        metrics.registerGauge("in_flight_requests", () -> {
+            long inFlight = 0;
+            for (NexusTarget target : targets) {
+                inFlight += target.limiter.getInFlight();
+            }
+            return inFlight;
+        });
+        metrics.registerGauge("open_circuits", () -> {
+            long open = 0;
+            for (NexusTarget target : targets) {
+                CircuitBreaker breaker = target.limiter.getCircuitBreaker();
+                if (breaker != null && breaker.getState() != CircuitBreaker.State.CLOSED) {
+                    open++;
+                }
+            }
+            return open;
+        });
+        metrics.registerGauge("concurrency_limit", () -> {
+            long limit = 0;
+            for (NexusTarget target : targets) {
+                limit += target.limiter.getLimit();
+            }
+            return limit;
+        });
+    }
+
+    /**
+     * 按构件生成并上传本批文件对应的maven-metadata.xml
+     */
+    void publishMetadata() {
+        for (NexusTarget target : targets) {
+            if (target.metadataPublisher != null) {
+                target.metadataPublisher.publish(options.threadPoolSize);
+            }
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.xus.UploadJar2Nexus;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpHead;
+import org.apache.http.util.EntityUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 监视模式：首次上传完成后监视仓库目录，按批上传新增或变化的文件，直到进程收到终止信号
+ * 上传线程、HTTP连接池和调度队列在各批之间保持不变，空闲时定期发送HEAD请求保持连接，
+ * 因此新构件不需要重新扫描整个仓库，也不需要重新建立连接。
+ * 收到终止信号后由关闭钩子关闭监视器，{@link #run()}随之返回，剩余上传和收尾工作回到start()完成。
+ */
+final class WatchMode {
+    private static final Logger logger = LoggerFactory.getLogger(WatchMode.class);
+    // 等待同一GAV的POM的最长时间
+    private static final long MAX_WAIT_MS = 30000;
+    // 空闲时保持连接的间隔，小于连接的保持时间（30秒）
+    private static final long KEEP_WARM_INTERVAL_MS = 20000;
+
+    private final UploadSession session;
+    private final RepositoryScanner scanner;
+    private final RepositoryWatcher watcher;
+
+    WatchMode(UploadSession session, RepositoryScanner scanner, RepositoryWatcher watcher) {
+        this.session = session;
+        this.scanner = scanner;
+        this.watcher = watcher;
+    }
+
+    /**
+     * 开始监视仓库目录，在首次扫描之前调用，扫描期间新增的文件同样会产生事件
+     * npm包目录中没有POM，安静后即可上传
+     */
+    static RepositoryWatcher createWatcher(Path root, UploadOptions options) throws IOException {
+        return new RepositoryWatcher(root, options.watchDebounceMillis, options.isNpmMode() ? 0 : MAX_WAIT_MS,
+                KEEP_WARM_INTERVAL_MS);
+    }
+
+    /**
+     * 等待首次上传（包括元数据）完成
+     */
+    void awaitFirstUpload() throws InterruptedException {
+        session.awaitPendingUploads();
+        session.publishMetadata();
+        if (session.targets.get(0).journal == null) {
+            logger.warn("监视模式未使用上传日志，目录中未变化的文件也会随新文件重新上传");
+        }
+    }
+
+    /**
+     * 监视目录并上传变化的文件，直到监视器被关闭
+     */
+    void run() throws InterruptedException {
+        logger.info("监视模式已启动，等待新的构件");
+        final UploadMetrics metrics = session.metrics;
+
+        watcher.run(new RepositoryWatcher.BurstListener() {
+            @Override
+            public void onBurst(List<Path> directories) throws InterruptedException {
+                long begin = System.currentTimeMillis();
+                long uploaded = metrics.getUploadedFiles();
+                for (Path directory : directories) {
+                    scanner.scanDirectory(directory);
+                }
+                session.awaitPendingUploads();
+                session.publishMetadata();
+                logger.info("监视模式 - 目录: {}, 上传文件: {}, 用时: {} 秒, 累计上传: {}, 失败: {}",
+                        directories.size(),
+                        metrics.getUploadedFiles() - uploaded,
+                        String.format("%.2f", (System.currentTimeMillis() - begin) / 1000.0),
+                        metrics.getUploadedFiles(),
+                        metrics.getFailedUploads());
+            }
+
+            @Override
+            public void onOverflow() throws InterruptedException {
+                try {
+                    scanner.start().get();
+                } catch (ExecutionException e) {
+                    logger.error("仓库扫描失败", e.getCause());
+                }
+                scanner.markFinished();
+                onBurst(Collections.<Path>emptyList());
+            }
+
+            @Override
+            public void onIdle() {
+                keepConnectionsWarm();
+            }
+        });
+    }
+
+    /**
+     * 向每个目标仓库发送一个HEAD请求，使连接池中的连接不因空闲超时被关闭
+     */
+    private void keepConnectionsWarm() {
+        for (NexusTarget target : session.targets) {
+            try (CloseableHttpResponse response = target.httpClient.execute(new HttpHead(target.getUrl()))) {
+                EntityUtils.consume(response.getEntity());
+            } catch (IOException e) {
+                logger.debug("Keep-alive request to {} failed: {}", target.getUrl(), e.getMessage());
+            }
+        }
+    }
+}
@@ -10,21 +10,34 @@ if (-Not (Test-Path -Path $outputDir)) {
     New-Item -ItemType Directory -Path $outputDir
 }
 
-# 遍历依赖并打包
+# 收集需要打包的依赖
+$packageSpecs = @()
 foreach ($package in $dependenciesJson.dependencies.PSObject.Properties) {
-    $packageName = $package.Name
-    $packageVersion = $package.Value.version
-    $packageSpec = "$packageName@$packageVersion"
+    $packageSpecs += "$($package.Name)@$($package.Value.version)"
+}
+
+# 每次npm pack打包一批依赖，避免为每个依赖启动一次npm进程；一批失败时逐个重试以找出失败的依赖
+$batchSize = 50
+for ($i = 0; $i -lt $packageSpecs.Count; $i += $batchSize) {
+    $batch = $packageSpecs[$i..([Math]::Min($i + $batchSize, $packageSpecs.Count) - 1)]
 
-    Write-Host "Packaging $packageSpec..."
+    Write-Host "Packaging $($batch.Count) packages ($($i + 1)-$($i + $batch.Count) of $($packageSpecs.Count))..."
 
-    # 使用 npm pack 打包依赖
-    $tarball = npm pack $packageSpec --pack-destination $outputDir 2>&1
+    $tarballs = npm pack @batch --pack-destination $outputDir 2>&1
 
     if ($LASTEXITCODE -eq 0) {
-        Write-Host "Packaged: $tarball"
-    } else {
-        Write-Host "Failed to package: $packageSpec"
+        Write-Host "Packaged: $($batch -join ', ')"
+        continue
+    }
+
+    foreach ($packageSpec in $batch) {
+        $tarball = npm pack $packageSpec --pack-destination $outputDir 2>&1
+
+        if ($LASTEXITCODE -eq 0) {
+            Write-Host "Packaged: $tarball"
+        } else {
+            Write-Host "Failed to package: $packageSpec"
+        }
     }
 }
 
@@ -0,0 +1,159 @@
+package com.xus.UploadJar2Nexus;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Date;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.client.utils.DateUtils;
+import org.junit.Test;
+
+public class AdaptiveConcurrencyLimiterTest {
+
+    @Test
+    public void fixedLimitIgnoresFeedback() throws InterruptedException {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(false, 2, 3);
+        assertEquals(3, limiter.getLimit());
+        limiter.onResponse(503, "1", 0, 0);
+        limiter.onResponse(500, null, 0, 0);
+        limiter.onError();
+        assertEquals(3, limiter.getLimit());
+        // 没有Retry-After暂停，名额用满之前不阻塞
+        for (int i = 0; i < 3; i++) {
+            limiter.acquire();
+        }
+        assertEquals(3, limiter.getInFlight());
+    }
+
+    /**
+     * 慢启动：上限被用满时每次成功加1，没有用满时不增加
+     */
+    @Test
+    public void slowStartGrowsOnlyWhenSaturated() throws InterruptedException {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(true, 4, 64);
+        limiter.onSuccess(10, 0);
+        assertEquals(4, limiter.getLimit());
+        for (int i = 0; i < 4; i++) {
+            limiter.acquire();
+        }
+        limiter.onSuccess(10, 0);
+        limiter.onSuccess(10, 0);
+        assertEquals(6, limiter.getLimit());
+    }
+
+    @Test
+    public void blocksAtLimitUntilRelease() throws InterruptedException {
+        final AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(true, 1, 4);
+        limiter.acquire();
+        final CountDownLatch acquired = new CountDownLatch(1);
+        Thread waiter = new Thread(() -> {
+            try {
+                limiter.acquire();
+                acquired.countDown();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        waiter.start();
+        assertFalse(acquired.await(100, TimeUnit.MILLISECONDS));
+        limiter.release();
+        assertTrue(acquired.await(1, TimeUnit.SECONDS));
+        waiter.join();
+    }
+
+    /**
+     * 上次降低之前发出的请求返回的5xx反映的是旧的上限，不再降低；之后发出的请求出错才继续降低
+     */
+    @Test
+    public void decreasesOncePerWindow() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(true, 32, 64);
+        limiter.onResponse(500, null, 0, 0);
+        assertEquals(22, limiter.getLimit());
+        limiter.onResponse(500, null, 200, 0);
+        limiter.onResponse(503, null, 200, 0);
+        assertEquals(22, limiter.getLimit());
+        limiter.onResponse(500, null, 0, 0);
+        assertEquals(15, limiter.getLimit());
+    }
+
+    /**
+     * 没有发出时间的信号（网络错误）在冷却期内只降低一次
+     */
+    @Test
+    public void errorsWithinCooldownDecreaseOnce() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(true, 10, 64);
+        limiter.onError();
+        limiter.onError();
+        limiter.onError();
+        assertEquals(7, limiter.getLimit());
+    }
+
+    @Test
+    public void neverDropsBelowOne() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(true, 8, 64);
+        for (int i = 0; i < 10; i++) {
+            limiter.onResponse(429, null, 0, 0);
+        }
+        assertEquals(1, limiter.getLimit());
+    }
+
+    /**
+     * 429/503减半，并按Retry-After暂停发出新的请求
+     */
+    @Test
+    public void overloadHalvesAndPauses() throws InterruptedException {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(true, 16, 64);
+        limiter.onOverload(200);
+        assertEquals(8, limiter.getLimit());
+        long start = System.nanoTime();
+        limiter.acquire();
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 150);
+    }
+
+    @Test
+    public void latencyRiseDecreases() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(true, 20, 64);
+        for (int i = 0; i < 10; i++) {
+            limiter.onSuccess(10, 0);
+        }
+        assertEquals(20, limiter.getLimit());
+        // 延迟按请求体大小归一化，大文件的耗时不算拥塞
+        limiter.onSuccess(100, 20 * 1024 * 1024);
+        assertEquals(20, limiter.getLimit());
+        limiter.onSuccess(100, 0);
+        assertEquals(18, limiter.getLimit());
+    }
+
+    @Test
+    public void feedsCircuitBreaker() {
+        CircuitBreaker breaker = new CircuitBreaker("test", 100);
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(false, 4, 4, breaker);
+        for (int i = 0; i < CircuitBreaker.FAILURE_THRESHOLD - 1; i++) {
+            limiter.onResponse(502, null, 0, 0);
+        }
+        // 4xx说明服务器能正常回应，连续失败重新计数
+        limiter.onResponse(404, null, 0, 0);
+        for (int i = 0; i < CircuitBreaker.FAILURE_THRESHOLD - 1; i++) {
+            limiter.onError();
+        }
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        limiter.onResponse(429, null, 0, 0);
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+    }
+
+    @Test
+    public void parsesRetryAfter() {
+        assertEquals(0, AdaptiveConcurrencyLimiter.parseRetryAfter(null));
+        assertEquals(0, AdaptiveConcurrencyLimiter.parseRetryAfter(" "));
+        assertEquals(0, AdaptiveConcurrencyLimiter.parseRetryAfter("soon"));
+        assertEquals(0, AdaptiveConcurrencyLimiter.parseRetryAfter("-3"));
+        assertEquals(5000, AdaptiveConcurrencyLimiter.parseRetryAfter(" 5 "));
+        long millis = AdaptiveConcurrencyLimiter.parseRetryAfter(
+                DateUtils.formatDate(new Date(System.currentTimeMillis() + 60000)));
+        assertTrue(millis > 55000 && millis <= 60000);
+        assertEquals(0, AdaptiveConcurrencyLimiter.parseRetryAfter(DateUtils.formatDate(new Date(0))));
+    }
+}
@@ -0,0 +1,157 @@
+package com.xus.UploadJar2Nexus;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+
+import org.junit.Test;
+
+public class ArtifactFilterTest {
+
+    @Test
+    public void noRulesAcceptsEverything() {
+        ArtifactFilter filter = filter(none(), none());
+        assertFalse(filter.hasCoordinateRules());
+        assertEquals(Collections.singletonList(""), filter.getStartDirectories());
+        assertTrue(filter.allowsDirectory("org/example"));
+        assertTrue(filter.matches(artifact("org/example/foo/1.0/foo-1.0.jar")));
+        assertEquals(0, filter.getPrunedDirectories());
+    }
+
+    /**
+     * com.ourcorp.**只读取com/ourcorp及其下的目录，兄弟目录在扫描时跳过
+     */
+    @Test
+    public void includePrunesSiblingDirectories() {
+        ArtifactFilter filter = filter(Arrays.asList("com.ourcorp.**"), none());
+        assertEquals(Collections.singletonList("com/ourcorp/"), filter.getStartDirectories());
+        assertTrue(filter.allowsDirectory("com"));
+        assertTrue(filter.allowsDirectory("com/ourcorp/"));
+        assertTrue(filter.allowsDirectory("com/ourcorp/app/core/1.0"));
+        assertFalse(filter.allowsDirectory("org"));
+        assertFalse(filter.allowsDirectory("com/other"));
+        assertEquals(2, filter.getPrunedDirectories());
+
+        assertTrue(filter.matches(artifact("com/ourcorp/core/1.0/core-1.0.jar")));
+        assertTrue(filter.matches(artifact("com/ourcorp/app/core/1.0/core-1.0.jar")));
+        assertFalse(filter.matches(artifact("com/ourcorpx/core/1.0/core-1.0.jar")));
+        assertFalse(filter.matches(artifact("org/example/foo/1.0/foo-1.0.jar")));
+        assertEquals(2, filter.getExcludedByCoordinates());
+    }
+
+    @Test
+    public void versionGlobPrunesVersionDirectories() {
+        ArtifactFilter filter = filter(Arrays.asList("org.foo:*:1.*"), none());
+        assertEquals(Collections.singletonList("org/foo/"), filter.getStartDirectories());
+        assertTrue(filter.allowsDirectory("org/foo/bar"));
+        assertTrue(filter.allowsDirectory("org/foo/bar/1.2"));
+        assertFalse(filter.allowsDirectory("org/foo/bar/2.0"));
+        // org.foo:*:1.*不包括org.foo.sub下的构件，bar/1.2之下不可能再有匹配的目录
+        assertFalse(filter.allowsDirectory("org/foo/bar/1.2/x"));
+
+        assertTrue(filter.matches(artifact("org/foo/bar/1.2/bar-1.2.jar")));
+        assertFalse(filter.matches(artifact("org/foo/bar/2.0/bar-2.0.jar")));
+        assertFalse(filter.matches(artifact("org/foo/sub/bar/1.2/bar-1.2.jar")));
+    }
+
+    /**
+     * 包含规则互为上下级时只从上级开始扫描
+     */
+    @Test
+    public void startDirectoriesFollowLiteralPrefixes() {
+        ArtifactFilter filter = filter(Arrays.asList("com.a.**", "com.a.b.**", "com.b:x", "org.?ar"), none());
+        assertEquals(new HashSet<>(Arrays.asList("com/a/", "com/b/x/", "org/")),
+                new HashSet<>(filter.getStartDirectories()));
+        assertTrue(filter.allowsDirectory("org/bar"));
+        assertFalse(filter.allowsDirectory("org/bazz"));
+        assertTrue(filter.matches(artifact("com/b/x/1.0/x-1.0.pom")));
+        assertFalse(filter.matches(artifact("com/b/y/1.0/y-1.0.pom")));
+    }
+
+    /**
+     * 排除规则只在其下所有可能的构件都被排除时跳过目录：
+     * com/ourcorp/internal本身可能是com.ourcorp:internal的构件目录，不能跳过
+     */
+    @Test
+    public void excludePrunesOnlyFullyCoveredDirectories() {
+        ArtifactFilter filter = filter(none(), Arrays.asList("com.ourcorp.internal.**"));
+        assertTrue(filter.hasCoordinateRules());
+        assertTrue(filter.allowsDirectory("com/ourcorp"));
+        assertTrue(filter.allowsDirectory("com/ourcorp/internal"));
+        assertTrue(filter.allowsDirectory("com/ourcorp/internal/x"));
+        assertFalse(filter.allowsDirectory("com/ourcorp/internal/x/y"));
+        assertEquals(1, filter.getPrunedDirectories());
+
+        assertTrue(filter.matches(artifact("com/ourcorp/internal/1.0/internal-1.0.jar")));
+        assertFalse(filter.matches(artifact("com/ourcorp/internal/x/1.0/x-1.0.jar")));
+        assertFalse(filter.matches(artifact("com/ourcorp/internal/x/y/1.0/y-1.0.jar")));
+    }
+
+    @Test
+    public void excludeWinsOverInclude() {
+        ArtifactFilter filter = filter(Arrays.asList("org.example"), Arrays.asList("org.example:*:*-SNAPSHOT"));
+        assertTrue(filter.matches(artifact("org/example/foo/1.0/foo-1.0.jar")));
+        assertFalse(filter.matches(artifact("org/example/foo/1.1-SNAPSHOT/foo-1.1-SNAPSHOT.jar")));
+    }
+
+    @Test
+    public void regexRules() {
+        ArtifactFilter filter = filter(Arrays.asList("~org\\.(foo|bar)(\\..*)?:~[a-z]+"), none());
+        // 正则groupId没有固定前缀，从仓库根目录开始扫描
+        assertEquals(Collections.singletonList(""), filter.getStartDirectories());
+        assertTrue(filter.matches(artifact("org/foo/lib/1.0/lib-1.0.jar")));
+        assertTrue(filter.matches(artifact("org/bar/sub/lib/1.0/lib-1.0.jar")));
+        assertFalse(filter.matches(artifact("org/baz/lib/1.0/lib-1.0.jar")));
+        assertFalse(filter.matches(artifact("org/foo/lib2/1.0/lib2-1.0.jar")));
+    }
+
+    @Test
+    public void sizeAndTimeFilters() {
+        ArtifactFilter filter = new ArtifactFilter(none(), none(), 100, 1000, 5000, 9000);
+        assertTrue(filter.matches(artifact("org/example/foo/1.0/foo-1.0.jar", 500, 6000)));
+        assertFalse(filter.matches(artifact("org/example/foo/1.0/foo-1.0.jar", 99, 6000)));
+        assertFalse(filter.matches(artifact("org/example/foo/1.0/foo-1.0.jar", 1001, 6000)));
+        assertFalse(filter.matches(artifact("org/example/foo/1.0/foo-1.0.jar", 500, 5000)));
+        assertFalse(filter.matches(artifact("org/example/foo/1.0/foo-1.0.jar", 500, 9000)));
+        // 未知的大小和修改时间不参与过滤
+        assertTrue(filter.matches(artifact("org/example/foo/1.0/foo-1.0.jar", -1, 0)));
+        // 没有Maven坐标的文件只按大小和修改时间过滤
+        assertTrue(filter.matches(artifact("packages/left-pad-1.3.0.tgz", 500, 6000)));
+        assertEquals(2, filter.getExcludedBySize());
+        assertEquals(2, filter.getExcludedByTime());
+    }
+
+    @Test
+    public void rejectsInvalidRules() {
+        for (String rule : Arrays.asList("a:b:c:d", ":foo", "org..foo", "~[")) {
+            try {
+                filter(Arrays.asList(rule), none());
+                fail("Expected rejection: " + rule);
+            } catch (IllegalArgumentException e) {
+                // 预期
+            }
+        }
+    }
+
+    private static ArtifactFilter filter(List<String> includes, List<String> excludes) {
+        return new ArtifactFilter(includes, excludes, 0, 0, 0, 0);
+    }
+
+    private static List<String> none() {
+        return Collections.emptyList();
+    }
+
+    private static ArtifactFile artifact(String relativePath) {
+        return artifact(relativePath, 1, 1);
+    }
+
+    private static ArtifactFile artifact(String relativePath, long size, long lastModified) {
+        return new ArtifactFile(null, relativePath, size, lastModified, "jar");
+    }
+}
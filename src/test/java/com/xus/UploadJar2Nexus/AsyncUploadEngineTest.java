@@ -0,0 +1,241 @@
+package com.xus.UploadJar2Nexus;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.http.entity.ContentType;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.xus.UploadJar2Nexus.StubServer.Response;
+
+/**
+ * 异步引擎对本地服务器的完整往返：重试、校验文件、并发名额的获取和归还
+ */
+public class AsyncUploadEngineTest {
+    private static final String REPOSITORY = "/repository/releases/";
+    private static final long TIMEOUT_SECONDS = 20;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private StubServer server;
+    private ScheduledExecutorService retryScheduler;
+    private AdaptiveConcurrencyLimiter limiter;
+    private AsyncUploadEngine engine;
+    private final RecordingListener listener = new RecordingListener();
+
+    @Before
+    public void setUp() throws IOException {
+        server = new StubServer();
+        retryScheduler = Executors.newSingleThreadScheduledExecutor();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        if (engine != null) {
+            engine.close();
+        }
+        retryScheduler.shutdownNow();
+        server.close();
+    }
+
+    /**
+     * 第一次收到503，重试成功后上传SHA-1和MD5校验文件；重试时重新完整地发送文件，摘要只计算一次发送的内容
+     */
+    @Test
+    public void retriesAndUploadsChecksums() throws Exception {
+        AtomicInteger attempts = new AtomicInteger();
+        server.handle(REPOSITORY, request -> {
+            if (request.getPath().endsWith(".jar") && attempts.incrementAndGet() == 1) {
+                return Response.of(503, "").header("Retry-After", "0");
+            }
+            return Response.of(201, "");
+        });
+        start(2, true);
+        byte[] content = randomBytes(Digests.BUFFER_SIZE * 2 + 99);
+        FileBodyEntity entity = entity("lib-1.0.jar", content);
+        entity.setDigestAlgorithms("SHA-1", "MD5");
+
+        engine.upload(url("com/example/lib/1.0/lib-1.0.jar"), entity).get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        assertEquals(1, listener.retries.get());
+        assertEquals(1, listener.uploaded.get());
+        int attemptsSent = 0;
+        for (StubServer.Request request : server.getRequests()) {
+            if (request.getPath().endsWith(".jar")) {
+                assertArrayEquals(content, request.body);
+                attemptsSent++;
+            }
+        }
+        assertEquals(2, attemptsSent);
+        assertEquals(4, server.getRequests().size());
+        String sha1 = Digests.toHex(MessageDigest.getInstance("SHA-1").digest(content));
+        assertEquals(sha1, entity.getDigestHex("SHA-1"));
+        assertEquals(sha1, body(REPOSITORY + "com/example/lib/1.0/lib-1.0.jar.sha1"));
+        assertEquals(Digests.toHex(MessageDigest.getInstance("MD5").digest(content)),
+                body(REPOSITORY + "com/example/lib/1.0/lib-1.0.jar.md5"));
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    /**
+     * 拒绝（4xx）不重试，Future以IOException完成，名额已归还
+     */
+    @Test
+    public void failsWithoutRetryOnRejection() throws Exception {
+        server.handle(REPOSITORY, request -> Response.of(403, ""));
+        start(2, true);
+        FileBodyEntity entity = entity("lib-1.0.pom", new byte[10]);
+        entity.setDigestAlgorithms("SHA-1");
+
+        try {
+            engine.upload(url("com/example/lib/1.0/lib-1.0.pom"), entity).get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            fail("Expected rejection");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof IOException);
+            assertTrue(e.getCause().getMessage(), e.getCause().getMessage().contains("403"));
+        }
+        assertEquals(1, server.getRequests().size());
+        assertEquals(0, listener.retries.get());
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    /**
+     * 构件已上传、校验文件被拒绝：以ChecksumUploadException完成，调用方据此不写入上传日志
+     */
+    @Test
+    public void reportsChecksumFailure() throws Exception {
+        server.handle(REPOSITORY, request -> Response.of(request.getPath().endsWith(".sha1") ? 400 : 201, ""));
+        start(2, true);
+        FileBodyEntity entity = entity("lib-1.0.jar", new byte[100]);
+        entity.setDigestAlgorithms("SHA-1");
+
+        try {
+            engine.upload(url("com/example/lib/1.0/lib-1.0.jar"), entity).get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            fail("Expected checksum failure");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause().toString(), e.getCause() instanceof ChecksumUploadException);
+            assertEquals(url("com/example/lib/1.0/lib-1.0.jar.sha1"),
+                    ((ChecksumUploadException) e.getCause()).getChecksumUrl());
+        }
+        assertEquals(1, listener.uploaded.get());
+        assertEquals(Collections.singletonList(url("com/example/lib/1.0/lib-1.0.jar.sha1")),
+                listener.checksumFailures);
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    /**
+     * 在途请求数不超过并发上限；等待重试的请求不占用名额，其他文件照常上传
+     */
+    @Test
+    public void retryWaitsWithoutHoldingSlot() throws Exception {
+        AtomicInteger current = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+        AtomicInteger retriedAttempts = new AtomicInteger();
+        List<String> order = new ArrayList<>();
+        server.handle(REPOSITORY, request -> {
+            peak.accumulateAndGet(current.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            current.decrementAndGet();
+            synchronized (order) {
+                order.add(request.getPath());
+            }
+            if (request.getPath().endsWith("retried-1.0.jar") && retriedAttempts.incrementAndGet() == 1) {
+                return Response.of(503, "");
+            }
+            return Response.of(201, "");
+        });
+        start(1, false);
+
+        List<CompletableFuture<Void>> results = new ArrayList<>();
+        results.add(engine.upload(url("org/demo/retried/1.0/retried-1.0.jar"), entity("retried-1.0.jar", new byte[10])));
+        for (int i = 0; i < 4; i++) {
+            String name = "other" + i + "-1.0.jar";
+            results.add(engine.upload(url("org/demo/other" + i + "/1.0/" + name), entity(name, new byte[10])));
+        }
+        for (CompletableFuture<Void> result : results) {
+            result.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        }
+        assertEquals(1, peak.get());
+        assertEquals(6, order.size());
+        // 重试至少等待BASE_DELAY_MS的一半，期间其余文件已全部上传
+        assertTrue(order.toString(), order.get(5).endsWith("retried-1.0.jar"));
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    private void start(int limit, boolean uploadChecksums) {
+        limiter = new AdaptiveConcurrencyLimiter(false, limit, limit);
+        engine = new AsyncUploadEngine(NexusHttpClients.createAsyncClient(server.url(REPOSITORY),
+                NexusHttpClients.basicAuthorization("admin", "admin123"), limit, 1, false, null), limiter,
+                retryScheduler, uploadChecksums, listener);
+    }
+
+    private String url(String path) {
+        return server.url(REPOSITORY + path);
+    }
+
+    private String body(String path) {
+        for (StubServer.Request request : server.getRequests()) {
+            if (request.getPath().equals(path)) {
+                return request.getBodyText();
+            }
+        }
+        throw new AssertionError("No request for " + path);
+    }
+
+    private FileBodyEntity entity(String name, byte[] content) throws IOException {
+        File file = folder.newFile(name);
+        Files.write(file.toPath(), content);
+        return new FileBodyEntity(file, ContentType.APPLICATION_OCTET_STREAM);
+    }
+
+    private static byte[] randomBytes(int size) {
+        byte[] bytes = new byte[size];
+        new Random(9).nextBytes(bytes);
+        return bytes;
+    }
+
+    private static final class RecordingListener implements UploadListener {
+        final AtomicInteger uploaded = new AtomicInteger();
+        final AtomicInteger retries = new AtomicInteger();
+        final List<String> checksumFailures = Collections.synchronizedList(new ArrayList<>());
+
+        @Override
+        public void onUploaded(FileBodyEntity entity, long uploadMillis) {
+            uploaded.incrementAndGet();
+        }
+
+        @Override
+        public void onRetry(FileBodyEntity entity, int attempt, int maxAttempts, Exception cause) {
+            retries.incrementAndGet();
+        }
+
+        @Override
+        public void onChecksumFailed(String checksumUrl, Exception cause) {
+            checksumFailures.add(checksumUrl);
+        }
+    }
+}
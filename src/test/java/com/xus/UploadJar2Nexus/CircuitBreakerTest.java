@@ -0,0 +1,117 @@
+package com.xus.UploadJar2Nexus;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+public class CircuitBreakerTest {
+    private static final long OPEN_MS = 100;
+
+    @Test
+    public void opensAfterConsecutiveFailures() throws InterruptedException {
+        CircuitBreaker breaker = new CircuitBreaker("test", OPEN_MS);
+        for (int i = 0; i < CircuitBreaker.FAILURE_THRESHOLD - 1; i++) {
+            breaker.onFailure();
+        }
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        breaker.onFailure();
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertEquals(1, breaker.getOpenCount());
+    }
+
+    /**
+     * 中间有一次成功时重新计数
+     */
+    @Test
+    public void successResetsFailureCount() {
+        CircuitBreaker breaker = new CircuitBreaker("test", OPEN_MS);
+        for (int i = 0; i < CircuitBreaker.FAILURE_THRESHOLD - 1; i++) {
+            breaker.onFailure();
+        }
+        breaker.onSuccess();
+        for (int i = 0; i < CircuitBreaker.FAILURE_THRESHOLD - 1; i++) {
+            breaker.onFailure();
+        }
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertEquals(0, breaker.getOpenCount());
+    }
+
+    /**
+     * 打开 -> 等待打开时间结束 -> 半开放行一个探测请求 -> 探测成功后关闭
+     */
+    @Test
+    public void probeSuccessCloses() throws InterruptedException {
+        // 从打开之前开始计时，打开时的日志输出不影响结果；熔断器按currentTimeMillis计时，只比较到半个打开时间
+        long start = System.nanoTime();
+        CircuitBreaker breaker = open(new CircuitBreaker("test", OPEN_MS));
+        breaker.awaitPermission();
+        assertTrue(elapsedMillis(start) > OPEN_MS / 2);
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+
+        breaker.onSuccess();
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        start = System.nanoTime();
+        breaker.awaitPermission();
+        assertTrue(elapsedMillis(start) < OPEN_MS);
+    }
+
+    /**
+     * 探测失败后再次打开，打开时间加倍
+     */
+    @Test
+    public void probeFailureReopensForLonger() throws InterruptedException {
+        CircuitBreaker breaker = open(new CircuitBreaker("test", OPEN_MS));
+        breaker.awaitPermission();
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+
+        long start = System.nanoTime();
+        breaker.onFailure();
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertEquals(2, breaker.getOpenCount());
+        breaker.awaitPermission();
+        assertTrue(elapsedMillis(start) > OPEN_MS * 3 / 2);
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+    }
+
+    /**
+     * 半开时只放行一个探测请求，其余请求等到探测结果
+     */
+    @Test
+    public void halfOpenAdmitsSingleProbe() throws InterruptedException {
+        final CircuitBreaker breaker = open(new CircuitBreaker("test", OPEN_MS));
+        breaker.awaitPermission();
+
+        final CountDownLatch admitted = new CountDownLatch(1);
+        Thread waiter = new Thread(() -> {
+            try {
+                breaker.awaitPermission();
+                admitted.countDown();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        waiter.start();
+        assertFalse(admitted.await(OPEN_MS, TimeUnit.MILLISECONDS));
+
+        breaker.onSuccess();
+        assertTrue(admitted.await(1, TimeUnit.SECONDS));
+        waiter.join();
+    }
+
+    private static CircuitBreaker open(CircuitBreaker breaker) {
+        for (int i = 0; i < CircuitBreaker.FAILURE_THRESHOLD; i++) {
+            breaker.onFailure();
+        }
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        return breaker;
+    }
+
+    private static long elapsedMillis(long startNanos) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+    }
+}
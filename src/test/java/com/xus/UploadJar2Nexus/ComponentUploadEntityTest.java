@@ -0,0 +1,149 @@
+package com.xus.UploadJar2Nexus;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.http.entity.ContentType;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ComponentUploadEntityTest {
+    private static final Pattern BOUNDARY = Pattern.compile("multipart/form-data; boundary=(\\S+)");
+    private static final Pattern DISPOSITION = Pattern.compile(
+            "Content-Disposition: form-data; name=\"([^\"]+)\"(?:; filename=\"((?:[^\"\\\\]|\\\\.)*)\")?");
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * 坐标字段、每个文件的maven2.assetN及其.extension/.classifier字段，文件内容逐字节相同，
+     * Content-Length与实际写出的长度一致，重复发送的内容相同
+     */
+    @Test
+    public void writesMultipartBody() throws IOException {
+        Path root = folder.getRoot().toPath();
+        List<ArtifactFile> files = new ArrayList<>();
+        files.add(write(root, "com/example/lib/1.0/lib-1.0.pom", "<project/>".getBytes(StandardCharsets.UTF_8)));
+        files.add(write(root, "com/example/lib/1.0/lib-1.0.jar", new byte[] {'P', 'K', 3, 4, '\r', '\n', 0}));
+        files.add(write(root, "com/example/lib/1.0/lib-1.0-tests.jar", new byte[70000]));
+        List<FileBodyEntity> entities = new ArrayList<>();
+        for (ArtifactFile file : files) {
+            entities.add(new FileBodyEntity(file.toFile(), ContentType.APPLICATION_OCTET_STREAM));
+        }
+        ComponentUploadEntity entity = new ComponentUploadEntity(files.get(0).getCoordinates(), files, entities);
+        assertTrue(entity.isRepeatable());
+
+        byte[] body = write(entity);
+        assertEquals(entity.getContentLength(), body.length);
+        assertArrayEquals(body, write(entity));
+
+        Map<String, Part> parts = parse(body, entity.getContentType().getValue());
+        assertEquals("com.example", parts.get("maven2.groupId").text());
+        assertEquals("lib", parts.get("maven2.artifactId").text());
+        assertEquals("1.0", parts.get("maven2.version").text());
+        assertEquals("false", parts.get("maven2.generate-pom").text());
+
+        assertEquals("lib-1.0.pom", parts.get("maven2.asset1").filename);
+        assertEquals("pom", parts.get("maven2.asset1.extension").text());
+        assertNull(parts.get("maven2.asset1.classifier"));
+        assertEquals("lib-1.0.jar", parts.get("maven2.asset2").filename);
+        assertEquals("jar", parts.get("maven2.asset2.extension").text());
+        assertNull(parts.get("maven2.asset2.classifier"));
+        assertEquals("lib-1.0-tests.jar", parts.get("maven2.asset3").filename);
+        assertEquals("jar", parts.get("maven2.asset3.extension").text());
+        assertEquals("tests", parts.get("maven2.asset3.classifier").text());
+        for (int i = 0; i < files.size(); i++) {
+            assertArrayEquals(Files.readAllBytes(files.get(i).getPath()), parts.get("maven2.asset" + (i + 1)).content);
+        }
+        assertEquals(4 + 3 * 2 + 1, parts.size());
+    }
+
+    /**
+     * 每次创建的请求体使用不同的分隔符
+     */
+    @Test
+    public void usesRandomBoundary() throws IOException {
+        Path root = folder.getRoot().toPath();
+        List<ArtifactFile> files = new ArrayList<>();
+        files.add(write(root, "org/demo/app/2.0/app-2.0.pom", new byte[] {1}));
+        List<FileBodyEntity> entities = new ArrayList<>();
+        entities.add(new FileBodyEntity(files.get(0).toFile(), ContentType.APPLICATION_OCTET_STREAM));
+        String first = new ComponentUploadEntity(files.get(0).getCoordinates(), files, entities)
+                .getContentType().getValue();
+        String second = new ComponentUploadEntity(files.get(0).getCoordinates(), files, entities)
+                .getContentType().getValue();
+        assertTrue(first, BOUNDARY.matcher(first).matches());
+        assertNotEquals(first, second);
+    }
+
+    static ArtifactFile write(Path root, String relativePath, byte[] content) throws IOException {
+        Path file = root.resolve(relativePath);
+        Files.createDirectories(file.getParent());
+        Files.write(file, content);
+        return new ArtifactFile(file, relativePath, content.length, Files.getLastModifiedTime(file).toMillis(),
+                relativePath.substring(relativePath.lastIndexOf('.') + 1));
+    }
+
+    private static byte[] write(ComponentUploadEntity entity) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        entity.writeTo(out);
+        return out.toByteArray();
+    }
+
+    /**
+     * 按Content-Type中的分隔符拆分multipart/form-data请求体，按字段名返回各部分
+     */
+    static Map<String, Part> parse(byte[] body, String contentType) {
+        Matcher boundary = BOUNDARY.matcher(contentType);
+        assertTrue(contentType, boundary.matches());
+        // ISO-8859-1逐字节对应，文件内容可以原样取回
+        String text = new String(body, StandardCharsets.ISO_8859_1);
+        String delimiter = "--" + boundary.group(1);
+        assertTrue(text.startsWith(delimiter + "\r\n"));
+        assertTrue(text.endsWith(delimiter + "--\r\n"));
+        Map<String, Part> parts = new LinkedHashMap<>();
+        int start = delimiter.length() + 2;
+        int end;
+        while ((end = text.indexOf("\r\n" + delimiter, start)) >= 0) {
+            String part = text.substring(start, end);
+            int headerEnd = part.indexOf("\r\n\r\n");
+            Matcher disposition = DISPOSITION.matcher(part.substring(0, headerEnd));
+            assertTrue(part, disposition.lookingAt());
+            parts.put(disposition.group(1), new Part(disposition.group(2),
+                    part.substring(headerEnd + 4).getBytes(StandardCharsets.ISO_8859_1)));
+            start = end + 2 + delimiter.length() + 2;
+        }
+        return parts;
+    }
+
+    static final class Part {
+        // 文件部分的文件名，文本字段为null
+        final String filename;
+        final byte[] content;
+
+        Part(String filename, byte[] content) {
+            this.filename = filename;
+            this.content = content;
+        }
+
+        String text() {
+            return new String(content, StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,234 @@
+package com.xus.UploadJar2Nexus;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.xus.UploadJar2Nexus.StubServer.Response;
+
+public class ComponentUploaderTest {
+    private static final String COMPONENTS = "/service/rest/v1/components";
+    private static final String REPOSITORY = "/repository/releases/";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private StubServer server;
+    private CloseableHttpClient httpClient;
+    private ScheduledExecutorService retryScheduler;
+    private final RecordingListener listener = new RecordingListener();
+    private Path root;
+    private List<ArtifactFile> files;
+
+    @Before
+    public void setUp() throws IOException {
+        server = new StubServer();
+        httpClient = HttpClients.createDefault();
+        retryScheduler = Executors.newSingleThreadScheduledExecutor();
+        root = folder.newFolder("repository").toPath();
+        files = new ArrayList<>();
+        files.add(ComponentUploadEntityTest.write(root, "com/example/lib/1.0/lib-1.0.pom",
+                "<project/>".getBytes(StandardCharsets.UTF_8)));
+        files.add(ComponentUploadEntityTest.write(root, "com/example/lib/1.0/lib-1.0.jar", new byte[5000]));
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        retryScheduler.shutdownNow();
+        httpClient.close();
+        server.close();
+    }
+
+    /**
+     * 一个POST上传整个GAV，返回的文件内容带有发送时计算的SHA-1
+     */
+    @Test
+    public void uploadsComponentInOneRequest() throws Exception {
+        server.handle(COMPONENTS, request -> Response.of(204, ""));
+        ComponentUploader uploader = newUploader(server.url(REPOSITORY));
+
+        List<FileBodyEntity> entities = upload(uploader).get(10, TimeUnit.SECONDS);
+        assertEquals(2, entities.size());
+        for (int i = 0; i < files.size(); i++) {
+            byte[] content = Files.readAllBytes(files.get(i).getPath());
+            assertEquals(Digests.toHex(MessageDigest.getInstance("SHA-1").digest(content)),
+                    entities.get(i).getDigestHex("SHA-1"));
+        }
+        assertEquals(1, uploader.getUploadedComponents());
+        assertEquals(2, uploader.getUploadedFiles());
+        assertEquals(2, listener.uploaded.get());
+
+        List<StubServer.Request> requests = server.getRequests();
+        assertEquals(1, requests.size());
+        StubServer.Request request = requests.get(0);
+        assertEquals("POST", request.method);
+        assertEquals("releases", request.getParameter("repository"));
+        Map<String, ComponentUploadEntityTest.Part> parts = ComponentUploadEntityTest.parse(request.body,
+                request.getHeader("Content-Type"));
+        assertEquals("lib", parts.get("maven2.artifactId").text());
+        assertArrayEquals(Files.readAllBytes(files.get(1).getPath()), parts.get("maven2.asset2").content);
+    }
+
+    /**
+     * 接口不存在（404/405/501）时关闭组件上传，之后的组件不再发送请求，直接回退为逐个PUT
+     */
+    @Test
+    public void missingEndpointTurnsComponentUploadOff() throws Exception {
+        AtomicInteger status = new AtomicInteger();
+        server.handle(COMPONENTS, request -> Response.of(status.get(), ""));
+        for (int code : new int[] {404, 405, 501}) {
+            status.set(code);
+            ComponentUploader uploader = newUploader(server.url(REPOSITORY));
+            int before = server.count("POST", COMPONENTS);
+
+            assertNull(upload(uploader).get(10, TimeUnit.SECONDS));
+            assertFalse("HTTP " + code, uploader.isSupported());
+            assertNull(upload(uploader).get(10, TimeUnit.SECONDS));
+            assertEquals("HTTP " + code, before + 1, server.count("POST", COMPONENTS));
+            assertEquals(1, uploader.getFallbackComponents());
+        }
+    }
+
+    /**
+     * 其他拒绝（例如仓库策略不允许重新部署）只让当前组件回退，不重试
+     */
+    @Test
+    public void rejectedComponentFallsBackAlone() throws Exception {
+        server.handle(COMPONENTS, request -> Response.of(400, "Repository does not allow updating assets"));
+        ComponentUploader uploader = newUploader(server.url(REPOSITORY));
+
+        assertNull(upload(uploader).get(10, TimeUnit.SECONDS));
+        assertTrue(uploader.isSupported());
+        assertEquals(1, server.count("POST", COMPONENTS));
+        assertEquals(0, listener.retries.get());
+    }
+
+    /**
+     * 服务器错误在重试队列中重试，调用线程不等待；重试成功后请求体完整地再发送一次
+     */
+    @Test
+    public void retriesServerErrorsOnRetryScheduler() throws Exception {
+        AtomicInteger posts = new AtomicInteger();
+        server.handle(COMPONENTS, request -> posts.incrementAndGet() == 1
+                ? Response.of(503, "").header("Retry-After", "0") : Response.of(201, ""));
+        ComponentUploader uploader = newUploader(server.url(REPOSITORY));
+
+        CompletableFuture<List<FileBodyEntity>> result = upload(uploader);
+        // 第一次失败后至少等待BASE_DELAY_MS的一半
+        assertFalse(result.isDone());
+        assertEquals(2, result.get(10, TimeUnit.SECONDS).size());
+        assertEquals(1, listener.retries.get());
+        List<StubServer.Request> requests = server.getRequests();
+        assertEquals(2, requests.size());
+        assertArrayEquals(requests.get(0).body, requests.get(1).body);
+    }
+
+    @Test
+    public void unsupportedRepositoryUrl() throws Exception {
+        ComponentUploader uploader = newUploader(server.url("/nexus/content/repositories/releases/"));
+        assertFalse(uploader.isSupported());
+        assertNull(upload(uploader).get(10, TimeUnit.SECONDS));
+        assertTrue(server.getRequests().isEmpty());
+    }
+
+    /**
+     * 通过上传程序运行组件上传模式：目标不支持组件上传接口时每个文件改为逐个PUT
+     */
+    @Test
+    public void runnerFallsBackToPut() throws Exception {
+        server.handle(COMPONENTS, request -> Response.of(404, ""));
+        server.handle(REPOSITORY, request -> Response.of("PUT".equals(request.method) ? 201 : 404, ""));
+        runComponentMode();
+
+        assertEquals(1, server.count("POST", COMPONENTS));
+        for (ArtifactFile file : files) {
+            StubServer.Request put = findPut(REPOSITORY + file.getRelativePath());
+            assertArrayEquals(Files.readAllBytes(file.getPath()), put.body);
+        }
+        assertEquals(files.size(), server.count("PUT", REPOSITORY));
+    }
+
+    /**
+     * 组件上传成功时不再逐个PUT
+     */
+    @Test
+    public void runnerUploadsComponents() throws Exception {
+        server.handle(COMPONENTS, request -> Response.of(204, ""));
+        server.handle(REPOSITORY, request -> Response.of("PUT".equals(request.method) ? 201 : 404, ""));
+        runComponentMode();
+
+        assertEquals(1, server.count("POST", COMPONENTS));
+        assertEquals(0, server.count("PUT", REPOSITORY));
+    }
+
+    private void runComponentMode() {
+        UploadJar2NexusRunner runner = new UploadJar2NexusRunner(root.toString(), server.url(REPOSITORY),
+                "admin", "admin123", false);
+        for (String option : new String[] {"--upload-mode=component", "--journal=off", "--dead-letter=off",
+                "--metadata=false", "--checksums=false", "--jmx=false"}) {
+            runner.applyOption(option);
+        }
+        runner.start();
+    }
+
+    private StubServer.Request findPut(String path) {
+        for (StubServer.Request request : server.getRequests()) {
+            if ("PUT".equals(request.method) && request.getPath().equals(path)) {
+                return request;
+            }
+        }
+        throw new AssertionError("No PUT " + path + " in " + server.getRequests());
+    }
+
+    private ComponentUploader newUploader(String repositoryUrl) {
+        return new ComponentUploader(httpClient, repositoryUrl, new AdaptiveConcurrencyLimiter(false, 4, 4),
+                retryScheduler, listener);
+    }
+
+    private CompletableFuture<List<FileBodyEntity>> upload(ComponentUploader uploader) throws InterruptedException {
+        return uploader.upload(files.get(0).getCoordinates(), files, new String[] {"SHA-1"});
+    }
+
+    private static final class RecordingListener implements UploadListener {
+        final AtomicInteger uploaded = new AtomicInteger();
+        final AtomicInteger retries = new AtomicInteger();
+
+        @Override
+        public void onUploaded(FileBodyEntity entity, long uploadMillis) {
+            uploaded.incrementAndGet();
+        }
+
+        @Override
+        public void onRetry(FileBodyEntity entity, int attempt, int maxAttempts, Exception cause) {
+            retries.incrementAndGet();
+        }
+
+        @Override
+        public void onChecksumFailed(String checksumUrl, Exception cause) {
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.xus.UploadJar2Nexus;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.security.MessageDigest;
+
+import org.apache.http.entity.ContentType;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * 大文件通过writeTo流式发送：稀疏文件不占用磁盘空间，发送期间分配的堆内存与文件大小无关
+ */
+public class FileBodyEntityTest {
+    // 不是缓冲区大小的整数倍
+    private static final long LENGTH = 300L * 1024 * 1024 + 12345;
+    // 发送一个文件允许分配的堆内存，远小于文件大小
+    private static final long MAX_ALLOCATED = 8L * 1024 * 1024;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File file;
+
+    @Before
+    public void setUp() throws IOException {
+        file = folder.newFile("huge-1.0.jar");
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(LENGTH);
+            // 在几个位置写入非零内容，摘要与全零文件不同
+            for (long position = 0; position < LENGTH; position += 64L * 1024 * 1024 + 7) {
+                raf.seek(position);
+                raf.write(new byte[] {1, 2, 3, 4});
+            }
+            raf.seek(LENGTH - 1);
+            raf.write(9);
+        }
+    }
+
+    /**
+     * 默认配置（上传日志和校验文件需要摘要）：边读边计算摘要边发送
+     */
+    @Test
+    public void streamsWithDigests() throws Exception {
+        FileBodyEntity entity = new FileBodyEntity(file, ContentType.APPLICATION_OCTET_STREAM);
+        entity.setDigestAlgorithms("SHA-1", "MD5");
+        assertEquals(LENGTH, entity.getContentLength());
+
+        DigestingOutputStream out = new DigestingOutputStream();
+        long allocated = allocatedBytes();
+        entity.writeTo(out);
+        assertAllocatedBelow(allocated);
+
+        assertEquals(LENGTH, out.count);
+        assertEquals(Digests.toHex(out.sha1.digest()), entity.getDigestHex("SHA-1"));
+        assertEquals(Digests.toHex(out.md5.digest()), entity.getDigestHex("MD5"));
+        assertTrue(entity.getSentAt() > 0);
+    }
+
+    /**
+     * 不需要摘要时使用transferTo发送
+     */
+    @Test
+    public void streamsWithTransferTo() throws Exception {
+        FileBodyEntity entity = new FileBodyEntity(file, ContentType.APPLICATION_OCTET_STREAM);
+        DigestingOutputStream out = new DigestingOutputStream();
+        long allocated = allocatedBytes();
+        entity.writeTo(out);
+        assertAllocatedBelow(allocated);
+
+        assertEquals(LENGTH, out.count);
+        assertNull(entity.getDigestHex("SHA-1"));
+        assertEquals(0, entity.getReadNanos());
+        // 重复发送（重试）得到相同的内容
+        byte[] first = out.sha1.digest();
+        DigestingOutputStream again = new DigestingOutputStream();
+        entity.writeTo(again);
+        assertEquals(Digests.toHex(first), Digests.toHex(again.sha1.digest()));
+    }
+
+    /**
+     * 当前线程已分配的堆内存，JVM不支持统计时返回-1
+     */
+    private static long allocatedBytes() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (threads instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean hotspot = (com.sun.management.ThreadMXBean) threads;
+            if (hotspot.isThreadAllocatedMemorySupported() && hotspot.isThreadAllocatedMemoryEnabled()) {
+                return hotspot.getThreadAllocatedBytes(Thread.currentThread().getId());
+            }
+        }
+        return -1;
+    }
+
+    private static void assertAllocatedBelow(long before) {
+        if (before < 0) {
+            return;
+        }
+        long allocated = allocatedBytes() - before;
+        assertTrue("allocated " + allocated + " bytes", allocated < MAX_ALLOCATED);
+    }
+
+    /**
+     * 统计收到的字节数并计算摘要，不保存内容
+     */
+    private static final class DigestingOutputStream extends OutputStream {
+        final MessageDigest sha1 = Digests.newDigest("SHA-1");
+        final MessageDigest md5 = Digests.newDigest("MD5");
+        long count;
+
+        @Override
+        public void write(int b) {
+            write(new byte[] {(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            sha1.update(b, off, len);
+            md5.update(b, off, len);
+            count += len;
+        }
+    }
+}
@@ -0,0 +1,245 @@
+package com.xus.UploadJar2Nexus;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.util.Random;
+
+import org.apache.http.HttpEntityEnclosingRequest;
+import org.apache.http.HttpRequest;
+import org.apache.http.entity.ContentType;
+import org.apache.http.nio.ContentEncoder;
+import org.apache.http.nio.FileContentEncoder;
+import org.apache.http.nio.IOControl;
+import org.apache.http.protocol.BasicHttpContext;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * 模拟非阻塞连接每次只接受一部分数据，检查分块写出、续写和摘要
+ */
+public class FileRequestProducerTest {
+    private static final String URL = "http://127.0.0.1:1/repository/releases/com/example/lib/1.0/lib-1.0.jar";
+    // 不是缓冲区大小的整数倍
+    private static final int SIZE = Digests.BUFFER_SIZE * 3 + 1234;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File file;
+    private byte[] content;
+
+    @Before
+    public void setUp() throws IOException {
+        content = new byte[SIZE];
+        new Random(5).nextBytes(content);
+        file = folder.newFile("lib-1.0.jar");
+        Files.write(file.toPath(), content);
+    }
+
+    /**
+     * 连接每次只接受几千字节：缓冲中没写完的部分下次继续写，内容和摘要与文件一致
+     */
+    @Test
+    public void resumesPartialWrites() throws Exception {
+        FileBodyEntity entity = new FileBodyEntity(file, ContentType.APPLICATION_OCTET_STREAM);
+        entity.setDigestAlgorithms("SHA-1", "MD5");
+        FileRequestProducer producer = new FileRequestProducer(URL, entity);
+        HttpRequest request = producer.generateRequest();
+        assertEquals(SIZE, ((HttpEntityEnclosingRequest) request).getEntity().getContentLength());
+        assertEquals("127.0.0.1", producer.getTarget().getHostName());
+
+        PartialEncoder encoder = new PartialEncoder(3000);
+        int calls = send(producer, encoder);
+        assertTrue(calls > SIZE / 3000);
+        assertArrayEquals(content, encoder.written.toByteArray());
+        assertDigests(entity);
+        assertTrue(entity.getReadNanos() > 0);
+    }
+
+    /**
+     * 重试时重新打开文件，摘要只按完整的一次发送计算
+     */
+    @Test
+    public void restartsAfterReset() throws Exception {
+        FileBodyEntity entity = new FileBodyEntity(file, ContentType.APPLICATION_OCTET_STREAM);
+        entity.setDigestAlgorithms("SHA-1", "MD5");
+        FileRequestProducer producer = new FileRequestProducer(URL, entity);
+
+        PartialEncoder interrupted = new PartialEncoder(5000);
+        for (int i = 0; i < 10; i++) {
+            producer.produceContent(interrupted, new NoopControl());
+        }
+        assertFalse(interrupted.isCompleted());
+        producer.failed(new IOException("connection reset"));
+        producer.resetRequest();
+        assertNull(entity.getDigestHex("SHA-1"));
+
+        PartialEncoder retried = new PartialEncoder(7000);
+        send(producer, retried);
+        assertArrayEquals(content, retried.written.toByteArray());
+        assertDigests(entity);
+    }
+
+    /**
+     * 不需要摘要且连接支持时零拷贝发送，连接每次只接受一部分时从已发送的位置继续
+     */
+    @Test
+    public void transfersWithoutDigests() throws Exception {
+        FileBodyEntity entity = new FileBodyEntity(file, ContentType.APPLICATION_OCTET_STREAM);
+        FileRequestProducer producer = new FileRequestProducer(URL, entity);
+
+        TransferEncoder encoder = new TransferEncoder(10000);
+        send(producer, encoder);
+        assertArrayEquals(content, encoder.written.toByteArray());
+        assertEquals(0, encoder.bufferWrites);
+        assertTrue(encoder.transfers > 1);
+        assertNull(entity.getDigestHex("SHA-1"));
+    }
+
+    /**
+     * 空文件不会调用produceContent，请求结束时补记空内容的摘要
+     */
+    @Test
+    public void recordsDigestsOfEmptyFile() throws Exception {
+        File empty = folder.newFile("empty-1.0.pom");
+        FileBodyEntity entity = new FileBodyEntity(empty, ContentType.APPLICATION_OCTET_STREAM);
+        entity.setDigestAlgorithms("SHA-1");
+        FileRequestProducer producer = new FileRequestProducer(URL, entity);
+        producer.generateRequest();
+        producer.requestCompleted(new BasicHttpContext());
+        assertEquals("da39a3ee5e6b4b0d3255bfef95601890afd80709", entity.getDigestHex("SHA-1"));
+    }
+
+    /**
+     * 文件在扫描之后被截断：读到文件末尾时长度还不够，请求失败而不是发送不完整的内容
+     */
+    @Test
+    public void failsWhenFileShrinks() throws Exception {
+        FileBodyEntity entity = new FileBodyEntity(file, ContentType.APPLICATION_OCTET_STREAM);
+        entity.setDigestAlgorithms("SHA-1");
+        FileRequestProducer producer = new FileRequestProducer(URL, entity);
+        PartialEncoder encoder = new PartialEncoder(Digests.BUFFER_SIZE);
+        producer.produceContent(encoder, new NoopControl());
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(Digests.BUFFER_SIZE);
+        }
+        try {
+            send(producer, encoder);
+            fail("Expected truncation");
+        } catch (IOException e) {
+            // 预期
+        }
+        producer.failed(new IOException("truncated"));
+    }
+
+    private static int send(FileRequestProducer producer, ContentEncoder encoder) throws IOException {
+        int calls = 0;
+        while (!encoder.isCompleted()) {
+            producer.produceContent(encoder, new NoopControl());
+            if (++calls > 100000) {
+                throw new AssertionError("Producer made no progress");
+            }
+        }
+        producer.requestCompleted(new BasicHttpContext());
+        producer.close();
+        return calls;
+    }
+
+    private void assertDigests(FileBodyEntity entity) throws Exception {
+        assertEquals(Digests.toHex(MessageDigest.getInstance("SHA-1").digest(content)), entity.getDigestHex("SHA-1"));
+        assertEquals(Digests.toHex(MessageDigest.getInstance("MD5").digest(content)), entity.getDigestHex("MD5"));
+    }
+
+    /**
+     * 每次最多接受limit字节的连接
+     */
+    private static class PartialEncoder implements ContentEncoder {
+        final ByteArrayOutputStream written = new ByteArrayOutputStream();
+        private final int limit;
+        int bufferWrites;
+        private boolean completed;
+
+        PartialEncoder(int limit) {
+            this.limit = limit;
+        }
+
+        @Override
+        public int write(ByteBuffer src) {
+            bufferWrites++;
+            int count = Math.min(limit, src.remaining());
+            for (int i = 0; i < count; i++) {
+                written.write(src.get());
+            }
+            return count;
+        }
+
+        @Override
+        public void complete() {
+            completed = true;
+        }
+
+        @Override
+        public boolean isCompleted() {
+            return completed;
+        }
+    }
+
+    /**
+     * 支持零拷贝的连接，每次最多传输limit字节
+     */
+    private static final class TransferEncoder extends PartialEncoder implements FileContentEncoder {
+        private final int limit;
+        int transfers;
+
+        TransferEncoder(int limit) {
+            super(limit);
+            this.limit = limit;
+        }
+
+        @Override
+        public long transfer(FileChannel src, long position, long count) throws IOException {
+            transfers++;
+            ByteBuffer chunk = ByteBuffer.allocate((int) Math.min(limit, count));
+            int read = src.read(chunk, position);
+            written.write(chunk.array(), 0, Math.max(read, 0));
+            return Math.max(read, 0);
+        }
+    }
+
+    private static final class NoopControl implements IOControl {
+        @Override
+        public void requestInput() {
+        }
+
+        @Override
+        public void suspendInput() {
+        }
+
+        @Override
+        public void requestOutput() {
+        }
+
+        @Override
+        public void suspendOutput() {
+        }
+
+        @Override
+        public void shutdown() {
+        }
+    }
+}
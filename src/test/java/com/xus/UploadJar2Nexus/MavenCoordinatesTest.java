@@ -0,0 +1,82 @@
+package com.xus.UploadJar2Nexus;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class MavenCoordinatesTest {
+
+    @Test
+    public void parsesReleaseArtifact() {
+        MavenCoordinates coordinates = MavenCoordinates.parse("org/example/foo/1.0/foo-1.0.jar");
+        assertEquals("org.example", coordinates.getGroupId());
+        assertEquals("foo", coordinates.getArtifactId());
+        assertEquals("1.0", coordinates.getVersion());
+        assertEquals("1.0", coordinates.getFileVersion());
+        assertNull(coordinates.getClassifier());
+        assertEquals("jar", coordinates.getExtension());
+        assertFalse(coordinates.isSnapshot());
+        assertEquals("org.example:foo", coordinates.getGroupArtifactKey());
+        assertEquals("org.example:foo:1.0@jar", coordinates.toString());
+    }
+
+    @Test
+    public void parsesClassifierAndCompoundExtension() {
+        MavenCoordinates coordinates = MavenCoordinates.parse("org/example/foo/1.0/foo-1.0-tests.jar");
+        assertEquals("tests", coordinates.getClassifier());
+        assertEquals("jar", coordinates.getExtension());
+        assertEquals("org.example:foo:1.0:tests@jar", coordinates.toString());
+
+        coordinates = MavenCoordinates.parse("org/example/foo/1.0/foo-1.0.tar.gz");
+        assertNull(coordinates.getClassifier());
+        assertEquals("tar.gz", coordinates.getExtension());
+    }
+
+    /**
+     * 版本号本身带'-'时不能把后半段当作分类器
+     */
+    @Test
+    public void versionWithDash() {
+        MavenCoordinates coordinates = MavenCoordinates.parse("org/example/foo/1.0-rc1/foo-1.0-rc1-sources.jar");
+        assertEquals("1.0-rc1", coordinates.getVersion());
+        assertEquals("sources", coordinates.getClassifier());
+    }
+
+    @Test
+    public void parsesSnapshots() {
+        MavenCoordinates coordinates = MavenCoordinates.parse("org/example/foo/1.0-SNAPSHOT/foo-1.0-SNAPSHOT.pom");
+        assertTrue(coordinates.isSnapshot());
+        assertEquals("1.0-SNAPSHOT", coordinates.getFileVersion());
+        assertEquals("pom", coordinates.getExtension());
+
+        coordinates = MavenCoordinates.parse(
+                "org/example/foo/1.0-SNAPSHOT/foo-1.0-20240102.030405-7-javadoc.jar");
+        assertTrue(coordinates.isSnapshot());
+        assertEquals("1.0-SNAPSHOT", coordinates.getVersion());
+        assertEquals("1.0-20240102.030405-7", coordinates.getFileVersion());
+        assertEquals("javadoc", coordinates.getClassifier());
+    }
+
+    @Test
+    public void rejectsPathsOutsideMavenLayout() {
+        assertNull(MavenCoordinates.parse("foo-1.0.jar"));
+        assertNull(MavenCoordinates.parse("foo/1.0/foo-1.0.jar"));
+        assertNull(MavenCoordinates.parse("org/example/foo/1.0/bar-1.0.jar"));
+        assertNull(MavenCoordinates.parse("org/example/foo/1.0/foo-2.0.jar"));
+        assertNull(MavenCoordinates.parse("org/example/foo/1.0/foo-1.0"));
+        assertNull(MavenCoordinates.parse("org/example/foo/1.0/foo-1.0-.jar"));
+        assertNull(MavenCoordinates.parse("org/example/foo/1.0/foo-1.0."));
+        assertNull(MavenCoordinates.parse("org/example/foo/1.0-SNAPSHOT/foo-1.0-2024.jar"));
+    }
+
+    @Test
+    public void groupIdsAreInterned() {
+        MavenCoordinates first = MavenCoordinates.parse("org/example/foo/1.0/foo-1.0.jar");
+        MavenCoordinates second = MavenCoordinates.parse(new String("org/example/bar/2.0/bar-2.0.pom"));
+        assertSame(first.getGroupId(), second.getGroupId());
+    }
+}
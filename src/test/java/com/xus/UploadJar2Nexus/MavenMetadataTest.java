@@ -0,0 +1,116 @@
+package com.xus.UploadJar2Nexus;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class MavenMetadataTest {
+
+    @Test
+    public void numericSegmentsCompareByValue() {
+        assertOrdered("1.9", "1.10");
+        assertOrdered("1.2.9", "1.2.10");
+        assertOrdered("2", "10");
+        assertOrdered("1.0", "1.0.1");
+    }
+
+    @Test
+    public void qualifiersFollowMavenOrder() {
+        assertOrdered("1.0-alpha1", "1.0-beta1");
+        assertOrdered("1.0-beta2", "1.0-milestone1");
+        assertOrdered("1.0-M1", "1.0-RC1");
+        assertOrdered("1.0-rc1", "1.0-rc2");
+        assertOrdered("1.0-RC2", "1.0-SNAPSHOT");
+        assertOrdered("1.0-SNAPSHOT", "1.0");
+        assertOrdered("1.0", "1.0-sp1");
+        assertOrdered("1.0-sp1", "1.0-zeta");
+        assertOrdered("1.0-sp1", "1.0.1");
+    }
+
+    @Test
+    public void shortQualifierAliases() {
+        assertOrdered("1.0-a1", "1.0-b1");
+        assertOrdered("1.0-b1", "1.0-m1");
+        assertOrdered("1.0-m1", "1.0-cr1");
+        assertOrdered("1.0-cr1", "1.0");
+    }
+
+    /**
+     * 1.0、1.0.0和1.0-final按规则相等，但仍需区分，否则TreeSet会丢失版本
+     */
+    @Test
+    public void equivalentSpellingsStayDistinct() {
+        assertNotEquals(0, MavenMetadata.compareVersions("1.0", "1.0.0"));
+        assertNotEquals(0, MavenMetadata.compareVersions("1.0", "1.0-final"));
+        assertEquals(0, MavenMetadata.compareVersions("1.0", "1.0"));
+
+        MavenMetadata metadata = new MavenMetadata("org.example", "foo");
+        assertTrue(metadata.addVersion("1.0"));
+        assertTrue(metadata.addVersion("1.0.0"));
+        assertEquals(2, metadata.getVersions().size());
+    }
+
+    @Test
+    public void sortsShuffledVersions() {
+        List<String> expected = Arrays.asList("0.9", "1.0-alpha-1", "1.0-beta", "1.0-rc1", "1.0-SNAPSHOT",
+                "1.0", "1.0-sp1", "1.1", "1.9", "1.10", "2.0-SNAPSHOT", "2.0");
+        List<String> versions = new ArrayList<>(expected);
+        Collections.shuffle(versions, new Random(42));
+        versions.sort(MavenMetadata.VERSION_ORDER);
+        assertEquals(expected, versions);
+    }
+
+    @Test
+    public void latestAndRelease() {
+        MavenMetadata metadata = new MavenMetadata("org.example", "foo");
+        assertNull(metadata.getLatest());
+        assertNull(metadata.getRelease());
+        metadata.addVersion("1.9");
+        metadata.addVersion("1.10");
+        metadata.addVersion("2.0-SNAPSHOT");
+        assertEquals("2.0-SNAPSHOT", metadata.getLatest());
+        assertEquals("1.10", metadata.getRelease());
+    }
+
+    @Test
+    public void xmlRoundTrip() throws IOException {
+        MavenMetadata metadata = new MavenMetadata("org.example", "foo");
+        metadata.addVersion("1.10");
+        metadata.addVersion("1.9");
+        byte[] xml = metadata.toXml(0);
+        String text = new String(xml, StandardCharsets.UTF_8);
+        assertTrue(text.contains("<latest>1.10</latest>"));
+        assertTrue(text.contains("<release>1.10</release>"));
+        assertTrue(text.contains("<lastUpdated>19700101000000</lastUpdated>"));
+        assertTrue(text.indexOf("<version>1.9</version>") < text.indexOf("<version>1.10</version>"));
+
+        MavenMetadata parsed = MavenMetadata.parse("org.example", "foo", new ByteArrayInputStream(xml));
+        assertEquals(metadata.getVersions(), parsed.getVersions());
+        assertArrayEquals(xml, parsed.toXml(0));
+    }
+
+    @Test(expected = IOException.class)
+    public void parseRejectsDoctype() throws IOException {
+        String xml = "<?xml version=\"1.0\"?><!DOCTYPE metadata [<!ENTITY x SYSTEM \"file:///etc/passwd\">]>"
+                + "<metadata><versioning><versions><version>&x;</version></versions></versioning></metadata>";
+        MavenMetadata.parse("org.example", "foo", new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static void assertOrdered(String lower, String higher) {
+        assertTrue(lower + " < " + higher, MavenMetadata.compareVersions(lower, higher) < 0);
+        assertTrue(higher + " > " + lower, MavenMetadata.compareVersions(higher, lower) > 0);
+    }
+}
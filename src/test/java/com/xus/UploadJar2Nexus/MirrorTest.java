@@ -0,0 +1,174 @@
+package com.xus.UploadJar2Nexus;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.xus.UploadJar2Nexus.StubServer.Response;
+
+/**
+ * 镜像模式端到端：一个本地服务器作为源仓库（HTML目录列表），另一个作为目标仓库，
+ * 文件内容从源仓库的GET直接写入目标仓库的PUT
+ */
+public class MirrorTest {
+    private static final String SOURCE = "/maven2/";
+    private static final String TARGET = "/repository/mirror/";
+
+    private StubServer sourceServer;
+    private StubServer targetServer;
+    // 源仓库中的文件：相对路径 -> 内容
+    private final Map<String, byte[]> files = new TreeMap<>();
+    // 列表中不给出大小的文件，以分块编码上传
+    private final TreeSet<String> withoutSize = new TreeSet<>();
+    private final Map<String, byte[]> uploaded = new ConcurrentHashMap<>();
+
+    @Before
+    public void setUp() throws IOException {
+        Random random = new Random(11);
+        files.put("com/example/lib/1.0/lib-1.0.pom", "<project/>".getBytes(StandardCharsets.UTF_8));
+        files.put("com/example/lib/1.0/lib-1.0.jar", randomBytes(random, 300000));
+        files.put("com/example/lib/1.0/lib-1.0-tests.jar", randomBytes(random, 50001));
+        files.put("org/demo/app/2.0/app-2.0.pom", randomBytes(random, 3000));
+        files.put("org/demo/app/2.0/app-2.0.jar", randomBytes(random, 200000));
+        withoutSize.add("com/example/lib/1.0/lib-1.0-tests.jar");
+        withoutSize.add("org/demo/app/2.0/app-2.0.jar");
+
+        sourceServer = new StubServer();
+        sourceServer.handle(SOURCE, request -> {
+            String path = request.getPath().substring(SOURCE.length());
+            byte[] content = files.get(path);
+            if (content != null) {
+                return Response.of(200, content);
+            }
+            String listing = listing(path);
+            return listing != null ? Response.of(200, listing) : Response.of(404, "");
+        });
+        targetServer = new StubServer();
+        targetServer.handle(TARGET, request -> {
+            if (!"PUT".equals(request.method)) {
+                return Response.of(404, "");
+            }
+            uploaded.put(request.getPath().substring(TARGET.length()), request.body);
+            return Response.of(201, "");
+        });
+    }
+
+    @After
+    public void tearDown() {
+        sourceServer.close();
+        targetServer.close();
+    }
+
+    @Test
+    public void mirrorsWithBlockingEngine() throws Exception {
+        mirror("--engine=blocking");
+        assertMirrored();
+    }
+
+    /**
+     * 异步引擎通过StreamPipe在I/O线程中衔接GET和PUT，文件大于缓冲时需要多次暂停和恢复
+     */
+    @Test
+    public void mirrorsWithAsyncEngine() throws Exception {
+        mirror("--engine=async");
+        assertMirrored();
+    }
+
+    /**
+     * 源仓库的认证信息从URL中取出，随第一个请求发送，不会出现在目标仓库的请求中
+     */
+    @Test
+    public void sendsSourceCredentials() throws Exception {
+        String sourceUrl = sourceServer.url(SOURCE).replace("http://", "http://mirror%40corp:s3cr+t@");
+        run(sourceUrl, "--engine=blocking");
+        assertMirrored();
+
+        String expected = NexusHttpClients.basicAuthorization("mirror@corp", "s3cr+t");
+        for (StubServer.Request request : sourceServer.getRequests()) {
+            assertEquals(request.toString(), expected, request.getHeader("Authorization"));
+        }
+        String target = NexusHttpClients.basicAuthorization("admin", "admin123");
+        for (StubServer.Request request : targetServer.getRequests()) {
+            assertEquals(request.toString(), target, request.getHeader("Authorization"));
+        }
+    }
+
+    private void mirror(String engine) {
+        run(sourceServer.url(SOURCE), engine);
+    }
+
+    private void run(String sourceUrl, String engine) {
+        UploadJar2NexusRunner runner = new UploadJar2NexusRunner(sourceUrl, targetServer.url(TARGET), "admin",
+                "admin123", false);
+        for (String option : new String[] {engine, "--journal=off", "--dead-letter=off", "--metadata=false",
+                "--jmx=false"}) {
+            runner.applyOption(option);
+        }
+        runner.start();
+    }
+
+    private void assertMirrored() throws Exception {
+        for (Map.Entry<String, byte[]> file : files.entrySet()) {
+            byte[] content = uploaded.get(file.getKey());
+            assertNotNull("Not uploaded: " + file.getKey(), content);
+            assertArrayEquals(file.getKey(), file.getValue(), content);
+            byte[] sha1 = uploaded.get(file.getKey() + ".sha1");
+            assertNotNull("No checksum: " + file.getKey(), sha1);
+            assertEquals(Digests.toHex(MessageDigest.getInstance("SHA-1").digest(file.getValue())),
+                    new String(sha1, StandardCharsets.UTF_8));
+        }
+        // 每个文件从源仓库只读取一次
+        for (String path : files.keySet()) {
+            assertEquals(path, 1, sourceServer.count("GET", SOURCE + path));
+        }
+    }
+
+    /**
+     * 生成目录的HTML列表，目录不存在时返回null；给出大小的文件使用Maven Central的格式
+     */
+    private String listing(String directory) {
+        if (!directory.isEmpty() && !directory.endsWith("/")) {
+            return null;
+        }
+        TreeSet<String> entries = new TreeSet<>();
+        for (String path : files.keySet()) {
+            if (path.startsWith(directory)) {
+                String rest = path.substring(directory.length());
+                int slash = rest.indexOf('/');
+                entries.add(slash < 0 ? rest : rest.substring(0, slash + 1));
+            }
+        }
+        if (entries.isEmpty()) {
+            return null;
+        }
+        StringBuilder html = new StringBuilder("<html><body><pre><a href=\"../\">../</a>\n");
+        for (String entry : entries) {
+            html.append("<a href=\"").append(entry).append("\">").append(entry).append("</a>");
+            String path = directory + entry;
+            if (files.containsKey(path) && !withoutSize.contains(path)) {
+                html.append("    2024-03-04 05:06    ").append(files.get(path).length);
+            }
+            html.append('\n');
+        }
+        return html.append("</pre></body></html>").toString();
+    }
+
+    private static byte[] randomBytes(Random random, int size) {
+        byte[] bytes = new byte[size];
+        random.nextBytes(bytes);
+        return bytes;
+    }
+}
@@ -0,0 +1,326 @@
+package com.xus.UploadJar2Nexus;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.HttpResponse;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpPut;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.nio.client.methods.HttpAsyncMethods;
+import org.apache.http.nio.entity.NByteArrayEntity;
+import org.apache.http.nio.protocol.BasicAsyncResponseConsumer;
+import org.apache.http.util.EntityUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * 用直接读写套接字的服务器检查请求层：预先认证、Expect: 100-continue和连接上的字节计数。
+ * 服务器记录每个请求在网络上的原始字节，与{@link UploadMetrics}中的计数逐字节比较。
+ */
+public class NexusHttpClientsTest {
+    private static final String AUTHORIZATION = NexusHttpClients.basicAuthorization("admin", "admin123");
+    private static final int LARGE = (int) NexusHttpClients.EXPECT_CONTINUE_MIN_SIZE + 4321;
+
+    private RawServer server;
+    private final UploadMetrics metrics = new UploadMetrics();
+
+    @Before
+    public void setUp() throws IOException {
+        server = new RawServer();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        server.close();
+    }
+
+    /**
+     * 每个请求（包括连接上的第一个）都带Authorization，不经过401质询；小请求体不带Expect；
+     * 计入的发送字节数等于请求行、头部和请求体之和，接收字节数等于服务器写出的响应
+     */
+    @Test
+    public void blockingClientSendsAuthorizationAndCountsWireBytes() throws Exception {
+        List<byte[]> bodies = bodies(0, 1000, 70000);
+        try (CloseableHttpClient client = NexusHttpClients.createClient(server.url(), AUTHORIZATION, 2, 2, true,
+                metrics)) {
+            for (int i = 0; i < bodies.size(); i++) {
+                assertEquals(201, put(client, "/repository/releases/file" + i, bodies.get(i)));
+            }
+        }
+        assertSentAsIs(bodies);
+    }
+
+    @Test
+    public void asyncClientSendsAuthorizationAndCountsWireBytes() throws Exception {
+        List<byte[]> bodies = bodies(0, 1000, 70000);
+        try (CloseableHttpAsyncClient client = NexusHttpClients.createAsyncClient(server.url(), AUTHORIZATION, 2, 1,
+                true, metrics)) {
+            for (int i = 0; i < bodies.size(); i++) {
+                assertEquals(201, put(client, "/repository/releases/file" + i, bodies.get(i)));
+            }
+        }
+        assertSentAsIs(bodies);
+    }
+
+    /**
+     * 较大的请求体带Expect：服务器直接拒绝时请求体没有发送，计为一次认证质询和一次未发送的请求体；
+     * 服务器回应100后请求体照常发送，计数包括100响应
+     */
+    @Test
+    public void blockingClientWithholdsRejectedBody() throws Exception {
+        byte[] body = bodies(LARGE).get(0);
+        try (CloseableHttpClient client = NexusHttpClients.createClient(server.url(), AUTHORIZATION, 2, 2, true,
+                metrics)) {
+            assertEquals(401, put(client, "/reject/large.jar", body));
+            assertEquals(201, put(client, "/repository/releases/large.jar", body));
+        }
+        assertWithheld(body);
+    }
+
+    @Test
+    public void asyncClientWithholdsRejectedBody() throws Exception {
+        byte[] body = bodies(LARGE).get(0);
+        try (CloseableHttpAsyncClient client = NexusHttpClients.createAsyncClient(server.url(), AUTHORIZATION, 2, 1,
+                true, metrics)) {
+            assertEquals(401, put(client, "/reject/large.jar", body));
+            assertEquals(201, put(client, "/repository/releases/large.jar", body));
+        }
+        assertWithheld(body);
+    }
+
+    @Test
+    public void sendsLargeBodyDirectlyWhenExpectContinueIsDisabled() throws Exception {
+        List<byte[]> bodies = bodies(LARGE);
+        try (CloseableHttpClient client = NexusHttpClients.createClient(server.url(), AUTHORIZATION, 2, 2, false,
+                metrics)) {
+            assertEquals(201, put(client, "/repository/releases/large.jar", bodies.get(0)));
+        }
+        assertSentAsIs(bodies);
+    }
+
+    private void assertSentAsIs(List<byte[]> bodies) {
+        List<RawServer.Exchange> exchanges = server.getExchanges();
+        assertEquals(bodies.size(), exchanges.size());
+        long sent = 0;
+        long received = 0;
+        for (int i = 0; i < bodies.size(); i++) {
+            RawServer.Exchange exchange = exchanges.get(i);
+            assertEquals(exchange.head, AUTHORIZATION, exchange.header("Authorization"));
+            assertNull(exchange.head, exchange.header("Expect"));
+            assertArrayEquals(bodies.get(i), exchange.body);
+            sent += exchange.head.length() + exchange.body.length;
+            received += exchange.written;
+        }
+        assertEquals(bodies.size(), metrics.getRequests());
+        assertEquals(sent, metrics.getWireSentBytes());
+        assertEquals(received, metrics.getWireReceivedBytes());
+        assertEquals(0, metrics.getAuthChallenges());
+        assertEquals(0, metrics.getWithheldBodies());
+    }
+
+    private void assertWithheld(byte[] body) {
+        List<RawServer.Exchange> exchanges = server.getExchanges();
+        assertEquals(2, exchanges.size());
+        RawServer.Exchange rejected = exchanges.get(0);
+        RawServer.Exchange accepted = exchanges.get(1);
+        assertEquals(rejected.head, "100-continue", rejected.header("Expect"));
+        assertEquals(rejected.head, AUTHORIZATION, rejected.header("Authorization"));
+        assertEquals(0, rejected.body.length);
+        assertEquals(accepted.head, "100-continue", accepted.header("Expect"));
+        assertArrayEquals(body, accepted.body);
+
+        assertEquals(2, metrics.getRequests());
+        assertEquals(rejected.head.length() + accepted.head.length() + body.length, metrics.getWireSentBytes());
+        assertEquals(rejected.written + accepted.written, metrics.getWireReceivedBytes());
+        assertEquals(1, metrics.getAuthChallenges());
+        assertEquals(1, metrics.getWithheldBodies());
+    }
+
+    private int put(CloseableHttpClient client, String path, byte[] body) throws IOException {
+        HttpPut put = new HttpPut(server.url() + path.substring(1));
+        put.setEntity(new ByteArrayEntity(body));
+        try (CloseableHttpResponse response = client.execute(put)) {
+            EntityUtils.consume(response.getEntity());
+            return response.getStatusLine().getStatusCode();
+        }
+    }
+
+    private int put(CloseableHttpAsyncClient client, String path, byte[] body) throws Exception {
+        HttpPut put = new HttpPut(server.url() + path.substring(1));
+        put.setEntity(new NByteArrayEntity(body));
+        HttpResponse response = client.execute(HttpAsyncMethods.create(put), new BasicAsyncResponseConsumer(), null)
+            .get(20, TimeUnit.SECONDS);
+        return response.getStatusLine().getStatusCode();
+    }
+
+    private static List<byte[]> bodies(int... sizes) {
+        Random random = new Random(3);
+        List<byte[]> bodies = new ArrayList<>();
+        for (int size : sizes) {
+            byte[] body = new byte[size];
+            random.nextBytes(body);
+            bodies.add(body);
+        }
+        return bodies;
+    }
+
+    /**
+     * 读写原始字节的HTTP/1.1服务器：支持持久连接和Expect: 100-continue，
+     * 路径以/reject/开头的请求在读取请求体之前以401拒绝并关闭连接，其余请求读取请求体后返回201
+     */
+    private static final class RawServer implements Closeable {
+        private static final byte[] CONTINUE = "HTTP/1.1 100 Continue\r\n\r\n".getBytes(StandardCharsets.US_ASCII);
+        private static final byte[] CREATED = "HTTP/1.1 201 Created\r\nContent-Length: 0\r\n\r\n"
+            .getBytes(StandardCharsets.US_ASCII);
+        private static final byte[] UNAUTHORIZED = ("HTTP/1.1 401 Unauthorized\r\n"
+                + "WWW-Authenticate: BASIC realm=\"Sonatype Nexus Repository Manager\"\r\n"
+                + "Content-Length: 0\r\nConnection: close\r\n\r\n").getBytes(StandardCharsets.US_ASCII);
+
+        /**
+         * 一个请求：原始的请求行和头部（含结尾的空行）、请求体，以及服务器为它写出的字节数
+         */
+        static final class Exchange {
+            final String head;
+            byte[] body = new byte[0];
+            int written;
+
+            Exchange(String head) {
+                this.head = head;
+            }
+
+            String header(String name) {
+                for (String line : head.split("\r\n")) {
+                    int colon = line.indexOf(':');
+                    if (colon > 0 && line.substring(0, colon).trim().equalsIgnoreCase(name)) {
+                        return line.substring(colon + 1).trim();
+                    }
+                }
+                return null;
+            }
+        }
+
+        private final ServerSocket serverSocket;
+        private final List<Exchange> exchanges = new ArrayList<>();
+
+        RawServer() throws IOException {
+            serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+            Thread acceptor = new Thread(this::accept, "raw-server");
+            acceptor.setDaemon(true);
+            acceptor.start();
+        }
+
+        String url() {
+            return "http://127.0.0.1:" + serverSocket.getLocalPort() + "/";
+        }
+
+        List<Exchange> getExchanges() {
+            synchronized (exchanges) {
+                return new ArrayList<>(exchanges);
+            }
+        }
+
+        private void accept() {
+            while (!serverSocket.isClosed()) {
+                try {
+                    Socket socket = serverSocket.accept();
+                    Thread connection = new Thread(() -> serve(socket), "raw-connection");
+                    connection.setDaemon(true);
+                    connection.start();
+                } catch (IOException e) {
+                    return;
+                }
+            }
+        }
+
+        private void serve(Socket socket) {
+            try (Socket closing = socket) {
+                InputStream in = new BufferedInputStream(socket.getInputStream());
+                OutputStream out = socket.getOutputStream();
+                String head;
+                while ((head = readHead(in)) != null) {
+                    Exchange exchange = new Exchange(head);
+                    byte[] response = CREATED;
+                    if (exchange.head.contains(" /reject/")) {
+                        response = UNAUTHORIZED;
+                    } else {
+                        if (exchange.header("Expect") != null) {
+                            out.write(CONTINUE);
+                            out.flush();
+                            exchange.written += CONTINUE.length;
+                        }
+                        String length = exchange.header("Content-Length");
+                        exchange.body = readFully(in, length == null ? 0 : Integer.parseInt(length));
+                    }
+                    exchange.written += response.length;
+                    // 先记录再响应，客户端收到响应时请求已经记录
+                    synchronized (exchanges) {
+                        exchanges.add(exchange);
+                    }
+                    out.write(response);
+                    out.flush();
+                    if (response == UNAUTHORIZED) {
+                        return;
+                    }
+                }
+            } catch (IOException e) {
+                // 客户端关闭了连接
+            }
+        }
+
+        /**
+         * 读取请求行和头部，直到空行；连接在请求之间关闭时返回null
+         */
+        private static String readHead(InputStream in) throws IOException {
+            ByteArrayOutputStream head = new ByteArrayOutputStream();
+            // 最近读到的4个字节
+            int last = 0;
+            int b;
+            while ((b = in.read()) != -1) {
+                head.write(b);
+                last = (last << 8) | b;
+                if (last == 0x0d0a0d0a) {
+                    return new String(head.toByteArray(), StandardCharsets.US_ASCII);
+                }
+            }
+            return null;
+        }
+
+        private static byte[] readFully(InputStream in, int length) throws IOException {
+            byte[] body = new byte[length];
+            int offset = 0;
+            while (offset < length) {
+                int read = in.read(body, offset, length - offset);
+                if (read == -1) {
+                    throw new IOException("Unexpected end of request body");
+                }
+                offset += read;
+            }
+            return body;
+        }
+
+        @Override
+        public void close() throws IOException {
+            serverSocket.close();
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package com.xus.UploadJar2Nexus;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.util.Base64;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class NpmPackageTest {
+    private static final String MANIFEST = "{\"name\":\"left-pad\",\"version\":\"1.3.0\",\"description\":\"pad\"}";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void readsManifestAndDigests() throws Exception {
+        File file = write("left-pad-1.3.0.tgz", new TarBuilder()
+                .entry("package/README.md", new byte[3000])
+                .entry("package/package.json", MANIFEST)
+                .entry("package/index.js", new byte[70000])
+                .build());
+        NpmPackage npmPackage = NpmPackage.read(file);
+        assertEquals("left-pad", npmPackage.getName());
+        assertEquals("1.3.0", npmPackage.getVersion());
+        assertEquals("pad", npmPackage.getManifest().path("description").asText());
+        assertEquals("left-pad-1.3.0.tgz", npmPackage.getTarballName());
+        assertEquals(file.length(), npmPackage.getSize());
+
+        byte[] content = Files.readAllBytes(file.toPath());
+        assertEquals(Digests.toHex(MessageDigest.getInstance("SHA-1").digest(content)), npmPackage.getShasum());
+        assertEquals("sha512-" + Base64.getEncoder().encodeToString(MessageDigest.getInstance("SHA-512").digest(content)),
+                npmPackage.getIntegrity());
+    }
+
+    /**
+     * 只认顶层目录下的package.json，依赖中的package.json跳过
+     */
+    @Test
+    public void ignoresNestedManifests() throws IOException {
+        File file = write("app.tgz", new TarBuilder()
+                .entry("package/node_modules/dep/package.json", "{\"name\":\"dep\",\"version\":\"9.9.9\"}")
+                .entry("package.json", "{\"name\":\"root\",\"version\":\"0.0.1\"}")
+                .entry("./package/package.json", "{\"name\":\"@scope/app\",\"version\":\"2.0.0\"}")
+                .build());
+        NpmPackage npmPackage = NpmPackage.read(file);
+        assertEquals("@scope/app", npmPackage.getName());
+        assertEquals("app-2.0.0.tgz", npmPackage.getTarballName());
+        assertEquals("@scope/app@2.0.0", npmPackage.toString());
+    }
+
+    /**
+     * 超过100字节的路径：GNU长文件名条目和ustar的前缀字段
+     */
+    @Test
+    public void readsLongNames() throws IOException {
+        StringBuilder directory = new StringBuilder("package");
+        while (directory.length() < 120) {
+            directory.append("/deep");
+        }
+        File gnu = write("gnu.tgz", new TarBuilder()
+                .longNameEntry(directory + "/package.json", "{\"name\":\"nested\",\"version\":\"1.0.0\"}")
+                .longNameEntry("package/package.json", MANIFEST)
+                .build());
+        assertEquals("left-pad", NpmPackage.read(gnu).getName());
+
+        File ustar = write("ustar.tgz", new TarBuilder()
+                .ustarEntry(directory.toString(), "package.json", "{\"name\":\"nested\",\"version\":\"1.0.0\"}")
+                .ustarEntry("package", "package.json", MANIFEST)
+                .build());
+        assertEquals("left-pad", NpmPackage.read(ustar).getName());
+    }
+
+    @Test
+    public void rejectsInvalidPackages() throws IOException {
+        File noManifest = write("empty.tgz", new TarBuilder().entry("package/index.js", "x").build());
+        File noVersion = write("bad.tgz", new TarBuilder().entry("package/package.json", "{\"name\":\"x\"}").build());
+        File notJson = write("array.tgz", new TarBuilder().entry("package/package.json", "[1]").build());
+        File notGzip = write("plain.tgz", "not a tarball".getBytes(StandardCharsets.UTF_8));
+        for (File file : new File[] {noManifest, noVersion, notJson, notGzip}) {
+            try {
+                NpmPackage.read(file);
+                fail("Expected rejection: " + file.getName());
+            } catch (IOException e) {
+                // 预期
+            }
+        }
+    }
+
+    private File write(String name, byte[] content) throws IOException {
+        File file = folder.newFile(name);
+        Files.write(file.toPath(), content);
+        return file;
+    }
+
+    /**
+     * 在测试中生成.tgz：tar条目依次写入，最后补两个空块并gzip压缩
+     */
+    static final class TarBuilder {
+        private static final int BLOCK_SIZE = 512;
+        private final ByteArrayOutputStream tar = new ByteArrayOutputStream();
+
+        TarBuilder entry(String name, String content) {
+            return entry(name, content.getBytes(StandardCharsets.UTF_8));
+        }
+
+        TarBuilder entry(String name, byte[] content) {
+            return add("", name, '0', content);
+        }
+
+        /**
+         * GNU格式：先写一个类型为L、内容为完整路径的条目，真正的条目中只保留截断的名称
+         */
+        TarBuilder longNameEntry(String name, String content) {
+            byte[] longName = (name + "\0").getBytes(StandardCharsets.UTF_8);
+            add("", "././@LongLink", 'L', longName);
+            return add("", name.substring(0, Math.min(name.length(), 99)), '0',
+                    content.getBytes(StandardCharsets.UTF_8));
+        }
+
+        TarBuilder ustarEntry(String prefix, String name, String content) {
+            return add(prefix, name, '0', content.getBytes(StandardCharsets.UTF_8));
+        }
+
+        byte[] build() throws IOException {
+            tar.write(new byte[BLOCK_SIZE * 2]);
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+            try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+                tar.writeTo(gzip);
+            }
+            return compressed.toByteArray();
+        }
+
+        private TarBuilder add(String prefix, String name, char type, byte[] content) {
+            byte[] header = new byte[BLOCK_SIZE];
+            put(header, 0, name);
+            put(header, 100, "0000644");
+            put(header, 108, "0000000");
+            put(header, 116, "0000000");
+            put(header, 124, String.format("%011o", content.length));
+            put(header, 136, "00000000000");
+            header[156] = (byte) type;
+            put(header, 257, "ustar");
+            put(header, 263, "00");
+            put(header, 345, prefix);
+            for (int i = 148; i < 156; i++) {
+                header[i] = ' ';
+            }
+            int checksum = 0;
+            for (byte b : header) {
+                checksum += b & 0xff;
+            }
+            put(header, 148, String.format("%06o", checksum));
+            tar.write(header, 0, BLOCK_SIZE);
+            tar.write(content, 0, content.length);
+            int padding = (BLOCK_SIZE - content.length % BLOCK_SIZE) % BLOCK_SIZE;
+            tar.write(new byte[padding], 0, padding);
+            return this;
+        }
+
+        private static void put(byte[] header, int offset, String value) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            assertTrue(value, bytes.length <= 155);
+            System.arraycopy(bytes, 0, header, offset, bytes.length);
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.xus.UploadJar2Nexus;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Base64;
+import java.util.Random;
+
+import org.apache.http.entity.ContentType;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class NpmPublishEntityTest {
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final String TARBALL_URL = "http://nexus/repository/npm/@scope/app/-/app-2.0.0.tgz";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * 发布文档与npm publish发送的结构相同，附件base64解码后与.tgz文件逐字节相同，Content-Length与实际长度一致
+     */
+    @Test
+    public void writesPublishDocument() throws IOException {
+        // 不可压缩的内容，tgz文件的长度不是3的倍数时同样要补齐base64
+        byte[] random = new byte[100001];
+        new Random(3).nextBytes(random);
+        File file = folder.newFile("app-2.0.0.tgz");
+        Files.write(file.toPath(), new NpmPackageTest.TarBuilder()
+                .entry("package/package.json",
+                        "{\"name\":\"@scope/app\",\"version\":\"2.0.0\",\"description\":\"demo\",\"main\":\"index.js\"}")
+                .entry("package/data.bin", random)
+                .build());
+        NpmPackage npmPackage = NpmPackage.read(file);
+        NpmPublishEntity entity = new NpmPublishEntity(npmPackage, "next", TARBALL_URL,
+                new FileBodyEntity(file, ContentType.APPLICATION_OCTET_STREAM));
+        assertTrue(entity.isRepeatable());
+
+        byte[] body = write(entity);
+        assertEquals(entity.getContentLength(), body.length);
+        JsonNode document = MAPPER.readTree(body);
+        assertEquals("@scope/app", document.path("_id").asText());
+        assertEquals("@scope/app", document.path("name").asText());
+        assertEquals("demo", document.path("description").asText());
+        assertEquals("2.0.0", document.path("dist-tags").path("next").asText());
+        assertTrue(document.has("access"));
+
+        JsonNode version = document.path("versions").path("2.0.0");
+        assertEquals("@scope/app@2.0.0", version.path("_id").asText());
+        assertEquals("index.js", version.path("main").asText());
+        assertEquals(npmPackage.getShasum(), version.path("dist").path("shasum").asText());
+        assertEquals(npmPackage.getIntegrity(), version.path("dist").path("integrity").asText());
+        assertEquals(TARBALL_URL, version.path("dist").path("tarball").asText());
+
+        JsonNode attachment = document.path("_attachments").path("app-2.0.0.tgz");
+        assertEquals("application/octet-stream", attachment.path("content_type").asText());
+        assertEquals(file.length(), attachment.path("length").asLong());
+        assertArrayEquals(Files.readAllBytes(file.toPath()), Base64.getDecoder().decode(attachment.path("data").asText()));
+
+        // 重试时再次发送的内容相同
+        assertArrayEquals(body, write(entity));
+    }
+
+    private static byte[] write(NpmPublishEntity entity) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        entity.writeTo(out);
+        return out.toByteArray();
+    }
+}
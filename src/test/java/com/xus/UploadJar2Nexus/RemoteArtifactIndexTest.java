@@ -0,0 +1,152 @@
+package com.xus.UploadJar2Nexus;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.xus.UploadJar2Nexus.StubServer.Response;
+
+public class RemoteArtifactIndexTest {
+    private static final String SEARCH = "/service/rest/v1/search/assets";
+    private static final String REPOSITORY = "/repository/releases/";
+    private static final String LIB_JAR = "com/example/lib/1.0/lib-1.0.jar";
+    // 需要编码后才能放进查询参数
+    private static final String TOKEN = "c2VhcmNo/Mg==";
+
+    private StubServer server;
+    private CloseableHttpClient httpClient;
+
+    @Before
+    public void setUp() throws IOException {
+        server = new StubServer();
+        httpClient = HttpClients.createDefault();
+        server.handle(REPOSITORY, request -> {
+            if (request.getPath().endsWith("/lib-1.0.jar.sha1")) {
+                return Response.of(200, "0123456789abcdef0123456789abcdef01234567  lib-1.0.jar\n");
+            }
+            return Response.of(404, "");
+        });
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        httpClient.close();
+        server.close();
+    }
+
+    /**
+     * 按continuationToken取回全部分页，之后同一构件的查询不再访问服务器
+     */
+    @Test
+    public void followsContinuationToken() throws IOException {
+        server.handle(SEARCH, request -> {
+            if (request.getParameter("continuationToken") == null) {
+                return Response.of(200, "{\"items\":[" + asset("/com/example/lib/1.0/lib-1.0.pom", "aaa") + ","
+                        + asset(LIB_JAR, "bbb") + "],\"continuationToken\":\"" + TOKEN + "\"}");
+            }
+            return Response.of(200, "{\"items\":[" + asset("com/example/lib/2.0/lib-2.0.jar", "ccc")
+                    + "],\"continuationToken\":null}");
+        });
+        RemoteArtifactIndex index = newIndex(100);
+
+        assertEquals("aaa", index.remoteSha1("com.example", "lib", "com/example/lib/1.0/lib-1.0.pom"));
+        assertEquals("bbb", index.remoteSha1("com.example", "lib", LIB_JAR));
+        assertEquals("ccc", index.remoteSha1("com.example", "lib", "com/example/lib/2.0/lib-2.0.jar"));
+        assertNull(index.remoteSha1("com.example", "lib", "com/example/lib/3.0/lib-3.0.jar"));
+        assertEquals(2, server.count("GET", SEARCH));
+        assertEquals(0, server.count("GET", REPOSITORY));
+
+        StubServer.Request first = server.getRequests().get(0);
+        assertEquals("releases", first.getParameter("repository"));
+        assertEquals("com.example", first.getParameter("maven.groupId"));
+        assertEquals("lib", first.getParameter("maven.artifactId"));
+        assertEquals(TOKEN, server.getRequests().get(1).getParameter("continuationToken"));
+    }
+
+    /**
+     * 搜索接口不存在（404/405）时关闭搜索，之后所有构件都读取.sha1校验文件
+     */
+    @Test
+    public void missingSearchEndpointTurnsSearchOff() throws IOException {
+        for (int status : new int[] {404, 405}) {
+            tearDown();
+            setUp();
+            server.handle(SEARCH, request -> Response.of(status, ""));
+            RemoteArtifactIndex index = newIndex(100);
+
+            assertEquals("0123456789abcdef0123456789abcdef01234567", index.remoteSha1("com.example", "lib", LIB_JAR));
+            assertNull(index.remoteSha1("com.example", "other", "com/example/other/1.0/other-1.0.jar"));
+            assertEquals("0123456789abcdef0123456789abcdef01234567", index.remoteSha1("com.example", "lib", LIB_JAR));
+            assertEquals("HTTP " + status, 1, server.count("GET", SEARCH));
+            assertEquals("HTTP " + status, 3, server.count("GET", REPOSITORY));
+        }
+    }
+
+    /**
+     * 一次5xx只让这一次查询读取校验文件，结果不缓存，下一次查询重新搜索
+     */
+    @Test
+    public void transientErrorFallsBackOnce() throws IOException {
+        AtomicInteger searches = new AtomicInteger();
+        server.handle(SEARCH, request -> searches.incrementAndGet() == 1 ? Response.of(503, "busy")
+                : Response.of(200, "{\"items\":[" + asset(LIB_JAR, "fresh") + "]}"));
+        RemoteArtifactIndex index = newIndex(100);
+
+        assertEquals("0123456789abcdef0123456789abcdef01234567", index.remoteSha1("com.example", "lib", LIB_JAR));
+        assertEquals(1, server.count("GET", REPOSITORY));
+        assertEquals("fresh", index.remoteSha1("com.example", "lib", LIB_JAR));
+        assertEquals("fresh", index.remoteSha1("com.example", "lib", LIB_JAR));
+        assertEquals(2, server.count("GET", SEARCH));
+        assertEquals(1, server.count("GET", REPOSITORY));
+    }
+
+    /**
+     * 缓存按访问顺序淘汰：最近查询过的构件保留，最久未用的构件再次查询时重新搜索
+     */
+    @Test
+    public void evictsLeastRecentlyUsedArtifact() throws IOException {
+        server.handle(SEARCH, request -> Response.of(200, "{\"items\":[]}"));
+        RemoteArtifactIndex index = newIndex(2);
+
+        index.remoteSha1("g", "a", "g/a/1/a-1.jar");
+        index.remoteSha1("g", "b", "g/b/1/b-1.jar");
+        index.remoteSha1("g", "a", "g/a/1/a-1.pom");
+        index.remoteSha1("g", "c", "g/c/1/c-1.jar");
+        assertEquals(3, server.count("GET", SEARCH));
+
+        // a仍在缓存中，b已被c挤出
+        index.remoteSha1("g", "a", "g/a/2/a-2.jar");
+        assertEquals(3, server.count("GET", SEARCH));
+        index.remoteSha1("g", "b", "g/b/1/b-1.jar");
+        assertEquals(4, server.count("GET", SEARCH));
+    }
+
+    /**
+     * URL不是Nexus 3的/repository/名称/形式时不使用搜索接口
+     */
+    @Test
+    public void readsChecksumFilesWithoutRepositoryName() throws IOException {
+        server.handle("/maven2/", request -> Response.of(200, "abc\n"));
+        RemoteArtifactIndex index = new RemoteArtifactIndex(httpClient, server.url("/maven2"), 100);
+
+        assertEquals("abc", index.remoteSha1("com.example", "lib", LIB_JAR));
+        assertEquals(0, server.count("GET", SEARCH));
+        assertEquals("/maven2/" + LIB_JAR + ".sha1", server.getRequests().get(0).getPath());
+    }
+
+    private RemoteArtifactIndex newIndex(int maxCachedArtifacts) {
+        return new RemoteArtifactIndex(httpClient, server.url(REPOSITORY), maxCachedArtifacts);
+    }
+
+    private static String asset(String path, String sha1) {
+        return "{\"path\":\"" + path + "\",\"checksum\":{\"sha1\":\"" + sha1 + "\",\"md5\":\"x\"}}";
+    }
+}
@@ -0,0 +1,240 @@
+package com.xus.UploadJar2Nexus;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.xus.UploadJar2Nexus.StubServer.Response;
+
+public class RemoteRepositoryScannerTest {
+    private static final String COMPONENTS = "/service/rest/v1/components";
+
+    private StubServer server;
+    private RemoteRepository source;
+    private final List<List<ArtifactFile>> directories = Collections.synchronizedList(new ArrayList<>());
+    private final ArtifactScanner.ArtifactSink sink = new ArtifactScanner.ArtifactSink() {
+        @Override
+        public void accept(ArtifactFile artifact) {
+            directories.add(Collections.singletonList(artifact));
+        }
+
+        @Override
+        public void acceptDirectory(List<ArtifactFile> artifacts) {
+            directories.add(new ArrayList<>(artifacts));
+        }
+    };
+
+    @Before
+    public void setUp() throws IOException {
+        server = new StubServer();
+    }
+
+    @After
+    public void tearDown() {
+        if (source != null) {
+            source.close();
+        }
+        server.close();
+    }
+
+    /**
+     * HTML目录列表：只跟随当前目录的直接子项，解析Maven Central格式的时间和大小，没有详情的文件大小未知
+     */
+    @Test
+    public void readsDirectoryListings() throws Exception {
+        Map<String, String> listings = new HashMap<>();
+        listings.put("/maven2/", "<html><body><h1>Index of /maven2</h1><pre>"
+                + "<a href=\"?C=N;O=D\">Name</a> <a href=\"../\">../</a>\n"
+                + "<a href=\"com/\" title=\"com/\">com/</a>\n"
+                + "<a href=\".index/\">.index/</a>\n"
+                + "<a href=\"http://elsewhere.example.com/org/\">org/</a>\n"
+                + "<a href=\"/other/\">other/</a>\n"
+                + "</pre></body></html>");
+        listings.put("/maven2/com/", "<a href=\"../\">../</a>\n<a href=\"example/\">example/</a>\n");
+        listings.put("/maven2/com/example/", "<a href=\"lib/\">lib/</a>\n<a href=\"maven-metadata.xml\">m</a>\n");
+        listings.put("/maven2/com/example/lib/", "<a href=\"1.0/\">1.0/</a>\n");
+        listings.put("/maven2/com/example/lib/1.0/", "<pre><a href=\"../\">../</a>\n"
+                + "<a href=\"lib-1.0.jar\" title=\"lib-1.0.jar\">lib-1.0.jar</a>"
+                + "                                       2020-01-21 17:29    381765\n"
+                + "<a href=\"lib-1.0.jar.sha1\">lib-1.0.jar.sha1</a>       2020-01-21 17:29        40\n"
+                + "<A HREF=\"" + server.url("/maven2/com/example/lib/1.0/lib-1.0.pom") + "\">lib-1.0.pom</A>\n"
+                + "<a href=\"lib-1.0-tests.jar\">lib-1.0-tests.jar</a>\n"
+                + "</pre>");
+        server.handle("/maven2/", request -> {
+            String listing = listings.get(request.getPath());
+            return listing != null ? Response.of(200, listing) : Response.of(404, "");
+        });
+        source = new RemoteRepository(server.url("/maven2/"), 2, false);
+
+        RemoteRepositoryScanner scanner = scan();
+        assertEquals(1, directories.size());
+        List<ArtifactFile> artifacts = directories.get(0);
+        assertEquals(Arrays.asList("com/example/lib/1.0/lib-1.0.pom", "com/example/lib/1.0/lib-1.0.jar",
+                "com/example/lib/1.0/lib-1.0-tests.jar"), paths(artifacts));
+        ArtifactFile jar = artifacts.get(1);
+        assertEquals(381765, jar.getSize());
+        assertEquals(LocalDateTime.of(2020, 1, 21, 17, 29).toInstant(ZoneOffset.UTC).toEpochMilli(),
+                jar.getLastModified());
+        assertNull(jar.getSha1());
+        assertEquals(source.getUrl() + "com/example/lib/1.0/lib-1.0.jar", source.urlOf(jar.getRelativePath()));
+        assertEquals(-1, artifacts.get(0).getSize());
+        assertEquals(0, artifacts.get(0).getLastModified());
+        assertEquals(5, scanner.getScannedDirectories());
+        assertEquals(3, scanner.getMatchedArtifacts());
+        // 隐藏目录、上级目录和其他位置的链接都没有读取
+        assertEquals(5, server.count("GET", "/maven2/"));
+        assertEquals(0, server.count("GET", "/other/"));
+    }
+
+    /**
+     * Nexus 3源仓库：分页读取组件列表，每个组件按目录交出，带有大小、修改时间和SHA-1
+     */
+    @Test
+    public void readsComponentsApi() throws Exception {
+        server.handle(COMPONENTS, request -> {
+            if (request.getParameter("continuationToken") == null) {
+                return Response.of(200, "{\"items\":[{\"group\":\"com.example\",\"name\":\"lib\",\"version\":\"1.0\","
+                        + "\"assets\":[" + asset("com/example/lib/1.0/lib-1.0.jar", 1234, "aaa") + ","
+                        + asset("/com/example/lib/1.0/lib-1.0.pom", 56, "bbb") + ","
+                        + asset("com/example/lib/1.0/lib-1.0.jar.sha1", 40, "ccc") + "]}],"
+                        + "\"continuationToken\":\"88491cd1d185dd136f143f20c4e7d50c\"}");
+            }
+            String directory = "com/example/app/2.0-SNAPSHOT/";
+            return Response.of(200, "{\"items\":[{\"group\":\"com.example\",\"name\":\"app\","
+                    + "\"version\":\"2.0-SNAPSHOT\",\"assets\":["
+                    + asset(directory + "app-2.0-20240102.030405-1.jar", 7, "ddd") + ","
+                    + asset(directory + "app-2.0-20240102.030405-1.pom", 8, "eee") + "]}],"
+                    + "\"continuationToken\":null}");
+        });
+        source = new RemoteRepository(server.url("/repository/source/"), 2, false);
+
+        scan();
+        assertEquals(2, directories.size());
+        List<ArtifactFile> lib = directories.get(0);
+        assertEquals(Arrays.asList("com/example/lib/1.0/lib-1.0.pom", "com/example/lib/1.0/lib-1.0.jar"), paths(lib));
+        assertEquals(56, lib.get(0).getSize());
+        assertEquals("bbb", lib.get(0).getSha1());
+        assertEquals(1234, lib.get(1).getSize());
+        assertEquals(OffsetDateTime.parse("2024-01-02T03:04:05.678+08:00").toInstant().toEpochMilli(),
+                lib.get(1).getLastModified());
+        assertEquals(Arrays.asList("com/example/app/2.0-SNAPSHOT/app-2.0-20240102.030405-1.pom",
+                "com/example/app/2.0-SNAPSHOT/app-2.0-20240102.030405-1.jar"), paths(directories.get(1)));
+
+        List<StubServer.Request> requests = server.getRequests();
+        assertEquals(2, requests.size());
+        assertEquals("source", requests.get(0).getParameter("repository"));
+        assertEquals("88491cd1d185dd136f143f20c4e7d50c", requests.get(1).getParameter("continuationToken"));
+    }
+
+    /**
+     * 组件列表接口不可用时改为读取目录列表
+     */
+    @Test
+    public void fallsBackToListingWithoutComponentsApi() throws Exception {
+        server.handle(COMPONENTS, request -> Response.of(404, ""));
+        server.handle("/repository/source/", request -> {
+            switch (request.getPath()) {
+                case "/repository/source/":
+                    return Response.of(200, "<a href=\"org/\">org/</a>");
+                case "/repository/source/org/":
+                    return Response.of(200, "<a href=\"demo/\">demo/</a>");
+                case "/repository/source/org/demo/":
+                    return Response.of(200, "<a href=\"1.0/\">1.0/</a>");
+                case "/repository/source/org/demo/1.0/":
+                    return Response.of(200, "<a href=\"demo-1.0.pom\">demo-1.0.pom</a>");
+                default:
+                    return Response.of(404, "");
+            }
+        });
+        source = new RemoteRepository(server.url("/repository/source/"), 2, false);
+
+        scan();
+        assertEquals(1, directories.size());
+        assertEquals(Collections.singletonList("org/demo/1.0/demo-1.0.pom"), paths(directories.get(0)));
+        assertEquals(1, server.count("GET", COMPONENTS));
+    }
+
+    /**
+     * 设置了过滤器时不读取不匹配的目录
+     */
+    @Test
+    public void prunesFilteredDirectories() throws Exception {
+        server.handle("/maven2/", request -> {
+            switch (request.getPath()) {
+                case "/maven2/":
+                    return Response.of(200, "<a href=\"org/\">org/</a><a href=\"com/\">com/</a>");
+                case "/maven2/org/":
+                    return Response.of(200, "<a href=\"keep/\">keep/</a><a href=\"drop/\">drop/</a>");
+                case "/maven2/org/keep/":
+                    return Response.of(200, "<a href=\"1.0/\">1.0/</a>");
+                case "/maven2/org/keep/1.0/":
+                    return Response.of(200, "<a href=\"keep-1.0.jar\">keep-1.0.jar</a>");
+                default:
+                    return Response.of(404, "");
+            }
+        });
+        source = new RemoteRepository(server.url("/maven2/"), 2, false);
+
+        RemoteRepositoryScanner scanner = new RemoteRepositoryScanner(source, sink, 2, null);
+        scanner.setFilter(new ArtifactFilter(Collections.singletonList("org:keep"), Collections.<String>emptyList(),
+                0, 0, 0, 0));
+        run(scanner);
+        assertEquals(Collections.singletonList("org/keep/1.0/keep-1.0.jar"), paths(directories.get(0)));
+        assertEquals(1, directories.size());
+        Set<String> requested = requestedPaths();
+        assertFalse(requested.toString(), requested.contains("/maven2/org/drop/"));
+        assertFalse(requested.toString(), requested.contains("/maven2/com/"));
+    }
+
+    private RemoteRepositoryScanner scan() throws Exception {
+        RemoteRepositoryScanner scanner = new RemoteRepositoryScanner(source, sink, 2, null);
+        run(scanner);
+        return scanner;
+    }
+
+    private static void run(RemoteRepositoryScanner scanner) throws Exception {
+        try {
+            scanner.start().get();
+        } finally {
+            scanner.shutdown();
+        }
+    }
+
+    private Set<String> requestedPaths() {
+        Set<String> paths = new HashSet<>();
+        for (StubServer.Request request : server.getRequests()) {
+            paths.add(request.getPath());
+        }
+        return paths;
+    }
+
+    private static List<String> paths(List<ArtifactFile> artifacts) {
+        List<String> paths = new ArrayList<>();
+        for (ArtifactFile artifact : artifacts) {
+            paths.add(artifact.getRelativePath());
+        }
+        return paths;
+    }
+
+    private static String asset(String path, long size, String sha1) {
+        return "{\"path\":\"" + path + "\",\"fileSize\":" + size
+                + ",\"lastModified\":\"2024-01-02T03:04:05.678+08:00\",\"checksum\":{\"sha1\":\"" + sha1 + "\"}}";
+    }
+}
@@ -0,0 +1,178 @@
+package com.xus.UploadJar2Nexus;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class RepositoryScannerTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Path root;
+    private final List<List<ArtifactFile>> directories = Collections.synchronizedList(new ArrayList<>());
+    private final RepositoryScanner.ArtifactSink sink = new RepositoryScanner.ArtifactSink() {
+        @Override
+        public void accept(ArtifactFile artifact) {
+            directories.add(Collections.singletonList(artifact));
+        }
+
+        @Override
+        public void acceptDirectory(List<ArtifactFile> artifacts) {
+            directories.add(new ArrayList<>(artifacts));
+        }
+    };
+
+    @Before
+    public void setUp() {
+        root = folder.getRoot().toPath();
+    }
+
+    @Test
+    public void findsArtifactsAndSkipsOtherFiles() throws IOException {
+        write("org/foo/bar/1.0/bar-1.0.jar");
+        write("org/foo/bar/1.0/bar-1.0.pom");
+        write("org/foo/bar/1.0/bar-1.0-tests.jar");
+        write("org/foo/bar/1.0/bar-1.0-sources.jar");
+        write("org/foo/bar/1.0/bar-1.0.jar.sha1");
+        write("org/foo/bar/1.0/bar-1.0.pom.asc");
+        write("org/foo/bar/1.0/_remote.repositories");
+        write("org/foo/bar/maven-metadata.xml");
+        // 不符合Maven仓库目录结构
+        write("stray.jar");
+
+        RepositoryScanner scanner = scan(null);
+        assertEquals(new HashSet<>(Arrays.asList("org/foo/bar/1.0/bar-1.0.jar", "org/foo/bar/1.0/bar-1.0.pom",
+                "org/foo/bar/1.0/bar-1.0-tests.jar")), new HashSet<>(paths()));
+        assertEquals(3, scanner.getMatchedArtifacts());
+        assertEquals(9, scanner.getScannedFiles());
+        assertEquals(5, scanner.getScannedDirectories());
+    }
+
+    /**
+     * 名称以校验文件或元数据后缀结尾的目录照常进入，其下的构件不会丢失
+     */
+    @Test
+    public void descendsIntoDirectoriesWithSkippedSuffixes() throws IOException {
+        write("org/foo/config.xml/1.0/config.xml-1.0.jar");
+        write("org/foo.properties/lib/2.0/lib-2.0.pom");
+        write("org/foo/app/1.0.lastUpdated/app-1.0.lastUpdated.jar");
+
+        scan(null);
+        assertEquals(new HashSet<>(Arrays.asList("org/foo/config.xml/1.0/config.xml-1.0.jar",
+                "org/foo.properties/lib/2.0/lib-2.0.pom", "org/foo/app/1.0.lastUpdated/app-1.0.lastUpdated.jar")),
+                new HashSet<>(paths()));
+    }
+
+    /**
+     * 同一个目录的构件一起交出，POM在前
+     */
+    @Test
+    public void deliversPomFirstPerDirectory() throws IOException {
+        write("org/foo/bar/1.0/bar-1.0.jar");
+        write("org/foo/bar/1.0/bar-1.0.war");
+        write("org/foo/bar/1.0/bar-1.0.pom");
+        write("org/foo/baz/1.0/baz-1.0.jar");
+
+        scan(null);
+        assertEquals(2, directories.size());
+        for (List<ArtifactFile> directory : directories) {
+            if (directory.size() == 3) {
+                assertEquals("pom", directory.get(0).getType());
+            }
+        }
+    }
+
+    @Test
+    public void filterPrunesDirectories() throws IOException {
+        write("com/ourcorp/core/1.0/core-1.0.jar");
+        write("com/other/core/1.0/core-1.0.jar");
+        write("org/foo/bar/1.0/bar-1.0.jar");
+
+        ArtifactFilter filter = new ArtifactFilter(Arrays.asList("com.ourcorp.**"), Collections.<String>emptyList(),
+                0, 0, 0, 0);
+        RepositoryScanner scanner = scan(filter);
+        assertEquals(Arrays.asList("com/ourcorp/core/1.0/core-1.0.jar"), paths());
+        // 只读取com/ourcorp之下的三层目录
+        assertEquals(3, scanner.getScannedDirectories());
+    }
+
+    /**
+     * 监视模式只读取一层目录
+     */
+    @Test
+    public void scanDirectoryReadsOneLevel() throws IOException, InterruptedException {
+        write("org/foo/bar/1.0/bar-1.0.jar");
+        write("org/foo/bar/1.0/nested/1.0/nested-1.0.jar");
+
+        RepositoryScanner scanner = new RepositoryScanner(root, sink, 1);
+        try {
+            scanner.scanDirectory(root.resolve("org/foo/bar/1.0"));
+        } finally {
+            scanner.shutdown();
+        }
+        assertEquals(Arrays.asList("org/foo/bar/1.0/bar-1.0.jar"), paths());
+    }
+
+    @Test
+    public void doesNotFollowSymbolicLinks() throws IOException {
+        write("org/foo/bar/1.0/bar-1.0.jar");
+        Path outside = folder.newFolder("outside", "lib", "1.0").toPath();
+        Files.write(outside.resolve("lib-1.0.jar"), new byte[] {1});
+        try {
+            Files.createSymbolicLink(root.resolve("org/linked"), outside.getParent());
+            Files.createSymbolicLink(root.resolve("org/foo/bar/1.0/bar-1.0-linked.jar"),
+                    outside.resolve("lib-1.0.jar"));
+        } catch (UnsupportedOperationException | IOException e) {
+            // 不支持符号链接的文件系统上不测试
+            return;
+        }
+        RepositoryScanner scanner = new RepositoryScanner(root.resolve("org"), sink, 2);
+        try {
+            scanner.start().join();
+        } finally {
+            scanner.shutdown();
+        }
+        assertEquals(Arrays.asList("foo/bar/1.0/bar-1.0.jar"), paths());
+    }
+
+    private RepositoryScanner scan(ArtifactFilter filter) {
+        RepositoryScanner scanner = new RepositoryScanner(root, sink, 2);
+        scanner.setFilter(filter);
+        try {
+            scanner.start().join();
+        } finally {
+            scanner.shutdown();
+        }
+        return scanner;
+    }
+
+    private List<String> paths() {
+        List<String> paths = new ArrayList<>();
+        synchronized (directories) {
+            for (List<ArtifactFile> directory : directories) {
+                for (ArtifactFile artifact : directory) {
+                    paths.add(artifact.getRelativePath());
+                }
+            }
+        }
+        return paths;
+    }
+
+    private void write(String relativePath) throws IOException {
+        Path file = root.resolve(relativePath);
+        Files.createDirectories(file.getParent());
+        Files.write(file, new byte[] {1, 2, 3});
+    }
+}
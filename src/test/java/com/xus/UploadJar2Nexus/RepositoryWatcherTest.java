@@ -0,0 +1,103 @@
+package com.xus.UploadJar2Nexus;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class RepositoryWatcherTest {
+    private static final long DEBOUNCE_MS = 100;
+    private static final long MAX_WAIT_MS = 1500;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Path root;
+    private RepositoryWatcher watcher;
+    private Thread thread;
+    private final List<List<Path>> bursts = Collections.synchronizedList(new ArrayList<>());
+    private final CountDownLatch received = new CountDownLatch(1);
+
+    @Before
+    public void setUp() throws IOException {
+        root = folder.getRoot().toPath().toRealPath();
+        Files.createDirectories(root.resolve("org/existing"));
+        watcher = new RepositoryWatcher(root, DEBOUNCE_MS, MAX_WAIT_MS, 60000);
+        thread = new Thread(() -> {
+            try {
+                watcher.run(new RepositoryWatcher.BurstListener() {
+                    @Override
+                    public void onBurst(List<Path> directories) {
+                        bursts.add(new ArrayList<>(directories));
+                        received.countDown();
+                    }
+
+                    @Override
+                    public void onOverflow() {
+                    }
+
+                    @Override
+                    public void onIdle() {
+                    }
+                });
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        thread.start();
+    }
+
+    @After
+    public void tearDown() throws IOException, InterruptedException {
+        watcher.close();
+        thread.join(5000);
+    }
+
+    /**
+     * 新建的groupId/artifactId/version子树中只有含构件的版本目录等待处理，
+     * 上级目录和空目录不会在maxWait之后再产生一批
+     */
+    @Test
+    public void newSubtreeMarksOnlyDirectoriesWithArtifacts() throws IOException, InterruptedException {
+        assertFalse(watcher.isRescanning());
+        Path version = root.resolve("com/example/lib/1.0");
+        Files.createDirectories(version);
+        Files.write(version.resolve("lib-1.0.pom"), new byte[] {1});
+        Files.write(version.resolve("lib-1.0.jar"), new byte[] {2});
+        Files.createDirectories(root.resolve("com/example/empty/1.0"));
+
+        assertTrue(received.await(MAX_WAIT_MS, TimeUnit.MILLISECONDS));
+        Thread.sleep(MAX_WAIT_MS * 2);
+        assertEquals(Collections.singletonList(Collections.singletonList(version)), new ArrayList<>(bursts));
+    }
+
+    /**
+     * 已监视的目录中有JAR没有POM时等待POM，POM写入后与JAR在同一批中处理
+     */
+    @Test
+    public void waitsForPom() throws IOException, InterruptedException {
+        Path version = root.resolve("org/existing/2.0");
+        Files.createDirectories(version);
+        Thread.sleep(DEBOUNCE_MS * 3);
+        Files.write(version.resolve("existing-2.0.jar"), new byte[] {2});
+        assertFalse(received.await(DEBOUNCE_MS * 5, TimeUnit.MILLISECONDS));
+
+        Files.write(version.resolve("existing-2.0.pom"), new byte[] {1});
+        assertTrue(received.await(MAX_WAIT_MS, TimeUnit.MILLISECONDS));
+        assertEquals(Collections.singletonList(Collections.singletonList(version)), new ArrayList<>(bursts));
+    }
+}
@@ -0,0 +1,61 @@
+package com.xus.UploadJar2Nexus;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class RetryBackoffTest {
+
+    /**
+     * 等待时间在[上限/2, 上限]之间，上限每次翻倍直到MAX_DELAY_MS
+     */
+    @Test
+    public void delayGrowsExponentiallyWithJitter() {
+        for (int attempt = 1; attempt <= 30; attempt++) {
+            long ceiling = Math.min(RetryBackoff.MAX_DELAY_MS, RetryBackoff.BASE_DELAY_MS << Math.min(attempt - 1, 20));
+            for (int i = 0; i < 200; i++) {
+                long delay = RetryBackoff.delayMillis(attempt, 0);
+                assertTrue("attempt " + attempt + ": " + delay, delay >= ceiling / 2 && delay <= ceiling);
+            }
+        }
+        assertTrue(RetryBackoff.delayMillis(1, 0) <= RetryBackoff.BASE_DELAY_MS);
+        assertTrue(RetryBackoff.delayMillis(100, 0) <= RetryBackoff.MAX_DELAY_MS);
+    }
+
+    /**
+     * 抖动使同时失败的请求不会在同一时刻重试
+     */
+    @Test
+    public void delaysAreSpread() {
+        long min = Long.MAX_VALUE;
+        long max = Long.MIN_VALUE;
+        for (int i = 0; i < 1000; i++) {
+            long delay = RetryBackoff.delayMillis(3, 0);
+            min = Math.min(min, delay);
+            max = Math.max(max, delay);
+        }
+        assertTrue(max - min > 1000);
+    }
+
+    @Test
+    public void retryAfterIsAFloor() {
+        assertEquals(120000, RetryBackoff.delayMillis(1, 120000));
+        assertTrue(RetryBackoff.delayMillis(5, 10) >= 8000);
+    }
+
+    @Test
+    public void retryableStatusCodes() {
+        assertTrue(RetryBackoff.isRetryable(500));
+        assertTrue(RetryBackoff.isRetryable(502));
+        assertTrue(RetryBackoff.isRetryable(503));
+        assertTrue(RetryBackoff.isRetryable(408));
+        assertTrue(RetryBackoff.isRetryable(429));
+        assertFalse(RetryBackoff.isRetryable(400));
+        assertFalse(RetryBackoff.isRetryable(401));
+        assertFalse(RetryBackoff.isRetryable(403));
+        assertFalse(RetryBackoff.isRetryable(404));
+        assertFalse(RetryBackoff.isRetryable(413));
+    }
+}
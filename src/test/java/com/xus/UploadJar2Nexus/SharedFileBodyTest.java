@@ -0,0 +1,180 @@
+package com.xus.UploadJar2Nexus;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Semaphore;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class SharedFileBodyTest {
+    private static final String[] ALGORITHMS = {"SHA-1", "MD5"};
+    private static final int BUDGET = 100;
+    // 3.5块，最后一块不满
+    private static final int LENGTH = SharedFileBody.CHUNK_SIZE * 7 / 2;
+    // 与块大小不对齐的读取缓冲
+    private static final int READ_SIZE = 5000;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File file;
+    private byte[] content;
+    private Semaphore budget;
+
+    @Before
+    public void setUp() throws IOException {
+        content = new byte[LENGTH];
+        new Random(7).nextBytes(content);
+        file = folder.newFile("foo-1.0.jar");
+        Files.write(file.toPath(), content);
+        budget = new Semaphore(BUDGET);
+    }
+
+    /**
+     * 两个目标共用一次读取：第二个读者从缓存读取，读完后缓存全部归还预算
+     */
+    @Test
+    public void readersShareCachedChunks() throws IOException {
+        SharedFileBody body = new SharedFileBody(file, 2, ALGORITHMS, 64, budget);
+        SharedFileBody.Reader first = body.newReader(0);
+        SharedFileBody.Reader second = body.newReader(1);
+
+        assertArrayEquals(content, readAll(first));
+        // 第二个读者还没有读，全部4块仍在缓存中
+        assertEquals(BUDGET - 4, budget.availablePermits());
+        first.close();
+        assertArrayEquals(content, readAll(second));
+        second.close();
+        assertEquals(BUDGET, budget.availablePermits());
+        assertDigests(body);
+    }
+
+    /**
+     * 落后超过窗口的读者脱离共享，自己读取磁盘，内容和摘要不受影响
+     */
+    @Test
+    public void slowReaderDetachesBeyondWindow() throws IOException {
+        SharedFileBody body = new SharedFileBody(file, 2, ALGORITHMS, 1, budget);
+        SharedFileBody.Reader fast = body.newReader(0);
+        SharedFileBody.Reader slow = body.newReader(1);
+        byte[] head = new byte[READ_SIZE];
+        ByteBuffer buffer = ByteBuffer.wrap(head);
+        assertEquals(READ_SIZE, slow.read(buffer));
+
+        assertArrayEquals(content, readAll(fast));
+        // 慢读者已脱离共享，缓存中只剩最快读者读过的最后两块
+        assertEquals(BUDGET - 2, budget.availablePermits());
+        fast.close();
+        assertEquals(BUDGET, budget.availablePermits());
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(head);
+        out.write(readAll(slow));
+        slow.close();
+        assertArrayEquals(content, out.toByteArray());
+        assertEquals(BUDGET, budget.availablePermits());
+        assertDigests(body);
+    }
+
+    /**
+     * 全局预算用完时不缓存，各读者仍能读到完整内容
+     */
+    @Test
+    public void exhaustedBudgetFallsBackToDisk() throws IOException {
+        Semaphore empty = new Semaphore(0);
+        SharedFileBody body = new SharedFileBody(file, 3, ALGORITHMS, 64, empty);
+        SharedFileBody.Reader[] readers = new SharedFileBody.Reader[3];
+        ByteArrayOutputStream[] outputs = new ByteArrayOutputStream[3];
+        for (int i = 0; i < readers.length; i++) {
+            readers[i] = body.newReader(i);
+            outputs[i] = new ByteArrayOutputStream();
+        }
+        // 交替读取
+        ByteBuffer buffer = ByteBuffer.allocate(READ_SIZE);
+        boolean progress = true;
+        while (progress) {
+            progress = false;
+            for (int i = 0; i < readers.length; i++) {
+                buffer.clear();
+                int count = readers[i].read(buffer);
+                if (count > 0) {
+                    outputs[i].write(buffer.array(), 0, count);
+                    progress = true;
+                }
+            }
+        }
+        for (int i = 0; i < readers.length; i++) {
+            readers[i].close();
+            assertArrayEquals(content, outputs[i].toByteArray());
+        }
+        assertEquals(0, empty.availablePermits());
+        assertDigests(body);
+    }
+
+    /**
+     * 重试时第一块已不在缓存中，新的读取直接从磁盘进行
+     */
+    @Test
+    public void retryReadsFromDisk() throws IOException {
+        SharedFileBody body = new SharedFileBody(file, 1, ALGORITHMS, 64, budget);
+        SharedFileBody.Reader first = body.newReader(0);
+        ByteBuffer buffer = ByteBuffer.allocate(SharedFileBody.CHUNK_SIZE * 2);
+        first.read(buffer);
+        buffer.clear();
+        first.read(buffer);
+        first.close();
+        assertEquals(BUDGET, budget.availablePermits());
+        // 只读了一部分，摘要还没有完成
+        assertNull(body.getDigests());
+
+        SharedFileBody.Reader retry = body.newReader(0);
+        assertArrayEquals(content, readAll(retry));
+        retry.close();
+        assertEquals(BUDGET, budget.availablePermits());
+        assertDigests(body);
+    }
+
+    @Test
+    public void emptyFile() throws IOException {
+        File emptyFile = folder.newFile("empty-1.0.pom");
+        SharedFileBody body = new SharedFileBody(emptyFile, 2, ALGORITHMS, 64, budget);
+        assertNotNull(body.getDigests());
+        assertEquals(Digests.digest(emptyFile, "SHA-1"), body.getDigests().get("SHA-1"));
+        SharedFileBody.Reader reader = body.newReader(0);
+        assertEquals(-1, reader.read(ByteBuffer.allocate(READ_SIZE)));
+        reader.close();
+        assertEquals(BUDGET, budget.availablePermits());
+    }
+
+    private void assertDigests(SharedFileBody body) throws IOException {
+        Map<String, String> digests = body.getDigests();
+        assertNotNull(digests);
+        for (String algorithm : ALGORITHMS) {
+            assertEquals(Digests.digest(file, algorithm), digests.get(algorithm));
+        }
+    }
+
+    private static byte[] readAll(SharedFileBody.Reader reader) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ByteBuffer buffer = ByteBuffer.allocate(READ_SIZE);
+        int count;
+        while ((count = reader.read(buffer)) >= 0) {
+            out.write(buffer.array(), 0, count);
+            buffer.clear();
+        }
+        return out.toByteArray();
+    }
+}
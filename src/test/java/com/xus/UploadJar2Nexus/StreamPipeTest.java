@@ -0,0 +1,249 @@
+package com.xus.UploadJar2Nexus;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpVersion;
+import org.apache.http.entity.BasicHttpEntity;
+import org.apache.http.entity.ContentType;
+import org.apache.http.message.BasicHttpResponse;
+import org.apache.http.nio.ContentDecoder;
+import org.apache.http.nio.IOControl;
+import org.apache.http.protocol.BasicHttpContext;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * 在测试线程中交替模拟两边的I/O线程：源仓库GET响应写入，PUT请求体读出
+ */
+public class StreamPipeTest {
+    private static final int CAPACITY = 16;
+
+    private RemoteRepository source;
+    private final Control input = new Control();
+    private final Control output = new Control();
+
+    @Before
+    public void setUp() {
+        source = new RemoteRepository("http://127.0.0.1:1/repository/source/", 1, false);
+    }
+
+    @After
+    public void tearDown() {
+        source.close();
+    }
+
+    /**
+     * 缓冲满时暂停GET的输入，读出后恢复；缓冲空时暂停PUT的输出，收到数据后恢复；内容完整且顺序不变
+     */
+    @Test
+    public void appliesBackpressureBothWays() throws Exception {
+        byte[] content = new byte[100];
+        new Random(7).nextBytes(content);
+        StreamPipe pipe = new StreamPipe(entity(content.length), CAPACITY);
+        StreamPipe.HttpAsyncConsumer consumer = pipe.newConsumer();
+        consumer.responseReceived(response(200, content.length));
+        Decoder decoder = new Decoder(content);
+        ByteArrayOutputStream sent = new ByteArrayOutputStream();
+
+        // PUT先于数据到达：没有数据可写时暂停输出
+        assertEquals(0, read(pipe, sent, 64));
+        assertEquals(1, output.suspended);
+
+        // 网络上一次到达40字节，只能放下CAPACITY字节，暂停输入并唤醒输出
+        decoder.arrive(40);
+        consumer.consumeContent(decoder, input);
+        assertEquals(1, input.suspended);
+        assertEquals(1, output.requested);
+
+        // 每次只读出一部分，读出后恢复输入，缓冲中的数据从不超过CAPACITY
+        while (!decoder.isCompleted()) {
+            int count = read(pipe, sent, 10);
+            assertTrue(count > 0 && count <= 10);
+            assertEquals(input.suspended, input.requested);
+            decoder.arrive(7);
+            consumer.consumeContent(decoder, input);
+        }
+        consumer.responseCompleted(new BasicHttpContext());
+        int count;
+        while ((count = read(pipe, sent, 64)) > 0) {
+            assertTrue(count <= CAPACITY);
+        }
+        assertEquals(-1, count);
+        assertArrayEquals(content, sent.toByteArray());
+        assertTrue(input.suspended > 1);
+    }
+
+    /**
+     * GET失败时读出的一方收到IOException，暂停的输出被唤醒以便报告错误
+     */
+    @Test
+    public void reportsSourceFailure() throws Exception {
+        StreamPipe pipe = new StreamPipe(entity(100), CAPACITY);
+        StreamPipe.HttpAsyncConsumer consumer = pipe.newConsumer();
+        assertEquals(0, read(pipe, new ByteArrayOutputStream(), 64));
+
+        consumer.failed(new IOException("connection reset"));
+        assertEquals(1, output.requested);
+        try {
+            read(pipe, new ByteArrayOutputStream(), 64);
+            fail("Expected failure");
+        } catch (IOException e) {
+            assertEquals("connection reset", e.getMessage());
+        }
+    }
+
+    /**
+     * 源仓库的文件比列表中的大，读到超出的部分时即失败
+     */
+    @Test
+    public void rejectsLongerContent() throws Exception {
+        StreamPipe pipe = new StreamPipe(entity(10), CAPACITY);
+        StreamPipe.HttpAsyncConsumer consumer = pipe.newConsumer();
+        consumer.responseReceived(response(200, -1));
+        Decoder decoder = new Decoder(new byte[12]);
+        decoder.arrive(12);
+        try {
+            consumer.consumeContent(decoder, input);
+            fail("Expected length mismatch");
+        } catch (IOException e) {
+            // 预期
+        }
+    }
+
+    @Test
+    public void rejectsErrorResponse() throws Exception {
+        StreamPipe pipe = new StreamPipe(entity(10), CAPACITY);
+        try {
+            pipe.newConsumer().responseReceived(response(404, 0));
+            fail("Expected HTTP error");
+        } catch (IOException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("404"));
+        }
+    }
+
+    /**
+     * PUT提前结束时取消尚未读完的GET；已经读完时保留连接
+     */
+    @Test
+    public void closeCancelsUnfinishedRequest() throws Exception {
+        StreamPipe unfinished = new StreamPipe(entity(10), CAPACITY);
+        CompletableFuture<Void> request = new CompletableFuture<>();
+        unfinished.setRequest(request);
+        unfinished.close();
+        assertTrue(request.isCancelled());
+
+        StreamPipe received = new StreamPipe(entity(10), CAPACITY);
+        StreamPipe.HttpAsyncConsumer consumer = received.newConsumer();
+        CompletableFuture<Void> complete = new CompletableFuture<>();
+        received.setRequest(complete);
+        consumer.responseReceived(response(200, 10));
+        Decoder decoder = new Decoder(new byte[10]);
+        decoder.arrive(10);
+        consumer.consumeContent(decoder, input);
+        received.close();
+        assertFalse(complete.isCancelled());
+
+        // 关闭之后才设置的请求立即取消
+        StreamPipe closed = new StreamPipe(entity(10), CAPACITY);
+        closed.close();
+        CompletableFuture<Void> late = new CompletableFuture<>();
+        closed.setRequest(late);
+        assertTrue(late.isCancelled());
+    }
+
+    private RemoteBodyEntity entity(long size) {
+        ArtifactFile artifact = new ArtifactFile(source, "com/example/lib/1.0/lib-1.0.jar", size, 0, null, "jar");
+        return (RemoteBodyEntity) source.newEntity(artifact, ContentType.APPLICATION_OCTET_STREAM);
+    }
+
+    private static HttpResponse response(int status, long length) {
+        BasicHttpResponse response = new BasicHttpResponse(HttpVersion.HTTP_1_1, status, "");
+        BasicHttpEntity body = new BasicHttpEntity();
+        body.setContentLength(length);
+        response.setEntity(body);
+        return response;
+    }
+
+    private int read(StreamPipe pipe, ByteArrayOutputStream sent, int size) throws IOException {
+        ByteBuffer dst = ByteBuffer.allocate(size);
+        int count = pipe.read(dst, output);
+        sent.write(dst.array(), 0, dst.position());
+        return count;
+    }
+
+    /**
+     * 内容分批到达的响应体
+     */
+    private static final class Decoder implements ContentDecoder {
+        private final ByteBuffer content;
+        private int available;
+
+        Decoder(byte[] content) {
+            this.content = ByteBuffer.wrap(content);
+        }
+
+        void arrive(int count) {
+            available = Math.min(content.remaining(), available + count);
+        }
+
+        @Override
+        public int read(ByteBuffer dst) {
+            int count = Math.min(available, dst.remaining());
+            ByteBuffer chunk = content.duplicate();
+            chunk.limit(chunk.position() + count);
+            dst.put(chunk);
+            content.position(content.position() + count);
+            available -= count;
+            return count;
+        }
+
+        @Override
+        public boolean isCompleted() {
+            return !content.hasRemaining();
+        }
+    }
+
+    /**
+     * 记录暂停和恢复次数的连接
+     */
+    private static final class Control implements IOControl {
+        int suspended;
+        int requested;
+
+        @Override
+        public void requestInput() {
+            requested++;
+        }
+
+        @Override
+        public void suspendInput() {
+            suspended++;
+        }
+
+        @Override
+        public void requestOutput() {
+            requested++;
+        }
+
+        @Override
+        public void suspendOutput() {
+            suspended++;
+        }
+
+        @Override
+        public void shutdown() {
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package com.xus.UploadJar2Nexus;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * 测试用的进程内HTTP服务器：按路径前缀分派请求，记录收到的每个请求（含请求头和请求体），
+ * 没有对应处理器的路径返回404
+ */
+final class StubServer implements Closeable {
+
+    /**
+     * 处理一个请求，返回响应
+     */
+    interface Handler {
+        Response handle(Request request) throws IOException;
+    }
+
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final List<Request> requests = new ArrayList<>();
+
+    StubServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.setExecutor(executor);
+        handle("/", request -> Response.of(404, "Not Found"));
+        server.start();
+    }
+
+    /**
+     * 注册路径前缀的处理器，最长的前缀优先
+     */
+    void handle(String pathPrefix, Handler handler) {
+        server.createContext(pathPrefix, exchange -> {
+            try {
+                Request request = new Request(exchange);
+                synchronized (requests) {
+                    requests.add(request);
+                }
+                handler.handle(request).send(exchange);
+            } finally {
+                exchange.close();
+            }
+        });
+    }
+
+    /**
+     * 服务器上指定路径的完整URL，例如url("/repository/releases/")
+     */
+    String url(String path) {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + path;
+    }
+
+    /**
+     * 迄今收到的全部请求，按到达顺序
+     */
+    List<Request> getRequests() {
+        synchronized (requests) {
+            return new ArrayList<>(requests);
+        }
+    }
+
+    /**
+     * 路径以指定前缀开头的请求数
+     */
+    int count(String method, String pathPrefix) {
+        int count = 0;
+        for (Request request : getRequests()) {
+            if (request.method.equals(method) && request.getPath().startsWith(pathPrefix)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    static final class Request {
+        final String method;
+        final URI uri;
+        final Headers headers;
+        final byte[] body;
+
+        private Request(HttpExchange exchange) throws IOException {
+            this.method = exchange.getRequestMethod();
+            this.uri = exchange.getRequestURI();
+            this.headers = new Headers();
+            this.headers.putAll(exchange.getRequestHeaders());
+            ByteArrayOutputStream content = new ByteArrayOutputStream();
+            try (InputStream in = exchange.getRequestBody()) {
+                byte[] buffer = new byte[8192];
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    content.write(buffer, 0, read);
+                }
+            }
+            this.body = content.toByteArray();
+        }
+
+        String getPath() {
+            return uri.getPath();
+        }
+
+        /**
+         * 查询参数的值（已解码），不存在时返回null
+         */
+        String getParameter(String name) {
+            String query = uri.getQuery();
+            if (query == null) {
+                return null;
+            }
+            for (String pair : query.split("&")) {
+                int eq = pair.indexOf('=');
+                if (eq > 0 && pair.substring(0, eq).equals(name)) {
+                    return pair.substring(eq + 1);
+                }
+            }
+            return null;
+        }
+
+        String getHeader(String name) {
+            return headers.getFirst(name);
+        }
+
+        String getBodyText() {
+            return new String(body, StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public String toString() {
+            return method + " " + uri;
+        }
+    }
+
+    static final class Response {
+        private final int status;
+        private final byte[] body;
+        private final Map<String, String> headers = new LinkedHashMap<>();
+
+        private Response(int status, byte[] body) {
+            this.status = status;
+            this.body = body;
+        }
+
+        static Response of(int status, String body) {
+            return of(status, body.getBytes(StandardCharsets.UTF_8));
+        }
+
+        static Response of(int status, byte[] body) {
+            return new Response(status, body);
+        }
+
+        Response header(String name, String value) {
+            headers.put(name, value);
+            return this;
+        }
+
+        private void send(HttpExchange exchange) throws IOException {
+            for (Map.Entry<String, String> header : headers.entrySet()) {
+                exchange.getResponseHeaders().set(header.getKey(), header.getValue());
+            }
+            boolean empty = body.length == 0 || "HEAD".equals(exchange.getRequestMethod());
+            exchange.sendResponseHeaders(status, empty ? -1 : body.length);
+            if (!empty) {
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(body);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package com.xus.UploadJar2Nexus;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class UploadJournalTest {
+    private static final String TARGET = "http://nexus.example/repository/releases/";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Path journalFile;
+
+    @Before
+    public void setUp() {
+        journalFile = folder.getRoot().toPath().resolve(UploadJournal.defaultFileName(TARGET));
+    }
+
+    @Test
+    public void recordsSurviveReopen() throws IOException {
+        ArtifactFile jar = artifact("org/example/foo/1.0/foo-1.0.jar", "jar content");
+        ArtifactFile pom = artifact("org/example/foo/1.0/foo-1.0.pom", "<project/>");
+        try (UploadJournal journal = UploadJournal.open(journalFile, TARGET)) {
+            assertFalse(journal.isUploaded(jar));
+            journal.record(jar, Digests.digest(jar.toFile(), "SHA-1"));
+            assertTrue(journal.isUploaded(jar));
+            assertFalse(journal.isUploaded(pom));
+        }
+        try (UploadJournal journal = UploadJournal.open(journalFile, TARGET)) {
+            assertEquals(1, journal.size());
+            assertTrue(journal.isUploaded(jar));
+            assertFalse(journal.isUploaded(pom));
+        }
+        List<String> lines = Files.readAllLines(journalFile, StandardCharsets.UTF_8);
+        assertTrue(lines.get(0).startsWith("# UploadJar2Nexus upload journal v1 " + TARGET));
+        assertEquals(2, lines.size());
+    }
+
+    @Test
+    public void sizeChangeMeansNotUploaded() throws IOException {
+        ArtifactFile jar = artifact("org/example/foo/1.0/foo-1.0.jar", "jar content");
+        try (UploadJournal journal = UploadJournal.open(journalFile, TARGET)) {
+            journal.record(jar, null);
+        }
+        ArtifactFile changed = artifact("org/example/foo/1.0/foo-1.0.jar", "longer jar content");
+        try (UploadJournal journal = UploadJournal.open(journalFile, TARGET)) {
+            assertFalse(journal.isUploaded(changed));
+        }
+    }
+
+    /**
+     * 只有修改时间变化时按SHA-1判断：内容相同跳过并更新记录，内容不同重新上传；没有记录SHA-1时重新上传
+     */
+    @Test
+    public void modifiedTimeChangeFallsBackToSha1() throws IOException {
+        ArtifactFile jar = artifact("org/example/foo/1.0/foo-1.0.jar", "jar content");
+        ArtifactFile pom = artifact("org/example/foo/1.0/foo-1.0.pom", "<project/>");
+        try (UploadJournal journal = UploadJournal.open(journalFile, TARGET)) {
+            journal.record(jar, Digests.digest(jar.toFile(), "SHA-1"));
+            journal.record(pom, null);
+        }
+        ArtifactFile touched = touch(jar, 5000);
+        ArtifactFile touchedPom = touch(pom, 5000);
+        try (UploadJournal journal = UploadJournal.open(journalFile, TARGET)) {
+            assertTrue(journal.isUploaded(touched));
+            assertFalse(journal.isUploaded(touchedPom));
+        }
+        // 内容相同时追加了一条新记录，之后直接按修改时间命中
+        try (UploadJournal journal = UploadJournal.open(journalFile, TARGET)) {
+            assertEquals(2, journal.size());
+            assertTrue(journal.isUploaded(touched));
+        }
+
+        Files.write(jar.getPath(), "jar CONTENT".getBytes(StandardCharsets.UTF_8));
+        ArtifactFile rewritten = touch(artifact(jar.getRelativePath(), null), 10000);
+        try (UploadJournal journal = UploadJournal.open(journalFile, TARGET)) {
+            assertFalse(journal.isUploaded(rewritten));
+        }
+    }
+
+    /**
+     * 目录列表没有给出大小和修改时间的远程构件（-1和0）不会因为记录中也是-1和0而被当作已上传，
+     * 源仓库给出了SHA-1时按SHA-1判断
+     */
+    @Test
+    public void unknownSizeIsNeverTakenAsUploaded() throws IOException {
+        String sha1 = "0123456789abcdef0123456789abcdef01234567";
+        try (RemoteRepository source = new RemoteRepository("http://127.0.0.1:1/repository/source/", 1, false);
+                UploadJournal journal = UploadJournal.open(journalFile, TARGET)) {
+            ArtifactFile unknown = new ArtifactFile(source, "org/example/foo/1.0/foo-1.0.jar", -1, 0, null, "jar");
+            journal.record(unknown, null);
+            assertFalse(journal.isUploaded(unknown));
+
+            ArtifactFile withSha1 = new ArtifactFile(source, "org/example/foo/1.0/foo-1.0.pom", -1, 0, sha1, "pom");
+            journal.record(withSha1, sha1);
+            assertTrue(journal.isUploaded(withSha1));
+            assertFalse(journal.isUploaded(new ArtifactFile(source, withSha1.getRelativePath(), -1, 0,
+                    sha1.replace('0', 'f'), "pom")));
+            // 只按SHA-1命中时不追加记录
+            assertEquals(3, Files.readAllLines(journalFile, StandardCharsets.UTF_8).size());
+        }
+    }
+
+    /**
+     * 同一路径的多条记录以最后一条为准
+     */
+    @Test
+    public void lastRecordWins() throws IOException {
+        ArtifactFile first = artifact("org/example/foo/1.0/foo-1.0.jar", "first");
+        try (UploadJournal journal = UploadJournal.open(journalFile, TARGET)) {
+            journal.record(first, null);
+        }
+        ArtifactFile second = artifact("org/example/foo/1.0/foo-1.0.jar", "second version");
+        try (UploadJournal journal = UploadJournal.open(journalFile, TARGET)) {
+            journal.record(second, null);
+        }
+        try (UploadJournal journal = UploadJournal.open(journalFile, TARGET)) {
+            assertEquals(1, journal.size());
+            assertTrue(journal.isUploaded(second));
+            assertFalse(journal.isUploaded(first));
+        }
+    }
+
+    /**
+     * 进程崩溃留下的残缺行在加载时跳过，之后追加的记录从新的一行开始
+     */
+    @Test
+    public void skipsTruncatedLineAndKeepsAppending() throws IOException {
+        ArtifactFile jar = artifact("org/example/foo/1.0/foo-1.0.jar", "jar content");
+        ArtifactFile pom = artifact("org/example/foo/1.0/foo-1.0.pom", "<project/>");
+        try (UploadJournal journal = UploadJournal.open(journalFile, TARGET)) {
+            journal.record(jar, null);
+        }
+        Files.write(journalFile, "123\t456".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+        try (UploadJournal journal = UploadJournal.open(journalFile, TARGET)) {
+            assertEquals(1, journal.size());
+            journal.record(pom, null);
+        }
+        try (UploadJournal journal = UploadJournal.open(journalFile, TARGET)) {
+            assertEquals(2, journal.size());
+            assertTrue(journal.isUploaded(jar));
+            assertTrue(journal.isUploaded(pom));
+        }
+    }
+
+    /**
+     * 记录数超过初始容量时扩容，扩容后已有记录仍能找到，未记录的路径不会误判为已上传
+     */
+    @Test
+    public void indexGrowsWithoutFalseHits() throws IOException {
+        int records = 100000;
+        try (UploadJournal journal = UploadJournal.open(journalFile, TARGET)) {
+            for (int i = 0; i < records; i++) {
+                journal.record(entry("org/example/a" + i + "/1.0/a" + i + "-1.0.jar", i), null);
+            }
+        }
+        try (UploadJournal journal = UploadJournal.open(journalFile, TARGET)) {
+            assertEquals(records, journal.size());
+            for (int i = 0; i < records; i++) {
+                assertTrue(journal.isUploaded(entry("org/example/a" + i + "/1.0/a" + i + "-1.0.jar", i)));
+                assertFalse(journal.isUploaded(entry("org/example/a" + i + "/1.0/a" + i + "-1.0.pom", i)));
+            }
+        }
+    }
+
+    private ArtifactFile artifact(String relativePath, String content) throws IOException {
+        Path file = folder.getRoot().toPath().resolve(relativePath);
+        if (content != null) {
+            Files.createDirectories(file.getParent());
+            Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+        }
+        return new ArtifactFile(file, relativePath, Files.size(file), Files.getLastModifiedTime(file).toMillis(),
+                relativePath.substring(relativePath.lastIndexOf('.') + 1));
+    }
+
+    private static ArtifactFile touch(ArtifactFile artifact, long millis) throws IOException {
+        return new ArtifactFile(artifact.getPath(), artifact.getRelativePath(), Files.size(artifact.getPath()),
+                artifact.getLastModified() + millis, artifact.getType());
+    }
+
+    private static ArtifactFile entry(String relativePath, long size) {
+        return new ArtifactFile(null, relativePath, size, 1000L, "jar");
+    }
+}
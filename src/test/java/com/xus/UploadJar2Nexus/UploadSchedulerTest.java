@@ -0,0 +1,185 @@
+package com.xus.UploadJar2Nexus;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+public class UploadSchedulerTest {
+    private static final long LARGE = UploadScheduler.SMALL_FILE_BYTES * 4;
+
+    @Test
+    public void fifoKeepsScanOrder() throws InterruptedException {
+        UploadScheduler scheduler = new UploadScheduler(UploadScheduler.Policy.FIFO, false, 1, 16);
+        put(scheduler, "a/b/1.0/b-1.0.jar", 10);
+        put(scheduler, "a/c/1.0/c-1.0.jar", LARGE);
+        put(scheduler, "a/d/1.0/d-1.0.jar", 100);
+        scheduler.close();
+        assertEquals(Arrays.asList("b-1.0.jar", "c-1.0.jar", "d-1.0.jar"), drain(scheduler));
+    }
+
+    /**
+     * 先大后小，大小相同时按扫描顺序
+     */
+    @Test
+    public void largestFirstOrdersBySize() throws InterruptedException {
+        UploadScheduler scheduler = new UploadScheduler(UploadScheduler.Policy.LARGEST_FIRST, false, 1, 16);
+        put(scheduler, "a/b/1.0/b-1.0.jar", 10);
+        put(scheduler, "a/c/1.0/c-1.0.jar", LARGE);
+        put(scheduler, "a/d/1.0/d-1.0.jar", 100);
+        put(scheduler, "a/e/1.0/e-1.0.jar", 100);
+        scheduler.close();
+        assertEquals(Arrays.asList("c-1.0.jar", "d-1.0.jar", "e-1.0.jar", "b-1.0.jar"), drain(scheduler));
+    }
+
+    /**
+     * 取出JAR时同一GAV目录的POM还在队列中，先交出POM
+     */
+    @Test
+    public void pomFirstWithinGav() throws InterruptedException {
+        UploadScheduler scheduler = new UploadScheduler(UploadScheduler.Policy.LARGEST_FIRST, true, 1, 16);
+        put(scheduler, "a/b/1.0/b-1.0.jar", LARGE);
+        put(scheduler, "a/c/1.0/c-1.0.jar", LARGE * 2);
+        put(scheduler, "a/b/1.0/b-1.0.pom", 10);
+        put(scheduler, "a/c/1.0/c-1.0.pom", 20);
+        scheduler.close();
+        assertEquals(Arrays.asList("c-1.0.pom", "c-1.0.jar", "b-1.0.pom", "b-1.0.jar"), drain(scheduler));
+    }
+
+    @Test
+    public void batchesSmallFiles() throws InterruptedException {
+        UploadScheduler scheduler = new UploadScheduler(UploadScheduler.Policy.FIFO, false, 3, 16);
+        put(scheduler, "a/b/1.0/b-1.0.pom", 10);
+        put(scheduler, "a/b/1.0/b-1.0.jar", 20);
+        put(scheduler, "a/b/1.0/b-1.0-sources.jar", 30);
+        put(scheduler, "a/b/1.0/b-1.0-javadoc.jar", 40);
+        put(scheduler, "a/c/1.0/c-1.0.jar", LARGE);
+        put(scheduler, "a/d/1.0/d-1.0.jar", 50);
+        scheduler.close();
+        assertEquals(Arrays.asList("b-1.0.pom", "b-1.0.jar", "b-1.0-sources.jar"), names(scheduler.take()));
+        // 下一个文件是大文件时批次到此为止
+        assertEquals(Arrays.asList("b-1.0-javadoc.jar"), names(scheduler.take()));
+        assertEquals(Arrays.asList("c-1.0.jar"), names(scheduler.take()));
+        assertEquals(Arrays.asList("d-1.0.jar"), names(scheduler.take()));
+        assertTrue(scheduler.take().isEmpty());
+    }
+
+    /**
+     * 一组文件整体取出，不与前后的小文件合并
+     */
+    @Test
+    public void groupsStayTogether() throws InterruptedException {
+        UploadScheduler scheduler = new UploadScheduler(UploadScheduler.Policy.FIFO, true, 4, 16);
+        put(scheduler, "a/x/1.0/x-1.0.jar", 10);
+        scheduler.putGroup(Arrays.asList(artifact("a/b/1.0/b-1.0.jar", 20), artifact("a/b/1.0/b-1.0.pom", 10)));
+        put(scheduler, "a/y/1.0/y-1.0.jar", 10);
+        scheduler.close();
+        assertEquals(Arrays.asList("x-1.0.jar"), names(scheduler.take()));
+        assertEquals(Arrays.asList("b-1.0.jar", "b-1.0.pom"), names(scheduler.take()));
+        assertEquals(Arrays.asList("y-1.0.jar"), names(scheduler.take()));
+        assertTrue(scheduler.take().isEmpty());
+    }
+
+    /**
+     * 队列已满时put阻塞扫描线程，取出后继续
+     */
+    @Test
+    public void putBlocksWhenFull() throws InterruptedException {
+        final UploadScheduler scheduler = new UploadScheduler(UploadScheduler.Policy.FIFO, false, 1, 2);
+        put(scheduler, "a/b/1.0/b-1.0.jar", 10);
+        put(scheduler, "a/c/1.0/c-1.0.jar", 10);
+        final CountDownLatch added = new CountDownLatch(1);
+        Thread producer = new Thread(() -> {
+            try {
+                put(scheduler, "a/d/1.0/d-1.0.jar", 10);
+                added.countDown();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        producer.start();
+        assertFalse(added.await(100, TimeUnit.MILLISECONDS));
+        assertEquals(2, scheduler.size());
+
+        assertEquals(Arrays.asList("b-1.0.jar"), names(scheduler.take()));
+        assertTrue(added.await(1, TimeUnit.SECONDS));
+        producer.join();
+        scheduler.close();
+        assertEquals(Arrays.asList("c-1.0.jar", "d-1.0.jar"), drain(scheduler));
+    }
+
+    /**
+     * 关闭后等待中的take返回空列表，工作线程据此退出；关闭后不能再加入文件
+     */
+    @Test
+    public void closeReleasesWaitingWorkers() throws InterruptedException {
+        final UploadScheduler scheduler = new UploadScheduler(UploadScheduler.Policy.FIFO, false, 1, 2);
+        final List<List<ArtifactFile>> results = new ArrayList<>();
+        Thread worker = new Thread(() -> {
+            try {
+                results.add(scheduler.take());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        worker.start();
+        Thread.sleep(50);
+        scheduler.close();
+        worker.join(1000);
+        assertFalse(worker.isAlive());
+        assertEquals(1, results.size());
+        assertTrue(results.get(0).isEmpty());
+        try {
+            put(scheduler, "a/b/1.0/b-1.0.jar", 10);
+            fail("put after close should fail");
+        } catch (IllegalStateException e) {
+            // 预期
+        }
+    }
+
+    @Test
+    public void parsesPolicyOption() {
+        assertEquals(UploadScheduler.Policy.FIFO, UploadScheduler.Policy.fromOption("fifo"));
+        assertEquals(UploadScheduler.Policy.LARGEST_FIRST, UploadScheduler.Policy.fromOption("Largest-First"));
+        try {
+            UploadScheduler.Policy.fromOption("random");
+            fail("unknown policy should fail");
+        } catch (IllegalArgumentException e) {
+            // 预期
+        }
+    }
+
+    private static void put(UploadScheduler scheduler, String relativePath, long size) throws InterruptedException {
+        scheduler.put(artifact(relativePath, size));
+    }
+
+    private static ArtifactFile artifact(String relativePath, long size) {
+        return new ArtifactFile(null, relativePath, size, 1, relativePath.substring(relativePath.lastIndexOf('.') + 1));
+    }
+
+    private static List<String> drain(UploadScheduler scheduler) throws InterruptedException {
+        List<String> names = new ArrayList<>();
+        List<ArtifactFile> batch;
+        while (!(batch = scheduler.take()).isEmpty()) {
+            names.addAll(names(batch));
+        }
+        return names;
+    }
+
+    private static List<String> names(List<ArtifactFile> batch) {
+        List<String> names = new ArrayList<>(batch.size());
+        for (ArtifactFile artifact : batch) {
+            String path = artifact.getRelativePath();
+            names.add(path.substring(path.lastIndexOf('/') + 1));
+        }
+        return names;
+    }
+}